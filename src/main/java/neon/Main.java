@@ -19,8 +19,14 @@
 package neon;
 
 import java.io.IOException;
+import java.util.EventObject;
+import java.util.List;
 import neon.core.Engine;
 import neon.core.GameContext;
+import neon.core.event.CombatEvent;
+import neon.core.event.MagicEvent;
+import neon.core.event.TurnEvent;
+import neon.core.event.UpdateEvent;
 import neon.systems.io.LocalPort;
 import neon.ui.Client;
 
@@ -39,9 +45,11 @@ public class Main {
    * @param args the command line arguments
    */
   public static void main(String[] args) throws IOException {
-    // create and connect ports
-    LocalPort cPort = new LocalPort("Client");
-    LocalPort sPort = new LocalPort("Server");
+    // create and connect ports, the events of every turn are dispatched directly
+    List<Class<? extends EventObject>> direct =
+        List.of(TurnEvent.class, UpdateEvent.class, CombatEvent.class, MagicEvent.class);
+    LocalPort cPort = new LocalPort("Client", direct);
+    LocalPort sPort = new LocalPort("Server", direct);
     cPort.connect(sPort);
     sPort.connect(cPort);
 
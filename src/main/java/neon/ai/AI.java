@@ -21,7 +21,7 @@ package neon.ai;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.io.Serializable;
-import java.util.HashMap;
+import java.util.SplittableRandom;
 import neon.core.GameContext;
 import neon.core.event.CombatEvent;
 import neon.core.event.MagicEvent;
@@ -31,14 +31,16 @@ import neon.entities.Creature;
 import neon.entities.Door;
 import neon.entities.Item;
 import neon.entities.Weapon;
-import neon.entities.components.FactionComponent;
+import neon.entities.components.Lock;
 import neon.entities.property.Condition;
 import neon.entities.property.Skill;
 import neon.entities.property.Slot;
 import neon.magic.Effect;
+import neon.maps.FieldOfView;
 import neon.resources.RItem;
 import neon.resources.RSpell;
 import neon.resources.RWeapon.WeaponType;
+import neon.util.LongIntMap;
 
 /**
  * This class implements a creature's AI.
@@ -46,15 +48,42 @@ import neon.resources.RWeapon.WeaponType;
  * @author mdriesen
  */
 public abstract class AI implements Serializable {
+  protected static final int SIGHT = 16; // how far a creature can see
+
+  /**
+   * How a creature moves: towards a destination along the flow field or a searched path, away from
+   * it along the flow field, or towards it along a searched path only.
+   */
+  public enum Move {
+    CHASE,
+    FLEE,
+    TRAVEL
+  }
+
+  /**
+   * The next step of a creature, worked out before it acts. The step is only taken as long as the
+   * creature, its destination and the terrain are still as they were when it was worked out.
+   *
+   * @param move how the creature moves
+   * @param from the position of the creature
+   * @param to the destination
+   * @param version the version of the passability grid
+   * @param step the next step, or {@code null} if there is none
+   */
+  public record Plan(Move move, Point from, Point to, int version, Point step) {}
+
   protected byte aggression;
   protected byte confidence;
   protected Creature creature;
-  protected HashMap<Long, Integer> dispositions = new HashMap<Long, Integer>();
+  protected LongIntMap dispositions = new LongIntMap(); // towards other creatures, by uid
   protected final GameContext gameContext;
   protected final MotionHandler motionHandler;
   protected final CombatUtils combatUtils;
   protected final PathFinder pathFinder;
   protected final InventoryHandler inventoryHandler;
+  private transient Plan plan; // for the current call of act()
+  private transient SplittableRandom random; // of the turn in which the creature last acted
+  private transient int turn;
 
   /**
    * Initializes a new AI.
@@ -77,6 +106,48 @@ public abstract class AI implements Serializable {
   /** Lets the creature with this AI act. */
   public abstract void act();
 
+  /**
+   * Works out the next step of the creature with this AI without changing anything, so several
+   * creatures can plan at the same time on different threads.
+   *
+   * @return the plan, or {@code null} if there is nothing to work out in advance
+   */
+  public Plan plan() {
+    return null;
+  }
+
+  /**
+   * Lets the creature with this AI act, taking the step of a plan that was made earlier in the
+   * turn if the plan still holds.
+   *
+   * @param plan the plan, or {@code null}
+   * @param turn the current turn
+   */
+  public void act(Plan plan, int turn) {
+    if (random == null || turn != this.turn) {
+      random = gameContext.getTimer().getRandom(turn, creature.getUID());
+      this.turn = turn;
+    }
+    this.plan = plan;
+    try {
+      act();
+    } finally {
+      this.plan = null;
+    }
+  }
+
+  /*
+   * The random numbers of the creature in the current turn, drawn from the seed of the game so a
+   * game that is played again makes the same choices.
+   */
+  protected SplittableRandom random() {
+    if (random == null) { // acting without being told the turn
+      turn = gameContext.getTimer().getTime();
+      random = gameContext.getTimer().getRandom(turn, creature.getUID());
+    }
+    return random;
+  }
+
   /**
    * @return whether the creature with this AI is hostile towards the player
    */
@@ -95,10 +166,7 @@ public abstract class AI implements Serializable {
 
   /** Reduces the aggression of the creature with this AI */
   public void charm(Creature other, int magnitude) {
-    if (dispositions.containsKey(other.getUID())) {
-      magnitude += dispositions.get(other.getUID());
-    }
-    dispositions.put(other.getUID(), magnitude);
+    dispositions.add(other.getUID(), magnitude);
   }
 
   /**
@@ -106,20 +174,17 @@ public abstract class AI implements Serializable {
    * @return the disposition of the creature with this AI towards the given creature
    */
   public byte getDisposition(Creature other) {
-    byte disposition = (byte) (40 + other.getStatsComponent().getCha());
-    if (creature.species.id.equals(other.species.id)) {
-      disposition += 5; // same species is ok
-    }
-    FactionComponent factions = creature.getFactionComponent();
-    for (String faction : factions.getFactions().keySet()) {
-      if (factions.isMember(faction)) {
-        disposition += 10; // same faction is even better
+    int disposition = 40 + other.getStatsComponent().getCha();
+    // same species is ok, same faction is even better
+    disposition +=
+        Relations.getSpeciesRelation(creature.getSpeciesIndex(), other.getSpeciesIndex());
+    for (int faction : creature.getFactionComponent().getFactionIndices()) {
+      for (int theirs : other.getFactionComponent().getFactionIndices()) {
+        disposition += Relations.getFactionRelation(faction, theirs);
       }
     }
-    if (dispositions.containsKey(other.getUID())) {
-      disposition += dispositions.get(other.getUID());
-    }
-    return disposition;
+    disposition += dispositions.getOrDefault(other.getUID(), 0);
+    return (byte) disposition;
   }
 
   /**
@@ -156,9 +221,7 @@ public abstract class AI implements Serializable {
       return false;
     } else {
       // TODO: take into account sneaking and lights
-      Rectangle cBounds = creature.getShapeComponent();
-      Rectangle oBounds = other.getShapeComponent();
-      return Point.distance(cBounds.x, cBounds.y, oBounds.x, oBounds.y) < 16;
+      return sees(other.getShapeComponent().getLocation());
     }
   }
 
@@ -173,7 +236,8 @@ public abstract class AI implements Serializable {
       return false;
     } else {
       Rectangle bounds = creature.getShapeComponent();
-      return p.distance(bounds.x, bounds.y) < 16;
+      FieldOfView fov = gameContext.getAtlas().getCurrentZone().getFieldOfView();
+      return fov.getView(bounds.x, bounds.y, SIGHT).contains(p.x, p.y);
     }
   }
 
@@ -183,7 +247,7 @@ public abstract class AI implements Serializable {
   protected boolean heal() {
     // first check potions and scrolls?
     for (long uid : creature.getInventoryComponent()) {
-      Item item = (Item) gameContext.getStore().getEntity(uid);
+      Item item = (Item) gameContext.getStore().readEntity(uid);
       if (item instanceof Item.Scroll || item instanceof Item.Potion) {
         RSpell formula = item.getMagicComponent().getSpell();
 
@@ -233,7 +297,7 @@ public abstract class AI implements Serializable {
   private boolean cure(Effect effect) {
     // first check potions and scrolls?
     for (long uid : creature.getInventoryComponent()) {
-      Item item = (Item) gameContext.getStore().getEntity(uid);
+      Item item = (Item) gameContext.getStore().readEntity(uid);
       if (item instanceof Item.Scroll || item instanceof Item.Potion) {
         RSpell formula = item.getMagicComponent().getSpell();
         if (formula.effect.equals(effect) && formula.range == 0) {
@@ -266,7 +330,7 @@ public abstract class AI implements Serializable {
    */
   private boolean equip(Slot slot) {
     for (long uid : creature.getInventoryComponent()) {
-      Item item = (Item) gameContext.getStore().getEntity(uid);
+      Item item = (Item) gameContext.getStore().readEntity(uid);
       if (item instanceof Weapon && slot.equals(((Weapon) item).getSlot())) {
         WeaponType type = ((Weapon) item).getWeaponType();
         inventoryHandler.equip(item, creature);
@@ -299,19 +363,22 @@ public abstract class AI implements Serializable {
     Rectangle cBounds = creature.getShapeComponent();
     Rectangle hBounds = hunter.getShapeComponent();
 
-    int dx = 0;
-    int dy = 0;
-    if (cBounds.x < hBounds.x) {
-      dx = -1;
-    } else if (cBounds.x > hBounds.x) {
-      dx = 1;
-    }
-    if (cBounds.y < hBounds.y) {
-      dy = -1;
-    } else if (cBounds.y > hBounds.y) {
-      dy = 1;
+    Point p = next(Move.FLEE, cBounds.getLocation(), hBounds.getLocation());
+    if (p == null) { // no flow field, out of reach or cornered: just run straight away
+      int dx = 0;
+      int dy = 0;
+      if (cBounds.x < hBounds.x) {
+        dx = -1;
+      } else if (cBounds.x > hBounds.x) {
+        dx = 1;
+      }
+      if (cBounds.y < hBounds.y) {
+        dy = -1;
+      } else if (cBounds.y > hBounds.y) {
+        dy = 1;
+      }
+      p = new Point(cBounds.x + dx, cBounds.y + dy);
     }
-    Point p = new Point(cBounds.x + dx, cBounds.y + dy);
 
     if (gameContext.getAtlas().getCurrentZone().getCreature(p) == null) {
       byte result = motionHandler.move(creature, p);
@@ -330,18 +397,18 @@ public abstract class AI implements Serializable {
   private boolean open(Point p) {
     Door door = null;
     for (long uid : gameContext.getAtlas().getCurrentZone().getItems(p)) {
-      if (gameContext.getStore().getEntity(uid) instanceof Door) {
-        door = (Door) gameContext.getStore().getEntity(uid);
+      if (gameContext.getStore().readEntity(uid) instanceof Door d) {
+        door = d;
       }
     }
     if (door != null) {
       if (door.lock.isLocked()
           && door.lock.getKey() != null
           && hasItem(creature, door.lock.getKey())) {
-        door.lock.unlock();
+        gameContext.getAtlas().getCurrentZone().changeLock(door.lock, Lock::unlock);
         return true;
       } else if (door.lock.isClosed()) {
-        door.lock.open();
+        gameContext.getAtlas().getCurrentZone().changeLock(door.lock, Lock::open);
         return true;
       }
     }
@@ -385,8 +452,8 @@ public abstract class AI implements Serializable {
     Rectangle cBounds = creature.getShapeComponent();
     Rectangle pBounds = gameContext.getPlayer().getShapeComponent();
 
-    int dx = 1 - (int) (Math.random() * 3);
-    int dy = 1 - (int) (Math.random() * 3);
+    int dx = 1 - random().nextInt(3);
+    int dy = 1 - random().nextInt(3);
     Point p = new Point(cBounds.x + dx, cBounds.y + dy);
     Point player = pBounds.getLocation();
 
@@ -403,7 +470,7 @@ public abstract class AI implements Serializable {
     Rectangle cBounds = creature.getShapeComponent();
 
     Point player = pBounds.getLocation();
-    Point next = pathFinder.findPath(creature, cBounds.getLocation(), destination)[0];
+    Point next = next(Move.TRAVEL, cBounds.getLocation(), destination);
     if (gameContext.getAtlas().getCurrentZone().getCreature(next) == null && !player.equals(next)) {
       motionHandler.move(creature, next);
     }
@@ -413,7 +480,7 @@ public abstract class AI implements Serializable {
    * hunt: chase a prey
    */
   protected void hunt(Creature prey) {
-    int dice = neon.util.Dice.roll(1, 2, 0);
+    int dice = 1 + random().nextInt(2);
     Rectangle creaturePos = creature.getShapeComponent();
     Rectangle preyPos = prey.getShapeComponent();
 
@@ -456,15 +523,15 @@ public abstract class AI implements Serializable {
         dy = -1;
       }
       p = new Point(creaturePos.x + dx, creaturePos.y + dy);
-    } else { // if creature is smarter, try A*
+    } else { // if creature is smarter, follow the flow field or try A*
       Rectangle cBounds = creature.getShapeComponent();
       Rectangle pBounds = prey.getShapeComponent();
-      p = pathFinder.findPath(creature, cBounds.getLocation(), pBounds.getLocation())[0];
+      p = next(Move.CHASE, cBounds.getLocation(), pBounds.getLocation());
     }
 
     if (p.distance(preyPos.x, preyPos.y) < 1) {
       long uid = creature.getInventoryComponent().get(Slot.WEAPON);
-      Weapon weapon = (Weapon) gameContext.getStore().getEntity(uid);
+      Weapon weapon = (Weapon) gameContext.getStore().readEntity(uid);
       if (creature.getInventoryComponent().hasEquiped(Slot.WEAPON) && weapon.isRanged()) {
         if (!(combatUtils.getWeaponType(creature).equals(WeaponType.THROWN) || equip(Slot.AMMO))) {
           inventoryHandler.unequip(weapon.getUID(), creature);
@@ -482,9 +549,59 @@ public abstract class AI implements Serializable {
     }
   }
 
+  /*
+   * plan(move, destination): work out the next step of a move from where the creature is now
+   */
+  protected Plan plan(Move move, Point destination) {
+    Point from = creature.getShapeComponent().getLocation();
+    int version = gameContext.getAtlas().getCurrentZone().getPassability().getVersion();
+    return new Plan(move, from, destination, version, step(move, from, destination));
+  }
+
+  /*
+   * planHunt(prey): work out the next step towards a prey, clumsy creatures don't look for one
+   */
+  protected Plan planHunt(Creature prey) {
+    if (creature.getStatsComponent().getInt() < 5) {
+      return null;
+    }
+    return plan(Move.CHASE, prey.getShapeComponent().getLocation());
+  }
+
+  /*
+   * next(move, from, to): the next step of a move, taken from the plan if it still holds
+   */
+  private Point next(Move move, Point from, Point to) {
+    Plan plan = this.plan;
+    if (plan != null
+        && plan.move() == move
+        && plan.from().equals(from)
+        && plan.to().equals(to)
+        && plan.version()
+            == gameContext.getAtlas().getCurrentZone().getPassability().getVersion()) {
+      return plan.step();
+    }
+    return step(move, from, to);
+  }
+
+  private Point step(Move move, Point from, Point to) {
+    return switch (move) {
+      case CHASE -> {
+        FlowField field = pathFinder.getFlowField(to);
+        Point p = field != null ? field.downhill(from) : null;
+        yield p != null ? p : pathFinder.nextStep(creature, from, to);
+      }
+      case FLEE -> {
+        FlowField field = pathFinder.getFlowField(to);
+        yield field != null ? field.uphill(from) : null;
+      }
+      case TRAVEL -> pathFinder.nextStep(creature, from, to);
+    };
+  }
+
   private boolean hasItem(Creature creature, RItem item) {
     for (long uid : creature.getInventoryComponent()) {
-      if (gameContext.getStore().getEntity(uid).getID().equals(item.id)) {
+      if (gameContext.getStore().readEntity(uid).getID().equals(item.id)) {
         return true;
       }
     }
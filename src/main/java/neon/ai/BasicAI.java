@@ -33,7 +33,7 @@ public class BasicAI extends AI {
       HealthComponent health = creature.getHealthComponent();
       if (100 * health.getHealth() / health.getBaseHealth() < confidence) {
         // 80% chance to just flee, 20% chance to heal; if no heal spell, flee anyway
-        if (Math.random() > 0.2 || !(cure() || heal())) {
+        if (random().nextDouble() > 0.2 || !(cure() || heal())) {
           flee(gameContext.getPlayer());
         }
       } else {
@@ -43,4 +43,17 @@ public class BasicAI extends AI {
       wander();
     }
   }
+
+  public Plan plan() {
+    if (isHostile() && sees(gameContext.getPlayer())) {
+      HealthComponent health = creature.getHealthComponent();
+      if (100 * health.getHealth() / health.getBaseHealth() < confidence) {
+        return plan(Move.FLEE, gameContext.getPlayer().getShapeComponent().getLocation());
+      } else {
+        return planHunt(gameContext.getPlayer());
+      }
+    } else {
+      return null; // wandering around is decided on the spot
+    }
+  }
 }
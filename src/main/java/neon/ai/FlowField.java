@@ -0,0 +1,184 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.ai;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import neon.maps.PassabilityGrid;
+
+/**
+ * A distance map towards a target, within a square around the target. Instead of searching a path
+ * each, creatures that chase the target step to the neighbouring position with the lowest
+ * distance, and creatures that flee step to the one with the highest distance.
+ *
+ * <p>The costs are the same for every creature: a step costs 1, swimming, climbing and doors add a
+ * fixed penalty. A flow field does not change after it was computed.
+ *
+ * @author priewe
+ */
+public class FlowField {
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+  static final int TERRAIN_PENALTY = 10; // the penalty for a creature with a skill of 50
+  static final int DOOR_PENALTY = 1;
+  private static volatile FlowField last; // the field that was computed last
+
+  private final PassabilityGrid grid;
+  private final int version; // of the grid when this field was computed
+  private final int targetX, targetY, radius;
+  private final int x, y, width, height; // the part of the grid that is covered
+  private final int[] distance;
+
+  private FlowField(PassabilityGrid grid, Point target, int radius) {
+    this.grid = grid;
+    this.version = grid.getVersion();
+    this.targetX = target.x;
+    this.targetY = target.y;
+    this.radius = radius;
+
+    x = target.x - radius;
+    y = target.y - radius;
+    width = 2 * radius + 1;
+    height = 2 * radius + 1;
+    distance = new int[width * height];
+    Arrays.fill(distance, UNREACHABLE);
+    grid.load(new Rectangle(x, y, width, height)); // the search may visit all of it
+    compute();
+  }
+
+  /**
+   * Returns the flow field towards a target. The field that was computed last is reused if it
+   * belongs to the same version of the grid, target and radius.
+   *
+   * @param grid the passability grid of the zone
+   * @param target the position of the target
+   * @param radius the distance from the target that is covered
+   * @return the flow field
+   */
+  public static FlowField toward(PassabilityGrid grid, Point target, int radius) {
+    FlowField field = last;
+    if (field == null
+        || field.grid != grid
+        || field.version != grid.getVersion()
+        || field.targetX != target.x
+        || field.targetY != target.y
+        || field.radius != radius) {
+      field = new FlowField(grid, target, radius);
+      last = field;
+    }
+    return field;
+  }
+
+  private void compute() {
+    NodeHeap open = new NodeHeap();
+    boolean[] closed = new boolean[distance.length];
+    int start = index(targetX, targetY);
+    distance[start] = 0;
+    open.push(0, start);
+
+    while (!open.isEmpty()) {
+      int node = open.pop();
+      if (closed[node]) {
+        continue; // an older entry with a higher distance
+      }
+      closed[node] = true;
+      int px = x + node % width;
+      int py = y + node / width;
+      int d = distance[node];
+      for (int i = 0; i < 8; i++) {
+        int nx = px + PathFinder.DX[i];
+        int ny = py + PathFinder.DY[i];
+        if (!contains(nx, ny)) {
+          continue;
+        }
+        int cell = grid.get(nx, ny);
+        int modifier = cell & PassabilityGrid.BLOCK;
+        if (modifier == PassabilityGrid.BLOCK) {
+          continue;
+        }
+        int cost = d + 1;
+        if (modifier != PassabilityGrid.NONE) {
+          cost += TERRAIN_PENALTY;
+        }
+        if ((cell & PassabilityGrid.DOOR) != 0) {
+          cost += DOOR_PENALTY;
+        }
+        int neighbour = index(nx, ny);
+        if (cost < distance[neighbour]) {
+          distance[neighbour] = cost;
+          open.push(cost, neighbour);
+        }
+      }
+    }
+  }
+
+  private boolean contains(int px, int py) {
+    return px >= x && py >= y && px < x + width && py < y + height;
+  }
+
+  private int index(int px, int py) {
+    return (py - y) * width + px - x;
+  }
+
+  /**
+   * @return the distance from the given position to the target, or {@code UNREACHABLE}
+   */
+  public int getDistance(int px, int py) {
+    return contains(px, py) ? distance[index(px, py)] : UNREACHABLE;
+  }
+
+  /**
+   * @param from a position
+   * @return the neighbouring position that is closest to the target, or {@code null} if no
+   *     neighbour is closer than the given position
+   */
+  public Point downhill(Point from) {
+    int best = getDistance(from.x, from.y);
+    int step = -1;
+    for (int i = 0; i < 8; i++) {
+      int d = getDistance(from.x + PathFinder.DX[i], from.y + PathFinder.DY[i]);
+      if (d < best) {
+        best = d;
+        step = i;
+      }
+    }
+    return step < 0 ? null : new Point(from.x + PathFinder.DX[step], from.y + PathFinder.DY[step]);
+  }
+
+  /**
+   * @param from a position
+   * @return the neighbouring position that is farthest from the target, or {@code null} if no
+   *     reachable neighbour is farther away than the given position
+   */
+  public Point uphill(Point from) {
+    int best = getDistance(from.x, from.y);
+    if (best == UNREACHABLE) {
+      return null;
+    }
+    int step = -1;
+    for (int i = 0; i < 8; i++) {
+      int d = getDistance(from.x + PathFinder.DX[i], from.y + PathFinder.DY[i]);
+      if (d > best && d != UNREACHABLE) {
+        best = d;
+        step = i;
+      }
+    }
+    return step < 0 ? null : new Point(from.x + PathFinder.DX[step], from.y + PathFinder.DY[step]);
+  }
+}
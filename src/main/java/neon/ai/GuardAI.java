@@ -44,7 +44,7 @@ public class GuardAI extends AI {
       HealthComponent health = creature.getHealthComponent();
       if (100 * health.getHealth() / health.getBaseHealth() < confidence / 100) {
         // 80% chance to just flee, 20% chance to heal; if no heal spell, flee anyway
-        if (Math.random() > 0.2 || !(cure() || heal())) {
+        if (random().nextDouble() > 0.2 || !(cure() || heal())) {
           flee(gameContext.getPlayer());
         }
       } else {
@@ -54,4 +54,19 @@ public class GuardAI extends AI {
       wander(range, home);
     }
   }
+
+  public Plan plan() {
+    ShapeComponent cBounds = creature.getShapeComponent();
+    ShapeComponent pBounds = gameContext.getPlayer().getShapeComponent();
+    if (isHostile() && cBounds.getLocation().distance(pBounds.getLocation()) < range) {
+      HealthComponent health = creature.getHealthComponent();
+      if (100 * health.getHealth() / health.getBaseHealth() < confidence / 100) {
+        return plan(Move.FLEE, pBounds.getLocation());
+      } else {
+        return planHunt(gameContext.getPlayer());
+      }
+    } else {
+      return null; // wandering around is decided on the spot
+    }
+  }
 }
@@ -26,7 +26,6 @@ import neon.entities.Creature;
 import neon.entities.components.ShapeComponent;
 import neon.entities.property.Skill;
 import neon.resources.RSpell;
-import neon.util.Dice;
 
 public class HuntBehaviour implements Behaviour {
   private final Creature creature;
@@ -42,7 +41,8 @@ public class HuntBehaviour implements Behaviour {
   }
 
   public void act() {
-    int dice = Dice.roll(1, 2, 0);
+    // the dice of the creature, the AI draws from another stream
+    int dice = gameContext.getTimer().getDice(creature.getUID()).rollDice(1, 2, 0);
     Rectangle creaturePos = creature.getShapeComponent();
     Rectangle preyPos = prey.getShapeComponent();
 
@@ -85,10 +85,14 @@ public class HuntBehaviour implements Behaviour {
         dy = -1;
       }
       p = new Point(creaturePos.x + dx, creaturePos.y + dy);
-    } else { // if creature is smarter, try A*
+    } else { // if creature is smarter, follow the flow field or try A*
       ShapeComponent cBounds = creature.getShapeComponent();
       ShapeComponent pBounds = prey.getShapeComponent();
-      p = pathFinder.findPath(creature, cBounds.getLocation(), pBounds.getLocation())[0];
+      FlowField field = pathFinder.getFlowField(pBounds.getLocation());
+      p = field != null ? field.downhill(cBounds.getLocation()) : null;
+      if (p == null) {
+        p = pathFinder.nextStep(creature, cBounds.getLocation(), pBounds.getLocation());
+      }
     }
 
     if (p.distance(preyPos.x, preyPos.y) < 1) {
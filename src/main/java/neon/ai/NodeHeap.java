@@ -0,0 +1,86 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.ai;
+
+import java.util.Arrays;
+
+/**
+ * A binary heap of grid positions, ordered by cost. Every entry is a single long with the cost in
+ * the high bits and the position in the low bits, so positions with the same cost come out in
+ * index order. A position can be pushed more than once; it is up to the caller to skip the
+ * entries that became outdated.
+ *
+ * @author priewe
+ */
+class NodeHeap {
+  private long[] heap = new long[64];
+  private int size;
+
+  void clear() {
+    size = 0;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @param cost the cost of the position, not negative
+   * @param node the index of the position
+   */
+  void push(int cost, int node) {
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, size * 2);
+    }
+    long entry = (long) cost << 32 | node;
+    int i = size++;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (heap[parent] <= entry) {
+        break;
+      }
+      heap[i] = heap[parent];
+      i = parent;
+    }
+    heap[i] = entry;
+  }
+
+  /**
+   * @return the index of the position with the lowest cost
+   */
+  int pop() {
+    int node = (int) heap[0];
+    long last = heap[--size];
+    int i = 0;
+    int half = size >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      if (child + 1 < size && heap[child + 1] < heap[child]) {
+        child++;
+      }
+      if (last <= heap[child]) {
+        break;
+      }
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = last;
+    return node;
+  }
+}
@@ -19,130 +19,136 @@
 package neon.ai;
 
 import java.awt.Point;
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
 import neon.core.GameContext;
 import neon.entities.Creature;
 import neon.entities.Door;
 import neon.entities.property.Skill;
-import neon.maps.Region;
+import neon.maps.PassabilityGrid;
+import neon.maps.Zone;
+import neon.resources.CServer;
 import neon.resources.RItem;
+import neon.util.LongHashMap;
 
+/**
+ * Finds paths with A* over the passability grid of the current zone. A search examines at most a
+ * fixed number of positions. If the destination was not reached by then, the path leads to the
+ * position that came closest.
+ *
+ * <p>The bookkeeping of a search lives in arrays that cover a window around the origin and the
+ * destination, positions outside the window are numbered through a hash map. Every thread reuses
+ * its arrays for its next search, so a search never allocates memory for the whole zone. A path
+ * finder can be used by several threads at once.
+ *
+ * @author mdriesen
+ */
 public class PathFinder {
-  private static HashMap<Point, Integer> evaluated;
-  private static Point to;
-  private static Creature mover;
+  public static final int DEFAULT_BUDGET = 1000;
+  public static final int DEFAULT_RANGE = 20;
+  // the eight neighbours of a position
+  static final int[] DX = {-1, 1, -1, 1, 0, -1, 1, 0};
+  static final int[] DY = {0, 0, -1, -1, -1, 1, 1, 1};
+  private static final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+
   private final GameContext gameContext;
+  private final int budget;
+  private final int range;
 
   public PathFinder(GameContext gameContext) {
     this.gameContext = gameContext;
+    CServer ini = (CServer) gameContext.getResources().getResource("ini", "config");
+    budget = ini != null ? ini.getPathBudget() : DEFAULT_BUDGET;
+    range = ini != null ? ini.getAIRange() : DEFAULT_RANGE;
   }
 
-  public Point[] findPath(Creature creature, Point origin, Point destination) {
-    // points
-    Point from = origin;
-    to = destination;
-    mover = creature;
-
-    // lists of nodes
-    evaluated = new HashMap<Point, Integer>(); // the visited nodes and their cost from 'from'
-    Queue<Point> todo =
-        new PriorityQueue<>(10, new NodeComparator()); // the nodes that still need to be examined
-    HashMap<Point, Point> links = new HashMap<Point, Point>(); // to track how a node was reached
-
-    // starting point
-    todo.add(from);
-    evaluated.put(from, 0);
-
-    int i = 10;
-    while (!todo.isEmpty() && i-- > 0) {
-      Point next = todo.poll();
-
-      for (Point neighbour : neighbours(next)) {
-        if (neighbour.equals(to)) {
-          todo.clear();
-          links.put(to, next);
-          next = null;
-          break;
-        } else if (gameContext.getAtlas().getCurrentZone().getRegion(neighbour).getMovMod()
-            == Region.Modifier.BLOCK) {
-          continue; // if terrain is blocked, skip to next point
-        }
-        int penalty = doorPenalty(neighbour) + terrainPenalty(neighbour);
-        int cost =
-            evaluated.get(next)
-                + manhattan(to, neighbour)
-                + 1
-                + penalty; // current cost of neighbor
-        // if neighbor is already in todo list with higher cost: remove it
-        if (todo.contains(neighbour)
-            && cost < evaluated.get(neighbour) + manhattan(to, neighbour)) {
-          todo.remove(neighbour);
-        }
-        // if neighbor is already evaluated with higher cost: remove it
-        if (evaluated.containsKey(neighbour)
-            && cost < evaluated.get(neighbour) + manhattan(to, neighbour)) {
-          evaluated.remove(neighbour);
-        }
-        // if neighbor is not in any list yet (or was just removed): add to todo
-        if (!todo.contains(neighbour) && !evaluated.containsKey(neighbour)) {
-          links.put(neighbour, next);
-          evaluated.put(neighbour, evaluated.get(next) + 1 + penalty);
-          todo.add(neighbour);
-        }
-      }
-    }
+  /**
+   * @param gameContext the game context
+   * @param budget the maximum number of positions a search may examine
+   * @param range the radius of flow fields
+   */
+  public PathFinder(GameContext gameContext, int budget, int range) {
+    this.gameContext = gameContext;
+    this.budget = budget;
+    this.range = range;
+  }
 
-    ArrayList<Point> path = new ArrayList<Point>();
-    if (!links.containsKey(to)) {
-      to = todo.poll(); // if path was interrupted, continue with current estimate
-    } // this can sometimes give strange behavior
-    while (!from.equals(to)) {
-      path.add(0, to);
-      to = links.get(to);
-    }
-    return path.toArray(new Point[path.size()]);
+  /**
+   * @param creature the creature that wants to move
+   * @param origin the position of the creature
+   * @param destination the position the creature wants to go to
+   * @return the path to the destination, without the origin
+   */
+  public Point[] findPath(Creature creature, Point origin, Point destination) {
+    Zone zone = gameContext.getAtlas().getCurrentZone();
+    return findPath(
+        zone.getPassability(),
+        (100 - creature.getSkill(Skill.SWIMMING)) / 5,
+        (100 - creature.getSkill(Skill.CLIMBING)) / 5,
+        (x, y) -> doorPenalty(zone, creature, new Point(x, y)),
+        origin,
+        destination,
+        budget);
   }
 
-  private Point[] neighbours(Point current) {
-    Point[] neighbours = new Point[8];
-    neighbours[0] = new Point(current.x - 1, current.y);
-    neighbours[1] = new Point(current.x + 1, current.y);
-    neighbours[2] = new Point(current.x - 1, current.y - 1);
-    neighbours[3] = new Point(current.x + 1, current.y - 1);
-    neighbours[4] = new Point(current.x, current.y - 1);
-    neighbours[5] = new Point(current.x - 1, current.y + 1);
-    neighbours[6] = new Point(current.x + 1, current.y + 1);
-    neighbours[7] = new Point(current.x, current.y + 1);
-    return neighbours;
+  /**
+   * @param creature the creature that wants to move
+   * @param origin the position of the creature
+   * @param destination the position the creature wants to go to
+   * @return the first step towards the destination, or the origin if there is no way to go
+   */
+  public Point nextStep(Creature creature, Point origin, Point destination) {
+    Point[] path = findPath(creature, origin, destination);
+    return path.length > 0 ? path[0] : origin;
   }
 
-  /*
-   * manhattan distance between points
+  /**
+   * Returns the distance map towards the player in the current zone. All creatures that chase or
+   * flee the player share the map, it is only computed again when the player moves or the zone
+   * changes. Other targets have no flow field: only one field is kept, and a field for every
+   * target would cost a search of the whole square around it each time.
+   *
+   * @param target the position of the target
+   * @return the flow field towards the target within the AI range, or {@code null} if the player
+   *     is not at the target
    */
-  private int manhattan(Point one, Point two) {
-    return Math.abs(one.x - two.x) + Math.abs(one.y - two.y);
+  public FlowField getFlowField(Point target) {
+    if (!target.equals(gameContext.getPlayer().getShapeComponent().getLocation())) {
+      return null;
+    }
+    return FlowField.toward(
+        gameContext.getAtlas().getCurrentZone().getPassability(), target, range);
   }
 
-  private int terrainPenalty(Point neighbour) {
-    // better modifiers?
-    switch (gameContext.getAtlas().getCurrentZone().getRegion(neighbour).getMovMod()) {
-      case SWIM:
-        return (100 - mover.getSkill(Skill.SWIMMING)) / 5;
-      case CLIMB:
-        return (100 - mover.getSkill(Skill.CLIMBING)) / 5;
-      default:
-        return 0;
+  /**
+   * Searches a path on a grid. Every step costs 1, plus the penalty of the terrain or door.
+   *
+   * @param grid the passability grid
+   * @param swim the penalty for swimming
+   * @param climb the penalty for climbing
+   * @param doors gives the penalty for the door on a position
+   * @param from the origin
+   * @param to the destination
+   * @param budget the maximum number of positions to examine
+   * @return the path to the destination, without the origin
+   */
+  static Point[] findPath(
+      PassabilityGrid grid,
+      int swim,
+      int climb,
+      IntBinaryOperator doors,
+      Point from,
+      Point to,
+      int budget) {
+    if (from.equals(to)) {
+      return new Point[0];
     }
+    return searches.get().run(grid, swim, climb, doors, from, to, budget);
   }
 
-  private int doorPenalty(Point neighbour) {
-    for (long uid : gameContext.getAtlas().getCurrentZone().getItems(neighbour)) {
-      if (gameContext.getStore().getEntity(uid) instanceof Door door) {
+  private int doorPenalty(Zone zone, Creature mover, Point neighbour) {
+    for (long uid : zone.getItems(neighbour)) {
+      if (gameContext.getStore().readEntity(uid) instanceof Door door) {
         if (door.lock.isLocked()) {
           RItem key = door.lock.getKey();
           if (key != null && hasItem(mover, key)) {
@@ -158,19 +164,201 @@ public class PathFinder {
     return 0;
   }
 
-  @SuppressWarnings("serial")
-  private class NodeComparator implements Comparator<Point>, Serializable {
-    public int compare(Point one, Point two) {
-      return (evaluated.get(one) + manhattan(one, to)) - (evaluated.get(two) + manhattan(two, to));
-    }
-  }
-
   private boolean hasItem(Creature creature, RItem item) {
     for (long uid : creature.getInventoryComponent()) {
-      if (gameContext.getStore().getEntity(uid).getID().equals(item.id)) {
+      if (gameContext.getStore().readEntity(uid).getID().equals(item.id)) {
         return true;
       }
     }
     return false;
   }
+
+  /**
+   * The state of a search. Positions in a window around the origin and the destination have a
+   * fixed node number, positions outside the window get the next free number when they are first
+   * reached. A position was reached during the current search if its mark equals the search
+   * number, so nothing has to be cleared between searches.
+   */
+  private static class Search {
+    private static final int MARGIN = 16; // around the origin and the destination
+    private static final int MAX_SIDE = 1024; // of the window
+    private int[] cost = new int[0]; // cost of the cheapest known path from the origin
+    private int[] reached = new int[0]; // search number when the position was reached
+    private int[] closed = new int[0]; // search number when the position was examined
+    private byte[] step = new byte[0]; // the last step of the cheapest path to the position
+    private int[] outside = new int[0]; // x and y of the positions outside the window
+    private final LongHashMap<Integer> numbers = new LongHashMap<>(); // outside the window
+    private final NodeHeap open = new NodeHeap(); // ordered by estimated total cost
+    private int left, top, width, height, nodes;
+    private int number;
+
+    private Point[] run(
+        PassabilityGrid grid,
+        int swim,
+        int climb,
+        IntBinaryOperator doors,
+        Point from,
+        Point to,
+        int budget) {
+      prepare(from, to);
+      int start = node(from.x, from.y);
+      int goal = node(to.x, to.y);
+      reached[start] = number;
+      cost[start] = 0;
+      open.push(distance(from.x, from.y, to), start);
+
+      int best = start;
+      int bestDistance = Integer.MAX_VALUE;
+      int expanded = 0;
+      while (!open.isEmpty() && expanded < budget) {
+        int node = open.pop();
+        if (closed[node] == number) {
+          continue; // an older entry with a higher cost
+        } else if (node == goal) {
+          return path(goal, start);
+        }
+        closed[node] = number;
+        expanded++;
+
+        int x = getX(node);
+        int y = getY(node);
+        int h = distance(x, y, to);
+        if (h < bestDistance || (h == bestDistance && cost[node] < cost[best])) {
+          best = node;
+          bestDistance = h;
+        }
+
+        for (int d = 0; d < 8; d++) {
+          int nx = x + DX[d];
+          int ny = y + DY[d];
+          int cell = grid.get(nx, ny);
+          int modifier = cell & PassabilityGrid.BLOCK;
+          if (modifier == PassabilityGrid.BLOCK && (nx != to.x || ny != to.y)) {
+            continue; // the destination itself may be occupied
+          }
+          int neighbour = node(nx, ny);
+          if (closed[neighbour] == number) {
+            continue;
+          }
+
+          int penalty =
+              switch (modifier) {
+                case PassabilityGrid.SWIM -> swim;
+                case PassabilityGrid.CLIMB -> climb;
+                default -> 0;
+              };
+          if ((cell & PassabilityGrid.DOOR) != 0) {
+            penalty += doors.applyAsInt(nx, ny);
+          }
+          int g = cost[node] + 1 + penalty;
+          if (reached[neighbour] != number || g < cost[neighbour]) {
+            reached[neighbour] = number;
+            cost[neighbour] = g;
+            step[neighbour] = (byte) d;
+            open.push(g + distance(nx, ny, to), neighbour);
+          }
+        }
+      }
+
+      // if the search was interrupted, continue with the best estimate
+      return path(best, start);
+    }
+
+    /*
+     * The window is the bounding box of the origin and the destination plus a margin. If that is
+     * too large, it is a square around the origin instead.
+     */
+    private void prepare(Point from, Point to) {
+      left = Math.min(from.x, to.x) - MARGIN;
+      top = Math.min(from.y, to.y) - MARGIN;
+      width = Math.abs(to.x - from.x) + 2 * MARGIN + 1;
+      height = Math.abs(to.y - from.y) + 2 * MARGIN + 1;
+      if (width > MAX_SIDE || height > MAX_SIDE) {
+        left = from.x - MAX_SIDE / 2;
+        top = from.y - MAX_SIDE / 2;
+        width = MAX_SIDE;
+        height = MAX_SIDE;
+      }
+      nodes = width * height;
+      numbers.clear();
+      grow(nodes);
+      if (++number == Integer.MAX_VALUE) {
+        Arrays.fill(reached, 0);
+        Arrays.fill(closed, 0);
+        number = 1;
+      }
+      open.clear();
+    }
+
+    private void grow(int size) {
+      if (cost.length < size) {
+        size = Math.max(size, cost.length + (cost.length >> 1));
+        cost = Arrays.copyOf(cost, size);
+        reached = Arrays.copyOf(reached, size);
+        closed = Arrays.copyOf(closed, size);
+        step = Arrays.copyOf(step, size);
+      }
+    }
+
+    /** Returns the node number of a position, positions outside the window get a new one. */
+    private int node(int x, int y) {
+      if (x >= left && y >= top && x < left + width && y < top + height) {
+        return (y - top) * width + x - left;
+      }
+      long key = ((long) x << 32) | (y & 0xffffffffL);
+      Integer node = numbers.get(key);
+      if (node == null) {
+        node = nodes++;
+        numbers.put(key, node);
+        grow(nodes);
+        reached[node] = 0;
+        closed[node] = 0;
+        int i = 2 * (node - width * height);
+        if (outside.length < i + 2) {
+          outside = Arrays.copyOf(outside, Math.max(16, 2 * outside.length));
+        }
+        outside[i] = x;
+        outside[i + 1] = y;
+      }
+      return node;
+    }
+
+    private int getX(int node) {
+      int window = width * height;
+      return node < window ? left + node % width : outside[2 * (node - window)];
+    }
+
+    private int getY(int node) {
+      int window = width * height;
+      return node < window ? top + node / width : outside[2 * (node - window) + 1];
+    }
+
+    private Point[] path(int end, int start) {
+      int length = 0;
+      int x = getX(end);
+      int y = getY(end);
+      for (int node = end; node != start; length++) {
+        int d = step[node];
+        x -= DX[d];
+        y -= DY[d];
+        node = node(x, y);
+      }
+
+      Point[] path = new Point[length];
+      x = getX(end);
+      y = getY(end);
+      for (int i = length - 1; i >= 0; i--) {
+        path[i] = new Point(x, y);
+        int d = step[node(x, y)];
+        x -= DX[d];
+        y -= DY[d];
+      }
+      return path;
+    }
+
+    /** Diagonal steps cost as much as straight ones, so this never overestimates. */
+    private static int distance(int x, int y, Point to) {
+      return Math.max(Math.abs(to.x - x), Math.abs(to.y - y));
+    }
+  }
 }
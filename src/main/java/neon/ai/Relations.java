@@ -0,0 +1,155 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of how species and factions feel about each other. Species and faction ids are
+ * turned into small numbers once, when a creature is made or joins a faction, so a disposition
+ * check only has to read a few arrays instead of comparing strings.
+ *
+ * <p>Unless set otherwise, creatures like their own species and the members of their own factions
+ * and are indifferent to everyone else.
+ *
+ * @author priewe
+ */
+public final class Relations {
+  public static final int SAME_SPECIES = 5;
+  public static final int SAME_FACTION = 10;
+
+  private static final Matrix species = new Matrix(SAME_SPECIES);
+  private static final Matrix factions = new Matrix(SAME_FACTION);
+
+  private Relations() {}
+
+  /**
+   * @param id the id of a species
+   * @return the number of the species
+   */
+  public static int getSpecies(String id) {
+    return species.intern(id);
+  }
+
+  /**
+   * @param id the id of a faction
+   * @return the number of the faction
+   */
+  public static int getFaction(String id) {
+    return factions.intern(id);
+  }
+
+  /**
+   * @return how a creature of one species feels about a creature of another
+   */
+  public static int getSpeciesRelation(int from, int to) {
+    return species.get(from, to);
+  }
+
+  /**
+   * @return how a member of one faction feels about a member of another
+   */
+  public static int getFactionRelation(int from, int to) {
+    return factions.get(from, to);
+  }
+
+  /**
+   * Sets how creatures of one species feel about creatures of another.
+   *
+   * @param from the species id of the creatures that feel something
+   * @param to the species id of the creatures they feel it about
+   * @param value the change in disposition
+   */
+  public static void setSpeciesRelation(String from, String to, int value) {
+    species.set(species.intern(from), species.intern(to), value);
+  }
+
+  /**
+   * Sets how members of one faction feel about members of another.
+   *
+   * @param from the id of the faction of the members that feel something
+   * @param to the id of the faction of the members they feel it about
+   * @param value the change in disposition
+   */
+  public static void setFactionRelation(String from, String to, int value) {
+    factions.set(factions.intern(from), factions.intern(to), value);
+  }
+
+  /*
+   * A square matrix of relations that grows when new ids come along. Readers get the current
+   * table without locking, writers replace it.
+   */
+  private static final class Matrix {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final int same;
+    private volatile Table table = new Table(new byte[0], 0);
+
+    private Matrix(int same) {
+      this.same = same;
+    }
+
+    private int intern(String id) {
+      Integer index = ids.get(id);
+      return index != null ? index : add(id);
+    }
+
+    private synchronized int add(String id) {
+      return ids.computeIfAbsent(
+          id,
+          key -> {
+            int index = ids.size();
+            if (index >= table.side()) {
+              grow(Math.max(8, table.side() * 2));
+            }
+            return index;
+          });
+    }
+
+    private int get(int from, int to) {
+      Table current = table;
+      if (from < current.side() && to < current.side()) {
+        return current.values()[from * current.side() + to];
+      }
+      return from == to ? same : 0;
+    }
+
+    private synchronized void set(int from, int to, int value) {
+      Table current = table;
+      byte[] copy = Arrays.copyOf(current.values(), current.values().length);
+      copy[from * current.side() + to] = (byte) value;
+      table = new Table(copy, current.side());
+    }
+
+    private void grow(int side) {
+      Table current = table;
+      byte[] grown = new byte[side * side];
+      for (int i = 0; i < side; i++) {
+        if (i < current.side()) {
+          System.arraycopy(current.values(), i * current.side(), grown, i * side, current.side());
+        } else {
+          grown[i * side + i] = (byte) same;
+        }
+      }
+      table = new Table(grown, side);
+    }
+  }
+
+  private record Table(byte[] values, int side) {}
+}
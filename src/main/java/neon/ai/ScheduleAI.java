@@ -28,6 +28,7 @@ import neon.entities.components.ShapeComponent;
 public class ScheduleAI extends AI {
   private final Point[] schedule;
   private int current = 0;
+  private int travelled = 0; // turns spent on the way to the current point while far away
 
   public ScheduleAI(
       Creature creature,
@@ -40,11 +41,12 @@ public class ScheduleAI extends AI {
   }
 
   public void act() {
+    travelled = 0;
     if (isHostile() && sees(gameContext.getPlayer())) {
       HealthComponent health = creature.getHealthComponent();
       if (100 * health.getHealth() / health.getBaseHealth() < confidence) {
         // 80% chance to just flee, 20% chance to heal; if no heal spell, flee anyway
-        if (Math.random() > 0.2 || !(cure() || heal())) {
+        if (random().nextDouble() > 0.2 || !(cure() || heal())) {
           flee(gameContext.getPlayer());
         }
       } else {
@@ -61,4 +63,50 @@ public class ScheduleAI extends AI {
       wander(schedule[current]);
     }
   }
+
+  public Plan plan() {
+    if (isHostile() && sees(gameContext.getPlayer())) {
+      HealthComponent health = creature.getHealthComponent();
+      if (100 * health.getHealth() / health.getBaseHealth() < confidence) {
+        return plan(Move.FLEE, gameContext.getPlayer().getShapeComponent().getLocation());
+      } else {
+        return planHunt(gameContext.getPlayer());
+      }
+    } else {
+      ShapeComponent bounds = creature.getShapeComponent();
+      int next = bounds.getLocation().equals(schedule[current]) ? current + 1 : current;
+      return plan(Move.TRAVEL, schedule[next < schedule.length ? next : 0]);
+    }
+  }
+
+  /**
+   * Follows the schedule without looking at the surroundings, for a creature that is too far from
+   * the player to matter. The creature jumps from point to point once it has had enough turns to
+   * walk there.
+   *
+   * @param turns the number of turns that passed
+   * @return the new position of the creature, or {@code null} if it did not reach a point
+   */
+  public Point skip(int turns) {
+    Point position = creature.getShapeComponent().getLocation();
+    Point reached = null;
+    travelled += turns;
+    int points = 0;
+    while (points < schedule.length) {
+      Point next = schedule[current];
+      int distance = Math.max(Math.abs(next.x - position.x), Math.abs(next.y - position.y));
+      if (travelled < distance) {
+        break;
+      }
+      travelled -= distance;
+      position = next;
+      reached = next;
+      current = (current + 1) % schedule.length;
+      points++;
+    }
+    if (points == schedule.length) {
+      travelled = 0; // a whole round, where the creature is now is as good as anywhere
+    }
+    return reached == null ? null : new Point(reached);
+  }
 }
@@ -0,0 +1,173 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import neon.core.event.TurnEvent;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Listener;
+import net.engio.mbassy.listener.References;
+
+/**
+ * Saves the game every few turns without stalling the game. The snapshot is taken on the game
+ * thread, after which a background thread copies the stores and writes the save files.
+ *
+ * <p>Only one save is written at a time. A snapshot that is taken while another one is being
+ * written waits in a single slot, and a newer snapshot replaces it. While snapshots are waiting
+ * or being written, the stores don't reuse free space in their files, so the committed version of
+ * a snapshot stays intact while the game goes on.
+ *
+ * @author priewe
+ */
+@Listener(references = References.Strong)
+@Slf4j
+public class AutoSaver {
+  private final GameSaver saver;
+  private final int interval;
+  private final Executor executor;
+
+  private GameSaver.Snapshot pending; // the snapshot that waits to be written
+  private int lastTurn = -1; // the turn of the last autosave
+  private long saves, replaced, lastDuration, lastBytes, totalBytes;
+
+  /**
+   * @param saver the saver that takes and writes snapshots
+   * @param interval the number of turns between autosaves, 0 to turn autosave off
+   */
+  public AutoSaver(GameSaver saver, int interval) {
+    this(
+        saver,
+        interval,
+        Executors.newSingleThreadExecutor(
+            r -> {
+              Thread thread = new Thread(r, "autosave");
+              thread.setDaemon(true);
+              return thread;
+            }));
+  }
+
+  AutoSaver(GameSaver saver, int interval, Executor executor) {
+    this.saver = saver;
+    this.interval = interval;
+    this.executor = executor;
+  }
+
+  @Handler
+  public void tick(TurnEvent te) {
+    if (interval <= 0) {
+      return;
+    }
+
+    int turn = te.getTime();
+    if (lastTurn < 0 || turn < lastTurn) { // first turn of this game
+      lastTurn = turn;
+    } else if (turn - lastTurn >= interval) {
+      lastTurn = turn;
+      save();
+    }
+  }
+
+  /** Takes a snapshot of the current game and hands it to the background thread. */
+  public void save() {
+    saver.holdSpace();
+    GameSaver.Snapshot snapshot;
+    try {
+      snapshot = saver.snapshot();
+    } catch (RuntimeException e) {
+      saver.releaseSpace();
+      throw e;
+    }
+
+    boolean queued;
+    synchronized (this) {
+      queued = pending == null;
+      if (!queued) {
+        replaced++;
+        saver.releaseSpace();
+      }
+      pending = snapshot;
+    }
+    if (queued) {
+      executor.execute(this::write);
+    }
+  }
+
+  private void write() {
+    GameSaver.Snapshot snapshot;
+    synchronized (this) {
+      snapshot = pending;
+      pending = null;
+    }
+
+    long start = System.nanoTime();
+    long bytes = 0;
+    try {
+      bytes = saver.write(snapshot);
+    } catch (RuntimeException e) {
+      log.error("Autosave failed", e);
+    }
+    long duration = System.nanoTime() - start;
+
+    synchronized (this) {
+      saves++;
+      lastDuration = duration;
+      lastBytes = bytes;
+      totalBytes += bytes;
+    }
+    saver.releaseSpace();
+    log.debug("Autosave took {} ms, {} bytes written", duration / 1_000_000, bytes);
+  }
+
+  /**
+   * @return the number of autosaves that were written
+   */
+  public synchronized long getSaveCount() {
+    return saves;
+  }
+
+  /**
+   * @return the number of snapshots that were replaced by a newer one before they were written
+   */
+  public synchronized long getReplacedCount() {
+    return replaced;
+  }
+
+  /**
+   * @return the time it took to write the last autosave, in nanoseconds
+   */
+  public synchronized long getLastDuration() {
+    return lastDuration;
+  }
+
+  /**
+   * @return the number of bytes written by the last autosave
+   */
+  public synchronized long getLastBytesWritten() {
+    return lastBytes;
+  }
+
+  /**
+   * @return the number of bytes written by all autosaves
+   */
+  public synchronized long getTotalBytesWritten() {
+    return totalBytes;
+  }
+}
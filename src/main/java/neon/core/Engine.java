@@ -29,6 +29,7 @@ import neon.core.handlers.MagicHandler;
 import neon.entities.Player;
 import neon.narrative.EventAdapter;
 import neon.narrative.QuestTracker;
+import neon.resources.CServer;
 import neon.resources.ResourceManager;
 import neon.resources.builder.IniBuilder;
 import neon.systems.files.FileSystem;
@@ -123,7 +124,10 @@ public class Engine implements Runnable {
     GameLoader loader =
         new GameLoader(config, gameStore, gameServices, taskQueue, this, gameEngineState);
     bus.subscribe(loader);
-    bus.subscribe(new GameSaver(taskQueue, gameEngineState));
+    GameSaver saver = new GameSaver(taskQueue, gameEngineState);
+    bus.subscribe(saver);
+    CServer ini = (CServer) gameStore.getResources().getResource("ini", "config");
+    bus.subscribe(new AutoSaver(saver, ini.getAutosaveInterval()));
   }
 
   /**
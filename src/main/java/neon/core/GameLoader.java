@@ -19,8 +19,9 @@
 package neon.core;
 
 import java.awt.Rectangle;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import lombok.extern.slf4j.Slf4j;
@@ -36,7 +37,6 @@ import neon.entities.property.Ability;
 import neon.entities.property.Feat;
 import neon.entities.property.Gender;
 import neon.entities.property.Skill;
-import neon.magic.Effect;
 import neon.magic.Spell;
 import neon.magic.SpellFactory;
 import neon.maps.*;
@@ -44,7 +44,6 @@ import neon.resources.CGame;
 import neon.resources.RCreature;
 import neon.resources.RMod;
 import neon.resources.RSign;
-import neon.resources.RSpell.SpellType;
 import neon.systems.files.FileUtils;
 import neon.systems.files.XMLTranslator;
 import neon.util.mapstorage.MapStore;
@@ -53,8 +52,7 @@ import net.engio.mbassy.listener.Handler;
 import net.engio.mbassy.listener.Listener;
 import net.engio.mbassy.listener.References;
 import org.h2.mvstore.MVStore;
-import org.jdom2.*;
-import org.jdom2.input.SAXBuilder;
+import org.jdom2.Element;
 
 @Listener(references = References.Strong)
 @Slf4j
@@ -211,20 +209,14 @@ public class GameLoader {
   private void loadGame(String save) {
     config.setProperty("save", save);
 
-    Document doc = new Document();
-    try {
-      FileInputStream in = new FileInputStream("saves/" + save + "/save.xml");
-      doc = new SAXBuilder().build(in);
-      in.close();
-    } catch (IOException e) {
-      System.out.println("IOException in loadGame");
-    } catch (JDOMException e) {
-      System.out.println("JDOMException in loadGame");
+    Path savePath = Paths.get("saves", save);
+    SaveGame game = readSave(savePath);
+    if (game == null) {
+      log.error("Could not load save game {}", save);
+      return;
     }
-    Element root = doc.getRootElement();
 
     // copy save map to temp
-    Path savePath = Paths.get("saves", save);
     Path tempPath = Paths.get("temp");
     FileUtils.copy(savePath, tempPath);
 
@@ -232,91 +224,86 @@ public class GameLoader {
     initMaps();
 
     // set time correctly (using setTime(), otherwise listeners would be called)
-    gameContext
-        .getTimer()
-        .setTime(Integer.parseInt(root.getChild("timer").getAttributeValue("ticks")));
+    gameContext.getTimer().setTime(game.ticks());
+    gameContext.getTimer().setSeed(game.seed());
 
     // create player
-    loadPlayer(root.getChild("player"));
+    loadPlayer(game.player());
 
     // events
-    loadEvents(root.getChild("events"));
+    loadEvents(game);
 
     // quests
-    Element journal = root.getChild("journal");
     Player player = gameContext.getPlayer();
     if (player != null) {
-      for (Element e : journal.getChildren()) {
-        gameContext.getPlayer().getJournal().addQuest(e.getAttributeValue("id"), e.getText());
-        gameContext
-            .getPlayer()
-            .getJournal()
-            .updateQuest(e.getAttributeValue("id"), Integer.parseInt(e.getAttributeValue("stage")));
+      for (SaveGame.Quest quest : game.journal()) {
+        player.getJournal().addQuest(quest.id(), quest.subject());
+        player.getJournal().updateQuest(quest.id(), quest.stage());
       }
     } else {
       System.out.println("Skipping journal update");
     }
   }
 
-  private void loadEvents(Element events) {
-    // normal tasks
-    for (Element event : events.getChildren("task")) {
-      String description = event.getAttributeValue("desc");
-      if (event.getAttribute("script") != null) {
-        String script = event.getAttributeValue("script");
-        queue.add(description, new ScriptAction(script, gameContext.getScriptEngine()));
+  /*
+   * Reads save.dat, or save.xml for games that were saved before the binary format.
+   */
+  private SaveGame readSave(Path savePath) {
+    Path binary = savePath.resolve("save.dat");
+    Path xml = savePath.resolve("save.xml");
+    try {
+      if (Files.exists(binary)) {
+        try (InputStream in = Files.newInputStream(binary)) {
+          return new SaveGameTranslator().translate(in);
+        }
+      } else {
+        try (InputStream in = Files.newInputStream(xml)) {
+          return SaveGame.fromDocument(new XMLTranslator().translate(in));
+        }
       }
+    } catch (IOException | RuntimeException e) {
+      log.error("Error reading save game from {}", savePath, e);
+      return null;
+    }
+  }
+
+  private void loadEvents(SaveGame game) {
+    // normal tasks
+    for (SaveGame.Task task : game.tasks()) {
+      queue.add(task.description(), new ScriptAction(task.script(), gameContext.getScriptEngine()));
     }
 
     // timed tasks
-    for (Element event : events.getChildren("timer")) {
-      String[] ticks = event.getAttributeValue("tick").split(":");
-      int start = Integer.parseInt(ticks[0]);
-      int period = Integer.parseInt(ticks[1]);
-      int stop = Integer.parseInt(ticks[2]);
-
-      switch (event.getAttributeValue("task")) {
-        case "script":
-          queue.add(event.getAttributeValue("script"), start, period, stop);
-          break;
-        case "magic":
-          Effect effect = Effect.valueOf(event.getAttributeValue("effect").toUpperCase());
-          float magnitude = Float.parseFloat(event.getAttributeValue("magnitude"));
-          String script = event.getAttributeValue("script");
-          SpellType type = SpellType.valueOf(event.getAttributeValue("type").toUpperCase());
-          Entity caster = null;
-          if (event.getAttribute("caster") != null) {
-            caster =
-                gameStore
-                    .getUidStore()
-                    .getEntity(Long.parseLong(event.getAttributeValue("caster")));
-          }
-          Entity target = null;
-          if (event.getAttribute("target") != null) {
-            target =
-                gameStore
-                    .getUidStore()
-                    .getEntity(Long.parseLong(event.getAttributeValue("target")));
-          }
-          Spell spell = new Spell(target, caster, effect, magnitude, script, type);
-          queue.add(new MagicTask(spell, stop, gameContext), start, stop, period);
-          break;
+    for (SaveGame.TimedTask timer : game.timers()) {
+      SaveGame.SpellData data = timer.spell();
+      if (data == null) {
+        queue.add(timer.script(), timer.start(), timer.period(), timer.stop());
+      } else {
+        Entity caster =
+            data.caster() != null ? gameStore.getUidStore().getEntity(data.caster()) : null;
+        Entity target =
+            data.target() != null ? gameStore.getUidStore().getEntity(data.target()) : null;
+        Spell spell =
+            new Spell(target, caster, data.effect(), data.magnitude(), data.script(), data.type());
+        queue.add(
+            new MagicTask(spell, timer.stop(), gameContext),
+            timer.start(),
+            timer.period(),
+            timer.stop());
       }
     }
   }
 
-  private void loadPlayer(Element playerData) {
+  private void loadPlayer(SaveGame.PlayerData playerData) {
     // create player
-    RCreature species =
-        (RCreature)
-            gameStore.getResourceManager().getResource(playerData.getAttributeValue("race"));
+    RCreature species = (RCreature) gameStore.getResourceManager().getResource(playerData.race());
     Player player =
         new Player(
             new RCreature(species.toElement()),
-            playerData.getAttributeValue("name"),
-            Gender.valueOf(playerData.getAttributeValue("gender").toUpperCase()),
-            Player.Specialisation.valueOf(playerData.getAttributeValue("spec")),
-            playerData.getAttributeValue("prof"),
+            playerData.name(),
+            playerData.gender(),
+            playerData.specialisation(),
+            null,
             gameContext);
     MapStore atlasMapStore =
         new MapStoreMVStoreAdapter(MVStore.open(gameStore.getFileSystem().getFullPath("atlas")));
@@ -333,56 +320,44 @@ public class GameLoader {
     gameStore.setPlayer(player);
     engine.startGame(new Game(gameStore, gameContext, atlas));
     Rectangle bounds = player.getShapeComponent();
-    bounds.setLocation(
-        Integer.parseInt(playerData.getAttributeValue("x")),
-        Integer.parseInt(playerData.getAttributeValue("y")));
-    player.setSign(playerData.getAttributeValue("sign"));
+    bounds.setLocation(playerData.x(), playerData.y());
+    player.setSign(playerData.sign());
     player.species.text = "@";
 
     // start map
-    int mapUID = Integer.parseInt(playerData.getAttributeValue("map"));
-    gameContext.getAtlas().setCurrentMap(gameContext.getAtlas().getMap(mapUID));
-    int level = Integer.parseInt(playerData.getAttributeValue("l"));
-    gameContext.getAtlas().setCurrentZone(level);
+    gameContext.getAtlas().setCurrentMap(gameContext.getAtlas().getMap(playerData.map()));
+    gameContext.getAtlas().setCurrentZone(playerData.level());
 
     // stats
     Stats stats = player.getStatsComponent();
-    stats.addStr(
-        Integer.parseInt(playerData.getChild("stats").getAttributeValue("str")) - stats.getStr());
-    stats.addCon(
-        Integer.parseInt(playerData.getChild("stats").getAttributeValue("con")) - stats.getCon());
-    stats.addDex(
-        Integer.parseInt(playerData.getChild("stats").getAttributeValue("dex")) - stats.getDex());
-    stats.addInt(
-        Integer.parseInt(playerData.getChild("stats").getAttributeValue("int")) - stats.getInt());
-    stats.addWis(
-        Integer.parseInt(playerData.getChild("stats").getAttributeValue("wis")) - stats.getWis());
-    stats.addCha(
-        Integer.parseInt(playerData.getChild("stats").getAttributeValue("cha")) - stats.getCha());
+    int[] saved = playerData.stats();
+    stats.addStr(saved[0] - stats.getStr());
+    stats.addCon(saved[1] - stats.getCon());
+    stats.addDex(saved[2] - stats.getDex());
+    stats.addInt(saved[3] - stats.getInt());
+    stats.addWis(saved[4] - stats.getWis());
+    stats.addCha(saved[5] - stats.getCha());
 
     // skills
-    for (Attribute skill : playerData.getChild("skills").getAttributes()) {
-      player.setSkill(Skill.valueOf(skill.getName()), Integer.parseInt(skill.getValue()));
-    }
+    playerData.skills().forEach(player::setSkill);
 
     // items
-    for (Element e : playerData.getChildren("item")) {
-      long uid = Long.parseLong(e.getAttributeValue("uid"));
+    for (long uid : playerData.items()) {
       player.getInventoryComponent().addItem(uid);
     }
 
     // spells
-    for (Element e : playerData.getChildren("spell")) {
-      player.getMagicComponent().addSpell(spellFactory.getSpell(e.getText()));
+    for (String id : playerData.spells()) {
+      player.getMagicComponent().addSpell(spellFactory.getSpell(id));
     }
 
     // feats
-    for (Element e : playerData.getChildren("feat")) {
-      player.getCharacteristicsComponent().addFeat(Feat.valueOf(e.getText()));
+    for (Feat feat : playerData.feats()) {
+      player.getCharacteristicsComponent().addFeat(feat);
     }
 
     // money
-    player.getInventoryComponent().addMoney(Integer.parseInt(playerData.getChildText("money")));
+    player.getInventoryComponent().addMoney(playerData.money());
   }
 
   private void initMaps() {
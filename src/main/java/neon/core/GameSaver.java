@@ -20,7 +20,20 @@ package neon.core;
 
 import com.google.common.collect.Multimap;
 import java.awt.Rectangle;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
 import neon.core.event.MagicTask;
 import neon.core.event.SaveEvent;
 import neon.core.event.ScriptAction;
@@ -30,19 +43,28 @@ import neon.entities.property.Feat;
 import neon.entities.property.Skill;
 import neon.magic.Spell;
 import neon.maps.Atlas;
+import neon.resources.CServer;
 import neon.resources.RSpell;
+import neon.systems.files.IncrementalCopier;
 import neon.systems.files.XMLTranslator;
 import neon.util.fsm.Action;
 import net.engio.mbassy.listener.Handler;
 import net.engio.mbassy.listener.Listener;
 import net.engio.mbassy.listener.References;
-import org.jdom2.Document;
-import org.jdom2.Element;
 
 @Listener(references = References.Strong)
+@Slf4j
 public class GameSaver {
+  // an MVStore rewrites the two copies of its file header at the start of the file
+  private static final int STORE_HEADER = 2 * 4096;
+
   private final TaskQueue queue;
   private final GameContext gameContext;
+  private final AtomicLong snapshots = new AtomicLong(); // the number of snapshots taken
+  private long written; // the last snapshot that was written
+  // the snapshots that need the store files to stay intact, not guarded by this, which write holds
+  private final Object space = new Object();
+  private int holds;
 
   public GameSaver(TaskQueue queue, GameContext gameContext) {
     this.queue = queue;
@@ -52,167 +74,255 @@ public class GameSaver {
   /** Saves the current game. */
   @Handler
   public void saveGame(SaveEvent se) {
-    Document doc = new Document();
-    Element root = new Element("save");
-    doc.setRootElement(root);
+    holdSpace();
+    try {
+      write(snapshot());
+    } catch (UncheckedIOException e) {
+      log.error("Could not save the game", e);
+    } finally {
+      releaseSpace();
+    }
+  }
 
+  /**
+   * Commits the entity and atlas stores and collects the rest of the game state. This must be
+   * called on the game thread, but the snapshot can be written on another thread.
+   *
+   * <p>The stores go on committing while the snapshot waits to be written. Right after the commit,
+   * an image is taken of both store files, so they are written as they were at the commit. This
+   * relies on the stores not reusing free space until the snapshot is written, see {@link
+   * #setReuseSpace(boolean)}.
+   *
+   * @return a snapshot of the current game
+   */
+  Snapshot snapshot() {
     Player player = gameContext.getPlayer();
-    root.addContent(savePlayer(player)); // save player data
-    root.addContent(saveJournal(player)); // save journal
-    root.addContent(saveEvents()); // save events
-    root.addContent(saveQuests()); // save quests
-    Element timer = new Element("timer");
-    timer.setAttribute("ticks", String.valueOf(gameContext.getTimer().getTime()));
-    root.addContent(timer);
+    SaveGame save = createSave(player);
+    gameContext.getAtlas().getAtlasMapStore().commit();
+    gameContext.getStore().commit();
+    HashMap<Path, IncrementalCopier.Image> images = new HashMap<>();
+    image(gameContext.getAtlas().getAtlasMapStore().getFileName(), images);
+    image(gameContext.getStore().getFileName(), images);
+    File dir = new File("saves/" + player.getName());
+    return new Snapshot(snapshots.incrementAndGet(), dir, save, images);
+  }
+
+  private static void image(String file, Map<Path, IncrementalCopier.Image> images) {
+    if (file != null) {
+      Path path = Path.of(file).toAbsolutePath().normalize();
+      try {
+        images.put(path, IncrementalCopier.Image.of(path, STORE_HEADER));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not take an image of " + file, e);
+      }
+    }
+  }
+
+  /**
+   * Writes a snapshot to its save directory. Snapshots that are older than the last one that was
+   * written are skipped.
+   *
+   * @param snapshot the snapshot to write
+   * @return the number of bytes that were written
+   * @throws UncheckedIOException if the save game could not be written, the save game file is then
+   *     left as it was
+   */
+  synchronized long write(Snapshot snapshot) {
+    if (snapshot.sequence() < written) {
+      return 0;
+    }
+    written = snapshot.sequence();
 
     File saves = new File("saves");
     if (!saves.exists()) {
       saves.mkdir();
     }
 
-    File dir = new File("saves/" + player.getName());
+    File dir = snapshot.dir();
     if (!dir.exists()) {
       dir.mkdir();
     }
 
     // first copy everything from temp to save, to ensure savedoc is not overwritten
-    gameContext.getAtlas().getAtlasMapStore().commit();
-    gameContext.getStore().commit();
-    gameContext.getFileSystem().storeTemp(dir);
-    gameContext
-        .getFileSystem()
-        .saveFile(doc, new XMLTranslator(), "saves", player.getName(), "save.xml");
+    long bytes = gameContext.getFileSystem().storeTemp(dir, snapshot.images());
+    SaveGame save = snapshot.save();
+    bytes += write(new File(dir, "save.dat"), new SaveGameTranslator().translate(save));
+    CServer ini = (CServer) gameContext.getResources().getResource("ini", "config");
+    if (ini != null && ini.isXMLSaveExported()) {
+      bytes += write(new File(dir, "save.xml"), new XMLTranslator().translate(save.toDocument()));
+    }
+    return bytes;
   }
 
-  private Element saveEvents() {
-    Element events = new Element("events");
+  /**
+   * Sets whether the entity and atlas stores may overwrite free space in their files. Space
+   * reuse is turned off while a snapshot is copied from temp, so a store can keep on committing
+   * without overwriting the committed version of the snapshot.
+   *
+   * @param reuse whether free space may be reused
+   */
+  void setReuseSpace(boolean reuse) {
+    gameContext.getAtlas().getAtlasMapStore().setReuseSpace(reuse);
+    gameContext.getStore().setReuseSpace(reuse);
+  }
 
-    // all normal tasks (for now only script tasks)
-    Multimap<String, Action> tasks = queue.getTasks();
-    for (String key : tasks.keySet()) {
-      for (Action action : tasks.get(key)) {
-        Element event = new Element("task");
-        event.setAttribute("desc", key);
-        if (action instanceof ScriptAction task) {
-          event.setAttribute("script", task.getScript());
-        }
-        events.addContent(event);
+  /** Turns space reuse off for a snapshot that is about to be taken. */
+  void holdSpace() {
+    synchronized (space) {
+      if (holds++ == 0) {
+        setReuseSpace(false);
       }
     }
+  }
 
-    // all timer tasks
-    Multimap<Integer, TaskQueue.RepeatEntry> repeats = queue.getTimerTasks();
-    for (Integer key : repeats.keySet()) {
-      for (TaskQueue.RepeatEntry entry : repeats.get(key)) {
-        Element event = new Element("timer");
-        event.setAttribute("tick", key + ":" + entry.getPeriod() + ":" + entry.getStop());
-        if (entry.getScript() != null) {
-          event.setAttribute("task", "script");
-          event.setAttribute("script", entry.getScript());
-        } else if (entry.getTask() instanceof MagicTask) {
-          event.setAttribute("task", "magic");
-          Spell spell = ((MagicTask) entry.getTask()).getSpell();
-          event.setAttribute("effect", spell.getEffect().name());
-          if (spell.getTarget() != null) {
-            event.setAttribute("target", Long.toString(spell.getTarget().getUID()));
-          }
-          if (spell.getCaster() != null) {
-            event.setAttribute("caster", Long.toString(spell.getCaster().getUID()));
-          }
-          if (spell.getScript() != null) {
-            event.setAttribute("script", spell.getScript());
-          }
-          event.setAttribute("stype", spell.getType().name());
-          event.setAttribute("mag", Float.toString(spell.getMagnitude()));
-        }
-        events.addContent(event);
+  /** Turns space reuse back on once no snapshots are left to write. */
+  void releaseSpace() {
+    synchronized (space) {
+      if (--holds == 0) {
+        setReuseSpace(true);
       }
     }
-
-    return events;
   }
 
-  private Element saveQuests() {
-    Element quests = new Element("quests");
+  /**
+   * Collects everything that has to be saved besides the entity and atlas stores.
+   *
+   * @param player the player
+   * @return the save game
+   */
+  SaveGame createSave(Player player) {
     // TODO: save random quests
-    return quests;
+    return new SaveGame(
+        gameContext.getTimer().getTime(),
+        gameContext.getTimer().getSeed(),
+        savePlayer(player),
+        saveJournal(player),
+        saveTasks(),
+        saveTimers());
   }
 
-  private Element savePlayer(Player player) {
-    Element PC = new Element("player");
-
-    PC.setAttribute("name", player.getName());
-    PC.setAttribute("race", player.species.id);
+  private long write(File file, ByteArrayOutputStream data) {
+    try (OutputStream out = new FileOutputStream(file)) {
+      data.writeTo(out);
+      return data.size();
+    } catch (IOException e) {
+      log.error("Could not write {}", file, e);
+      return 0;
+    }
+  }
 
-    PC.setAttribute("gender", player.getGender().toString().toLowerCase());
+  private List<SaveGame.Task> saveTasks() {
+    // all normal tasks (for now only script tasks)
+    ArrayList<SaveGame.Task> events = new ArrayList<>();
+    Multimap<String, Action> tasks = queue.getTasks();
+    for (String key : tasks.keySet()) {
+      for (Action action : tasks.get(key)) {
+        if (action instanceof ScriptAction task) {
+          events.add(new SaveGame.Task(key, task.getScript()));
+        }
+      }
+    }
+    return events;
+  }
 
-    PC.setAttribute("spec", player.getSpecialisation().toString());
+  private List<SaveGame.TimedTask> saveTimers() {
+    // all timer tasks, in the order they are due
+    ArrayList<SaveGame.TimedTask> events = new ArrayList<>();
+    queue
+        .getTimerTasks()
+        .forEach(
+            (entry, tick) -> {
+              SaveGame.TimedTask timer = saveTimer(entry, tick);
+              if (timer != null) {
+                events.add(timer);
+              }
+            });
+    return events;
+  }
 
-    Atlas atlas = gameContext.getAtlas();
-    PC.setAttribute("map", Integer.toString(atlas.getCurrentMap().getUID()));
-    int l = atlas.getCurrentZoneIndex();
-    PC.setAttribute("l", Integer.toString(l));
-    Rectangle bounds = player.getShapeComponent();
-    PC.setAttribute("x", String.valueOf(bounds.x));
-    PC.setAttribute("y", String.valueOf(bounds.y));
-    PC.setAttribute("sign", player.getSign());
+  // returns null for tasks that can't be saved
+  private static SaveGame.TimedTask saveTimer(TaskQueue.RepeatEntry entry, int tick) {
+    int period = entry.getPeriod();
+    int stop = entry.getStop();
+    if (entry.getScript() != null) {
+      return new SaveGame.TimedTask(tick, period, stop, entry.getScript(), null);
+    } else if (entry.getTask() instanceof MagicTask task) {
+      Spell spell = task.getSpell();
+      SaveGame.SpellData data =
+          new SaveGame.SpellData(
+              spell.getEffect(),
+              spell.getMagnitude(),
+              spell.getScript(),
+              spell.getType(),
+              spell.getCaster() != null ? spell.getCaster().getUID() : null,
+              spell.getTarget() != null ? spell.getTarget().getUID() : null);
+      return new SaveGame.TimedTask(tick, period, stop, null, data);
+    }
+    return null;
+  }
 
-    Element skills = new Element("skills");
+  private SaveGame.PlayerData savePlayer(Player player) {
+    EnumMap<Skill, Integer> skills = new EnumMap<>(Skill.class);
     for (Skill s : Skill.values()) {
-      skills.setAttribute(s.toString(), String.valueOf(player.getSkill(s)));
-    }
-    PC.addContent(skills);
-
-    Element stats = new Element("stats");
-    stats.setAttribute("str", String.valueOf(player.getStatsComponent().getStr()));
-    stats.setAttribute("con", String.valueOf(player.getStatsComponent().getCon()));
-    stats.setAttribute("dex", String.valueOf(player.getStatsComponent().getDex()));
-    stats.setAttribute("int", String.valueOf(player.getStatsComponent().getInt()));
-    stats.setAttribute("wis", String.valueOf(player.getStatsComponent().getWis()));
-    stats.setAttribute("cha", String.valueOf(player.getStatsComponent().getCha()));
-    PC.addContent(stats);
-
-    Element money = new Element("money");
-    money.setText(String.valueOf(player.getInventoryComponent().getMoney()));
-    PC.addContent(money);
-
-    for (long uid : player.getInventoryComponent()) {
-      Element item = new Element("item");
-      item.setAttribute("uid", Long.toString(uid));
-      PC.addContent(item);
+      skills.put(s, player.getSkill(s));
     }
 
+    int[] stats = {
+      player.getStatsComponent().getStr(),
+      player.getStatsComponent().getCon(),
+      player.getStatsComponent().getDex(),
+      player.getStatsComponent().getInt(),
+      player.getStatsComponent().getWis(),
+      player.getStatsComponent().getCha()
+    };
+
+    long[] items =
+        player.getInventoryComponent().getItems().stream().mapToLong(Long::longValue).toArray();
+
+    ArrayList<String> spells = new ArrayList<>();
     for (RSpell s : player.getMagicComponent().getSpells()) {
-      Element spell = new Element("spell");
-      spell.setText(s.id);
-      PC.addContent(spell);
+      spells.add(s.id);
     }
-
     for (RSpell p : player.getMagicComponent().getPowers()) {
-      Element spell = new Element("spell");
-      spell.setText(p.id);
-      PC.addContent(spell);
+      spells.add(p.id);
     }
 
-    for (Feat f : player.getCharacteristicsComponent().getFeats()) {
-      Element feat = new Element("feat");
-      feat.setText(f.toString());
-      PC.addContent(feat);
-    }
+    ArrayList<Feat> feats = new ArrayList<>(player.getCharacteristicsComponent().getFeats());
 
-    return PC;
+    Atlas atlas = gameContext.getAtlas();
+    Rectangle bounds = player.getShapeComponent();
+    return new SaveGame.PlayerData(
+        player.getName(),
+        player.species.id,
+        player.getGender(),
+        player.getSpecialisation(),
+        player.getSign(),
+        atlas.getCurrentMap().getUID(),
+        atlas.getCurrentZoneIndex(),
+        bounds.x,
+        bounds.y,
+        skills,
+        stats,
+        player.getInventoryComponent().getMoney(),
+        items,
+        spells,
+        feats);
   }
 
-  private Element saveJournal(Player player) {
-    Element journal = new Element("journal");
-
+  private List<SaveGame.Quest> saveJournal(Player player) {
+    ArrayList<SaveGame.Quest> journal = new ArrayList<>();
     for (String q : player.getJournal().getQuests().keySet()) {
-      Element quest = new Element("quest");
-      quest.setAttribute("id", q);
-      quest.setAttribute("stage", String.valueOf(player.getJournal().getQuests().get(q)));
-      quest.setText(player.getJournal().getSubjects().get(q));
-      journal.addContent(quest);
+      journal.add(
+          new SaveGame.Quest(
+              q, player.getJournal().getQuests().get(q), player.getJournal().getSubjects().get(q)));
     }
     return journal;
   }
+
+  /**
+   * The state of a game at one moment, ready to be written to the given save directory. The
+   * images hold the store files as they were at that moment.
+   */
+  record Snapshot(
+      long sequence, File dir, SaveGame save, Map<Path, IncrementalCopier.Image> images) {}
 }
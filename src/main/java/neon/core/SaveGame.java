@@ -0,0 +1,279 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.core;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import neon.entities.Player;
+import neon.entities.property.Feat;
+import neon.entities.property.Gender;
+import neon.entities.property.Skill;
+import neon.magic.Effect;
+import neon.resources.RSpell.SpellType;
+import org.jdom2.Attribute;
+import org.jdom2.Document;
+import org.jdom2.Element;
+
+/**
+ * Everything in a saved game that is not kept in the entity and atlas stores: the player, the
+ * journal, the task queue and the timer with its seed. Save games are written with {@link
+ * SaveGameTranslator}, and can still be exported to and read from the old save.xml format.
+ *
+ * @author priewe
+ */
+public record SaveGame(
+    int ticks,
+    long seed,
+    PlayerData player,
+    List<Quest> journal,
+    List<Task> tasks,
+    List<TimedTask> timers) {
+
+  /** The player. Stats are stored in the order str, con, dex, int, wis, cha. */
+  public record PlayerData(
+      String name,
+      String race,
+      Gender gender,
+      Player.Specialisation specialisation,
+      String sign,
+      int map,
+      int level,
+      int x,
+      int y,
+      Map<Skill, Integer> skills,
+      int[] stats,
+      int money,
+      long[] items,
+      List<String> spells,
+      List<Feat> feats) {
+
+    private Element toElement() {
+      Element PC = new Element("player");
+      PC.setAttribute("name", name);
+      PC.setAttribute("race", race);
+      PC.setAttribute("gender", gender.toString().toLowerCase());
+      PC.setAttribute("spec", specialisation.toString());
+      PC.setAttribute("map", Integer.toString(map));
+      PC.setAttribute("l", Integer.toString(level));
+      PC.setAttribute("x", String.valueOf(x));
+      PC.setAttribute("y", String.valueOf(y));
+      PC.setAttribute("sign", sign);
+
+      Element skillsElement = new Element("skills");
+      skills.forEach((skill, value) -> skillsElement.setAttribute(skill.name(), value.toString()));
+      PC.addContent(skillsElement);
+
+      Element statsElement = new Element("stats");
+      for (int i = 0; i < STATS.length; i++) {
+        statsElement.setAttribute(STATS[i], String.valueOf(stats[i]));
+      }
+      PC.addContent(statsElement);
+
+      Element moneyElement = new Element("money");
+      moneyElement.setText(String.valueOf(money));
+      PC.addContent(moneyElement);
+
+      for (long uid : items) {
+        Element item = new Element("item");
+        item.setAttribute("uid", Long.toString(uid));
+        PC.addContent(item);
+      }
+      for (String s : spells) {
+        PC.addContent(new Element("spell").setText(s));
+      }
+      for (Feat f : feats) {
+        PC.addContent(new Element("feat").setText(f.toString()));
+      }
+      return PC;
+    }
+
+    private static PlayerData fromElement(Element PC) {
+      EnumMap<Skill, Integer> skills = new EnumMap<>(Skill.class);
+      for (Attribute skill : PC.getChild("skills").getAttributes()) {
+        skills.put(Skill.valueOf(skill.getName()), Integer.parseInt(skill.getValue()));
+      }
+      int[] stats = new int[STATS.length];
+      for (int i = 0; i < STATS.length; i++) {
+        stats[i] = Integer.parseInt(PC.getChild("stats").getAttributeValue(STATS[i]));
+      }
+      List<Element> items = PC.getChildren("item");
+      long[] uids = new long[items.size()];
+      for (int i = 0; i < uids.length; i++) {
+        uids[i] = Long.parseLong(items.get(i).getAttributeValue("uid"));
+      }
+      ArrayList<String> spells = new ArrayList<>();
+      for (Element e : PC.getChildren("spell")) {
+        spells.add(e.getText());
+      }
+      ArrayList<Feat> feats = new ArrayList<>();
+      for (Element e : PC.getChildren("feat")) {
+        feats.add(Feat.valueOf(e.getText()));
+      }
+
+      return new PlayerData(
+          PC.getAttributeValue("name"),
+          PC.getAttributeValue("race"),
+          Gender.valueOf(PC.getAttributeValue("gender").toUpperCase()),
+          Player.Specialisation.valueOf(PC.getAttributeValue("spec")),
+          PC.getAttributeValue("sign"),
+          Integer.parseInt(PC.getAttributeValue("map")),
+          Integer.parseInt(PC.getAttributeValue("l")),
+          Integer.parseInt(PC.getAttributeValue("x")),
+          Integer.parseInt(PC.getAttributeValue("y")),
+          skills,
+          stats,
+          Integer.parseInt(PC.getChildText("money")),
+          uids,
+          spells,
+          feats);
+    }
+  }
+
+  /** A quest in the journal of the player. */
+  public record Quest(String id, int stage, String subject) {}
+
+  /** A script that runs when the event with the given description is fired. */
+  public record Task(String description, String script) {}
+
+  /** A script or spell that is run by the timer. The spell is {@code null} for scripts. */
+  public record TimedTask(int start, int period, int stop, String script, SpellData spell) {}
+
+  /** A spell that is cast by the timer. Caster and target are {@code null} if there are none. */
+  public record SpellData(
+      Effect effect, float magnitude, String script, SpellType type, Long caster, Long target) {}
+
+  private static final String[] STATS = {"str", "con", "dex", "int", "wis", "cha"};
+
+  /**
+   * @return this save game in the old save.xml format
+   */
+  public Document toDocument() {
+    Element root = new Element("save");
+    root.addContent(player.toElement());
+
+    Element journalElement = new Element("journal");
+    for (Quest q : journal) {
+      Element quest = new Element("quest");
+      quest.setAttribute("id", q.id);
+      quest.setAttribute("stage", String.valueOf(q.stage));
+      quest.setText(q.subject);
+      journalElement.addContent(quest);
+    }
+    root.addContent(journalElement);
+
+    Element events = new Element("events");
+    for (Task task : tasks) {
+      Element event = new Element("task");
+      event.setAttribute("desc", task.description);
+      event.setAttribute("script", task.script);
+      events.addContent(event);
+    }
+    for (TimedTask timer : timers) {
+      Element event = new Element("timer");
+      event.setAttribute("tick", timer.start + ":" + timer.period + ":" + timer.stop);
+      if (timer.spell == null) {
+        event.setAttribute("task", "script");
+        event.setAttribute("script", timer.script);
+      } else {
+        SpellData spell = timer.spell;
+        event.setAttribute("task", "magic");
+        event.setAttribute("effect", spell.effect.name());
+        if (spell.target != null) {
+          event.setAttribute("target", Long.toString(spell.target));
+        }
+        if (spell.caster != null) {
+          event.setAttribute("caster", Long.toString(spell.caster));
+        }
+        if (spell.script != null) {
+          event.setAttribute("script", spell.script);
+        }
+        event.setAttribute("stype", spell.type.name());
+        event.setAttribute("mag", Float.toString(spell.magnitude));
+      }
+      events.addContent(event);
+    }
+    root.addContent(events);
+    root.addContent(new Element("quests"));
+
+    Element timer = new Element("timer");
+    timer.setAttribute("ticks", String.valueOf(ticks));
+    timer.setAttribute("seed", String.valueOf(seed));
+    root.addContent(timer);
+    return new Document(root);
+  }
+
+  /**
+   * Reads a save game in the old save.xml format.
+   *
+   * @param doc the contents of a save.xml file
+   * @return the save game
+   */
+  public static SaveGame fromDocument(Document doc) {
+    Element root = doc.getRootElement();
+    int ticks = Integer.parseInt(root.getChild("timer").getAttributeValue("ticks"));
+    long seed = Long.parseLong(root.getChild("timer").getAttributeValue("seed", "0"));
+
+    ArrayList<Quest> journal = new ArrayList<>();
+    for (Element e : root.getChild("journal").getChildren()) {
+      journal.add(
+          new Quest(
+              e.getAttributeValue("id"),
+              Integer.parseInt(e.getAttributeValue("stage")),
+              e.getText()));
+    }
+
+    ArrayList<Task> tasks = new ArrayList<>();
+    ArrayList<TimedTask> timers = new ArrayList<>();
+    Element events = root.getChild("events");
+    for (Element event : events.getChildren("task")) {
+      if (event.getAttribute("script") != null) {
+        tasks.add(new Task(event.getAttributeValue("desc"), event.getAttributeValue("script")));
+      }
+    }
+    for (Element event : events.getChildren("timer")) {
+      String[] tick = event.getAttributeValue("tick").split(":");
+      int start = Integer.parseInt(tick[0]);
+      int period = Integer.parseInt(tick[1]);
+      int stop = Integer.parseInt(tick[2]);
+      switch (event.getAttributeValue("task")) {
+        case "script" ->
+            timers.add(new TimedTask(start, period, stop, event.getAttributeValue("script"), null));
+        case "magic" -> {
+          String caster = event.getAttributeValue("caster");
+          String target = event.getAttributeValue("target");
+          SpellData spell =
+              new SpellData(
+                  Effect.valueOf(event.getAttributeValue("effect").toUpperCase()),
+                  Float.parseFloat(event.getAttributeValue("mag")),
+                  event.getAttributeValue("script"),
+                  SpellType.valueOf(event.getAttributeValue("stype").toUpperCase()),
+                  caster != null ? Long.valueOf(caster) : null,
+                  target != null ? Long.valueOf(target) : null);
+          timers.add(new TimedTask(start, period, stop, null, spell));
+        }
+        default -> {} // tasks that can't be restored
+      }
+    }
+
+    return new SaveGame(
+        ticks, seed, PlayerData.fromElement(root.getChild("player")), journal, tasks, timers);
+  }
+}
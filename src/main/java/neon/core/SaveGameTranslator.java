@@ -0,0 +1,334 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.core;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import neon.entities.Player;
+import neon.entities.property.Feat;
+import neon.entities.property.Gender;
+import neon.entities.property.Skill;
+import neon.magic.Effect;
+import neon.resources.RSpell.SpellType;
+import neon.systems.files.Translator;
+
+/**
+ * Reads and writes save games in a compact binary format. A save file starts with a magic number
+ * and a format version, followed by sections. Every section has a tag and the length of its
+ * contents, so a reader can skip sections it does not know, and ends with the {@code END} tag.
+ *
+ * @author priewe
+ */
+@Slf4j
+public class SaveGameTranslator implements Translator<SaveGame> {
+  public static final int MAGIC = 0x4E534156; // "NSAV"
+  public static final short VERSION = 1;
+
+  // section tags
+  static final byte END = 0;
+  static final byte TIMER = 1;
+  static final byte PLAYER = 2;
+  static final byte JOURNAL = 3;
+  static final byte TASKS = 4;
+  static final byte TIMERS = 5;
+
+  /**
+   * @return the save game, or {@code null} if the input could not be read
+   */
+  public SaveGame translate(InputStream input) {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(input))) {
+      return deserialize(in);
+    } catch (IOException e) {
+      log.error("Could not read save game", e);
+      return null;
+    }
+  }
+
+  /**
+   * @throws UncheckedIOException if the save game could not be written
+   */
+  public ByteArrayOutputStream translate(SaveGame output) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+    try {
+      serialize(new DataOutputStream(out), output);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write save game", e);
+    }
+    return out;
+  }
+
+  public void serialize(DataOutput out, SaveGame save) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+    DataOutputStream section = new DataOutputStream(buffer);
+
+    section.writeInt(save.ticks());
+    section.writeLong(save.seed());
+    writeSection(out, TIMER, buffer);
+
+    writePlayer(section, save.player());
+    writeSection(out, PLAYER, buffer);
+
+    section.writeInt(save.journal().size());
+    for (SaveGame.Quest quest : save.journal()) {
+      writeString(section, quest.id());
+      section.writeInt(quest.stage());
+      writeString(section, quest.subject());
+    }
+    writeSection(out, JOURNAL, buffer);
+
+    section.writeInt(save.tasks().size());
+    for (SaveGame.Task task : save.tasks()) {
+      writeString(section, task.description());
+      writeString(section, task.script());
+    }
+    writeSection(out, TASKS, buffer);
+
+    section.writeInt(save.timers().size());
+    for (SaveGame.TimedTask timer : save.timers()) {
+      writeTimer(section, timer);
+    }
+    writeSection(out, TIMERS, buffer);
+
+    out.writeByte(END);
+  }
+
+  public SaveGame deserialize(DataInput in) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a save game");
+    }
+    short version = in.readShort();
+    if (version > VERSION) {
+      throw new IOException("Unsupported save game version: " + version);
+    }
+
+    int ticks = 0;
+    long seed = 0;
+    SaveGame.PlayerData player = null;
+    List<SaveGame.Quest> journal = new ArrayList<>();
+    List<SaveGame.Task> tasks = new ArrayList<>();
+    List<SaveGame.TimedTask> timers = new ArrayList<>();
+    for (byte tag = in.readByte(); tag != END; tag = in.readByte()) {
+      byte[] contents = new byte[in.readInt()];
+      in.readFully(contents);
+      DataInputStream section = new DataInputStream(new ByteArrayInputStream(contents));
+      switch (tag) {
+        case TIMER -> {
+          ticks = section.readInt();
+          seed = section.readLong();
+        }
+        case PLAYER -> player = readPlayer(section);
+        case JOURNAL -> {
+          for (int i = section.readInt(); i > 0; i--) {
+            journal.add(
+                new SaveGame.Quest(readString(section), section.readInt(), readString(section)));
+          }
+        }
+        case TASKS -> {
+          for (int i = section.readInt(); i > 0; i--) {
+            tasks.add(new SaveGame.Task(readString(section), readString(section)));
+          }
+        }
+        case TIMERS -> {
+          for (int i = section.readInt(); i > 0; i--) {
+            timers.add(readTimer(section));
+          }
+        }
+        default -> log.warn("Skipping unknown save game section {}", tag);
+      }
+    }
+
+    return new SaveGame(ticks, seed, player, journal, tasks, timers);
+  }
+
+  private static void writeSection(DataOutput out, byte tag, ByteArrayOutputStream buffer)
+      throws IOException {
+    out.writeByte(tag);
+    out.writeInt(buffer.size());
+    out.write(buffer.toByteArray());
+    buffer.reset();
+  }
+
+  private static void writePlayer(DataOutput out, SaveGame.PlayerData player) throws IOException {
+    writeString(out, player.name());
+    writeString(out, player.race());
+    writeString(out, player.gender().name());
+    writeString(out, player.specialisation().name());
+    writeString(out, player.sign());
+    out.writeInt(player.map());
+    out.writeInt(player.level());
+    out.writeInt(player.x());
+    out.writeInt(player.y());
+
+    out.writeInt(player.skills().size());
+    for (Map.Entry<Skill, Integer> skill : player.skills().entrySet()) {
+      writeString(out, skill.getKey().name());
+      out.writeInt(skill.getValue());
+    }
+    out.writeByte(player.stats().length);
+    for (int stat : player.stats()) {
+      out.writeInt(stat);
+    }
+    out.writeInt(player.money());
+
+    out.writeInt(player.items().length);
+    for (long uid : player.items()) {
+      out.writeLong(uid);
+    }
+    out.writeInt(player.spells().size());
+    for (String spell : player.spells()) {
+      writeString(out, spell);
+    }
+    out.writeInt(player.feats().size());
+    for (Feat feat : player.feats()) {
+      writeString(out, feat.name());
+    }
+  }
+
+  private static SaveGame.PlayerData readPlayer(DataInput in) throws IOException {
+    String name = readString(in);
+    String race = readString(in);
+    Gender gender = Gender.valueOf(readString(in));
+    Player.Specialisation specialisation = Player.Specialisation.valueOf(readString(in));
+    String sign = readString(in);
+    int map = in.readInt();
+    int level = in.readInt();
+    int x = in.readInt();
+    int y = in.readInt();
+
+    EnumMap<Skill, Integer> skills = new EnumMap<>(Skill.class);
+    for (int i = in.readInt(); i > 0; i--) {
+      skills.put(Skill.valueOf(readString(in)), in.readInt());
+    }
+    int[] stats = new int[in.readByte()];
+    for (int i = 0; i < stats.length; i++) {
+      stats[i] = in.readInt();
+    }
+    int money = in.readInt();
+
+    long[] items = new long[in.readInt()];
+    for (int i = 0; i < items.length; i++) {
+      items[i] = in.readLong();
+    }
+    ArrayList<String> spells = new ArrayList<>();
+    for (int i = in.readInt(); i > 0; i--) {
+      spells.add(readString(in));
+    }
+    ArrayList<Feat> feats = new ArrayList<>();
+    for (int i = in.readInt(); i > 0; i--) {
+      feats.add(Feat.valueOf(readString(in)));
+    }
+
+    return new SaveGame.PlayerData(
+        name,
+        race,
+        gender,
+        specialisation,
+        sign,
+        map,
+        level,
+        x,
+        y,
+        skills,
+        stats,
+        money,
+        items,
+        spells,
+        feats);
+  }
+
+  private static void writeTimer(DataOutput out, SaveGame.TimedTask timer) throws IOException {
+    out.writeInt(timer.start());
+    out.writeInt(timer.period());
+    out.writeInt(timer.stop());
+    SaveGame.SpellData spell = timer.spell();
+    if (spell == null) {
+      out.writeBoolean(false);
+      writeString(out, timer.script());
+    } else {
+      out.writeBoolean(true);
+      writeString(out, spell.effect().name());
+      out.writeFloat(spell.magnitude());
+      writeString(out, spell.script());
+      writeString(out, spell.type().name());
+      writeUID(out, spell.caster());
+      writeUID(out, spell.target());
+    }
+  }
+
+  private static SaveGame.TimedTask readTimer(DataInput in) throws IOException {
+    int start = in.readInt();
+    int period = in.readInt();
+    int stop = in.readInt();
+    if (!in.readBoolean()) {
+      return new SaveGame.TimedTask(start, period, stop, readString(in), null);
+    }
+    SaveGame.SpellData spell =
+        new SaveGame.SpellData(
+            Effect.valueOf(readString(in)),
+            in.readFloat(),
+            readString(in),
+            SpellType.valueOf(readString(in)),
+            readUID(in),
+            readUID(in));
+    return new SaveGame.TimedTask(start, period, stop, null, spell);
+  }
+
+  private static void writeUID(DataOutput out, Long uid) throws IOException {
+    out.writeBoolean(uid != null);
+    if (uid != null) {
+      out.writeLong(uid);
+    }
+  }
+
+  private static Long readUID(DataInput in) throws IOException {
+    return in.readBoolean() ? in.readLong() : null;
+  }
+
+  /*
+   * Strings are written as UTF-8 with an int length, because quest texts and scripts can be
+   * longer than writeUTF allows. A length of -1 stands for null.
+   */
+  private static void writeString(DataOutput out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private static String readString(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
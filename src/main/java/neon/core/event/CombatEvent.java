@@ -36,6 +36,7 @@ public class CombatEvent extends EventObject {
   private final Creature defender;
   private int result = 0;
   private int type = 0;
+  private transient String id; // the description, made once
 
   public CombatEvent(Creature attacker, Creature defender, int result) {
     super(attacker);
@@ -79,6 +80,9 @@ public class CombatEvent extends EventObject {
 
   @Override
   public String toString() {
-    return attacker.getID() + defender.getID();
+    if (id == null) {
+      id = attacker.getID() + defender.getID();
+    }
+    return id;
   }
 }
@@ -24,6 +24,7 @@ import neon.entities.Creature;
 @SuppressWarnings("serial")
 public class DeathEvent extends EventObject {
   private final int time;
+  private transient String id; // the description, made once
 
   /**
    * @param c the creature that died
@@ -44,6 +45,9 @@ public class DeathEvent extends EventObject {
 
   @Override
   public String toString() {
-    return "die:" + getCreature().getID();
+    if (id == null) {
+      id = "die:" + getCreature().getID();
+    }
+    return id;
   }
 }
@@ -44,7 +44,8 @@ public class MagicTask implements Action {
   public void run(EventObject e) {
     Creature target = (Creature) spell.getTarget();
     if (target.getActiveSpells().contains(spell)) {
-      if (stop == gameContext.getTimer().getTime()) {
+      int time = e instanceof TurnEvent te ? te.getTime() : gameContext.getTimer().getTime();
+      if (time >= stop) {
         MagicUtils.removeSpell(target, spell);
       } else if (spell.getEffect().getDuration() == Effect.REPEAT) {
         spell.getHandler().repeatEffect(spell);
@@ -23,6 +23,7 @@ import java.util.EventObject;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import neon.core.ScriptEngine;
+import neon.systems.timing.TimingWheel;
 import neon.util.fsm.Action;
 import net.engio.mbassy.listener.Handler;
 
@@ -35,37 +36,52 @@ public class TaskQueue extends TaskSubmission {
     this.scriptEngine = scriptEngine;
   }
 
+  // tasks are stored by the description of an event, events without one never match
+  private static final ClassValue<Boolean> described =
+      new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+          try {
+            return type.getMethod("toString").getDeclaringClass() != EventObject.class;
+          } catch (NoSuchMethodException e) {
+            return false;
+          }
+        }
+      };
+
   @Handler
   public void check(EventObject e) {
     log.trace("check {}", e);
-    if (tasks.containsKey(e.toString())) {
-      for (Action task : tasks.get(e.toString())) {
-        task.run(e);
-      }
+    if (tasks.isEmpty() || !described.get(e.getClass())) {
+      return;
+    }
+    // the events make their description once, get returns an empty collection for an unknown key
+    for (Action task : tasks.get(e.toString())) {
+      task.run(e);
     }
   }
 
-  public Multimap<Integer, RepeatEntry> getTimerTasks() {
+  public TimingWheel<RepeatEntry> getTimerTasks() {
     return repeat;
   }
 
   @Handler
   public void tick(TurnEvent te) {
     log.trace("tick {}", te);
-    int time = te.getTime();
+    // if time jumped, the tasks of the skipped turns are run as well
+    repeat.advance(
+        te.getTime(), (entry, time) -> run(entry, time == te.getTime() ? te : new TurnEvent(time)));
+  }
 
-    if (repeat.containsKey(time)) {
-      for (RepeatEntry entry : repeat.get(time)) {
-        if (entry.script != null) {
-          scriptEngine.execute(entry.script);
-        } else {
-          entry.task.run(te);
-        }
-        if (entry.stop > 0 && time + entry.period <= entry.stop) {
-          repeat.put(time + entry.period, entry);
-        }
-      }
-      repeat.removeAll(time);
+  private void run(RepeatEntry entry, TurnEvent te) {
+    int time = te.getTime();
+    if (entry.script != null) {
+      scriptEngine.execute(entry.script);
+    } else {
+      entry.task.run(te);
+    }
+    if (entry.stop > 0 && entry.period > 0 && time + entry.period <= entry.stop) {
+      repeat.add(time + entry.period, entry);
     }
   }
 
@@ -24,6 +24,7 @@ import java.util.EventObject;
 public class TurnEvent extends EventObject {
   private final int time;
   private final boolean start;
+  private transient String id; // the description, made once
 
   public TurnEvent(int turn) {
     this(turn, false);
@@ -48,6 +49,9 @@ public class TurnEvent extends EventObject {
 
   @Override
   public String toString() {
-    return "turn " + time;
+    if (id == null) {
+      id = "turn " + time;
+    }
+    return id;
   }
 }
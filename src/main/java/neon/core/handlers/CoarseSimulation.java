@@ -0,0 +1,221 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.core.handlers;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.function.LongFunction;
+import neon.ai.ScheduleAI;
+import neon.entities.Creature;
+import neon.entities.components.HealthComponent;
+import neon.entities.property.Condition;
+import neon.maps.Zone;
+import neon.systems.timing.Scheduler;
+
+/**
+ * Simulates the creatures that are out of ai range at a lower level of detail. Creatures within ai
+ * range act every turn, this is left to the {@link TurnHandler}. Creatures in a ring around that
+ * range get a coarse update now and then: they regenerate and creatures with a schedule jump from
+ * point to point. Only a limited number of them is updated every turn, each update makes up for
+ * all the turns since the previous one. Creatures further away and creatures in other zones are
+ * left alone. When the player enters a zone again, all its creatures make up for the time the
+ * player was away in one go.
+ *
+ * @author priewe
+ */
+class CoarseSimulation {
+  private final int ring;
+  private final int budget;
+  private final int catchUp;
+  private final LongFunction<Creature> creatures;
+  private final LongFunction<Creature> changes;
+  // the last turn creatures of the active zone were simulated, if later than the zone
+  private final HashMap<Long, Integer> simulated = new HashMap<>();
+  private final HashMap<Long, Integer> departures = new HashMap<>(); // when the player left zones
+  private final ArrayDeque<Long> queue = new ArrayDeque<>(); // creatures in the ring, in turn
+  private int entered; // the turn up to which the active zone was caught up when it was entered
+
+  /**
+   * @param ring the distance from the player within which creatures are still updated
+   * @param budget the number of creatures in the ring that are updated every turn
+   * @param catchUp the maximum number of turns made up for when a zone is entered
+   * @param creatures gives the creature with a uid
+   */
+  CoarseSimulation(int ring, int budget, int catchUp, LongFunction<Creature> creatures) {
+    this(ring, budget, catchUp, creatures, creatures);
+  }
+
+  /**
+   * @param ring the distance from the player within which creatures are still updated
+   * @param budget the number of creatures in the ring that are updated every turn
+   * @param catchUp the maximum number of turns made up for when a zone is entered
+   * @param creatures gives the creature with a uid, to be read
+   * @param changes gives the creature with a uid, to be changed
+   */
+  CoarseSimulation(
+      int ring,
+      int budget,
+      int catchUp,
+      LongFunction<Creature> creatures,
+      LongFunction<Creature> changes) {
+    this.ring = ring;
+    this.budget = budget;
+    this.catchUp = catchUp;
+    this.creatures = creatures;
+    this.changes = changes;
+  }
+
+  /**
+   * Remembers when the player left a zone.
+   *
+   * @param zone the zone that was left
+   * @param turn the last turn the player was in the zone
+   */
+  void leave(Zone zone, int turn) {
+    departures.put(getKey(zone), turn);
+  }
+
+  /**
+   * Makes all creatures in a zone catch up with the time the player was away.
+   *
+   * @param zone the zone that was entered
+   * @param turn the current turn
+   */
+  void enter(Zone zone, int turn) {
+    simulated.clear();
+    queue.clear();
+    entered = turn - 1; // the current turn is simulated as usual
+    Integer departure = departures.remove(getKey(zone));
+    if (departure != null && departure < entered) {
+      int turns = Math.min(entered - departure, catchUp);
+      for (long uid : zone.getCreatures()) {
+        Creature creature = creatures.apply(uid);
+        if (creature != null && !creature.hasCondition(Condition.DEAD)) {
+          update(zone, uid, creature, turns);
+        }
+      }
+    }
+  }
+
+  /**
+   * Gives the next creatures in the ring their coarse update.
+   *
+   * @param zone the active zone
+   * @param player the position of the player
+   * @param turn the current turn
+   * @param scheduler the scheduler with the creatures that act every turn
+   * @return the number of creatures that were updated
+   */
+  int update(Zone zone, Point player, int turn, Scheduler scheduler) {
+    if (queue.isEmpty()) {
+      Rectangle window =
+          new Rectangle(player.x - ring, player.y - ring, 2 * ring + 1, 2 * ring + 1);
+      zone.forEachCreature(
+          window,
+          uid -> {
+            if (!scheduler.isAwake(uid)) {
+              queue.add(uid);
+            }
+          });
+    }
+
+    int count = 0;
+    while (count < budget && !queue.isEmpty()) {
+      long uid = queue.poll();
+      Creature creature = creatures.apply(uid);
+      if (creature == null
+          || creature.hasCondition(Condition.DEAD)
+          || scheduler.isAwake(uid)
+          || !zone.hasCreature(uid)
+          || player.distance(creature.getShapeComponent().getLocation()) >= ring) {
+        continue;
+      }
+      int turns = turn - getLastTurn(uid);
+      if (turns > 0) {
+        update(zone, uid, creature, turns);
+        simulated.put(uid, turn);
+      }
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Returns the last turn a creature of the active zone was simulated, either coarsely or because
+   * it was near the player.
+   *
+   * @param uid the uid of the creature
+   * @return the last simulated turn
+   */
+  int getLastTurn(long uid) {
+    return simulated.getOrDefault(uid, entered);
+  }
+
+  /**
+   * Records that a creature of the active zone was simulated.
+   *
+   * @param uid the uid of the creature
+   * @param turn the turn it was simulated
+   */
+  void setLastTurn(long uid, int turn) {
+    simulated.put(uid, turn);
+  }
+
+  private void update(Zone zone, long uid, Creature creature, int turns) {
+    if (isRested(creature) && !(creature.brain instanceof ScheduleAI)) {
+      return; // nothing changes
+    }
+    creature = changes.apply(uid);
+    regenerate(creature, turns);
+    if (creature.brain instanceof ScheduleAI schedule) {
+      Point position = schedule.skip(turns);
+      if (position != null) {
+        creature.getShapeComponent().setLocation(position);
+        zone.moveCreature(creature);
+      }
+    }
+  }
+
+  /**
+   * Lets a creature regain health and mana.
+   *
+   * @param creature the creature
+   * @param turns the number of turns that passed
+   */
+  static void regenerate(Creature creature, int turns) {
+    HealthComponent health = creature.getHealthComponent();
+    health.heal(creature.getStatsComponent().getCon() / 100f * turns);
+    creature.getMagicComponent().addMana(creature.getStatsComponent().getWis() / 100f * turns);
+  }
+
+  /**
+   * @param creature a creature
+   * @return whether the creature has all its health and mana, so regenerating changes nothing
+   */
+  static boolean isRested(Creature creature) {
+    return creature.getHealthComponent().getHealthMod() >= 0
+        && creature.getMagicComponent().getModifier() >= 0;
+  }
+
+  private static long getKey(Zone zone) {
+    return (long) zone.getMap() << 32 | zone.getIndex();
+  }
+}
@@ -63,20 +63,21 @@ public class CombatUtils implements Serializable {
   protected int getAV(Creature creature) {
     Inventory inventory = creature.getInventoryComponent();
 
+    Dice dice = uidStore.getTimer().getDice(creature.getUID());
     int damage;
     if (inventory.hasEquiped(Slot.WEAPON)) {
       Weapon weapon = (Weapon) uidStore.getStore().getEntity(inventory.get(Slot.WEAPON));
-      damage = Dice.roll(weapon.getDamage());
+      damage = dice.rollDice(weapon.getDamage());
       if (weapon.getWeaponType().equals(WeaponType.BOW)
           || weapon.getWeaponType().equals(WeaponType.CROSSBOW)) {
         Weapon ammo = (Weapon) uidStore.getStore().getEntity(inventory.get(Slot.AMMO));
-        damage = (damage + Dice.roll(ammo.getDamage())) / 2;
+        damage = (damage + dice.rollDice(ammo.getDamage())) / 2;
       }
     } else if (inventory.hasEquiped(Slot.AMMO)) {
       Weapon ammo = (Weapon) uidStore.getStore().getEntity(inventory.get(Slot.AMMO));
-      damage = Dice.roll(ammo.getDamage());
+      damage = dice.rollDice(ammo.getDamage());
     } else {
-      damage = Dice.roll(creature.species.av);
+      damage = dice.rollDice(creature.species.av);
     }
 
     float mod = 1f;
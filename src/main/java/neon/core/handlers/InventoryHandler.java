@@ -27,6 +27,7 @@ import neon.entities.Clothing;
 import neon.entities.Creature;
 import neon.entities.Item;
 import neon.entities.Weapon;
+import neon.entities.components.DerivedStats;
 import neon.entities.components.Inventory;
 import neon.entities.property.Slot;
 import neon.magic.Effect;
@@ -238,9 +239,21 @@ public class InventoryHandler {
    * @return a creature's weight
    */
   public int getWeight(Creature creature) {
+    DerivedStats derived = creature.getDerivedComponent();
+    long modCount = creature.getModCount();
+    if (!derived.hasWeight(modCount)) {
+      derived.setWeight(modCount, calculateWeight(creature));
+    }
+    return derived.getWeight();
+  }
+
+  /*
+   * Adds up the weight without caching it, several threads may do this at once.
+   */
+  int calculateWeight(Creature creature) {
     float sum = 0;
     for (long uid : creature.getInventoryComponent()) {
-      sum += ((Item) gameContext.getStore().getEntity(uid)).resource.weight;
+      sum += ((Item) gameContext.getStore().readEntity(uid)).resource.weight;
     }
     // in case of 'burden' spell
     for (Spell s : creature.getActiveSpells()) {
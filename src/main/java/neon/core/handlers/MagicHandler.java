@@ -20,12 +20,14 @@ package neon.core.handlers;
 
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.ArrayList;
 import java.util.Collection;
 import lombok.extern.slf4j.Slf4j;
 import neon.core.GameContext;
 import neon.core.event.MagicEvent;
 import neon.core.event.MagicTask;
 import neon.entities.Creature;
+import neon.entities.Door;
 import neon.entities.Item;
 import neon.entities.components.Characteristics;
 import neon.entities.components.Enchantment;
@@ -33,6 +35,7 @@ import neon.entities.property.Ability;
 import neon.entities.property.Condition;
 import neon.entities.property.Skill;
 import neon.magic.*;
+import neon.maps.Zone;
 import neon.resources.RSpell;
 import neon.util.Dice;
 import net.engio.mbassy.listener.Handler;
@@ -102,7 +105,7 @@ public class MagicHandler {
         castSpell((Item) gameContext.getStore().getEntity(uid), spell);
       }
     } else {
-      Collection<Creature> creatures = gameContext.getAtlas().getCurrentZone().getCreatures(box);
+      Collection<Creature> creatures = getTargets(box);
       for (Creature creature : creatures) {
         castSpell(creature, null, spell);
       }
@@ -173,7 +176,7 @@ public class MagicHandler {
           castSpell((Item) gameContext.getStore().getEntity(uid), formula);
         }
       } else {
-        Collection<Creature> creatures = gameContext.getAtlas().getCurrentZone().getCreatures(box);
+        Collection<Creature> creatures = getTargets(box);
         if (box.contains(gameContext.getPlayer().getShapeComponent())) {
           creatures.add(gameContext.getPlayer());
         }
@@ -233,7 +236,7 @@ public class MagicHandler {
           castSpell((Item) gameContext.getStore().getEntity(uid), formula);
         }
       } else {
-        Collection<Creature> creatures = gameContext.getAtlas().getCurrentZone().getCreatures(box);
+        Collection<Creature> creatures = getTargets(box);
         if (box.contains(gameContext.getPlayer().getShapeComponent())) {
           creatures.add(gameContext.getPlayer());
         }
@@ -330,7 +333,12 @@ public class MagicHandler {
   private int castSpell(Item target, RSpell formula) {
     if (formula.effect.getHandler().onItem()) {
       Spell spell = new Spell(formula, 0, target, null);
-      spell.getHandler().addEffect(spell);
+      if (target instanceof Door door) { // a lock spell may shut the door
+        Zone zone = gameContext.getAtlas().getCurrentZone();
+        zone.changeLock(door.lock, lock -> spell.getHandler().addEffect(spell));
+      } else {
+        spell.getHandler().addEffect(spell);
+      }
       return OK;
     } else {
       return TARGET;
@@ -372,6 +380,17 @@ public class MagicHandler {
     return OK;
   }
 
+  /*
+   * The creatures a spell hits in an area, they are changed by it
+   */
+  private Collection<Creature> getTargets(Rectangle box) {
+    ArrayList<Creature> targets = new ArrayList<>();
+    Zone zone = gameContext.getAtlas().getCurrentZone();
+    zone.forEachCreature(
+        box, uid -> targets.add((Creature) gameContext.getStore().getEntity(uid)));
+    return targets;
+  }
+
   /*
    * Calculates all penalties related to spellcasting
    */
@@ -396,14 +415,15 @@ public class MagicHandler {
   public void eat(Creature eater, Item.Food food) {
     Enchantment enchantment = food.getMagicComponent();
     int check = Math.max(1, skillHandler.check(eater, Skill.ALCHEMY) / 10);
+    Dice dice = gameContext.getTimer().getDice(eater.getUID());
     RSpell spell =
         new RSpell(
             "",
             0,
-            Dice.roll(1, check, 0),
+            dice.rollDice(1, check, 0),
             enchantment.getSpell().effect.name(),
             1,
-            Dice.roll(1, check, 0),
+            dice.rollDice(1, check, 0),
             "spell");
     castSpell(eater, eater, spell);
   }
@@ -123,8 +123,7 @@ public class MotionHandler {
     if (swimmer.species.habitat == Habitat.WATER) {
       return OK;
     } else if (skillHandler.check(swimmer, Skill.SWIMMING) > 20) {
-      Rectangle bounds = swimmer.getShapeComponent();
-      bounds.setLocation(p.x, p.y);
+      place(swimmer, p);
       return OK;
     } else {
       return SWIM;
@@ -142,8 +141,7 @@ public class MotionHandler {
       return HABITAT;
     }
     if (skillHandler.check(climber, Skill.CLIMBING) > 25) {
-      Rectangle bounds = climber.getShapeComponent();
-      bounds.setLocation(p.x, p.y);
+      place(climber, p);
       return OK;
     } else {
       return CLIMB;
@@ -151,12 +149,18 @@ public class MotionHandler {
   }
 
   byte walk(Creature walker, Point p) {
-    Rectangle bounds = walker.getShapeComponent();
     if (walker.species.habitat == Habitat.WATER) {
       return HABITAT;
     } else {
-      bounds.setLocation(p.x, p.y);
+      place(walker, p);
       return OK;
     }
   }
+
+  /** Moves a creature and keeps the creature index of the current zone up to date. */
+  private void place(Creature creature, Point p) {
+    Rectangle bounds = creature.getShapeComponent();
+    bounds.setLocation(p.x, p.y);
+    gameContext.getAtlas().getCurrentZone().moveCreature(creature);
+  }
 }
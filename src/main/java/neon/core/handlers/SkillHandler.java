@@ -27,7 +27,6 @@ import neon.entities.components.HealthComponent;
 import neon.entities.property.Feat;
 import neon.entities.property.Skill;
 import neon.entities.property.Trait;
-import neon.util.Dice;
 
 /*
  * Current leveling mechanism:
@@ -42,7 +41,9 @@ public class SkillHandler {
   }
 
   public int check(Creature creature, Skill skill) {
-    int check = getStatValue(skill, creature) + Dice.roll(1, creature.getSkill(skill), 0);
+    int roll =
+        gameContext.getTimer().getDice(creature.getUID()).rollDice(1, creature.getSkill(skill), 0);
+    int check = getStatValue(skill, creature) + roll;
     Characteristics characteristics = creature.getCharacteristicsComponent();
     switch (skill) { // bonuses
       case ALTERATION:
@@ -235,7 +236,8 @@ public class SkillHandler {
       }
       if (level < player.getLevel()) { // level has increased by 1
         HealthComponent health = player.getHealthComponent();
-        health.addBaseHealth(Dice.roll(player.species.hit));
+        health.addBaseHealth(
+            gameContext.getTimer().getDice(player.getUID()).rollDice(player.species.hit));
         gameContext.post(new SkillEvent(skill, true));
       }
     }
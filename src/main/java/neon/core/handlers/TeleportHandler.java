@@ -25,6 +25,7 @@ import neon.core.event.MessageEvent;
 import neon.entities.Creature;
 import neon.entities.Door;
 import neon.entities.Entity;
+import neon.entities.components.Lock;
 import neon.maps.*;
 
 /**
@@ -93,7 +94,7 @@ public class TeleportHandler {
       for (long uid : gameContext.getAtlas().getCurrentZone().getItems(bounds)) {
         Entity i = gameContext.getStore().getEntity(uid);
         if (i instanceof Door) {
-          ((Door) i).lock.open();
+          gameContext.getAtlas().getCurrentZone().changeLock(((Door) i).lock, Lock::open);
         }
       }
 
@@ -18,15 +18,23 @@
 
 package neon.core.handlers;
 
+import java.awt.Point;
 import java.awt.Rectangle;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
 import lombok.extern.slf4j.Slf4j;
+import neon.ai.AI;
+import neon.ai.FlowField;
 import neon.core.Configuration;
 import neon.core.GameContext;
 import neon.core.event.TurnEvent;
 import neon.core.event.UpdateEvent;
 import neon.entities.Creature;
 import neon.entities.Player;
+import neon.entities.components.DerivedStats;
 import neon.entities.components.HealthComponent;
 import neon.entities.property.Condition;
 import neon.entities.property.Habitat;
@@ -36,6 +44,7 @@ import neon.maps.generators.TownGenerator;
 import neon.maps.generators.WildernessGenerator;
 import neon.resources.CServer;
 import neon.resources.RRegionTheme;
+import neon.systems.timing.Scheduler;
 import neon.ui.GamePanel;
 import net.engio.mbassy.listener.Handler;
 import net.engio.mbassy.listener.Listener;
@@ -44,18 +53,38 @@ import net.engio.mbassy.listener.References;
 @Listener(references = References.Strong) // strong, om gc te vermijden
 @Slf4j
 public class TurnHandler {
-  private final GamePanel panel;
+  private final Supplier<Rectangle> visible; // the part of the zone that is visible
+  private final boolean parallel; // whether the creatures that are due decide at the same time
   private Generator generator;
   private final int range;
   private final GameContext gameContext;
   private final InventoryHandler inventoryHandler;
+  private final CoarseSimulation simulation; // creatures out of range
+  private Zone activeZone; // the zone the scheduled creatures are in
+  private int lastTurn;
 
   public TurnHandler(GamePanel panel, GameContext gameContext) {
-    this.panel = panel;
+    this(gameContext, panel::getVisibleRectangle, true);
+  }
+
+  /*
+   * Initializes a turn handler without a panel. The creatures that are due can also decide one
+   * after the other, which must give the same result as deciding at the same time.
+   */
+  TurnHandler(GameContext gameContext, Supplier<Rectangle> visible, boolean parallel) {
+    this.visible = visible;
+    this.parallel = parallel;
     this.gameContext = gameContext;
     this.inventoryHandler = new InventoryHandler(gameContext);
-    CServer ini = (CServer) panel.getContext().getResources().getResource("ini", "config");
+    CServer ini = (CServer) gameContext.getResources().getResource("ini", "config");
     range = ini.getAIRange();
+    simulation =
+        new CoarseSimulation(
+            Math.max(range, ini.getSimulationRing()),
+            ini.getCoarseBudget(),
+            ini.getCatchUpBudget(),
+            uid -> (Creature) gameContext.getStore().readEntity(uid),
+            uid -> (Creature) gameContext.getStore().getEntity(uid));
   }
 
   @Handler
@@ -77,31 +106,56 @@ public class TurnHandler {
     }
 
     // monsters controleren
-    Player player = panel.getContext().getPlayer();
-    for (long uid : panel.getContext().getAtlas().getCurrentZone().getCreatures()) {
-      Creature creature = (Creature) panel.getContext().getStore().getEntity(uid);
-      if (!creature.hasCondition(Condition.DEAD)) {
-        HealthComponent health = creature.getHealthComponent();
-        health.heal(creature.getStatsComponent().getCon() / 100f);
-        creature.getMagicComponent().addMana(creature.getStatsComponent().getWis() / 100f);
-        Rectangle pBounds = player.getShapeComponent();
-        Rectangle cBounds = creature.getShapeComponent();
-        if (pBounds.getLocation().distance(cBounds.getLocation()) < range) {
-          int spd = getSpeed(creature);
-          Region region =
-              panel.getContext().getAtlas().getCurrentZone().getRegion(cBounds.getLocation());
-          if (creature.species.habitat == Habitat.LAND && region.getMovMod() == Modifier.SWIM) {
-            spd = spd / 4; // zwemmende creatures hebben penalty
-          }
-          if (player.isSneaking()) {
-            spd = spd * 2; // player krijgt penalty bij sneaken
-          }
+    Player player = gameContext.getPlayer();
+    Scheduler scheduler = gameContext.getTimer().getScheduler();
+    Zone zone = gameContext.getAtlas().getCurrentZone();
+    int turn = te.getTime();
+    if (zone != activeZone || turn != lastTurn + 1) { // another zone, or time jumped ahead
+      if (activeZone != null) {
+        simulation.leave(activeZone, lastTurn);
+      }
+      activeZone = zone;
+      scheduler.clear();
+      simulation.enter(zone, turn);
+    }
+    lastTurn = turn;
+    Point position = player.getShapeComponent().getLocation();
+    int speed = getSpeed(player);
+    long end = (long) (turn + 1) * Scheduler.TURN;
+    boolean sneaking = player.isSneaking();
+    // all hunters follow the same flow field, compute it before the creatures need it
+    FlowField.toward(zone.getPassability(), position, range);
 
-          while (spd > getSpeed(player) * Math.random()) {
-            creature.brain.act();
-            spd -= getSpeed(player);
+    // wake up the creatures that came close, the others sleep until they do
+    Rectangle window =
+        new Rectangle(position.x - range, position.y - range, 2 * range + 1, 2 * range + 1);
+    zone.forEachCreature(
+        window,
+        uid -> {
+          if (!scheduler.isAwake(uid)) {
+            wake(uid, position, turn, scheduler);
           }
-        }
+        });
+    for (long uid : scheduler.getAwake()) {
+      Creature creature = (Creature) gameContext.getStore().readEntity(uid);
+      if (creature != null
+          && !creature.hasCondition(Condition.DEAD)
+          && !CoarseSimulation.isRested(creature)) {
+        creature = (Creature) gameContext.getStore().getEntity(uid);
+        CoarseSimulation.regenerate(creature, 1);
+      }
+    }
+    // creatures a bit further away only get a coarse update
+    simulation.update(zone, position, turn, scheduler);
+
+    long[] due;
+    while ((due = scheduler.poll(end)).length > 0) {
+      // the creatures that are due decide what to do at the same time, nothing moves meanwhile
+      LongStream uids = parallel ? Arrays.stream(due).parallel() : Arrays.stream(due);
+      List<Decision> decisions = uids.mapToObj(uid -> decide(uid, position)).toList();
+      // and then act one by one, in the order of the schedule
+      for (Decision decision : decisions) {
+        apply(decision, position, sneaking, speed, turn, scheduler);
       }
     }
 
@@ -111,8 +165,8 @@ public class TurnHandler {
     player.getMagicComponent().addMana(player.getStatsComponent().getWis() / 100f);
 
     // en systems updaten
-    panel.getContext().getPhysicsEngine().update();
-    panel.getContext().post(new UpdateEvent(this));
+    gameContext.getPhysicsEngine().update();
+    gameContext.post(new UpdateEvent(this));
   }
 
   private class Generator extends Thread {
@@ -120,7 +174,7 @@ public class TurnHandler {
     public void run() {
       // enkel repainten nadat er iets gegenereerd is
       if (checkRegions()) {
-        panel.getContext().post(new UpdateEvent(this));
+        gameContext.post(new UpdateEvent(this));
       }
     }
   }
@@ -129,45 +183,201 @@ public class TurnHandler {
    * Checks if any regions are visible that should be randomly generated.
    */
   private boolean checkRegions() { // die boolean is eigenlijk maar louche
-    Rectangle window = panel.getVisibleRectangle();
-    Zone zone = panel.getContext().getAtlas().getCurrentZone();
-    boolean fixed = true;
+    Rectangle window = visible.get();
+    Zone zone = gameContext.getAtlas().getCurrentZone();
     boolean generated = false; // om aan te geven dat er iets gegenereerd werd
 
-    do {
-      Collection<Region> buffer = zone.getRegions(window);
-      fixed = true;
-      for (Region r : buffer) {
-        if (!r.isFixed()) {
-          generated = true;
-          fixed = false;
-          RRegionTheme theme = r.getTheme();
-          r.fix(); // vanaf hier wordt theme null
-          if (theme.id.startsWith("town")) {
-            new TownGenerator(zone, gameContext)
-                .generate(r.getX(), r.getY(), r.getWidth(), r.getHeight(), theme, r.getZ());
-          } else {
-            new WildernessGenerator(zone, gameContext).generate(r, theme);
-          }
-        }
+    // towns are never cut into pieces, one pass is enough
+    for (Region r : zone.getRegions(window)) {
+      if (!r.isFixed() && r.getTheme().id.startsWith("town")) {
+        generated = true;
+        RRegionTheme theme = r.getTheme();
+        r.fix(); // vanaf hier wordt theme null
+        new TownGenerator(zone, gameContext)
+            .generate(r.getX(), r.getY(), r.getWidth(), r.getHeight(), theme, r.getZ());
+      }
+    }
+
+    // the wilderness keeps its entities until everything in the window is generated
+    return new WildernessGenerator(zone, gameContext).generate(window) || generated;
+  }
+
+  /*
+   * Wakes up a creature that came within range of the player. The regeneration it missed while it
+   * was asleep is made up for, and it acts at some point in the current turn.
+   */
+  private void wake(long uid, Point player, int turn, Scheduler scheduler) {
+    Creature creature = (Creature) gameContext.getStore().readEntity(uid);
+    Point position = creature.getShapeComponent().getLocation();
+    if (!creature.hasCondition(Condition.DEAD) && player.distance(position) < range) {
+      int since = simulation.getLastTurn(uid);
+      // this turn is regenerated with the others
+      if (since < turn - 1 && !CoarseSimulation.isRested(creature)) {
+        creature = (Creature) gameContext.getStore().getEntity(uid);
+        CoarseSimulation.regenerate(creature, turn - since - 1);
+      }
+      SplittableRandom random = gameContext.getTimer().getRandom(turn, uid);
+      scheduler.wake(uid, (long) turn * Scheduler.TURN + random.nextInt(Scheduler.TURN));
+    }
+  }
+
+  /*
+   * Decides what a creature will do: whether it is still active, how fast it is and where it
+   * steps. This only reads, from the positions before any of the due creatures acted, so it may
+   * run for several creatures at once.
+   */
+  private Decision decide(long uid, Point player) {
+    Creature creature = (Creature) gameContext.getStore().readEntity(uid);
+    if (!isActive(uid, creature, player)) {
+      return new Decision(uid, null, null, 0, -1, 0, 0, false, null);
+    }
+    Point position = creature.getShapeComponent().getLocation();
+    long modCount = creature.getModCount();
+    DerivedStats derived = creature.getDerivedComponent();
+    int weight = -1; // if the speed was cached already
+    int speed = derived.getSpeed();
+    int encumbrance = derived.getEncumbrance();
+    if (!derived.hasSpeed(modCount)) {
+      weight =
+          derived.hasWeight(modCount)
+              ? derived.getWeight()
+              : inventoryHandler.calculateWeight(creature);
+      encumbrance = getEncumbrance(weight, creature.species.str);
+      speed = getSpeed(creature, encumbrance);
+    }
+    boolean swimming = isSwimming(creature, position);
+    AI.Plan plan = speed > 0 ? creature.brain.plan() : null;
+    return new Decision(
+        uid, creature, position, modCount, weight, speed, encumbrance, swimming, plan);
+  }
+
+  /*
+   * Lets a creature act on its decision. The creatures that acted before it in this turn may have
+   * killed, moved or changed it, what no longer holds is looked at again.
+   */
+  private void apply(
+      Decision decision,
+      Point player,
+      boolean sneaking,
+      int playerSpeed,
+      int turn,
+      Scheduler scheduler) {
+    long uid = decision.uid();
+    Creature creature =
+        decision.creature() == null
+            ? null
+            : (Creature) gameContext.getStore().readEntity(uid);
+    if (!isActive(uid, creature, player)) {
+      scheduler.sleep(uid);
+      simulation.setLastTurn(uid, turn);
+      return;
+    }
+
+    int spd;
+    if (creature.getModCount() == decision.modCount()) {
+      // the speed was decided on another thread, it is cached here
+      DerivedStats derived = creature.getDerivedComponent();
+      if (decision.weight() >= 0) {
+        derived.setWeight(decision.modCount(), decision.weight());
+        derived.setSpeed(decision.modCount(), decision.speed(), decision.encumbrance());
       }
-    } while (!fixed);
+      spd = decision.speed();
+    } else {
+      spd = getSpeed(creature);
+    }
+    Point position = creature.getShapeComponent().getLocation();
+    if (position.equals(decision.position())
+        ? decision.swimming()
+        : isSwimming(creature, position)) {
+      spd = spd / 4; // zwemmende creatures hebben penalty
+    }
+    if (sneaking) {
+      spd = spd * 2; // player krijgt penalty bij sneaken
+    }
+
+    if (spd > 0) {
+      creature = (Creature) gameContext.getStore().getEntity(uid); // acting changes it
+      creature.brain.act(decision.plan(), turn);
+    }
+    scheduler.reschedule(uid, getDelay(spd, playerSpeed));
+  }
+
+  private boolean isActive(long uid, Creature creature, Point player) {
+    return creature != null
+        && !creature.hasCondition(Condition.DEAD)
+        && activeZone.hasCreature(uid)
+        && player.distance(creature.getShapeComponent().getLocation()) < range;
+  }
 
-    return generated;
+  private boolean isSwimming(Creature creature, Point position) {
+    Region region = activeZone.getRegion(position);
+    return creature.species.habitat == Habitat.LAND && region.getMovMod() == Modifier.SWIM;
+  }
+
+  /**
+   * Calculates how long a creature waits between two actions. A creature as fast as the player acts
+   * once per turn, a creature twice as fast acts twice.
+   *
+   * @param speed the speed of the creature
+   * @param playerSpeed the speed of the player
+   * @return the delay in scheduler time
+   */
+  static long getDelay(int speed, int playerSpeed) {
+    if (speed <= 0 || playerSpeed <= 0) { // nobody moves, try again next turn
+      return Scheduler.TURN;
+    }
+    return Math.max(1, (long) Scheduler.TURN * playerSpeed / speed);
   }
 
   /*
    * @return	a creature's speed
    */
   private int getSpeed(Creature creature) {
-    int penalty = 3;
-    if (inventoryHandler.getWeight(creature) > 9 * creature.species.str) {
-      return 0;
-    } else if (inventoryHandler.getWeight(creature) > 6 * creature.species.str) {
-      penalty = 1;
-    } else if (inventoryHandler.getWeight(creature) > 3 * creature.species.str) {
-      penalty = 2;
-    }
-    return (creature.getStatsComponent().getSpd()) * penalty / 3;
+    DerivedStats derived = creature.getDerivedComponent();
+    long modCount = creature.getModCount();
+    if (!derived.hasSpeed(modCount)) {
+      int encumbrance =
+          getEncumbrance(inventoryHandler.getWeight(creature), creature.species.str);
+      derived.setSpeed(modCount, getSpeed(creature, encumbrance), encumbrance);
+    }
+    return derived.getSpeed();
+  }
+
+  private static int getSpeed(Creature creature, int encumbrance) {
+    return creature.getStatsComponent().getSpd() * (DerivedStats.OVERLOADED - encumbrance) / 3;
   }
+
+  /**
+   * Every three times the strength of a creature in weight slows it down by a third.
+   *
+   * @param weight the weight a creature carries
+   * @param strength the strength of the creature
+   * @return the encumbrance, from {@link DerivedStats#UNBURDENED} to {@link
+   *     DerivedStats#OVERLOADED}
+   */
+  static int getEncumbrance(int weight, float strength) {
+    if (weight > 9 * strength) {
+      return DerivedStats.OVERLOADED;
+    } else if (weight > 6 * strength) {
+      return 2;
+    } else if (weight > 3 * strength) {
+      return 1;
+    }
+    return DerivedStats.UNBURDENED;
+  }
+
+  /*
+   * What a creature will do in its turn. The creature is null if it is no longer active, the
+   * weight is -1 if the speed did not have to be worked out.
+   */
+  private record Decision(
+      long uid,
+      Creature creature,
+      Point position,
+      long modCount,
+      int weight,
+      int speed,
+      int encumbrance,
+      boolean swimming,
+      AI.Plan plan) {}
 }
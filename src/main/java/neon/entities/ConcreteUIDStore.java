@@ -21,6 +21,9 @@ package neon.entities;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import java.io.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Map;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -34,6 +37,7 @@ import neon.maps.services.EntityStore;
 import neon.util.mapstorage.MapStore;
 import neon.util.mapstorage.MapStoreMVStoreAdapter;
 import org.h2.mvstore.MVStore;
+import org.h2.mvstore.type.StringDataType;
 
 /**
  * This class stores the UIDs of every object, map and mod currently in the game. It can give out
@@ -44,15 +48,27 @@ import org.h2.mvstore.MVStore;
  */
 @Slf4j
 public class ConcreteUIDStore extends UIDStore implements Closeable, EntityStore {
+  private static final int CACHE_SIZE = 20000;
+  private static final int BLOCK_SIZE = 1024;
 
   // uid database
   @Getter private final MapStore uidDb;
   // uids of all objects in the game
   private Map<Long, Entity> objects;
+  // live instances of the objects in use
+  @Getter private EntityCache entityCache;
+  private final int cacheSize;
+  private int added = 0;
   // uids of all loaded mods
   private Map<Short, ModDataType.Mod> mods;
   // uids of all loaded maps
   private final BiMap<Integer, String> maps = HashBiMap.create();
+  // reserved uid blocks
+  private final Map<String, Long> metadata;
+  private final UIDAllocator entityUIDs;
+  private final UIDAllocator mapUIDs;
+  // whether the store may contain random uids from before the allocator
+  private boolean legacyUIDs = false;
 
   /**
    * Tells this UIDStore to use the given jdbm3 cache.
@@ -60,7 +76,20 @@ public class ConcreteUIDStore extends UIDStore implements Closeable, EntityStore
    * @param file
    */
   public ConcreteUIDStore(String file) {
+    this(file, CACHE_SIZE);
+  }
+
+  /**
+   * @param file
+   * @param cacheSize the number of entities that are kept in memory
+   */
+  public ConcreteUIDStore(String file, int cacheSize) {
     uidDb = new MapStoreMVStoreAdapter(MVStore.open(file));
+    this.cacheSize = cacheSize;
+    metadata = uidDb.openMap("metadata", StringDataType.INSTANCE, LongDataType.INSTANCE);
+    legacyUIDs = !metadata.containsKey("entity");
+    entityUIDs = new UIDAllocator(Long.MIN_VALUE, -1, BLOCK_SIZE, metadata, "entity");
+    mapUIDs = new UIDAllocator(Integer.MIN_VALUE, -1, 64, metadata, "map");
     // Maps will be opened after DataTypes are set via setDataTypes()
   }
 
@@ -73,6 +102,8 @@ public class ConcreteUIDStore extends UIDStore implements Closeable, EntityStore
 
   public void initialize(EntityDataType entityDataType, ModDataType modDataType) {
     this.objects = uidDb.openMap("object", LongDataType.INSTANCE, entityDataType);
+    this.entityCache = new EntityCache(objects, cacheSize);
+    legacyUIDs = legacyUIDs && !objects.isEmpty();
     this.mods = uidDb.openMap("mods", ShortDataType.INSTANCE, modDataType);
   }
 
@@ -132,19 +163,32 @@ public class ConcreteUIDStore extends UIDStore implements Closeable, EntityStore
    * @param entity the object to be added
    */
   public void addEntity(Entity entity) {
-    objects.put(entity.getUID(), entity);
-    if (objects.size() % 1000 == 0) { // do a commit every 1000 entities
-      uidDb.commit();
+    entityCache.put(entity);
+    if (++added % 1000 == 0) { // do a commit every 1000 entities
+      commit();
     }
   }
 
+  /**
+   * Adds a batch of objects, sorted by uid so the new entries fill the pages of the uid database
+   * one after the other, and commits them at once.
+   *
+   * @param entities the objects to be added
+   */
+  public void addEntities(Collection<? extends Entity> entities) {
+    Entity[] batch = entities.toArray(new Entity[0]);
+    Arrays.sort(batch, Comparator.comparingLong(Entity::getUID));
+    entityCache.write(batch);
+    uidDb.commit();
+  }
+
   /**
    * Removes the object with the given UID.
    *
    * @param uid the UID of the object to be removed
    */
   public void removeEntity(long uid) {
-    objects.remove(uid);
+    entityCache.remove(uid);
   }
 
   /**
@@ -154,7 +198,19 @@ public class ConcreteUIDStore extends UIDStore implements Closeable, EntityStore
    * @return the object with the given UID
    */
   public Entity getEntity(long uid) {
-    return (uid == DUMMY ? null : objects.get(uid));
+    return (uid == DUMMY ? null : entityCache.get(uid, true));
+  }
+
+  /**
+   * Returns the entity with the given UID without marking it dirty, so it is not written to disk
+   * again because it was read.
+   *
+   * @param uid the UID of an object
+   * @return the object with the given UID
+   */
+  @Override
+  public Entity readEntity(long uid) {
+    return (uid == DUMMY ? null : entityCache.get(uid));
   }
 
   /**
@@ -201,10 +257,10 @@ public class ConcreteUIDStore extends UIDStore implements Closeable, EntityStore
    * @return
    */
   public long createNewEntityUID() {
-    // random objects have a random negative long as uid
-    long uid = (long) (Math.random() * Long.MIN_VALUE);
-    while (objects.containsKey(uid)) {
-      uid = (uid >= 0) ? Long.MIN_VALUE : uid + 1;
+    // random objects have a negative long as uid, handed out in order to keep the pages together
+    long uid = entityUIDs.next();
+    while (legacyUIDs && entityCache.contains(uid)) {
+      uid = entityUIDs.next();
     }
     return uid;
   }
@@ -215,10 +271,10 @@ public class ConcreteUIDStore extends UIDStore implements Closeable, EntityStore
    * @return
    */
   public int createNewMapUID() {
-    // random maps have a random negative int as uid
-    int uid = (int) (Math.random() * Integer.MIN_VALUE);
+    // random maps have a negative int as uid
+    int uid = (int) mapUIDs.next();
     while (maps.containsKey(uid)) {
-      uid = (uid >= 0) ? Integer.MIN_VALUE : uid + 1;
+      uid = (int) mapUIDs.next();
     }
     return uid;
   }
@@ -256,12 +312,26 @@ public class ConcreteUIDStore extends UIDStore implements Closeable, EntityStore
 
   @Override
   public void close() throws IOException {
-    uidDb.commit();
+    commit();
     uidDb.close();
   }
 
+  /** Writes all changed entities to the uid database and commits it. */
   @Override
   public void commit() {
+    if (entityCache != null) {
+      entityCache.flush();
+    }
     uidDb.commit();
   }
+
+  @Override
+  public void setReuseSpace(boolean reuse) {
+    uidDb.setReuseSpace(reuse);
+  }
+
+  @Override
+  public String getFileName() {
+    return uidDb.getFileName();
+  }
 }
@@ -23,6 +23,7 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import neon.ai.AI;
+import neon.ai.Relations;
 import neon.entities.components.*;
 import neon.entities.property.*;
 import neon.magic.Spell;
@@ -40,6 +41,7 @@ public class Creature extends Entity {
   public final FactionComponent social;
   public final Stats stats;
   public final RCreature species;
+  private final int speciesIndex; // the number of the species, as given by Relations
   public AI brain;
 
   /**
@@ -79,6 +81,7 @@ public class Creature extends Entity {
 
   // character attributes
   private int date = 0; // time of death
+  private int modCount = 0; // changes to the active spells and skills
 
   /**
    * Initialize a creature with the given data.
@@ -91,6 +94,7 @@ public class Creature extends Entity {
 
     // components
     this.species = species;
+    speciesIndex = Relations.getSpecies(species.id);
     components.putInstance(Animus.class, new Animus(this));
     components.putInstance(RenderComponent.class, new CreatureRenderComponent(this));
     social = new FactionComponent(uid);
@@ -98,6 +102,7 @@ public class Creature extends Entity {
     components.putInstance(Inventory.class, new Inventory(uid));
     stats = new Stats(uid, species);
     components.putInstance(Characteristics.class, new Characteristics(uid));
+    components.putInstance(DerivedStats.class, new DerivedStats(uid));
 
     // set this first
     gender = Gender.OTHER;
@@ -138,6 +143,28 @@ public class Creature extends Entity {
     return components.getInstance(Characteristics.class);
   }
 
+  public DerivedStats getDerivedComponent() {
+    return components.getInstance(DerivedStats.class);
+  }
+
+  /**
+   * Returns a count that goes up every time the inventory, the active spells, the skills or the
+   * attributes of this creature change. Used to check whether the {@link DerivedStats} are still
+   * valid.
+   *
+   * @return the modification count
+   */
+  public long getModCount() {
+    return (long) modCount + getInventoryComponent().getModCount() + stats.getModCount();
+  }
+
+  /**
+   * @return the number of this creature's species, as given by {@link Relations}
+   */
+  public int getSpeciesIndex() {
+    return speciesIndex;
+  }
+
   public AI getAI() {
     return brain;
   }
@@ -196,6 +223,7 @@ public class Creature extends Entity {
    */
   public void addActiveSpell(Spell spell) {
     spells.add(spell);
+    modCount++;
     switch (spell.getEffect()) {
       case LEVITATE -> conditions.add(Condition.LEVITATE);
       case PARALYZE -> conditions.add(Condition.PARALYZED);
@@ -219,6 +247,7 @@ public class Creature extends Entity {
    */
   public void removeActiveSpell(Spell spell) {
     spells.remove(spell);
+    modCount++;
   }
 
   /**
@@ -229,10 +258,23 @@ public class Creature extends Entity {
    */
   public void setSkill(Skill skill, float value) {
     skills.put(skill, value);
+    modCount++;
   }
 
   public void restoreSkill(Skill skill, int value) {
     skills.put(skill, Math.min(species.skills.get(skill), skills.get(skill) + value));
+    modCount++;
+  }
+
+  @Override
+  public int getEstimatedMemory() {
+    // stats, skills, conditions and the uids in the inventory
+    return super.getEstimatedMemory()
+        + 400
+        + 2 * (name != null ? name.length() : 0)
+        + 24 * skills.size()
+        + 64 * spells.size()
+        + 24 * getInventoryComponent().getItems().size();
   }
 
   /*
@@ -89,4 +89,12 @@ public abstract class Entity implements Serializable {
   public ScriptComponent getScriptComponent() {
     return components.getInstance(ScriptComponent.class);
   }
+
+  /**
+   * @return a rough estimate of the memory used by this entity, in bytes
+   */
+  public int getEstimatedMemory() {
+    // the entity itself, its shape and physics body, and the component map
+    return 240 + 2 * id.length() + 48 * components.size();
+  }
 }
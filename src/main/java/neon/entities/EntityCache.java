@@ -0,0 +1,275 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.entities;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A write-back cache in front of the map that stores entities. It keeps the most recently used
+ * entities in memory, so they don't have to be deserialized again, and hands out a single live
+ * instance for every uid.
+ *
+ * <p>Entities are changed in place by whoever holds them. An entity that is handed out to be
+ * changed, or that is put in the cache, is dirty; an entity that is only handed out to be read
+ * stays clean. Dirty entities are written to the backing map when they are evicted or when the
+ * cache is flushed, clean entities are simply dropped. Evicted entities are still tracked with a
+ * weak reference: as long as someone holds on to one, the same instance is returned again. Evicted
+ * entities that were handed out to be changed and are still in use are written again on every
+ * flush, since their holders may have changed them since.
+ *
+ * @author priewe
+ */
+public class EntityCache {
+  private final Map<Long, Entity> store;
+  private final int capacity;
+  private final LinkedHashMap<Long, Entry> entries;
+  private final HashMap<Long, Evicted> evicted = new HashMap<>();
+  private final ReferenceQueue<Entity> queue = new ReferenceQueue<>();
+  private long hits, misses;
+
+  /**
+   * @param store the map that stores the entities
+   * @param capacity the maximum number of entities that are kept in memory
+   */
+  public EntityCache(Map<Long, Entity> store, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    this.store = store;
+    this.capacity = capacity;
+    entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Returns the entity with the given uid, to be read only. The entity is not marked dirty.
+   *
+   * @param uid the uid of an entity
+   * @return the entity, or {@code null} if there is none
+   */
+  public Entity get(long uid) {
+    return get(uid, false);
+  }
+
+  /**
+   * Returns the entity with the given uid.
+   *
+   * @param uid the uid of an entity
+   * @param change whether the caller may change the entity, which marks it dirty
+   * @return the entity, or {@code null} if there is none
+   */
+  public synchronized Entity get(long uid, boolean change) {
+    Entry entry = entries.get(uid);
+    if (entry != null) {
+      hits++;
+      if (change) {
+        entry.dirty = true;
+        entry.changed = true;
+      }
+      return entry.entity;
+    }
+
+    Evicted reference = evicted.remove(uid);
+    Entity entity = reference != null ? reference.get() : null;
+    if (entity != null) {
+      hits++;
+      // it may have been changed by whoever held on to it
+      change |= reference.changed;
+    } else {
+      misses++;
+      entity = store.get(uid);
+      if (entity == null) {
+        return null;
+      }
+    }
+    add(uid, entity, change);
+    return entity;
+  }
+
+  /**
+   * Adds an entity, replacing any other instance with the same uid. The entity is written to the
+   * backing map when it is evicted or flushed.
+   *
+   * @param entity the entity to add
+   */
+  public synchronized void put(Entity entity) {
+    long uid = entity.getUID();
+    Evicted reference = evicted.remove(uid);
+    if (reference != null) {
+      reference.clear();
+    }
+    entries.remove(uid);
+    add(uid, entity, true);
+  }
+
+  /**
+   * Adds entities and writes them to the backing map right away, in the given order. They are kept
+   * as clean entities, so they are not written again until they are handed out.
+   *
+   * @param batch the entities to add
+   */
+  public synchronized void write(Entity... batch) {
+    for (Entity entity : batch) {
+      long uid = entity.getUID();
+      store.put(uid, entity);
+      Evicted reference = evicted.remove(uid);
+      if (reference != null) {
+        reference.clear();
+      }
+      entries.remove(uid);
+      add(uid, entity, false);
+    }
+  }
+
+  /**
+   * Removes an entity from this cache and from the backing map.
+   *
+   * @param uid the uid of the entity to remove
+   */
+  public synchronized void remove(long uid) {
+    entries.remove(uid);
+    Evicted reference = evicted.remove(uid);
+    if (reference != null) {
+      reference.clear();
+    }
+    store.remove(uid);
+  }
+
+  /**
+   * @param uid a uid
+   * @return whether an entity with the given uid exists
+   */
+  public synchronized boolean contains(long uid) {
+    return entries.containsKey(uid) || store.containsKey(uid);
+  }
+
+  /**
+   * Writes all dirty entities to the backing map, and the evicted entities that were handed out to
+   * be changed and are still in use.
+   *
+   * @return the number of entities that were written
+   */
+  public synchronized int flush() {
+    int written = 0;
+    for (Map.Entry<Long, Entry> e : entries.entrySet()) {
+      Entry entry = e.getValue();
+      if (entry.dirty) {
+        store.put(e.getKey(), entry.entity);
+        entry.dirty = false;
+        written++;
+      }
+    }
+    expunge();
+    for (Evicted reference : evicted.values()) {
+      Entity entity = reference.get();
+      if (entity != null && reference.changed) {
+        store.put(reference.uid, entity);
+        written++;
+      }
+    }
+    return written;
+  }
+
+  /** Drops all cached entities without writing them. */
+  public synchronized void clear() {
+    entries.clear();
+    evicted.clear();
+    expunge();
+  }
+
+  /**
+   * @return the number of entities that are kept in memory
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the number of lookups that did not have to read from the backing map
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return the number of lookups that had to read from the backing map
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  private void add(long uid, Entity entity, boolean dirty) {
+    Entry entry = new Entry(entity);
+    entry.dirty = dirty;
+    entry.changed = dirty;
+    entries.put(uid, entry);
+    if (entries.size() > capacity) {
+      Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+      Map.Entry<Long, Entry> e = eldest.next();
+      eldest.remove();
+      evict(e.getKey(), e.getValue());
+    }
+  }
+
+  private void evict(long uid, Entry entry) {
+    if (entry.dirty) {
+      store.put(uid, entry.entity);
+    }
+    expunge();
+    evicted.put(uid, new Evicted(uid, entry.entity, entry.changed, queue));
+  }
+
+  /** Forgets the evicted entities that were garbage collected. */
+  private void expunge() {
+    for (Reference<? extends Entity> r = queue.poll(); r != null; r = queue.poll()) {
+      Evicted reference = (Evicted) r;
+      evicted.remove(reference.uid, reference);
+    }
+  }
+
+  private static class Entry {
+    private final Entity entity;
+    private boolean dirty;
+    private boolean changed; // handed out to be changed
+
+    private Entry(Entity entity) {
+      this.entity = entity;
+    }
+  }
+
+  private static class Evicted extends WeakReference<Entity> {
+    private final long uid;
+    private final boolean changed;
+
+    private Evicted(long uid, Entity entity, boolean changed, ReferenceQueue<Entity> queue) {
+      super(entity, queue);
+      this.uid = uid;
+      this.changed = changed;
+    }
+  }
+}
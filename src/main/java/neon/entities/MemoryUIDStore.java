@@ -19,6 +19,16 @@ public class MemoryUIDStore extends UIDStore {
     // noop
   }
 
+  @Override
+  public void setReuseSpace(boolean reuse) {
+    // noop
+  }
+
+  @Override
+  public String getFileName() {
+    return null;
+  }
+
   @Override
   public void close() throws IOException {
     // noop
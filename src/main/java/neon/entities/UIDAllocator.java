@@ -0,0 +1,88 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.entities;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out sequential uids from a fixed range. Uids are reserved in blocks: the end of the last
+ * reserved block is kept in a metadata map, so it is saved with the next commit of the store and a
+ * reloaded game continues after every uid that may have been used. Within a block, uids are handed
+ * out without locking.
+ *
+ * @author priewe
+ */
+public class UIDAllocator {
+  private final AtomicLong next;
+  private final long last;
+  private final int blockSize;
+  private final Map<String, Long> metadata;
+  private final String key;
+  private volatile long limit; // first uid that is not reserved yet
+
+  /**
+   * Initializes an allocator that continues after the block stored in the metadata.
+   *
+   * @param first the first uid in the range
+   * @param last the last uid in the range
+   * @param blockSize the number of uids reserved at once
+   * @param metadata the map that keeps the reserved blocks, or {@code null} if they are not saved
+   * @param key the key of this allocator in the metadata
+   */
+  public UIDAllocator(
+      long first, long last, int blockSize, Map<String, Long> metadata, String key) {
+    if (first > last || blockSize < 1) {
+      throw new IllegalArgumentException("Invalid uid range or block size");
+    }
+    this.last = last;
+    this.blockSize = blockSize;
+    this.metadata = metadata;
+    this.key = key;
+    Long reserved = metadata != null ? metadata.get(key) : null;
+    limit = reserved != null ? reserved : first;
+    next = new AtomicLong(limit);
+  }
+
+  /**
+   * @return a uid that was never handed out before
+   * @throws IllegalStateException if the range is used up
+   */
+  public long next() {
+    long uid = next.getAndIncrement();
+    if (uid >= limit) {
+      reserve(uid);
+    }
+    return uid;
+  }
+
+  /** Reserves a new block that starts with the given uid, unless another thread already did. */
+  private synchronized void reserve(long uid) {
+    if (uid < limit) {
+      return;
+    } else if (uid > last) {
+      throw new IllegalStateException("No more uids left for " + key);
+    }
+    long end = uid + Math.min(blockSize, last - uid + 1);
+    if (metadata != null) {
+      metadata.put(key, end);
+    }
+    limit = end;
+  }
+}
@@ -3,6 +3,7 @@ package neon.entities;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import java.io.Closeable;
+import java.util.Collection;
 import java.util.Map;
 import neon.maps.services.EntityStore;
 
@@ -15,6 +16,10 @@ public abstract class UIDStore implements EntityStore, Closeable {
   protected Map<Short, Mod> mods;
   // uids of all loaded maps
   private final BiMap<Integer, String> maps = HashBiMap.create();
+  // negative uids for random objects and maps
+  private final UIDAllocator entityUIDs =
+      new UIDAllocator(Long.MIN_VALUE, -1, 1024, null, "entity");
+  private final UIDAllocator mapUIDs = new UIDAllocator(Integer.MIN_VALUE, -1, 64, null, "map");
 
   private static String toString(String... strings) {
     StringBuilder result = new StringBuilder();
@@ -80,6 +85,17 @@ public abstract class UIDStore implements EntityStore, Closeable {
     objects.put(entity.getUID(), entity);
   }
 
+  /**
+   * Adds a batch of objects to the list.
+   *
+   * @param entities the objects to be added
+   */
+  public void addEntities(Collection<? extends Entity> entities) {
+    for (Entity entity : entities) {
+      objects.put(entity.getUID(), entity);
+    }
+  }
+
   /**
    * Removes the object with the given UID.
    *
@@ -99,6 +115,16 @@ public abstract class UIDStore implements EntityStore, Closeable {
     return (uid == DUMMY ? null : objects.get(uid));
   }
 
+  /**
+   * Returns the entity with the given UID, for callers that only read it and will not change it.
+   *
+   * @param uid the UID of an object
+   * @return the object with the given UID
+   */
+  public Entity readEntity(long uid) {
+    return getEntity(uid);
+  }
+
   /**
    * Adds a mod with the given id.
    *
@@ -139,10 +165,10 @@ public abstract class UIDStore implements EntityStore, Closeable {
    * @return
    */
   public long createNewEntityUID() {
-    // random objects have a random negative long as uid
-    long uid = (long) (Math.random() * Long.MIN_VALUE);
+    // random objects have a negative long as uid, skip the ones that were added with a fixed uid
+    long uid = entityUIDs.next();
     while (objects.containsKey(uid)) {
-      uid = (uid >= 0) ? Long.MIN_VALUE : uid + 1;
+      uid = entityUIDs.next();
     }
     return uid;
   }
@@ -153,10 +179,10 @@ public abstract class UIDStore implements EntityStore, Closeable {
    * @return
    */
   public int createNewMapUID() {
-    // random maps have a random negative int as uid
-    int uid = (int) (Math.random() * Integer.MIN_VALUE);
+    // random maps have a negative int as uid
+    int uid = (int) mapUIDs.next();
     while (maps.containsKey(uid)) {
-      uid = (uid >= 0) ? Integer.MIN_VALUE : uid + 1;
+      uid = (int) mapUIDs.next();
     }
     return uid;
   }
@@ -164,4 +190,17 @@ public abstract class UIDStore implements EntityStore, Closeable {
   public abstract boolean isModUIDLoaded(String name);
 
   public abstract void commit();
+
+  /**
+   * Sets whether the store may overwrite free space in its file, see {@link
+   * neon.util.mapstorage.MapStore#setReuseSpace(boolean)}.
+   *
+   * @param reuse whether free space may be reused
+   */
+  public abstract void setReuseSpace(boolean reuse);
+
+  /**
+   * @return the file the store is kept in, or {@code null} if it is kept in memory
+   */
+  public abstract String getFileName();
 }
@@ -76,6 +76,12 @@ public class CreatureRenderComponent extends RenderComponent {
     }
   }
 
+  @Override
+  public int getAppearance() {
+    int dead = creature.hasCondition(Condition.DEAD) ? 1 : 0;
+    return creature.getActiveSpells().isEmpty() ? dead : dead | 2;
+  }
+
   @Override
   public Rectangle getBounds() {
     return creature.getShapeComponent();
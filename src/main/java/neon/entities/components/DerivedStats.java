@@ -0,0 +1,153 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.entities.components;
+
+import java.io.Serial;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the stats of a creature that are expensive to calculate: the weight it carries, how
+ * encumbered it is and its effective speed.
+ *
+ * <p>Every value is stored together with the modification count of the creature at the time it
+ * was calculated. When the inventory, the active spells, the skills or the attributes of the
+ * creature change, the count goes up and the cached value is no longer valid.
+ *
+ * @author priewe
+ */
+public class DerivedStats implements Component {
+  /** Not encumbered. */
+  public static final int UNBURDENED = 0;
+
+  /** Too heavily loaded to move. */
+  public static final int OVERLOADED = 3;
+
+  @Serial private static final long serialVersionUID = 1L;
+
+  private static final LongAdder hits = new LongAdder();
+  private static final LongAdder misses = new LongAdder();
+
+  private final long uid;
+  private long weightCount = -1;
+  private int weight;
+  private long speedCount = -1;
+  private int speed;
+  private int encumbrance;
+
+  public DerivedStats(long uid) {
+    this.uid = uid;
+  }
+
+  /**
+   * @param modCount the current modification count of the creature
+   * @return whether the cached weight is still valid
+   */
+  public boolean hasWeight(long modCount) {
+    return check(weightCount == modCount);
+  }
+
+  /**
+   * @return the cached weight
+   */
+  public int getWeight() {
+    return weight;
+  }
+
+  /**
+   * @param modCount the modification count of the creature the weight was calculated for
+   * @param weight the weight the creature carries
+   */
+  public void setWeight(long modCount, int weight) {
+    this.weight = weight;
+    weightCount = modCount;
+  }
+
+  /**
+   * @param modCount the current modification count of the creature
+   * @return whether the cached speed and encumbrance are still valid
+   */
+  public boolean hasSpeed(long modCount) {
+    return check(speedCount == modCount);
+  }
+
+  /**
+   * @return the cached speed
+   */
+  public int getSpeed() {
+    return speed;
+  }
+
+  /**
+   * @return the cached encumbrance, from {@link #UNBURDENED} to {@link #OVERLOADED}
+   */
+  public int getEncumbrance() {
+    return encumbrance;
+  }
+
+  /**
+   * @param modCount the modification count of the creature the speed was calculated for
+   * @param speed the effective speed
+   * @param encumbrance the encumbrance
+   */
+  public void setSpeed(long modCount, int speed, int encumbrance) {
+    this.speed = speed;
+    this.encumbrance = encumbrance;
+    speedCount = modCount;
+  }
+
+  /** Forgets all cached values. */
+  public void invalidate() {
+    weightCount = -1;
+    speedCount = -1;
+  }
+
+  /**
+   * @return how often a cached value of any creature could be used
+   */
+  public static long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * @return how often a value of any creature had to be calculated again
+   */
+  public static long getMisses() {
+    return misses.sum();
+  }
+
+  /** Resets the hit and miss counters. */
+  public static void resetCounters() {
+    hits.reset();
+    misses.reset();
+  }
+
+  private static boolean check(boolean valid) {
+    if (valid) {
+      hits.increment();
+    } else {
+      misses.increment();
+    }
+    return valid;
+  }
+
+  @Override
+  public long getUID() {
+    return uid;
+  }
+}
@@ -52,4 +52,13 @@ public class DoorRenderComponent extends ItemRenderComponent {
     graphics.setPaint(TextureFactory.getTexture(text, (int) zoom, item.resource.color));
     graphics.fill(rect);
   }
+
+  @Override
+  public int getAppearance() {
+    Lock lock = ((Door) item).lock;
+    if (lock == null || lock.isOpen()) {
+      return Lock.OPEN;
+    }
+    return lock.isLocked() ? Lock.LOCKED : Lock.CLOSED;
+  }
 }
@@ -18,8 +18,10 @@
 
 package neon.entities.components;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import lombok.Getter;
+import neon.ai.Relations;
 
 /**
  * Keeps track of the factions a creature belongs to and their standing with these factions.
@@ -29,13 +31,25 @@ import lombok.Getter;
 public class FactionComponent implements Component {
   private final long uid;
   @Getter private HashMap<String, Integer> factions = new HashMap<>();
+  private int[] indices = new int[0]; // the numbers of the factions, sorted
 
   public FactionComponent(long uid) {
     this.uid = uid;
   }
 
   public void addFaction(String faction, int rank) {
-    factions.put(faction, rank);
+    if (factions.put(faction, rank) == null) {
+      indices = Arrays.copyOf(indices, indices.length + 1);
+      indices[indices.length - 1] = Relations.getFaction(faction);
+      Arrays.sort(indices);
+    }
+  }
+
+  /**
+   * @return the numbers of the factions this creature belongs to, as given by {@link Relations}
+   */
+  public int[] getFactionIndices() {
+    return indices;
   }
 
   public int getRank(String faction) {
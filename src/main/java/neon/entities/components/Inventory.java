@@ -30,6 +30,7 @@ public class Inventory implements Iterable<Long>, Component {
   private final CopyOnWriteArrayList<Long> items;
   private final EnumMap<Slot, Long> equiped;
   private int money = 0;
+  private int modCount = 0; // changes to the items or the equiped slots
 
   public Inventory(long owner) {
     equiped = new EnumMap<Slot, Long>(Slot.class);
@@ -73,6 +74,7 @@ public class Inventory implements Iterable<Long>, Component {
    */
   public void put(Slot slot, long uid) {
     equiped.put(slot, uid);
+    modCount++;
   }
 
   /**
@@ -83,6 +85,7 @@ public class Inventory implements Iterable<Long>, Component {
    */
   public void remove(Slot slot) {
     equiped.remove(slot);
+    modCount++;
   }
 
   /**
@@ -117,6 +120,7 @@ public class Inventory implements Iterable<Long>, Component {
    */
   public void addItem(long uid) {
     items.add(uid);
+    modCount++;
   }
 
   /**
@@ -127,6 +131,14 @@ public class Inventory implements Iterable<Long>, Component {
    */
   public void removeItem(long uid) {
     items.remove(uid);
+    modCount++;
+  }
+
+  /**
+   * @return how often the items or the equiped slots of this inventory were changed
+   */
+  public int getModCount() {
+    return modCount;
   }
 
   @Override
@@ -25,14 +25,21 @@ public class Stats implements Component {
   private final RCreature species;
 
   private int strMod, conMod, dexMod, intMod, wisMod, chaMod, spdMod;
+  private int modCount = 0;
 
   public Stats(long uid, RCreature species) {
     this.uid = uid;
     this.species = species;
   }
 
-  public void addSpeed(int i) {
-    spdMod++;
+  /**
+   * Adds a certain amount to the speed attribute.
+   *
+   * @param amount the amount to add
+   */
+  public void addSpeed(int amount) {
+    spdMod += amount;
+    modCount++;
   }
 
   /**
@@ -42,6 +49,7 @@ public class Stats implements Component {
    */
   public void addStr(int amount) {
     strMod += amount;
+    modCount++;
   }
 
   /**
@@ -51,6 +59,7 @@ public class Stats implements Component {
    */
   public void addDex(int amount) {
     dexMod += amount;
+    modCount++;
   }
 
   /**
@@ -60,6 +69,7 @@ public class Stats implements Component {
    */
   public void addCon(int amount) {
     conMod += amount;
+    modCount++;
   }
 
   /**
@@ -69,6 +79,7 @@ public class Stats implements Component {
    */
   public void addCha(int amount) {
     chaMod += amount;
+    modCount++;
   }
 
   /**
@@ -78,6 +89,7 @@ public class Stats implements Component {
    */
   public void addWis(int amount) {
     wisMod += amount;
+    modCount++;
   }
 
   /**
@@ -87,6 +99,7 @@ public class Stats implements Component {
    */
   public void addInt(int amount) {
     intMod += amount;
+    modCount++;
   }
 
   /**
@@ -138,6 +151,13 @@ public class Stats implements Component {
     return species.speed + spdMod;
   }
 
+  /**
+   * @return how often the attributes were changed
+   */
+  public int getModCount() {
+    return modCount;
+  }
+
   @Override
   public long getUID() {
     return uid;
@@ -37,10 +37,15 @@ public class EntityDataType extends BasicDataType<Entity> {
     this.entitySerializerFactory = entitySerializerFactory;
   }
 
+  /**
+   * Estimates the memory used by an entity, so the MVStore cache can be sized in bytes.
+   *
+   * @param obj the entity
+   * @return the estimated memory in bytes
+   */
   @Override
   public int getMemory(Entity obj) {
-    // Return 0 for now - can be optimized later if needed
-    return 0;
+    return obj.getEstimatedMemory();
   }
 
   @Override
@@ -0,0 +1,248 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.maps;
+
+import java.awt.Point;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import neon.util.LongHashMap;
+
+/**
+ * Calculates which positions can be seen from a position in a zone. Blocking terrain and closed
+ * doors stop the view, everything else lets it through. Views are calculated with recursive
+ * shadow casting and kept in a small cache, so creatures that don't move don't look again.
+ *
+ * <p>A field of view belongs to one version of the {@link PassabilityGrid} it reads from, and to
+ * the doors that were closed when it was built. The zone builds a new one when its regions change
+ * or a door is opened or closed. Only the positions that are looked at are read from the grid, so
+ * a field of view takes no memory for the rest of the zone.
+ *
+ * @author priewe
+ */
+public class FieldOfView {
+  private static final int CACHE_SIZE = 1024;
+  // the transformations of the eight octants: xx, xy, yx, yy
+  private static final int[][] OCTANTS = {
+    {1, 0, 0, 1}, {0, 1, 1, 0}, {0, -1, 1, 0}, {-1, 0, 0, 1},
+    {-1, 0, 0, -1}, {0, -1, -1, 0}, {0, 1, -1, 0}, {1, 0, 0, -1}
+  };
+
+  private final PassabilityGrid grid;
+  private final int version;
+  private final LongHashMap<Point> closedDoors = new LongHashMap<>();
+  private final LinkedHashMap<Long, View> cache =
+      new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, View> eldest) {
+          return size() > CACHE_SIZE;
+        }
+      };
+
+  private FieldOfView(PassabilityGrid grid) {
+    this.grid = grid;
+    version = grid.getVersion();
+  }
+
+  /**
+   * Builds the field of view of a zone.
+   *
+   * @param grid the passability grid of the zone
+   * @param closedDoors the positions of all doors that are not open
+   * @return a new field of view
+   */
+  public static FieldOfView build(PassabilityGrid grid, Collection<Point> closedDoors) {
+    FieldOfView fov = new FieldOfView(grid);
+    for (Point door : closedDoors) {
+      fov.closedDoors.put(key(door.x, door.y), door);
+    }
+    return fov;
+  }
+
+  /**
+   * @return the passability grid this field of view was built from
+   */
+  public PassabilityGrid getGrid() {
+    return grid;
+  }
+
+  /**
+   * @return the version of the passability grid this field of view was built from
+   */
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * @return whether the view is stopped on the given position, positions outside the zone always
+   *     stop it
+   */
+  public boolean isOpaque(int x, int y) {
+    return grid.getModifier(x, y) == PassabilityGrid.BLOCK || closedDoors.containsKey(key(x, y));
+  }
+
+  private static long key(int x, int y) {
+    return ((long) x << 32) | (y & 0xffffffffL);
+  }
+
+  /**
+   * Returns all positions that can be seen from a position.
+   *
+   * @param x the x coordinate of the origin
+   * @param y the y coordinate of the origin
+   * @param radius the range of the view, positions must be closer than this
+   * @return the view
+   */
+  public View getView(int x, int y, int radius) {
+    long key = (long) x << 40 ^ (long) y << 16 ^ radius;
+    synchronized (cache) {
+      View view = cache.get(key);
+      if (view != null && view.x == x && view.y == y && view.radius == radius) {
+        return view;
+      }
+    }
+
+    View view = new View(x, y, radius);
+    view.set(x, y);
+    int squared = radius * radius;
+    for (int[] octant : OCTANTS) {
+      cast(view, 1, 1.0, 0.0, squared, octant[0], octant[1], octant[2], octant[3]);
+    }
+
+    synchronized (cache) {
+      cache.put(key, view);
+    }
+    return view;
+  }
+
+  /**
+   * @param from the position of the one who looks
+   * @param to the position that is looked at
+   * @param radius the range of the view
+   * @return whether {@code to} can be seen from {@code from}
+   */
+  public boolean sees(Point from, Point to, int radius) {
+    return getView(from.x, from.y, radius).contains(to.x, to.y);
+  }
+
+  /*
+   * Scans one octant row by row. Every opaque position casts a shadow over the rows behind it;
+   * start and end are the slopes of the part of the row that is still lit.
+   */
+  private void cast(
+      View view, int row, double start, double end, int squared, int xx, int xy, int yx, int yy) {
+    if (start < end) {
+      return;
+    }
+    int radius = view.radius;
+    double newStart = 0;
+    for (int j = row; j < radius; j++) {
+      boolean blocked = false;
+      int dy = -j;
+      for (int dx = -j; dx <= 0; dx++) {
+        double leftSlope = (dx - 0.5) / (dy + 0.5);
+        double rightSlope = (dx + 0.5) / (dy - 0.5);
+        if (start < rightSlope) {
+          continue;
+        } else if (end > leftSlope) {
+          break;
+        }
+
+        int px = view.x + dx * xx + dy * xy;
+        int py = view.y + dx * yx + dy * yy;
+        if (dx * dx + dy * dy < squared) {
+          view.set(px, py);
+        }
+        boolean wall = isOpaque(px, py);
+        if (blocked) {
+          if (wall) {
+            newStart = rightSlope;
+          } else {
+            blocked = false;
+            start = newStart;
+          }
+        } else if (wall && j < radius - 1) {
+          blocked = true;
+          cast(view, j + 1, start, leftSlope, squared, xx, xy, yx, yy);
+          newStart = rightSlope;
+        }
+      }
+      if (blocked) {
+        break;
+      }
+    }
+  }
+
+  /** The positions that can be seen from an origin, within a radius. */
+  public static final class View {
+    private final int x, y, radius, size;
+    private final long[] bits;
+
+    private View(int x, int y, int radius) {
+      this.x = x;
+      this.y = y;
+      this.radius = radius;
+      size = 2 * radius + 1;
+      bits = new long[(size * size + 63) >>> 6];
+    }
+
+    private void set(int px, int py) {
+      int i = (py - y + radius) * size + px - x + radius;
+      bits[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * @return whether the given position can be seen
+     */
+    public boolean contains(int px, int py) {
+      int dx = px - x + radius;
+      int dy = py - y + radius;
+      if (dx < 0 || dy < 0 || dx >= size || dy >= size) {
+        return false;
+      }
+      int i = dy * size + dx;
+      return (bits[i >>> 6] & 1L << i) != 0;
+    }
+
+    /**
+     * @return the number of positions that can be seen
+     */
+    public int count() {
+      int count = 0;
+      for (long word : bits) {
+        count += Long.bitCount(word);
+      }
+      return count;
+    }
+
+    /**
+     * @return the origin of this view
+     */
+    public Point getOrigin() {
+      return new Point(x, y);
+    }
+
+    /**
+     * @return the radius of this view
+     */
+    public int getRadius() {
+      return radius;
+    }
+  }
+}
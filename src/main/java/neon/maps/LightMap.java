@@ -0,0 +1,230 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.maps;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The light that the light sources of a zone shed on its positions. A light source lights every
+ * position it can see within {@link #RADIUS}, fully where it stands and less further away, in its
+ * own color. Where lights overlap their light adds up, and the color is the mix of their colors.
+ *
+ * <p>Adding or removing a light source only adds or takes away its own light. Only when walls or
+ * doors change what the lights can see, is the map lit again from scratch. The map is kept in
+ * chunks of 16 by 16 positions, dark parts of a zone take no memory.
+ *
+ * @author priewe
+ */
+public class LightMap {
+  /** The radius of the light of a light source. */
+  public static final int RADIUS = 5;
+  /** The light on a position that is completely lit. */
+  public static final int FULL = 255;
+
+  private static final int CHUNK = 16;
+  private static final int WHITE = 0xFFFFFF;
+
+  private final HashMap<Source, Integer> sources = new HashMap<>(); // lights on the same place
+  private final HashMap<Long, Chunk> chunks = new HashMap<>();
+  private FieldOfView fov;
+
+  /**
+   * Adds a light source.
+   *
+   * @param x the x coordinate of the light
+   * @param y the y coordinate of the light
+   * @param color the color of the light
+   */
+  public synchronized void add(int x, int y, Color color) {
+    Source source = new Source(x, y, color.getRGB() & WHITE);
+    sources.merge(source, 1, Integer::sum);
+    if (fov != null) {
+      cast(source, 1);
+    }
+  }
+
+  /**
+   * Removes a light source.
+   *
+   * @param x the x coordinate of the light
+   * @param y the y coordinate of the light
+   * @param color the color of the light
+   */
+  public synchronized void remove(int x, int y, Color color) {
+    Source source = new Source(x, y, color.getRGB() & WHITE);
+    Integer count = sources.get(source);
+    if (count == null) {
+      return;
+    } else if (count > 1) {
+      sources.put(source, count - 1);
+    } else {
+      sources.remove(source);
+    }
+    if (fov != null) {
+      cast(source, -1);
+    }
+  }
+
+  /**
+   * @return the number of light sources
+   */
+  public synchronized int size() {
+    int size = 0;
+    for (int count : sources.values()) {
+      size += count;
+    }
+    return size;
+  }
+
+  /**
+   * Lights the map again when walls or doors changed what the lights can see. Nothing happens when
+   * the field of view is the one the map was lit with.
+   *
+   * @param fov the field of view of the zone
+   */
+  public synchronized void update(FieldOfView fov) {
+    if (fov == this.fov) {
+      return;
+    }
+    this.fov = fov;
+    chunks.clear();
+    for (Map.Entry<Source, Integer> entry : sources.entrySet()) {
+      cast(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * @param x the x coordinate of a position
+   * @param y the y coordinate of a position
+   * @return the light on the position, from 0 (dark) to {@link #FULL}
+   */
+  public synchronized int getLight(int x, int y) {
+    Chunk chunk = chunks.get(getKey(x, y));
+    return chunk == null ? 0 : chunk.resolve().light[getIndex(x, y)];
+  }
+
+  /**
+   * @param x the x coordinate of a position
+   * @param y the y coordinate of a position
+   * @return the color of the light on the position as an RGB value, white when it is dark
+   */
+  public synchronized int getColor(int x, int y) {
+    Chunk chunk = chunks.get(getKey(x, y));
+    return chunk == null ? WHITE : chunk.resolve().colors[getIndex(x, y)];
+  }
+
+  /**
+   * Reads the light and its color on all positions of an area, row by row.
+   *
+   * @param area the area to read
+   * @param light receives the light on every position, from 0 to {@link #FULL}
+   * @param colors receives the color of the light on every position
+   */
+  public synchronized void read(Rectangle area, int[] light, int[] colors) {
+    for (int y = area.y; y < area.y + area.height; y++) {
+      int x = area.x;
+      while (x < area.x + area.width) {
+        // the rest of the row within the chunk of this position
+        int end = Math.min(area.x + area.width, Math.floorDiv(x, CHUNK) * CHUNK + CHUNK);
+        int i = (y - area.y) * area.width + x - area.x;
+        Chunk chunk = chunks.get(getKey(x, y));
+        if (chunk == null) {
+          Arrays.fill(light, i, i + end - x, 0);
+          Arrays.fill(colors, i, i + end - x, WHITE);
+        } else {
+          chunk.resolve();
+          System.arraycopy(chunk.light, getIndex(x, y), light, i, end - x);
+          System.arraycopy(chunk.colors, getIndex(x, y), colors, i, end - x);
+        }
+        x = end;
+      }
+    }
+  }
+
+  /*
+   * Adds the light of a source to every position it can see, or takes it away again when times is
+   * negative.
+   */
+  private void cast(Source source, int times) {
+    FieldOfView.View view = fov.getView(source.x(), source.y(), RADIUS);
+    int red = source.rgb() >> 16 & 0xFF;
+    int green = source.rgb() >> 8 & 0xFF;
+    int blue = source.rgb() & 0xFF;
+    for (int dy = -RADIUS; dy <= RADIUS; dy++) {
+      for (int dx = -RADIUS; dx <= RADIUS; dx++) {
+        int x = source.x() + dx;
+        int y = source.y() + dy;
+        if (!view.contains(x, y)) {
+          continue;
+        }
+        int light = times * (int) (FULL * (1 - Math.sqrt(dx * dx + dy * dy) / (RADIUS + 1)));
+        Chunk chunk = chunks.computeIfAbsent(getKey(x, y), key -> new Chunk());
+        int i = 4 * getIndex(x, y);
+        chunk.sums[i] += light;
+        chunk.sums[i + 1] += light * red;
+        chunk.sums[i + 2] += light * green;
+        chunk.sums[i + 3] += light * blue;
+        chunk.changed = true;
+      }
+    }
+  }
+
+  private static long getKey(int x, int y) {
+    return (long) Math.floorDiv(x, CHUNK) << 32 | Math.floorDiv(y, CHUNK) & 0xFFFFFFFFL;
+  }
+
+  private static int getIndex(int x, int y) {
+    return Math.floorMod(y, CHUNK) * CHUNK + Math.floorMod(x, CHUNK);
+  }
+
+  private record Source(int x, int y, int rgb) {}
+
+  /*
+   * The sums of the light of all sources on the positions of a chunk, and the light and color that
+   * follow from them. Those are only worked out again when they are read after a change.
+   */
+  private static final class Chunk {
+    private final int[] sums = new int[4 * CHUNK * CHUNK]; // light, red, green and blue
+    private final int[] light = new int[CHUNK * CHUNK];
+    private final int[] colors = new int[CHUNK * CHUNK];
+    private boolean changed = true;
+
+    private Chunk resolve() {
+      if (changed) {
+        for (int i = 0; i < light.length; i++) {
+          int sum = sums[4 * i];
+          light[i] = Math.min(sum, FULL);
+          // the mix of the colors of the lights, weighed by their light
+          if (sum <= 0) {
+            colors[i] = WHITE;
+          } else {
+            int red = sums[4 * i + 1] / sum;
+            colors[i] = red << 16 | sums[4 * i + 2] / sum << 8 | sums[4 * i + 3] / sum;
+          }
+        }
+        changed = false;
+      }
+      return this;
+    }
+  }
+}
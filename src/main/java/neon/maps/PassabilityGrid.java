@@ -0,0 +1,251 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.maps;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import neon.ui.graphics.ZComparator;
+import neon.util.LongHashMap;
+
+/**
+ * The movement modifiers of a zone, one byte per position. The terrain of the highest region on a
+ * position determines its modifier, positions without a region are blocked. Positions with a door
+ * are flagged, because the cost of a door depends on its lock and on who wants to pass.
+ *
+ * <p>Like the {@link neon.util.spatial.LongGridIndex}, the grid is divided in square chunks. A
+ * chunk is only filled in when one of its positions is asked for, so a huge zone only takes memory
+ * for the parts that creatures actually walk through. When regions or doors change, the zone
+ * clears the chunks in the changed area and they are filled in again the next time they are used.
+ * Every change increases the version of the grid, so everything that was computed from an older
+ * version can be recognized.
+ *
+ * <p>Reading the grid takes no lock. The chunks are kept in a map that is never changed once it is
+ * published, filling in or clearing chunks replaces it with a changed copy under the lock. An area
+ * that is about to be read as a whole is best filled in with {@link #load(Rectangle)}, which copies
+ * the map once for all chunks in the area instead of once for every chunk.
+ *
+ * @author priewe
+ */
+public class PassabilityGrid {
+  public static final int NONE = 0;
+  public static final int SWIM = 1;
+  public static final int CLIMB = 2;
+  public static final int BLOCK = 3;
+  public static final int DOOR = 4; // flag, combined with the terrain modifier
+  private static final int TERRAIN = 3;
+  private static final int SHIFT = 5; // chunks of 32 by 32 positions
+  private static final int SIDE = 1 << SHIFT;
+  private static final int MASK = SIDE - 1;
+  private static final ZComparator comparator = new ZComparator();
+
+  private final Function<Rectangle, Collection<Region>> regions;
+  private final Function<Rectangle, Collection<Point>> doors;
+  private volatile LongHashMap<byte[]> chunks = new LongHashMap<>(); // only replaced, not changed
+  private volatile int version;
+
+  /**
+   * Initializes a grid that takes its regions and doors from a zone.
+   *
+   * @param regions gives the regions that overlap an area
+   * @param doors gives the positions of the doors in an area
+   */
+  public PassabilityGrid(
+      Function<Rectangle, Collection<Region>> regions,
+      Function<Rectangle, Collection<Point>> doors) {
+    this.regions = regions;
+    this.doors = doors;
+  }
+
+  /**
+   * Builds a grid for a fixed set of regions and doors.
+   *
+   * @param regions all regions in the zone
+   * @param doors the positions of all doors in the zone
+   * @return a new grid
+   */
+  public static PassabilityGrid build(Collection<Region> regions, Collection<Point> doors) {
+    LongHashMap<List<Region>> regionChunks = new LongHashMap<>();
+    for (Region r : regions) {
+      for (int cx = r.getX() >> SHIFT; cx <= (r.getX() + r.getWidth() - 1) >> SHIFT; cx++) {
+        for (int cy = r.getY() >> SHIFT; cy <= (r.getY() + r.getHeight() - 1) >> SHIFT; cy++) {
+          List<Region> list = regionChunks.get(key(cx, cy));
+          if (list == null) {
+            list = new ArrayList<>();
+            regionChunks.put(key(cx, cy), list);
+          }
+          list.add(r);
+        }
+      }
+    }
+    LongHashMap<List<Point>> doorChunks = new LongHashMap<>();
+    for (Point door : doors) {
+      List<Point> list = doorChunks.get(key(door.x >> SHIFT, door.y >> SHIFT));
+      if (list == null) {
+        list = new ArrayList<>();
+        doorChunks.put(key(door.x >> SHIFT, door.y >> SHIFT), list);
+      }
+      list.add(door);
+    }
+    // the grid only asks for the contents of whole chunks
+    return new PassabilityGrid(
+        area -> get(regionChunks, area), area -> get(doorChunks, area));
+  }
+
+  private static <E> List<E> get(LongHashMap<List<E>> map, Rectangle chunk) {
+    List<E> list = map.get(key(chunk.x >> SHIFT, chunk.y >> SHIFT));
+    return list != null ? list : List.of();
+  }
+
+  private static int modifier(Region.Modifier modifier) {
+    return switch (modifier) {
+      case SWIM -> SWIM;
+      case CLIMB -> CLIMB;
+      case BLOCK -> BLOCK;
+      default -> NONE;
+    };
+  }
+
+  /**
+   * Clears the chunks that overlap an area in which regions or doors changed.
+   *
+   * @param area the changed area
+   */
+  public synchronized void invalidate(Rectangle area) {
+    LongHashMap<byte[]> copy = copy(chunks);
+    for (int cx = area.x >> SHIFT; cx <= (area.x + area.width - 1) >> SHIFT; cx++) {
+      for (int cy = area.y >> SHIFT; cy <= (area.y + area.height - 1) >> SHIFT; cy++) {
+        copy.remove(key(cx, cy));
+      }
+    }
+    chunks = copy;
+    version++;
+  }
+
+  /**
+   * @return the number of times this grid was changed
+   */
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * @return the number of chunks that are filled in
+   */
+  public int getChunkCount() {
+    return chunks.size();
+  }
+
+  /**
+   * @return the cell on the given position: a movement modifier, possibly with the door flag
+   */
+  public int get(int px, int py) {
+    return chunk(px >> SHIFT, py >> SHIFT)[((py & MASK) << SHIFT) | (px & MASK)];
+  }
+
+  /**
+   * @return the movement modifier on the given position, {@code BLOCK} outside the zone
+   */
+  public int getModifier(int px, int py) {
+    return get(px, py) & TERRAIN;
+  }
+
+  /**
+   * @return whether there is a door on the given position
+   */
+  public boolean hasDoor(int px, int py) {
+    return (get(px, py) & DOOR) != 0;
+  }
+
+  private byte[] chunk(int cx, int cy) {
+    byte[] chunk = chunks.get(key(cx, cy));
+    return chunk != null ? chunk : load(cx, cy);
+  }
+
+  /**
+   * Fills in the chunks that overlap an area and were not filled in yet. They are published
+   * together, with a single copy of the map of chunks.
+   *
+   * @param area the area that is about to be read
+   */
+  public synchronized void load(Rectangle area) {
+    LongHashMap<byte[]> copy = null;
+    for (int cx = area.x >> SHIFT; cx <= (area.x + area.width - 1) >> SHIFT; cx++) {
+      for (int cy = area.y >> SHIFT; cy <= (area.y + area.height - 1) >> SHIFT; cy++) {
+        if (!chunks.containsKey(key(cx, cy))) {
+          if (copy == null) {
+            copy = copy(chunks);
+          }
+          copy.put(key(cx, cy), fill(cx << SHIFT, cy << SHIFT));
+        }
+      }
+    }
+    if (copy != null) {
+      chunks = copy;
+    }
+  }
+
+  private synchronized byte[] load(int cx, int cy) {
+    byte[] chunk = chunks.get(key(cx, cy)); // another thread may have filled it in meanwhile
+    if (chunk == null) {
+      chunk = fill(cx << SHIFT, cy << SHIFT);
+      LongHashMap<byte[]> copy = copy(chunks);
+      copy.put(key(cx, cy), chunk);
+      chunks = copy;
+    }
+    return chunk;
+  }
+
+  private static LongHashMap<byte[]> copy(LongHashMap<byte[]> map) {
+    LongHashMap<byte[]> copy = new LongHashMap<>(map.size() + 1);
+    map.forEachKey(key -> copy.put(key, map.get(key)));
+    return copy;
+  }
+
+  private byte[] fill(int x, int y) {
+    Rectangle area = new Rectangle(x, y, SIDE, SIDE);
+    byte[] chunk = new byte[SIDE * SIDE];
+    Arrays.fill(chunk, (byte) BLOCK);
+    // paint the regions from low to high, so the highest region ends up on top
+    ArrayList<Region> sorted = new ArrayList<>(regions.apply(area));
+    sorted.sort(comparator);
+    for (Region r : sorted) {
+      Rectangle part = area.intersection(r.getBounds());
+      byte modifier = (byte) modifier(r.getMovMod());
+      for (int j = part.y - y; j < part.y - y + part.height; j++) {
+        int row = (j << SHIFT) + part.x - x;
+        Arrays.fill(chunk, row, row + part.width, modifier);
+      }
+    }
+    for (Point door : doors.apply(area)) {
+      if (area.contains(door)) {
+        chunk[((door.y & MASK) << SHIFT) | (door.x & MASK)] |= DOOR;
+      }
+    }
+    return chunk;
+  }
+
+  private static long key(int x, int y) {
+    return ((long) x << 32) | (y & 0xffffffffL);
+  }
+}
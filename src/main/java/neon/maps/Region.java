@@ -109,6 +109,13 @@ public class Region implements Renderable, Activator {
     return theme == null;
   }
 
+  /**
+   * @return the character that is shown for this region
+   */
+  public String getText() {
+    return terrain.text;
+  }
+
   public Color getColor() {
     return ColorFactory.getColor(terrain.color);
   }
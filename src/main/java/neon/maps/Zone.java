@@ -18,34 +18,51 @@
 
 package neon.maps;
 
+import java.awt.Color;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import lombok.Getter;
 import neon.entities.Creature;
+import neon.entities.Door;
+import neon.entities.Entity;
 import neon.entities.Item;
 import neon.entities.UIDStore;
+import neon.entities.components.Lock;
 import neon.resources.RZoneTheme;
 import neon.resources.ResourceManager;
 import neon.ui.graphics.*;
+import neon.util.ColorFactory;
 import neon.util.spatial.*;
 import org.jetbrains.annotations.NotNull;
 
 public class Zone {
   private static final ZComparator comparator = new ZComparator();
+  private static final int CHANGE_LOG = 256; // the number of region changes that are remembered
+  private static final int ENTITY_LOG = 1024; // the number of entity changes that are remembered
 
   @Getter private final String name;
   @Getter private final int map;
   @Getter private final int index;
   @Getter private RZoneTheme theme;
 
-  private final HashMap<Point, Integer> lights = new HashMap<>();
-  private final SimpleIndex<Long> creatures = new SimpleIndex<>();
-  private final GridIndex<Long> items = new GridIndex<>();
+  private final LightMap lightMap = new LightMap();
+  private final HashMap<Point, Integer> doors = new HashMap<>();
+  private final HashGridIndex creatures = new HashGridIndex();
+  private final LongGridIndex items = new LongGridIndex();
   private final RTree<Region> regions;
   private final RTree<Long> top = new RTree<>(100, 40);
   private final UIDStore uidStore;
   private final ResourceManager resourceManager;
+  private final PassabilityGrid passability;
+  private volatile Sight sight; // built when needed, checked against the grid and the doors
+  private final ArrayDeque<Rectangle> changedAreas = new ArrayDeque<>(); // of the last changes
+  private int regionChanges;
+  private int doorChanges; // how often a door in this zone was opened or shut
+  private final ArrayDeque<EntityChange> changedEntities = new ArrayDeque<>(); // the last changes
+  private int entityChanges;
 
   /**
    * Initializes a new zone.
@@ -67,6 +84,9 @@ public class Zone {
     this.uidStore = uidStore;
     this.resourceManager = resourceManager;
     this.regions = tree;
+    // the grid only gets the region tree and the doors, not the zone that is still being built
+    HashMap<Point, Integer> doors = this.doors;
+    this.passability = new PassabilityGrid(tree::getElements, area -> getDoors(doors, area));
   }
 
   /**
@@ -94,22 +114,34 @@ public class Zone {
    * @return all renderables within the given bounds
    */
   public Collection<Renderable> getRenderables(Rectangle bounds) {
-    ArrayList<Renderable> elements = new ArrayList<Renderable>();
-    for (long uid : creatures.getElements(bounds)) {
-      elements.add(uidStore.getEntity(uid).getRenderComponent());
-    }
-    for (long uid : items.getElements(bounds)) {
-      elements.add(uidStore.getEntity(uid).getRenderComponent());
-    }
-    //		for(Region r : regions.getElements(bounds)) {
+    Collection<Renderable> elements = getEntityRenderables(bounds);
     elements.addAll(regions.getElements(bounds));
-    //		}
-    for (long uid : top.getElements(bounds)) {
-      elements.add(uidStore.getEntity(uid).getRenderComponent());
-    }
     return elements;
   }
 
+  /**
+   * @param bounds
+   * @return the renderables of all creatures and items within the given bounds, without regions
+   */
+  public Collection<Renderable> getEntityRenderables(Rectangle bounds) {
+    ArrayList<Renderable> elements = new ArrayList<Renderable>();
+    forEachEntity(bounds, uid -> elements.add(uidStore.readEntity(uid).getRenderComponent()));
+    return elements;
+  }
+
+  /**
+   * Passes the uid of every creature and item in the given rectangle to a visitor, without loading
+   * them.
+   *
+   * @param box a rectangle
+   * @param visitor the visitor
+   */
+  public void forEachEntity(Rectangle box, LongConsumer visitor) {
+    creatures.forEach(box.x, box.y, box.width, box.height, visitor);
+    items.forEach(box.x, box.y, box.width, box.height, visitor);
+    top.forEach(box, uid -> visitor.accept(uid));
+  }
+
   /**
    * @return whether this is a randomly generated zone
    */
@@ -136,36 +168,48 @@ public class Zone {
   }
 
   /**
+   * Returns the creatures in a rectangle, to be read only. A caller that changes one gets it from
+   * the entity store with {@code getEntity}, so the change is saved.
+   *
    * @param box a rectangle
    * @return all creatures in the given rectangle
    */
   public Collection<Creature> getCreatures(Rectangle box) {
     ArrayList<Creature> list = new ArrayList<Creature>();
-    for (long uid : creatures.getElements()) {
-      Creature c = (Creature) uidStore.getEntity(uid);
-      Rectangle bounds = c.getShapeComponent();
-      if (box.contains(bounds.x, bounds.y)) {
-        list.add(c);
-      }
-    }
+    creatures.forEach(
+        box.x, box.y, box.width, box.height, uid -> list.add((Creature) uidStore.readEntity(uid)));
     return list;
   }
 
   /**
-   * Returns the creature on the requested position.
+   * Passes the uid of every creature in the given rectangle to a visitor, without loading the
+   * creatures.
+   *
+   * @param box a rectangle
+   * @param visitor the visitor
+   */
+  public void forEachCreature(Rectangle box, LongConsumer visitor) {
+    creatures.forEach(box.x, box.y, box.width, box.height, visitor);
+  }
+
+  /**
+   * @param uid the uid of a creature
+   * @return whether the creature is in this zone
+   */
+  public boolean hasCreature(long uid) {
+    return creatures.contains(uid);
+  }
+
+  /**
+   * Returns the creature on the requested position, to be read only. A caller that changes it gets
+   * it from the entity store with {@code getEntity}, so the change is saved.
    *
    * @param p a position
    * @return the creature on the given position, null if there is none
    */
   public Creature getCreature(Point p) {
-    for (long uid : creatures.getElements()) {
-      Creature c = (Creature) uidStore.getEntity(uid);
-      Rectangle bounds = c.getShapeComponent();
-      if (p.distance(bounds.x, bounds.y) < 1) {
-        return c;
-      }
-    }
-    return null;
+    ArrayList<Long> uids = creatures.getElements(p);
+    return uids.isEmpty() ? null : (Creature) uidStore.readEntity(uids.get(0));
   }
 
   /**
@@ -176,10 +220,28 @@ public class Zone {
   public void addCreature(Creature c) {
     Rectangle bounds = c.getShapeComponent();
     creatures.insert(c.getUID(), bounds);
+    entityChanged(c.getUID(), bounds);
   }
 
   public void addCreature(long uid, Rectangle bounds) {
     creatures.insert(uid, bounds);
+    entityChanged(uid, bounds);
+  }
+
+  /**
+   * Updates the position of a creature in this zone. This must be called whenever the shape of a
+   * creature in this zone is moved, or it will not be found on its new position.
+   *
+   * @param c the creature that moved
+   * @return whether the creature is in this zone
+   */
+  public boolean moveCreature(Creature c) {
+    Rectangle bounds = c.getShapeComponent();
+    if (creatures.move(c.getUID(), bounds.x, bounds.y)) {
+      entityChanged(c.getUID(), bounds);
+      return true;
+    }
+    return false;
   }
 
   /**
@@ -209,7 +271,7 @@ public class Zone {
    * @return all regions containing the given point
    */
   public Collection<Region> getRegions(Point point) {
-    return regions.getElements(new Rectangle(point.x, point.y, 1, 1));
+    return regions.getElements(point);
   }
 
   /**
@@ -237,9 +299,15 @@ public class Zone {
    * @return the highest-order region containing this point
    */
   public Region getRegion(Point p) {
-    ArrayList<Region> buffer = new ArrayList<Region>(getRegions(p));
-    buffer.sort(comparator);
-    return !buffer.isEmpty() ? buffer.getLast() : null;
+    Region[] top = new Region[1];
+    regions.forEach(
+        p,
+        r -> {
+          if (top[0] == null || comparator.compare(r, top[0]) >= 0) {
+            top[0] = r;
+          }
+        });
+    return top[0];
   }
 
   /**
@@ -249,6 +317,7 @@ public class Zone {
    */
   public void addRegion(Region r) {
     regions.insert(r, r.getBounds());
+    changed(r.getBounds());
   }
 
   /**
@@ -258,8 +327,212 @@ public class Zone {
    */
   public void removeRegion(Region r) {
     regions.remove(r);
+    changed(r.getBounds());
   }
 
+  /**
+   * @return the number of times a region was added or removed
+   */
+  public synchronized int getRegionChanges() {
+    return regionChanges;
+  }
+
+  /**
+   * Returns the areas in which regions were added or removed since an earlier moment. Only the
+   * last changes are remembered.
+   *
+   * @param since the number of region changes at that moment
+   * @return the changed areas, or {@code null} if they are no longer known
+   */
+  public synchronized List<Rectangle> getChangedAreas(int since) {
+    int count = regionChanges - since;
+    if (count < 0 || count > changedAreas.size()) {
+      return null;
+    }
+    List<Rectangle> areas = new ArrayList<>(changedAreas);
+    return areas.subList(areas.size() - count, areas.size());
+  }
+
+  private synchronized void changed(Rectangle area) {
+    passability.invalidate(area);
+    regionChanges++;
+    changedAreas.addLast(area);
+    if (changedAreas.size() > CHANGE_LOG) {
+      changedAreas.removeFirst();
+    }
+  }
+
+  /**
+   * Returns the movement modifiers of this zone. The grid stays the same, when a region or door is
+   * added or removed only the changed area is filled in again.
+   *
+   * @return the passability grid of this zone
+   */
+  public PassabilityGrid getPassability() {
+    return passability;
+  }
+
+  private static Collection<Point> getDoors(HashMap<Point, Integer> doors, Rectangle area) {
+    ArrayList<Point> inside = new ArrayList<>();
+    synchronized (doors) {
+      for (Point door : doors.keySet()) {
+        if (area.contains(door)) {
+          inside.add(door);
+        }
+      }
+    }
+    return inside;
+  }
+
+  /**
+   * Returns what can be seen from where in this zone. The field of view is cached until the
+   * passability grid changes or a door is opened or closed.
+   *
+   * @return the field of view of this zone
+   */
+  public FieldOfView getFieldOfView() {
+    PassabilityGrid grid = getPassability();
+    int changes = getDoorChanges();
+    Sight current = sight;
+    int version = grid.getVersion();
+    if (current == null || current.view().getVersion() != version || current.changes() != changes) {
+      synchronized (this) {
+        current = sight;
+        if (current == null
+            || current.view().getVersion() != version
+            || current.changes() != changes) {
+          current = new Sight(FieldOfView.build(grid, getClosedDoors()), changes);
+          sight = current;
+        }
+      }
+    }
+    return current.view();
+  }
+
+  private Collection<Point> getClosedDoors() {
+    ArrayList<Point> closed = new ArrayList<>();
+    ArrayList<Point> points;
+    synchronized (doors) {
+      points = new ArrayList<>(doors.keySet());
+    }
+    for (Point point : points) {
+      for (long uid : items.getElements(point)) {
+        if (uidStore.readEntity(uid) instanceof Door door && !door.lock.isOpen()) {
+          closed.add(point);
+          break;
+        }
+      }
+    }
+    return closed;
+  }
+
+  private record Sight(FieldOfView view, int changes) {}
+
+  /*
+   * Tells this zone that a door was opened, closed, locked or unlocked. The field of view is built
+   * again the next time it is asked for.
+   */
+  private void doorChanged(Point position) {
+    boolean door;
+    synchronized (doors) {
+      door = doors.containsKey(position);
+    }
+    if (door) {
+      synchronized (this) {
+        doorChanges++;
+      }
+      Rectangle bounds = new Rectangle(position.x, position.y, 1, 1);
+      items.forEach(position.x, position.y, uid -> entityChanged(uid, bounds));
+    }
+  }
+
+  /**
+   * Opens, shuts, locks or unlocks the lock of a door or container in this zone. Locks in a zone
+   * should only be changed through here. When the lock of a door changes, the field of view is
+   * built again and the door is drawn again, so no caller can forget to do that.
+   *
+   * @param lock the lock to change
+   * @param change what to do with the lock, like {@code Lock::open}
+   */
+  public void changeLock(Lock lock, Consumer<Lock> change) {
+    int state = lock.getState();
+    change.accept(lock);
+    if (lock.getState() != state) {
+      // the lock belongs to the entity, which has to be saved again
+      if (uidStore.getEntity(lock.getUID()) instanceof Door door) {
+        doorChanged(door.getShapeComponent().getLocation());
+      }
+    }
+  }
+
+  private synchronized int getDoorChanges() {
+    return doorChanges;
+  }
+
+  /**
+   * Tells this zone that the way a creature or item looks changed, or that it moved on the screen
+   * without moving in this zone, like a projectile that is flying to its target.
+   *
+   * @param entity the creature or item that changed
+   */
+  public void entityChanged(Entity entity) {
+    entityChanged(entity.getUID(), entity.getShapeComponent());
+  }
+
+  /*
+   * Remembers a change to a creature or item, with where it is now. The bounds are {@code null}
+   * when it was removed.
+   */
+  private void entityChanged(long uid, Rectangle bounds) {
+    synchronized (changedEntities) {
+      entityChanges++;
+      changedEntities.addLast(new EntityChange(uid, bounds == null ? null : new Rectangle(bounds)));
+      if (changedEntities.size() > ENTITY_LOG) {
+        changedEntities.removeFirst();
+      }
+    }
+  }
+
+  /**
+   * @return the number of times a creature or item was added, removed, moved or changed
+   */
+  public int getEntityChanges() {
+    synchronized (changedEntities) {
+      return entityChanges;
+    }
+  }
+
+  /**
+   * Returns the changes to creatures and items since an earlier moment, oldest first. Only the
+   * last changes are remembered.
+   *
+   * @param since the number of entity changes at that moment
+   * @return the changes, or {@code null} if they are no longer known
+   */
+  public List<EntityChange> getChangedEntities(int since) {
+    synchronized (changedEntities) {
+      int count = entityChanges - since;
+      if (count < 0 || count > changedEntities.size()) {
+        return null;
+      }
+      ArrayList<EntityChange> changes = new ArrayList<>(count);
+      Iterator<EntityChange> newest = changedEntities.descendingIterator();
+      while (changes.size() < count) {
+        changes.add(newest.next());
+      }
+      Collections.reverse(changes);
+      return changes;
+    }
+  }
+
+  /**
+   * A change to a creature or item in a zone.
+   *
+   * @param uid the uid of the creature or item
+   * @param bounds where it is after the change, {@code null} if it was removed from the zone
+   */
+  public record EntityChange(long uid, Rectangle bounds) {}
+
   /**
    * @return a <code>Collection</code> with all regions in this map.
    */
@@ -274,12 +547,15 @@ public class Zone {
     } else {
       items.insert(item.getUID(), bounds);
     }
+    entityChanged(item.getUID(), bounds);
     if (item instanceof Item.Light) {
-      Point p = bounds.getLocation();
-      if (!lights.containsKey(p)) {
-        lights.put(p, 0);
+      lightMap.add(bounds.x, bounds.y, getColor(item));
+    }
+    if (item instanceof Door) {
+      synchronized (doors) {
+        doors.merge(bounds.getLocation(), 1, Integer::sum);
       }
-      lights.put(p, lights.get(p) + 1);
+      passability.invalidate(new Rectangle(bounds.x, bounds.y, 1, 1));
     }
   }
 
@@ -290,17 +566,28 @@ public class Zone {
    */
   public void removeCreature(long uid) {
     creatures.remove(uid);
+    entityChanged(uid, null);
   }
 
   public void removeItem(Item item) {
-    items.remove(item.getUID());
+    if (item.resource.top) {
+      top.remove(item.getUID());
+    } else {
+      items.remove(item.getUID());
+    }
+    entityChanged(item.getUID(), null);
     if (item instanceof Item.Light) {
       Rectangle bounds = item.getShapeComponent();
-      Point point = new Point(bounds.x, bounds.y);
-      lights.put(point, lights.get(point) - 1);
-      if (lights.get(point) < 1) {
-        lights.remove(point);
+      lightMap.remove(bounds.x, bounds.y, getColor(item));
+    }
+    if (item instanceof Door) {
+      Point point = item.getShapeComponent().getLocation();
+      synchronized (doors) {
+        if (doors.merge(point, -1, Integer::sum) < 1) {
+          doors.remove(point);
+        }
       }
+      passability.invalidate(new Rectangle(point.x, point.y, 1, 1));
     }
   }
 
@@ -313,16 +600,20 @@ public class Zone {
   }
 
   /**
-   * @return a hashmap with all lights in this zone
+   * @return the light that the lights in this zone shed, for the walls and doors as they are now
    */
-  public HashMap<Point, Integer> getLightMap() {
-    return lights;
+  public LightMap getLights() {
+    lightMap.update(getFieldOfView());
+    return lightMap;
+  }
+
+  private static Color getColor(Item item) {
+    Color color = ColorFactory.getColor(item.resource.color);
+    return color == null ? Color.white : color;
   }
 
   public int getEstimatedMemory() {
-    return 32
-        + (top.getElements().size() + creatures.getElements().size() + items.getElements().size())
-            * 8;
+    return 32 + (top.size() + creatures.size() + items.size()) * 8;
   }
 
   //  public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
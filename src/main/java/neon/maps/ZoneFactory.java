@@ -89,20 +89,20 @@ public class ZoneFactory implements Closeable {
     int iSize = in.readInt();
     for (int i = 0; i < iSize; i++) {
       long uid = in.readLong();
-      Item item = (Item) uidStore.getEntity(uid);
+      Item item = (Item) uidStore.readEntity(uid);
       theZone.addItem(item);
     }
     int tSize = in.readInt();
     for (int i = 0; i < tSize; i++) {
       long uid = in.readLong();
-      Item item = (Item) uidStore.getEntity(uid);
+      Item item = (Item) uidStore.readEntity(uid);
       theZone.addItem(item);
     }
 
     int cSize = in.readInt();
     for (int i = 0; i < cSize; i++) {
       long uid = in.readLong();
-      Rectangle bounds = uidStore.getEntity(uid).getShapeComponent();
+      Rectangle bounds = uidStore.readEntity(uid).getShapeComponent();
       theZone.addCreature(uid, bounds);
     }
 
@@ -125,20 +125,20 @@ public class ZoneFactory implements Closeable {
     int iSize = in.getInt();
     for (int i = 0; i < iSize; i++) {
       long uid = in.getLong();
-      Item item = (Item) uidStore.getEntity(uid);
+      Item item = (Item) uidStore.readEntity(uid);
       theZone.addItem(item);
     }
     int tSize = in.getInt();
     for (int i = 0; i < tSize; i++) {
       long uid = in.getLong();
-      Item item = (Item) uidStore.getEntity(uid);
+      Item item = (Item) uidStore.readEntity(uid);
       theZone.addItem(item);
     }
 
     int cSize = in.getInt();
     for (int i = 0; i < cSize; i++) {
       long uid = in.getLong();
-      Rectangle bounds = uidStore.getEntity(uid).getShapeComponent();
+      Rectangle bounds = uidStore.readEntity(uid).getShapeComponent();
       theZone.addCreature(uid, bounds);
     }
 
@@ -24,6 +24,7 @@ import neon.core.GameContext;
 import neon.entities.Container;
 import neon.entities.Creature;
 import neon.entities.Door;
+import neon.entities.Entity;
 import neon.entities.EntityFactory;
 import neon.entities.Item;
 import neon.entities.property.Habitat;
@@ -61,6 +62,9 @@ public class DungeonGenerator {
   private final MapUtils mapUtils;
   private final Dice dice;
   private final DungeonTileGenerator dungeonTileGenerator;
+  // entities created for this zone, added to the store in one batch before they are put in the zone
+  private final ArrayList<Entity> generated = new ArrayList<>();
+  private final ArrayList<Entity> placed = new ArrayList<>(); // the ones that go in the zone
   int[][] tiles;
   String[][] terrain;
 
@@ -166,7 +170,7 @@ public class DungeonGenerator {
     do {
       p.x = dice.rollDice(1, width, -1);
       p.y = dice.rollDice(1, height, -1);
-    } while (tiles[p.x][p.y] != MapUtils.FLOOR || !zone.getItems(p).isEmpty());
+    } while (tiles[p.x][p.y] != MapUtils.FLOOR || hasItem(p));
 
     Rectangle bounds = door.getShapeComponent();
     Point destPoint = new Point(bounds.x, bounds.y);
@@ -174,11 +178,11 @@ public class DungeonGenerator {
     int destZone = previous.getIndex();
     String doorType = theme.doors.split(",")[0];
     Door tdoor = (Door) entityFactory.getItem(doorType, p.x, p.y, entityStore.createNewEntityUID());
-    entityStore.addEntity(tdoor);
+    generated.add(tdoor);
     tiles[p.x][p.y] = MapUtils.DOOR;
     tdoor.portal.setDestination(destPoint, destZone, destMap);
     tdoor.lock.open();
-    zone.addItem(tdoor);
+    placed.add(tdoor);
     door.portal.setDestPos(p);
 
     // check if a door to another zone is needed
@@ -192,17 +196,17 @@ public class DungeonGenerator {
           do {
             pos.x = dice.rollDice(1, width, -1);
             pos.y = dice.rollDice(1, height, -1);
-          } while (tiles[pos.x][pos.y] != MapUtils.FLOOR || !zone.getItems(pos).isEmpty());
+          } while (tiles[pos.x][pos.y] != MapUtils.FLOOR || hasItem(pos));
 
           Door toDoor =
               (Door)
                   entityFactory.getItem(
                       theme.doors.split(",")[0], pos.x, pos.y, entityStore.createNewEntityUID());
-          entityStore.addEntity(toDoor);
+          generated.add(toDoor);
           tiles[pos.x][pos.y] = MapUtils.DOOR;
           toDoor.lock.open();
           toDoor.portal.setDestination(null, to, 0);
-          zone.addItem(toDoor);
+          placed.add(toDoor);
         } else { // multiple doors between two zones
           for (long uid : previous.getItems()) {
             if (entityStore.getEntity(uid) instanceof Door fromDoor) {
@@ -213,7 +217,7 @@ public class DungeonGenerator {
                 do {
                   pos.x = dice.rollDice(1, width, -1);
                   pos.y = dice.rollDice(1, height, -1);
-                } while (tiles[pos.x][pos.y] != MapUtils.FLOOR && !zone.getItems(pos).isEmpty());
+                } while (tiles[pos.x][pos.y] != MapUtils.FLOOR && hasItem(pos));
 
                 Door toDoor =
                     (Door)
@@ -222,12 +226,12 @@ public class DungeonGenerator {
                             pos.x,
                             pos.y,
                             entityStore.createNewEntityUID());
-                entityStore.addEntity(toDoor);
+                generated.add(toDoor);
                 tiles[pos.x][pos.y] = MapUtils.DOOR;
                 toDoor.lock.open();
                 Rectangle fBounds = fromDoor.getShapeComponent();
                 toDoor.portal.setDestination(new Point(fBounds.x, fBounds.y), to, 0);
-                zone.addItem(toDoor);
+                placed.add(toDoor);
                 fromDoor.portal.setDestPos(pos);
                 break;
               }
@@ -248,15 +252,47 @@ public class DungeonGenerator {
       } while (tiles[p1.x][p1.y] != MapUtils.FLOOR);
       if (resourceProvider.getResource(object) instanceof RItem) {
         Item item = entityFactory.getItem(object, p1.x, p1.y, entityStore.createNewEntityUID());
-        entityStore.addEntity(item);
-        zone.addItem(item);
+        generated.add(item);
+        placed.add(item);
       } else if (resourceProvider.getResource(object) instanceof RCreature) {
         Creature creature =
             entityFactory.getCreature(object, p1.x, p1.y, entityStore.createNewEntityUID());
-        entityStore.addEntity(creature);
+        generated.add(creature);
+        placed.add(creature);
+      }
+    }
+
+    addEntities();
+  }
+
+  /*
+   * Adds the creatures and items of the zone to the store, and only then puts them in the zone.
+   * Other threads read the zone, they must find every uid in it in the store.
+   */
+  private void addEntities() {
+    entityStore.addEntities(generated);
+    generated.clear();
+    for (Entity entity : placed) {
+      if (entity instanceof Creature creature) {
         zone.addCreature(creature);
+      } else {
+        zone.addItem((Item) entity);
+      }
+    }
+    placed.clear();
+  }
+
+  /*
+   * Checks if an item was already placed on the given position. The items are not in the zone
+   * yet while it is generated.
+   */
+  private boolean hasItem(Point position) {
+    for (Entity entity : placed) {
+      if (entity instanceof Item && entity.getShapeComponent().getLocation().equals(position)) {
+        return true;
       }
     }
+    return false;
   }
 
   // to convert a string[][] into regions, items and creatures
@@ -305,14 +341,14 @@ public class DungeonGenerator {
 
   private void addDoor(String terrain, String id, int x, int y, int layer) {
     Door door = (Door) entityFactory.getItem(id, x, y, entityStore.createNewEntityUID());
-    entityStore.addEntity(door);
+    generated.add(door);
     if (tiles[x][y] == MapUtils.DOOR_LOCKED) {
       door.lock.setLockDC(10);
       door.lock.lock();
     } else if (tiles[x][y] == MapUtils.DOOR_CLOSED) {
       door.lock.close();
     }
-    zone.addItem(door);
+    placed.add(door);
     RTerrain rt = (RTerrain) resourceProvider.getResource(terrain, "terrain");
     zone.addRegion(new Region(terrain, x, y, 1, 1, null, layer + 1, rt));
   }
@@ -327,21 +363,21 @@ public class DungeonGenerator {
     if (habitat == Habitat.LAND && !(modifier == Modifier.NONE || modifier == Modifier.ICE)) {
       return; // place land animals only on land
     }
-    entityStore.addEntity(creature);
-    zone.addCreature(creature);
+    generated.add(creature);
+    placed.add(creature);
   }
 
   private void addItem(String description, int x, int y) {
     String id = description.replace("i:", "");
     Item item = entityFactory.getItem(id, x, y, entityStore.createNewEntityUID());
-    entityStore.addEntity(item);
+    generated.add(item);
     if (item instanceof Container) {
       for (String s : ((RItem.Container) item.resource).contents) {
         Item i = entityFactory.getItem(s, entityStore.createNewEntityUID());
         ((Container) item).addItem(i.getUID());
-        entityStore.addEntity(i);
+        generated.add(i);
       }
     }
-    zone.addItem(item);
+    placed.add(item);
   }
 }
@@ -45,6 +45,8 @@ public class TownGenerator {
   private final EntityFactory entityFactory;
   private final MapUtils mapUtils;
   private final ItemFactory itemFactory;
+  // doors created for a town, added to the store in one batch before they are put in the zone
+  private final ArrayList<Door> generated = new ArrayList<>();
 
   public TownGenerator(Zone zone, GameContext gameContext) {
     this(zone, gameContext, new MapUtils());
@@ -103,6 +105,12 @@ public class TownGenerator {
         zone.addRegion(house);
       }
     }
+    // other threads read the zone, they must find every uid in it in the store
+    entityStore.addEntities(generated);
+    for (Door door : generated) {
+      zone.addItem(door);
+    }
+    generated.clear();
   }
 
   private void makeDoor(Region r, RRegionTheme theme) {
@@ -132,9 +140,8 @@ public class TownGenerator {
 
     long uid = entityStore.createNewEntityUID();
     Door door = (Door) entityFactory.getItem(theme.door, x, y, uid);
-    entityStore.addEntity(door);
     door.lock.close();
-    zone.addItem(door);
+    generated.add(door);
     RTerrain rt = (RTerrain) resourceProvider.getResource(theme.floor, "terrain");
     zone.addRegion(new Region(theme.floor, x, y, 1, 1, null, r.getZ() + 1, rt));
   }
@@ -21,6 +21,7 @@ package neon.maps.generators;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.Area;
+import java.util.ArrayList;
 import java.util.Collection;
 import neon.core.GameContext;
 import neon.entities.*;
@@ -63,6 +64,9 @@ public class WildernessGenerator {
   private final BlocksGenerator blocksGenerator;
   private final CaveGenerator caveGenerator;
   private final WildernessTerrainGenerator wildernessTerrainGenerator;
+  // entities created for a zone, added to the store in one batch before they are put in the zone
+  private final ArrayList<Entity> generated = new ArrayList<>();
+  private final ArrayList<Entity> placed = new ArrayList<>(); // the ones that go in the zone
 
   /**
    * Creates a wilderness generator with dependency injection for engine use.
@@ -126,6 +130,38 @@ public class WildernessGenerator {
 
   /** Generates a piece of wilderness using the supplied parameters. */
   public void generate(Region region, RRegionTheme theme) {
+    generateRegion(region, theme);
+    addEntities();
+  }
+
+  /**
+   * Generates all wilderness in the zone that is visible in the given window, including the pieces
+   * that large or partly covered regions are cut into. The creatures and items in it are added to
+   * the store in one batch when all pieces are done. Towns are left to the {@code TownGenerator}.
+   *
+   * @param window the visible part of the zone
+   * @return whether any wilderness was generated
+   */
+  public boolean generate(Rectangle window) {
+    boolean changed = false;
+    boolean fixed;
+    do {
+      fixed = true;
+      for (Region region : zone.getRegions(window)) {
+        if (!region.isFixed() && !region.getTheme().id.startsWith("town")) {
+          changed = true;
+          fixed = false;
+          RRegionTheme theme = region.getTheme();
+          region.fix(); // the theme is null from here on
+          generateRegion(region, theme);
+        }
+      }
+    } while (!fixed);
+    addEntities();
+    return changed;
+  }
+
+  private void generateRegion(Region region, RRegionTheme theme) {
     // check if other regions are already on top of this region
     Collection<Region> regions = zone.getRegions(region.getBounds());
     if (!isOnTop(region, regions)) { // if there are still regions above this region
@@ -184,6 +220,24 @@ public class WildernessGenerator {
     }
   }
 
+  /*
+   * Adds the creatures and items generated so far to the store, and only then puts them in the
+   * zone.
+   * Other threads read the zone, they must find every uid in it in the store.
+   */
+  private void addEntities() {
+    entityStore.addEntities(generated);
+    generated.clear();
+    for (Entity entity : placed) {
+      if (entity instanceof Creature creature) {
+        zone.addCreature(creature);
+      } else {
+        zone.addItem((Item) entity);
+      }
+    }
+    placed.clear();
+  }
+
   private boolean isOnTop(Region region, Collection<Region> regions) {
     for (Region r : regions) {
       if (r.getZ() > region.getZ()) {
@@ -277,8 +331,8 @@ public class WildernessGenerator {
             entityFactory.getCreature(id, rx + x, ry + y, entityStore.createNewEntityUID());
         RTerrain terrain = (RTerrain) resourceProvider.getResource(region, "terrain");
         if (terrain.modifier == Region.Modifier.SWIM && creature.species.habitat == Habitat.LAND) {
-          entityStore.addEntity(creature);
-          zone.addCreature(creature);
+          generated.add(creature);
+          placed.add(creature);
         }
       }
     }
@@ -295,22 +349,22 @@ public class WildernessGenerator {
               String id = entry.replace("i:", "");
               long uid = entityStore.createNewEntityUID();
               Item item = entityFactory.getItem(id, region.getX() + i, region.getY() + j, uid);
-              entityStore.addEntity(item);
+              generated.add(item);
               if (item instanceof Container) {
                 for (String s : ((RItem.Container) item.resource).contents) {
                   Item content = entityFactory.getItem(s, entityStore.createNewEntityUID());
                   ((Container) item).addItem(content.getUID());
-                  entityStore.addEntity(content);
+                  generated.add(content);
                 }
               }
-              zone.addItem(item);
+              placed.add(item);
             } else if (entry.startsWith("c:")) {
               String id = entry.replace("c:", "");
               long uid = entityStore.createNewEntityUID();
               Creature creature =
                   entityFactory.getCreature(id, region.getX() + i, region.getY() + j, uid);
-              entityStore.addEntity(creature);
-              zone.addCreature(creature);
+              generated.add(creature);
+              placed.add(creature);
             } else if (!entry.isEmpty() && !entry.equals(region.getTextureType())) {
               RTerrain terrain = (RTerrain) resourceProvider.getResource(entry, "terrain");
               zone.addRegion(
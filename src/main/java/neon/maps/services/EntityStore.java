@@ -18,6 +18,7 @@
 
 package neon.maps.services;
 
+import java.util.Collection;
 import neon.entities.Entity;
 
 /**
@@ -42,6 +43,14 @@ public interface EntityStore {
    */
   void addEntity(Entity entity);
 
+  /**
+   * Adds a batch of entities to the store, for instance everything that was generated for a zone.
+   * The store can write the whole batch at once instead of entity by entity.
+   *
+   * @param entities the entities to add
+   */
+  void addEntities(Collection<? extends Entity> entities);
+
   /**
    * Creates a new unique identifier for an entity.
    *
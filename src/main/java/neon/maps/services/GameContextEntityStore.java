@@ -18,6 +18,7 @@
 
 package neon.maps.services;
 
+import java.util.Collection;
 import neon.core.GameContext;
 import neon.entities.Entity;
 
@@ -44,6 +45,11 @@ public class GameContextEntityStore implements EntityStore {
     context.getStore().addEntity(entity);
   }
 
+  @Override
+  public void addEntities(Collection<? extends Entity> entities) {
+    context.getStore().addEntities(entities);
+  }
+
   @Override
   public long createNewEntityUID() {
     return context.getStore().createNewEntityUID();
@@ -35,6 +35,12 @@ public class CServer extends Resource {
   private boolean gThread = true;
   //	private boolean audio = false;
   private int ai = 20;
+  private int pathBudget = 1000;
+  private int simulationRing = 40;
+  private int coarseBudget = 50;
+  private int catchUpBudget = 1000;
+  private boolean xmlSave = false;
+  private int autosave = 0;
 
   public CServer(String... path) {
     super("ini", path);
@@ -62,6 +68,32 @@ public class CServer extends Resource {
 
     // ai range
     ai = Integer.parseInt(root.getChildText("ai"));
+    if (root.getChild("ai").getAttribute("path") != null) {
+      pathBudget = Integer.parseInt(root.getChild("ai").getAttributeValue("path"));
+    }
+
+    // simulation of creatures out of ai range
+    Element simulation = root.getChild("simulation");
+    if (simulation != null) {
+      if (simulation.getAttribute("ring") != null) {
+        simulationRing = Integer.parseInt(simulation.getAttributeValue("ring"));
+      }
+      if (simulation.getAttribute("coarse") != null) {
+        coarseBudget = Integer.parseInt(simulation.getAttributeValue("coarse"));
+      }
+      if (simulation.getAttribute("catchup") != null) {
+        catchUpBudget = Integer.parseInt(simulation.getAttributeValue("catchup"));
+      }
+    }
+
+    // xml export and autosave interval
+    Element save = root.getChild("save");
+    if (save != null) {
+      xmlSave = "on".equals(save.getAttributeValue("xml"));
+      if (save.getAttribute("autosave") != null) {
+        autosave = Integer.parseInt(save.getAttributeValue("autosave"));
+      }
+    }
   }
 
   @Override
@@ -85,4 +117,47 @@ public class CServer extends Resource {
   public int getAIRange() {
     return ai;
   }
+
+  /**
+   * @return the number of positions a path search may examine
+   */
+  public int getPathBudget() {
+    return pathBudget;
+  }
+
+  /**
+   * @return the distance from the player within which creatures out of ai range are still
+   *     simulated coarsely
+   */
+  public int getSimulationRing() {
+    return simulationRing;
+  }
+
+  /**
+   * @return the number of creatures in the simulation ring that are updated every turn
+   */
+  public int getCoarseBudget() {
+    return coarseBudget;
+  }
+
+  /**
+   * @return the maximum number of turns that are made up for when a zone is entered again
+   */
+  public int getCatchUpBudget() {
+    return catchUpBudget;
+  }
+
+  /**
+   * @return whether save games are also written to save.xml
+   */
+  public boolean isXMLSaveExported() {
+    return xmlSave;
+  }
+
+  /**
+   * @return the number of turns between autosaves, or 0 if autosave is off
+   */
+  public int getAutosaveInterval() {
+    return autosave;
+  }
 }
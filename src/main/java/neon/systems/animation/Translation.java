@@ -22,10 +22,12 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import javax.swing.JComponent;
 import neon.entities.Entity;
+import neon.maps.Zone;
 
 public class Translation implements Runnable {
   private final JComponent component;
   private final Entity entity;
+  private final Zone zone;
   private final int x1;
   private final int y1;
   private final int x2;
@@ -41,11 +43,21 @@ public class Translation implements Runnable {
    * @param x2
    * @param y2
    * @param interval
+   * @param component the component to repaint after every step
+   * @param zone the zone the entity is in, it is told about every step
    */
   public Translation(
-      Entity entity, int x1, int y1, int x2, int y2, int interval, JComponent component) {
+      Entity entity,
+      int x1,
+      int y1,
+      int x2,
+      int y2,
+      int interval,
+      JComponent component,
+      Zone zone) {
     this.component = component;
     this.entity = entity;
+    this.zone = zone;
     this.x1 = x1;
     this.x2 = x2;
     this.y1 = y1;
@@ -61,6 +73,7 @@ public class Translation implements Runnable {
       int dx = (x2 - x1) * i / distance;
       int dy = (y2 - y1) * i / distance;
       bounds.setLocation(x1 + dx, y1 + dy);
+      zone.entityChanged(entity);
       //			System.out.println(entity.getBounds().getLocation());
       component.repaint();
       try {
@@ -59,6 +59,7 @@ public class FileSystem {
   private final PathTree<String, String> files = new PathTree<String, String>();
   private final HashMap<String, String> paths =
       new HashMap<String, String>(); // to keep track of absolute paths to a dir or jar
+  private final IncrementalCopier copier = new IncrementalCopier();
 
   public FileSystem() throws IOException {
     String tmpdir = Files.createTempDirectory("neon_").toFile().getAbsolutePath();
@@ -299,14 +300,35 @@ public class FileSystem {
   }
 
   /**
-   * This method copies all files from the temp directory to the designated directory.
+   * This method copies all files from the temp directory to the designated directory. Only the
+   * parts of files that changed since the previous call are written.
    *
    * @param destination the name of the directory to copy temp to
+   * @return the number of bytes that were written
    */
-  public void storeTemp(File destination) {
+  public long storeTemp(File destination) {
+    return storeTemp(destination, Map.of());
+  }
+
+  /**
+   * Copies all files from the temp directory to the designated directory, like {@link
+   * #storeTemp(File)}. Files that have an image are copied as they were when the image was taken.
+   *
+   * @param destination the name of the directory to copy temp to
+   * @param images the images of files in temp, by their absolute path
+   * @return the number of bytes that were written
+   */
+  public long storeTemp(File destination, Map<Path, IncrementalCopier.Image> images) {
     if (destination.isDirectory()) {
-      FileUtils.copy(temp.toPath(), destination.toPath());
+      try {
+        long written = copier.copy(temp.toPath(), destination.toPath(), images);
+        log.debug("Stored temp in {}, {} bytes written", destination, written);
+        return written;
+      } catch (IOException e) {
+        log.error("Could not store temp in {}", destination, e);
+      }
     }
+    return 0;
   }
 
   /**
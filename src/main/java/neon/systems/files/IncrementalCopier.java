@@ -0,0 +1,240 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.systems.files;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * Copies a directory to another directory, but only writes the parts of files that changed since
+ * the last copy. Files are compared in blocks: the checksums of the blocks that were copied are
+ * remembered, so the next copy only has to read the source. For a target that was not copied
+ * before, the blocks are compared with the target file instead.
+ *
+ * <p>This suits the MVStore files in the temp directory: a commit appends new chunks and rewrites
+ * the file header, while the rest of the file stays the same. Files that were not modified since
+ * they were copied are skipped without reading them.
+ *
+ * <p>A file that is still being written to can be copied as it was at an earlier moment, from an
+ * {@link Image} that was taken at that moment. The image holds the size of the file and its first
+ * bytes, the rest is read from the file itself. This only works for files that don't change in
+ * place after their first bytes, like an MVStore that does not reuse free space.
+ *
+ * @author priewe
+ */
+public class IncrementalCopier {
+  public static final int BLOCK_SIZE = 16 * 1024;
+  // a modification time is only trusted if the file did not change shortly before it was copied
+  private static final long MODIFIED_MARGIN = 2000;
+
+  private final HashMap<Path, FileState> copied = new HashMap<>();
+  private long bytesWritten;
+  private long bytesSkipped;
+
+  /**
+   * Copies all contents of a source directory to a destination directory.
+   *
+   * @param from the source directory
+   * @param to the destination directory
+   * @return the number of bytes that were written
+   * @throws IOException if a file could not be read or written
+   */
+  public long copy(Path from, Path to) throws IOException {
+    return copy(from, to, Map.of());
+  }
+
+  /**
+   * Copies all contents of a source directory to a destination directory. The files that have an
+   * image are copied as they were when the image was taken.
+   *
+   * @param from the source directory
+   * @param to the destination directory
+   * @param images the images of files in the source directory, by their absolute path
+   * @return the number of bytes that were written
+   * @throws IOException if a file could not be read or written
+   */
+  public synchronized long copy(Path from, Path to, Map<Path, Image> images) throws IOException {
+    List<Path> sources;
+    try (Stream<Path> files = Files.walk(from)) {
+      sources = files.toList();
+    }
+
+    long written = 0;
+    for (Path source : sources) {
+      Path target = to.resolve(from.relativize(source).toString());
+      if (Files.isDirectory(source)) {
+        Files.createDirectories(target);
+      } else {
+        Image image = images.get(source.toAbsolutePath().normalize());
+        written += copyFile(source, target.toAbsolutePath().normalize(), image);
+      }
+    }
+    return written;
+  }
+
+  /**
+   * @return the total number of bytes written by this copier
+   */
+  public synchronized long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  /**
+   * @return the total number of bytes that did not have to be written
+   */
+  public synchronized long getBytesSkipped() {
+    return bytesSkipped;
+  }
+
+  private long copyFile(Path source, Path target, Image image) throws IOException {
+    long size = image != null ? image.size() : Files.size(source);
+    long modified = Files.getLastModifiedTime(source).toMillis();
+    if (image != null && Files.size(source) < size) {
+      throw new IOException(source + " is smaller than when its image was taken");
+    }
+    FileState state = copied.get(target);
+    if (state != null && (!Files.exists(target) || Files.size(target) != state.size)) {
+      state = null; // the target was changed by someone else
+    }
+    if (state != null
+        && state.size == size
+        && state.modified == modified
+        && modified + MODIFIED_MARGIN < state.copiedAt) {
+      bytesSkipped += size;
+      return 0;
+    }
+
+    long copiedAt = System.currentTimeMillis();
+    int blocks = (int) ((size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+    long[] sums = new long[blocks];
+    long written = 0;
+    try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+        FileChannel out =
+            FileChannel.open(
+                target,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+      ByteBuffer old = ByteBuffer.allocate(BLOCK_SIZE);
+      for (int b = 0; b < blocks; b++) {
+        long position = (long) b * BLOCK_SIZE;
+        read(in, buffer, position, size);
+        if (image != null) {
+          image.restore(buffer, position);
+        }
+        sums[b] = checksum(buffer);
+
+        boolean changed;
+        if (state != null) {
+          changed = b >= state.sums.length || state.sums[b] != sums[b];
+        } else {
+          read(out, old, position, out.size());
+          changed = !old.equals(buffer);
+        }
+        if (changed) {
+          while (buffer.hasRemaining()) {
+            out.write(buffer, position + buffer.position());
+          }
+          written += buffer.limit();
+        }
+      }
+      if (out.size() > size) {
+        out.truncate(size);
+      }
+    }
+
+    bytesWritten += written;
+    bytesSkipped += size - written;
+    copied.put(target, new FileState(size, modified, copiedAt, sums));
+    return written;
+  }
+
+  /** Reads the block at the given position, up to the given file size. */
+  private static void read(FileChannel channel, ByteBuffer buffer, long position, long size)
+      throws IOException {
+    buffer.clear();
+    buffer.limit((int) Math.max(0, Math.min(BLOCK_SIZE, size - position)));
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        break;
+      }
+    }
+    buffer.flip();
+  }
+
+  /** Two 32-bit checksums combined, so a changed block is not missed by a collision. */
+  private static long checksum(ByteBuffer buffer) {
+    CRC32C crc32c = new CRC32C();
+    crc32c.update(buffer);
+    buffer.rewind();
+    CRC32 crc32 = new CRC32();
+    crc32.update(buffer);
+    buffer.rewind();
+    return crc32c.getValue() << 32 | crc32.getValue();
+  }
+
+  private record FileState(long size, long modified, long copiedAt, long[] sums) {}
+
+  /**
+   * A file as it was at one moment: its size and its first bytes.
+   *
+   * @param size the size of the file
+   * @param head the first bytes of the file
+   */
+  public record Image(long size, byte[] head) {
+    /**
+     * Takes an image of a file.
+     *
+     * @param file the file
+     * @param length the number of bytes at the start of the file that may still change
+     * @return the image
+     * @throws IOException if the file could not be read
+     */
+    public static Image of(Path file, int length) throws IOException {
+      try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+        long size = in.size();
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(length, size));
+        while (head.hasRemaining()) {
+          if (in.read(head, head.position()) < 0) {
+            break;
+          }
+        }
+        return new Image(size, head.array());
+      }
+    }
+
+    /** Puts the bytes of the image back in a block that was read at the given position. */
+    private void restore(ByteBuffer block, long position) {
+      for (int i = 0; i < block.limit() && position + i < head.length; i++) {
+        block.put(i, head[(int) position + i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.systems.io;
+
+import java.util.Collection;
+import java.util.EventObject;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.engio.mbassy.bus.IMessagePublication;
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.bus.config.IBusConfiguration;
+
+/**
+ * A message bus that hands some classes of events straight to an {@link EventDispatcher}. These
+ * are the events that are published many times every turn, all other events are published by
+ * MBassador as usual. Every listener is subscribed to both, so it does not matter to a listener
+ * which of the two delivers an event.
+ *
+ * <p>Asynchronous publications of direct events are put in the same queue as the others and
+ * executed by the same dispatch threads.
+ *
+ * @author priewe
+ */
+public class DispatchingBus extends MBassador<EventObject> {
+  private final EventDispatcher dispatcher = new EventDispatcher();
+  private final ClassValue<Boolean> direct;
+
+  /**
+   * @param config the configuration of the bus
+   * @param types the classes of events that are dispatched directly, including their subclasses
+   */
+  public DispatchingBus(IBusConfiguration config, Collection<Class<? extends EventObject>> types) {
+    super(config);
+    List<Class<? extends EventObject>> copy = List.copyOf(types);
+    direct =
+        new ClassValue<>() {
+          @Override
+          protected Boolean computeValue(Class<?> type) {
+            return copy.stream().anyMatch(t -> t.isAssignableFrom(type));
+          }
+        };
+  }
+
+  /**
+   * @param type a class of events
+   * @return whether events of the given class are dispatched directly
+   */
+  public boolean isDirect(Class<?> type) {
+    return direct.get(type);
+  }
+
+  @Override
+  public void subscribe(Object listener) {
+    super.subscribe(listener);
+    dispatcher.subscribe(listener);
+  }
+
+  @Override
+  public boolean unsubscribe(Object listener) {
+    boolean subscribed = dispatcher.unsubscribe(listener);
+    return super.unsubscribe(listener) || subscribed;
+  }
+
+  @Override
+  public IMessagePublication publish(EventObject event) {
+    if (isDirect(event.getClass())) {
+      DirectPublication publication = new DirectPublication(event);
+      publication.execute();
+      return publication;
+    }
+    return super.publish(event);
+  }
+
+  @Override
+  public IMessagePublication publishAsync(EventObject event) {
+    if (isDirect(event.getClass())) {
+      return addAsynchronousPublication(new DirectPublication(event));
+    }
+    return super.publishAsync(event);
+  }
+
+  @Override
+  public IMessagePublication publishAsync(EventObject event, long timeout, TimeUnit unit) {
+    if (isDirect(event.getClass())) {
+      return addAsynchronousPublication(new DirectPublication(event), timeout, unit);
+    }
+    return super.publishAsync(event, timeout, unit);
+  }
+
+  /*
+   * A publication that passes its event to the dispatcher. MBassador's own publication state can
+   * not be used outside its package, the state is kept here instead.
+   */
+  private final class DirectPublication extends MessagePublication {
+    private volatile boolean scheduled, running, finished, dead;
+
+    private DirectPublication(EventObject event) {
+      super(getRuntime(), List.of(), event, null);
+    }
+
+    @Override
+    public void execute() {
+      running = true;
+      dead = dispatcher.publish(getMessage()) == 0;
+      finished = true;
+    }
+
+    @Override
+    public MessagePublication markScheduled() {
+      scheduled = true;
+      return this;
+    }
+
+    @Override
+    public boolean isFinished() {
+      return finished;
+    }
+
+    @Override
+    public boolean isRunning() {
+      return running && !finished;
+    }
+
+    @Override
+    public boolean isScheduled() {
+      return scheduled && !running;
+    }
+
+    @Override
+    public boolean isDeadMessage() {
+      return dead;
+    }
+
+    @Override
+    public boolean isFilteredMessage() {
+      return false;
+    }
+  }
+}
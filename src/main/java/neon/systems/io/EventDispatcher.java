@@ -0,0 +1,211 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.systems.io;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Listener;
+import net.engio.mbassy.listener.References;
+
+/**
+ * Delivers events to the {@code @Handler} methods of its listeners. Listeners are found the same
+ * way as by MBassador: every enabled method with a single parameter that is annotated with {@link
+ * Handler} somewhere in the class hierarchy receives events of the parameter type and its subtypes,
+ * listeners are held strongly or weakly as their {@link Listener} annotation says.
+ *
+ * <p>The handlers of a listener class are looked up once, and the handlers for an event class are
+ * put in an array the first time an event of that class is published. Publishing an event then only
+ * walks that array. Subscribing or unsubscribing a listener throws all arrays away. Subscribing and
+ * unsubscribing are done one at a time, publishing takes no lock.
+ *
+ * @author priewe
+ */
+@Slf4j
+public class EventDispatcher {
+  private static final MethodType HANDLER_TYPE =
+      MethodType.methodType(void.class, Object.class, Object.class);
+  private static final ClassValue<Handlers> handlers =
+      new ClassValue<>() {
+        @Override
+        protected Handlers computeValue(Class<?> type) {
+          return findHandlers(type);
+        }
+      };
+
+  private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+  private volatile ConcurrentHashMap<Class<?>, Target[]> targets = new ConcurrentHashMap<>();
+
+  /**
+   * Subscribes a listener. Subscribing a listener that was already subscribed does nothing.
+   *
+   * @param listener the listener
+   */
+  public synchronized void subscribe(Object listener) {
+    Handlers methods = handlers.get(listener.getClass());
+    if (methods.handles().length > 0 && find(listener) == null) {
+      subscriptions.add(new Subscription(listener, methods));
+      targets = new ConcurrentHashMap<>();
+    }
+  }
+
+  /**
+   * @param listener the listener
+   * @return whether the listener was subscribed
+   */
+  public synchronized boolean unsubscribe(Object listener) {
+    Subscription subscription = find(listener);
+    return subscription != null && remove(subscription);
+  }
+
+  /**
+   * Passes an event to all handlers that accept it, in the order their listeners were subscribed.
+   * An exception thrown by a handler is logged and does not stop the other handlers.
+   *
+   * @param event the event
+   * @return the number of handlers that received the event
+   */
+  public int publish(Object event) {
+    int count = 0;
+    for (Target target : targets.computeIfAbsent(event.getClass(), this::collect)) {
+      Object listener = target.subscription.get();
+      if (listener == null) {
+        // a weakly held listener that was garbage collected
+        remove(target.subscription);
+        continue;
+      }
+      try {
+        target.handle.invokeExact(listener, event);
+      } catch (Throwable t) {
+        log.error("{} failed to handle {}", target.method, event, t);
+      }
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * @return the number of subscribed listeners
+   */
+  public int size() {
+    return subscriptions.size();
+  }
+
+  private Subscription find(Object listener) {
+    for (Subscription subscription : subscriptions) {
+      if (subscription.get() == listener) {
+        return subscription;
+      }
+    }
+    return null;
+  }
+
+  private synchronized boolean remove(Subscription subscription) {
+    if (subscriptions.remove(subscription)) {
+      targets = new ConcurrentHashMap<>();
+      return true;
+    }
+    return false;
+  }
+
+  private Target[] collect(Class<?> type) {
+    List<Target> list = new ArrayList<>();
+    for (Subscription subscription : subscriptions) {
+      Handlers methods = subscription.handlers;
+      for (int i = 0; i < methods.handles().length; i++) {
+        Method method = methods.methods()[i];
+        if (method.getParameterTypes()[0].isAssignableFrom(type)) {
+          list.add(new Target(subscription, method, methods.handles()[i]));
+        }
+      }
+    }
+    return list.toArray(new Target[0]);
+  }
+
+  /*
+   * Collects the handlers of a class. A method that overrides a handler is called instead of it,
+   * even if the overriding method is not annotated itself.
+   */
+  private static Handlers findHandlers(Class<?> type) {
+    List<Method> methods = new ArrayList<>();
+    HashSet<String> signatures = new HashSet<>();
+    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+      for (Method method : c.getDeclaredMethods()) {
+        Handler handler = method.getAnnotation(Handler.class);
+        if (handler != null
+            && handler.enabled()
+            && method.getParameterCount() == 1
+            && !Modifier.isStatic(method.getModifiers())
+            && signatures.add(method.getName() + method.getParameterTypes()[0].getName())) {
+          methods.add(method);
+        }
+      }
+    }
+    MethodHandle[] handles = new MethodHandle[methods.size()];
+    for (int i = 0; i < handles.length; i++) {
+      handles[i] = unreflect(methods.get(i));
+    }
+    return new Handlers(methods.toArray(new Method[0]), handles);
+  }
+
+  private static MethodHandle unreflect(Method method) {
+    try {
+      method.setAccessible(true);
+      return MethodHandles.lookup().unreflect(method).asType(HANDLER_TYPE);
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("handler " + method + " can not be accessed", e);
+    }
+  }
+
+  private static final class Subscription {
+    private final Object strong;
+    private final WeakReference<Object> weak;
+    private final Handlers handlers;
+
+    private Subscription(Object listener, Handlers handlers) {
+      Listener config = listener.getClass().getAnnotation(Listener.class);
+      if (config != null && config.references() == References.Strong) {
+        strong = listener;
+        weak = null;
+      } else {
+        strong = null;
+        weak = new WeakReference<>(listener);
+      }
+      this.handlers = handlers;
+    }
+
+    private Object get() {
+      return weak == null ? strong : weak.get();
+    }
+  }
+
+  private record Handlers(Method[] methods, MethodHandle[] handles) {}
+
+  private record Target(Subscription subscription, Method method, MethodHandle handle) {}
+}
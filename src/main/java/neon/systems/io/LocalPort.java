@@ -18,10 +18,10 @@
 
 package neon.systems.io;
 
-import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.EventObject;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import net.engio.mbassy.bus.config.BusConfiguration;
 import net.engio.mbassy.bus.config.IBusConfiguration;
@@ -37,13 +37,22 @@ import net.engio.mbassy.listener.References;
 @Listener(references = References.Strong) // strong, to avoid gc
 @Slf4j
 public class LocalPort extends Port {
-  private final Collection<EventObject> buffer =
-      Collections.synchronizedCollection(new ArrayDeque<EventObject>());
+  // events are only ever sent back as the same object, so identity is enough to recognise them;
+  // a list, because the same event can be written more than once before it comes back
+  private final List<EventObject> buffer = new ArrayList<>();
   private LocalPort peer;
   private final String name;
 
   public LocalPort(String name) {
-    super(new BusConfiguration().setProperty(IBusConfiguration.Properties.BusId, name));
+    this(name, List.of());
+  }
+
+  /**
+   * @param name the name of this port
+   * @param direct the classes of events that skip MBassador, see {@link DispatchingBus}
+   */
+  public LocalPort(String name, Collection<Class<? extends EventObject>> direct) {
+    super(new BusConfiguration().setProperty(IBusConfiguration.Properties.BusId, name), direct);
     this.name = name;
     bus.subscribe(this);
   }
@@ -62,13 +71,27 @@ public class LocalPort extends Port {
   public void receive(EventObject event) {
     log.trace("{} received {}", this.name, event);
     // ensure that already processed events are not sent back again
-    if (!buffer.remove(event)) {
+    if (!take(event)) {
       peer.write(event);
     }
   }
 
+  private boolean take(EventObject event) {
+    synchronized (buffer) {
+      for (int i = 0; i < buffer.size(); i++) {
+        if (buffer.get(i) == event) {
+          buffer.remove(i);
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
   private void write(EventObject event) {
-    buffer.add(event);
+    synchronized (buffer) {
+      buffer.add(event);
+    }
     // no async, otherwise save and quit won't work anymore
     bus.publish(event);
   }
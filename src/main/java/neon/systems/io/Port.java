@@ -18,7 +18,9 @@
 
 package neon.systems.io;
 
+import java.util.Collection;
 import java.util.EventObject;
+import java.util.List;
 import net.engio.mbassy.bus.MBassador;
 import net.engio.mbassy.bus.config.Feature;
 import net.engio.mbassy.bus.config.IBusConfiguration;
@@ -31,18 +33,26 @@ import net.engio.mbassy.listener.Handler;
  * @author mdriesen
  */
 public abstract class Port {
-  protected MBassador<EventObject> bus = new MBassador<EventObject>();
+  protected MBassador<EventObject> bus;
 
   public Port() {
     bus = new MBassador<>();
   }
 
   public Port(IBusConfiguration config) {
+    this(config, List.of());
+  }
+
+  /**
+   * @param config the configuration of the bus
+   * @param direct the classes of events that skip MBassador, see {@link DispatchingBus}
+   */
+  public Port(IBusConfiguration config, Collection<Class<? extends EventObject>> direct) {
     config
         .addFeature(Feature.SyncPubSub.Default())
         .addFeature(Feature.AsynchronousHandlerInvocation.Default())
         .addFeature(Feature.AsynchronousMessageDispatch.Default());
-    bus = new MBassador<>(config);
+    bus = new DispatchingBus(config, direct);
   }
 
   @Handler
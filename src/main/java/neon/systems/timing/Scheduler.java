@@ -0,0 +1,179 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.systems.timing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Keeps track of when creatures act next. Time is measured in {@link #TURN} units per turn, so a
+ * creature that is faster than the player acts more than once per turn. Only creatures that are
+ * awake are scheduled; a sleeping creature costs nothing until it is woken up.
+ *
+ * <p>Creatures that are due come out in order of time, and in order of uid when their time is the
+ * same. Every creature that was polled must be rescheduled or put to sleep.
+ *
+ * @author priewe
+ */
+public class Scheduler {
+  public static final int TURN = 1000;
+
+  private final HashMap<Long, Long> awake = new HashMap<>(); // the next time of every creature
+  // a heap of times and uids, entries that don't match awake are outdated and skipped
+  private long[] times = new long[64];
+  private long[] uids = new long[64];
+  private int size;
+
+  /**
+   * Wakes up a creature, unless it is awake already.
+   *
+   * @param uid the uid of the creature
+   * @param time the time at which the creature acts first
+   * @return whether the creature was asleep
+   */
+  public synchronized boolean wake(long uid, long time) {
+    if (awake.containsKey(uid)) {
+      return false;
+    }
+    awake.put(uid, time);
+    push(time, uid);
+    return true;
+  }
+
+  /**
+   * Schedules the next action of a creature that was polled.
+   *
+   * @param uid the uid of the creature
+   * @param delay the time until the next action
+   */
+  public synchronized void reschedule(long uid, long delay) {
+    Long time = awake.get(uid);
+    if (time != null) {
+      awake.put(uid, time + delay);
+      push(time + delay, uid);
+    }
+  }
+
+  /**
+   * Puts a creature to sleep.
+   *
+   * @param uid the uid of the creature
+   */
+  public synchronized void sleep(long uid) {
+    awake.remove(uid);
+  }
+
+  /**
+   * @return whether the creature with the given uid is awake
+   */
+  public synchronized boolean isAwake(long uid) {
+    return awake.containsKey(uid);
+  }
+
+  /**
+   * @return the uids of all creatures that are awake
+   */
+  public synchronized List<Long> getAwake() {
+    return new ArrayList<>(awake.keySet());
+  }
+
+  /**
+   * @return the number of creatures that are awake
+   */
+  public synchronized int size() {
+    return awake.size();
+  }
+
+  /**
+   * Returns all creatures that are due before the given time.
+   *
+   * @param until the end of the period, exclusive
+   * @return the uids of the creatures that are due, in the order they should act
+   */
+  public synchronized long[] poll(long until) {
+    long[] due = new long[8];
+    int count = 0;
+    while (size > 0 && times[0] < until) {
+      long time = times[0];
+      long uid = uids[0];
+      pop();
+      Long next = awake.get(uid);
+      if (next != null && next == time) {
+        if (count == due.length) {
+          due = Arrays.copyOf(due, count * 2);
+        }
+        due[count++] = uid;
+      }
+    }
+    return Arrays.copyOf(due, count);
+  }
+
+  /** Puts all creatures to sleep. */
+  public synchronized void clear() {
+    awake.clear();
+    size = 0;
+  }
+
+  private void push(long time, long uid) {
+    if (size == times.length) {
+      times = Arrays.copyOf(times, size * 2);
+      uids = Arrays.copyOf(uids, size * 2);
+    }
+    int i = size++;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (!before(time, uid, times[parent], uids[parent])) {
+        break;
+      }
+      times[i] = times[parent];
+      uids[i] = uids[parent];
+      i = parent;
+    }
+    times[i] = time;
+    uids[i] = uid;
+  }
+
+  private void pop() {
+    long time = times[--size];
+    long uid = uids[size];
+    int i = 0;
+    int half = size >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      if (child + 1 < size
+          && before(times[child + 1], uids[child + 1], times[child], uids[child])) {
+        child++;
+      }
+      if (!before(times[child], uids[child], time, uid)) {
+        break;
+      }
+      times[i] = times[child];
+      uids[i] = uids[child];
+      i = child;
+    }
+    times[i] = time;
+    uids[i] = uid;
+  }
+
+  private static boolean before(long time, long uid, long otherTime, long otherUid) {
+    return time < otherTime || (time == otherTime && uid < otherUid);
+  }
+}
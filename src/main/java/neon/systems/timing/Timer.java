@@ -18,17 +18,28 @@
 
 package neon.systems.timing;
 
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import neon.util.Dice;
+
 /**
- * This class keeps track of the time.
+ * This class keeps track of the time. It also holds the seed of a game, which is saved with the
+ * time, so that a game that is loaded again plays out the same way.
  *
  * @author mdriesen
  */
 public class Timer {
   private int ticks;
+  private long seed;
+  private final Scheduler scheduler = new Scheduler();
+  private static final long DICE = 0x6A09E667F3BCC909L; // so the dice differ from getRandom()
+  private final HashMap<Long, Dice> dice = new HashMap<>(); // of the entities, in diceTurn
+  private int diceTurn = -1;
 
-  /** Initializes a new timer on 0. */
+  /** Initializes a new timer on 0, with a new seed. */
   public Timer() {
     ticks = 0;
+    seed = new SplittableRandom().nextLong();
   }
 
   /** Increases the timer with one tick. */
@@ -42,9 +53,7 @@ public class Timer {
    * @param amount the amount of ticks to add.
    */
   public int addTicks(int amount) {
-    for (int i = 0; i < amount; i++) {
-      addTick();
-    }
+    ticks += amount;
     return ticks;
   }
 
@@ -62,5 +71,57 @@ public class Timer {
    */
   public void setTime(int time) {
     ticks = time;
+    scheduler.clear();
+  }
+
+  /**
+   * @return the seed of the game
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Sets the seed of the game.
+   *
+   * @param seed the seed
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Gives the random numbers of an entity in a turn. They only depend on the seed of the game, the
+   * turn and the entity, so a game that is played again from a save makes the same choices.
+   *
+   * @param turn the turn
+   * @param uid the uid of the entity
+   * @return a new source of random numbers
+   */
+  public SplittableRandom getRandom(int turn, long uid) {
+    return new SplittableRandom(seed ^ turn * 0x9E3779B97F4A7C15L ^ uid);
+  }
+
+  /**
+   * Gives the dice an entity rolls with in the current turn, for combat, skill checks and the
+   * like. Like {@link #getRandom(int, long)} they only depend on the seed, the turn and the entity,
+   * but they are kept for the whole turn, so two rolls in the same turn don't give the same result.
+   *
+   * @param uid the uid of the entity that rolls
+   * @return the dice of the entity
+   */
+  public synchronized Dice getDice(long uid) {
+    if (diceTurn != ticks) {
+      dice.clear();
+      diceTurn = ticks;
+    }
+    return dice.computeIfAbsent(uid, key -> Dice.withSeed(getRandom(ticks, key ^ DICE).nextLong()));
+  }
+
+  /**
+   * @return the scheduler that keeps track of when creatures act
+   */
+  public Scheduler getScheduler() {
+    return scheduler;
   }
 }
@@ -0,0 +1,245 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.systems.timing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Keeps things that are due at a certain tick. The wheel has four levels of 64 slots: the first
+ * level holds the next 64 ticks, every next level slots that are 64 times as wide. Adding an entry
+ * puts it in the slot for its tick on the lowest level that can hold it, when time reaches a slot
+ * on a higher level its entries move down. Entries more than 2^24 ticks away wait in a separate
+ * list until time gets closer.
+ *
+ * <p>Time can jump ahead by any number of ticks. Empty slots are skipped with one bit mask per
+ * level, and every entry that became due on the way is handed out in order of its tick, and in
+ * the order it was added when the tick is the same. Entries added for a tick that has passed
+ * already are handed out the next time the wheel advances.
+ *
+ * @author priewe
+ */
+public class TimingWheel<T> {
+  private static final int BITS = 6;
+  private static final int SLOTS = 1 << BITS;
+  private static final int LEVELS = 4;
+  private static final Comparator<Entry<?>> ORDER =
+      Comparator.<Entry<?>>comparingInt(Entry::tick).thenComparingLong(Entry::order);
+
+  private final List<Entry<T>>[][] slots;
+  private final long[] occupied = new long[LEVELS]; // a bit for every slot that is not empty
+  private List<Entry<T>> overflow = new ArrayList<>();
+  private List<Entry<T>> due = new ArrayList<>();
+  private int time;
+  private int size;
+  private long order;
+
+  /**
+   * @param time the current tick
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public TimingWheel(int time) {
+    this.time = time;
+    slots = new List[LEVELS][SLOTS];
+  }
+
+  /**
+   * @return the current tick
+   */
+  public synchronized int getTime() {
+    return time;
+  }
+
+  /**
+   * @return the number of entries on the wheel
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Adds an entry.
+   *
+   * @param tick the tick the entry is due
+   * @param value the entry
+   */
+  public synchronized void add(int tick, T value) {
+    place(new Entry<>(tick, order++, value));
+    size++;
+  }
+
+  /**
+   * Moves time forward and hands out every entry that is due at or before the new time. The
+   * consumer may add new entries, those that are due as well are handed out before this method
+   * returns. When time is set back, no entries are handed out and all entries stay on the wheel.
+   *
+   * @param tick the new current tick
+   * @param consumer receives every entry that is due, with the tick it was due
+   * @return the number of entries that were handed out
+   */
+  public synchronized int advance(int tick, ObjIntConsumer<T> consumer) {
+    if (tick < time) {
+      List<Entry<T>> entries = entries();
+      clear();
+      time = tick;
+      entries.forEach(this::place);
+      size = entries.size();
+      return 0;
+    }
+
+    int count = fire(consumer);
+    while (time < tick) {
+      time = next(tick);
+      cascade();
+      int slot = time & (SLOTS - 1);
+      if ((occupied[0] & 1L << slot) != 0) {
+        due.addAll(take(0, slot));
+      }
+      count += fire(consumer);
+    }
+    return count;
+  }
+
+  /**
+   * Passes all entries to a consumer, in the order they will be handed out.
+   *
+   * @param consumer receives every entry with the tick it is due
+   */
+  public synchronized void forEach(ObjIntConsumer<T> consumer) {
+    for (Entry<T> entry : entries()) {
+      consumer.accept(entry.value(), entry.tick());
+    }
+  }
+
+  /** Removes all entries. */
+  public synchronized void clear() {
+    for (int level = 0; level < LEVELS; level++) {
+      for (int slot = 0; slot < SLOTS; slot++) {
+        slots[level][slot] = null;
+      }
+      occupied[level] = 0;
+    }
+    overflow = new ArrayList<>();
+    due = new ArrayList<>();
+    size = 0;
+  }
+
+  private List<Entry<T>> entries() {
+    List<Entry<T>> entries = new ArrayList<>(size);
+    for (List<Entry<T>>[] level : slots) {
+      for (List<Entry<T>> slot : level) {
+        if (slot != null) {
+          entries.addAll(slot);
+        }
+      }
+    }
+    entries.addAll(overflow);
+    entries.addAll(due);
+    entries.sort(ORDER);
+    return entries;
+  }
+
+  private void place(Entry<T> entry) {
+    if (entry.tick() <= time) {
+      due.add(entry);
+      return;
+    }
+    // the lowest level on which the tick lies in the same window as the current time
+    for (int level = 0; level < LEVELS; level++) {
+      int shift = BITS * (level + 1);
+      if (entry.tick() >>> shift == time >>> shift) {
+        int slot = (entry.tick() >>> (BITS * level)) & (SLOTS - 1);
+        if (slots[level][slot] == null) {
+          slots[level][slot] = new ArrayList<>();
+        }
+        slots[level][slot].add(entry);
+        occupied[level] |= 1L << slot;
+        return;
+      }
+    }
+    overflow.add(entry);
+  }
+
+  private List<Entry<T>> take(int level, int slot) {
+    List<Entry<T>> entries = slots[level][slot];
+    slots[level][slot] = null;
+    occupied[level] &= ~(1L << slot);
+    return entries;
+  }
+
+  /*
+   * Returns the first tick after the current one at which something happens: an entry on the first
+   * level is due or the entries in a slot on a higher level move down.
+   */
+  private int next(int limit) {
+    int next = limit;
+    for (int level = 0; level < LEVELS; level++) {
+      int shift = BITS * level;
+      int current = (time >>> shift) & (SLOTS - 1);
+      long later = current == SLOTS - 1 ? 0 : occupied[level] & (-1L << (current + 1));
+      if (later != 0) {
+        int window = time >>> (shift + BITS) << (shift + BITS);
+        next = Math.min(next, window + (Long.numberOfTrailingZeros(later) << shift));
+      }
+    }
+    if (!overflow.isEmpty()) {
+      int span = BITS * LEVELS;
+      long window = ((long) (time >>> span) + 1) << span;
+      next = (int) Math.min(next, window);
+    }
+    return next;
+  }
+
+  /* Moves the entries of the slots on the higher levels that start at the current tick down. */
+  private void cascade() {
+    if ((time & ((1 << BITS * LEVELS) - 1)) == 0 && !overflow.isEmpty()) {
+      List<Entry<T>> entries = overflow;
+      overflow = new ArrayList<>();
+      entries.forEach(this::place);
+    }
+    for (int level = LEVELS - 1; level > 0; level--) {
+      int shift = BITS * level;
+      if ((time & ((1 << shift) - 1)) == 0) {
+        int slot = (time >>> shift) & (SLOTS - 1);
+        if ((occupied[level] & 1L << slot) != 0) {
+          take(level, slot).forEach(this::place);
+        }
+      }
+    }
+  }
+
+  private int fire(ObjIntConsumer<T> consumer) {
+    int count = 0;
+    while (!due.isEmpty()) {
+      List<Entry<T>> entries = due;
+      due = new ArrayList<>();
+      entries.sort(ORDER);
+      size -= entries.size();
+      for (Entry<T> entry : entries) {
+        consumer.accept(entry.value(), entry.tick());
+      }
+      count += entries.size();
+    }
+    return count;
+  }
+
+  private record Entry<T>(int tick, long order, T value) {}
+}
@@ -19,11 +19,9 @@
 package neon.ui;
 
 import java.awt.*;
-import java.awt.geom.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.BufferedImageOp;
-import java.awt.image.ColorModel;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.text.DefaultCaret;
@@ -56,6 +54,11 @@ public class GamePanel extends JComponent {
   private final TitledBorder aBorder;
   private final TitledBorder cBorder;
   private final JVectorPane drawing;
+  private final TerrainRenderer terrain = new TerrainRenderer();
+  private final LightOverlay light = new LightOverlay();
+  private final ZoneView entities; // the creatures and items in the drawing
+  private Zone shown; // the zone that was drawn the last time
+  private int regionChanges; // the region changes in that zone that were drawn
   @Getter private final GameContext context;
 
   // components of the stats panel
@@ -76,7 +79,7 @@ public class GamePanel extends JComponent {
     this.context = context;
     combatUtils = new CombatUtils(context);
     drawing = new JVectorPane();
-    drawing.setFilter(new LightFilter());
+    entities = new ZoneView(drawing, context.getStore());
 
     // stats field (hacky way to make it semi-transparent)
     stats =
@@ -174,14 +177,43 @@ public class GamePanel extends JComponent {
       ShapeComponent bounds = context.getPlayer().getShapeComponent();
       drawing.updateCamera(bounds.getLocation());
     }
-    Collection<Renderable> renderables =
-        context.getAtlas().getCurrentZone().getRenderables(getVisibleRectangle());
-    renderables.add(context.getPlayer().getRenderComponent());
+    // the regions are drawn by the terrain renderer, from chunks that are only drawn once
+    Zone zone = context.getAtlas().getCurrentZone();
+    terrain.setZone(zone);
+    markChanges(zone);
+    Rectangle view = getVisibleRectangle();
+    light.update(zone, view);
+    // the creatures and items only change where the zone says they did
+    List<Renderable> others = new ArrayList<>(4);
+    others.add(terrain);
+    others.add(context.getPlayer().getRenderComponent());
     if (cursor != null) {
-      renderables.add(cursor);
+      others.add(cursor);
     }
-    drawing.setRenderables(renderables);
-    super.repaint();
+    others.add(light);
+    entities.update(zone, view, others);
+
+    // only the part of the screen that changed is painted again
+    Rectangle area = SwingUtilities.convertRectangle(drawing, drawing.getChangedArea(), this);
+    if (!area.isEmpty()) {
+      super.repaint(area.x, area.y, area.width, area.height);
+    }
+  }
+
+  /*
+   * Marks the areas where regions were added or removed since the zone was last drawn, or
+   * everything when another zone is shown.
+   */
+  private void markChanges(Zone zone) {
+    int changes = zone.getRegionChanges();
+    List<Rectangle> areas = zone == shown ? zone.getChangedAreas(regionChanges) : null;
+    if (areas == null) {
+      drawing.markDirty();
+    } else {
+      areas.forEach(drawing::markDirty);
+    }
+    shown = zone;
+    regionChanges = changes;
   }
 
   private void layout(boolean over) {
@@ -337,6 +369,7 @@ public class GamePanel extends JComponent {
       stats.setVisible(!stats.isVisible());
       scroller.setVisible(!scroller.isVisible());
     }
+    drawing.markDirty();
     repaint();
   }
 
@@ -344,73 +377,133 @@ public class GamePanel extends JComponent {
     return drawing.getVisibleRectangle();
   }
 
-  private class LightFilter implements BufferedImageOp {
-    private BufferedImage image; // omdat dest altijd null is
+  /*
+   * Darkens the positions that are not lit, on top of everything else. The light of the player is
+   * worked out before every repaint, the light of the lights in the zone comes from its light map.
+   * The overlay is drawn as one image with a pixel for every position in view, scaled to the zoom
+   * level. The positions that became lighter or darker are marked dirty.
+   */
+  private class LightOverlay implements Renderable {
+    private static final int PLAYER_LIGHT = 9; // radius of the light around the player
+    private static final int TINT = 64; // how strongly a colored light tints what it lights
 
-    public BufferedImage createCompatibleDestImage(BufferedImage src, ColorModel destCM) {
-      return new BufferedImage(src.getWidth(), src.getHeight(), src.getType());
-    }
+    private volatile Lighting lighting;
+    private Rectangle bounds = new Rectangle();
+    private int z = Short.MAX_VALUE;
 
-    public BufferedImage filter(BufferedImage src, BufferedImage dest) {
-      Rectangle view = drawing.getVisibleRectangle();
+    private void update(Zone zone, Rectangle view) {
       Player player = context.getPlayer();
-      float zoom = drawing.getZoom();
-      Area area = new Area(new Rectangle(src.getWidth(), src.getHeight()));
+      FieldOfView fov = zone.getFieldOfView();
+      // the whole zone, the overlay does not move with the view
+      bounds = new Rectangle(zone.getWidth(), zone.getHeight());
 
-      // TODO: player staat niet gecentreerd op outdoor map
-      // 8 en 17: cirkel met diameter 16, gecentreerd op player
-      ShapeComponent bounds = player.getShapeComponent();
-      area.subtract(
-          new Area(
-              new Ellipse2D.Float(
-                  (bounds.x - 8) * zoom - view.x * zoom,
-                  (bounds.y - 8) * zoom - view.y * zoom,
-                  (int) (17 * zoom),
-                  (int) (17 * zoom))));
-      for (Point p : context.getAtlas().getCurrentZone().getLightMap().keySet()) {
-        // 4 en 9: cirkel met diameter 8, gecentreerd op licht
-        area.subtract(
-            new Area(
-                new Ellipse2D.Float(
-                    (p.x - 4) * zoom - view.x * zoom,
-                    (p.y - 4) * zoom - view.y * zoom,
-                    9 * zoom,
-                    9 * zoom)));
+      int darkness;
+      if (context.getAtlas().getCurrentMap() instanceof World) {
+        int hour = (context.getTimer().getTime() / (60) + 12) % 24;
+        darkness = (hour - 12) * (hour - 12) * 3 / 2;
+      } else {
+        darkness = 200;
       }
 
-      if (image == null
-          || image.getWidth() != src.getWidth()
-          || image.getHeight() != src.getHeight()) {
-        image = getGraphicsConfiguration().createCompatibleImage(src.getWidth(), src.getHeight());
+      // TODO: player staat niet gecentreerd op outdoor map
+      // the player lights everything it sees, walls and closed doors cast shadows
+      ShapeComponent position = player.getShapeComponent();
+      FieldOfView.View sight = fov.getView(position.x, position.y, PLAYER_LIGHT);
+      int[] light = new int[view.width * view.height];
+      int[] colors = new int[view.width * view.height];
+      zone.getLights().read(view, light, colors);
+      int[] pixels = new int[view.width * view.height];
+      for (int i = 0; i < pixels.length; i++) {
+        int x = view.x + i % view.width;
+        int y = view.y + i / view.width;
+        pixels[i] = sight.contains(x, y) ? 0 : shade(darkness, light[i], colors[i]);
       }
+      BufferedImage image =
+          new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_ARGB);
+      image.setRGB(0, 0, view.width, view.height, pixels, 0, view.width);
+
+      Lighting previous = lighting;
+      lighting = new Lighting(new Rectangle(view), pixels, image, darkness);
+      if (previous == null || previous.darkness() != darkness) {
+        drawing.markDirty();
+        return;
+      }
+      // every run of positions in a row that became lighter or darker, or was out of view before
+      for (int y = view.y; y < view.y + view.height; y++) {
+        int x = view.x;
+        while (x < view.x + view.width) {
+          int start = x;
+          while (x < view.x + view.width && previous.isChanged(lighting, x, y)) {
+            x++;
+          }
+          if (x > start) {
+            drawing.markDirty(new Rectangle(start, y, x - start, 1));
+          } else {
+            x++;
+          }
+        }
+      }
+    }
 
-      Graphics2D g = (Graphics2D) image.getGraphics();
-      g.clearRect(0, 0, src.getWidth(), src.getHeight());
-      g.drawImage(src, src.getMinX(), src.getMinY(), null);
+    /*
+     * The color that is drawn over a position: the darkness that the light on it leaves, and a
+     * tint in the color of the light. White light only takes darkness away.
+     */
+    private static int shade(int darkness, int light, int rgb) {
+      int red = rgb >> 16 & 0xFF;
+      int green = rgb >> 8 & 0xFF;
+      int blue = rgb & 0xFF;
+      int saturation = Math.max(red, Math.max(green, blue)) - Math.min(red, Math.min(green, blue));
+      int dark = darkness * (LightMap.FULL - light) / LightMap.FULL;
+      int tint = TINT * light / LightMap.FULL * darkness / 255 * saturation / 255;
+      int alpha = dark + tint;
+      if (alpha == 0) {
+        return 0;
+      }
+      return alpha << 24
+          | red * tint / alpha << 16
+          | green * tint / alpha << 8
+          | blue * tint / alpha;
+    }
 
-      if (context.getAtlas().getCurrentMap() instanceof World) {
-        int hour = (context.getTimer().getTime() / (60) + 12) % 24;
-        g.setColor(new Color(0, 0, 0, (hour - 12) * (hour - 12) * 3 / 2));
-        g.fill(area);
-      } else {
-        // TODO: differently colored lights
-        g.setColor(new Color(0, 0, 0, 200));
-        g.fill(area);
+    @Override
+    public void paint(Graphics2D g, float zoom, boolean isSelected) {
+      Lighting lighting = this.lighting;
+      if (lighting == null) {
+        return;
       }
-      return image;
+      Rectangle view = lighting.view();
+      int left = Math.round(view.x * zoom);
+      int top = Math.round(view.y * zoom);
+      int right = Math.round((view.x + view.width) * zoom);
+      int bottom = Math.round((view.y + view.height) * zoom);
+      g.drawImage(lighting.image(), left, top, right - left, bottom - top, null);
     }
 
-    public Rectangle2D getBounds2D(BufferedImage src) {
-      return src.getGraphics().getClip().getBounds();
+    @Override
+    public int getZ() {
+      return z;
     }
 
-    public Point2D getPoint2D(Point2D srcPt, Point2D destPt) {
-      destPt = srcPt;
-      return destPt;
+    @Override
+    public void setZ(int z) {
+      this.z = z;
     }
 
-    public RenderingHints getRenderingHints() {
-      return null;
+    @Override
+    public Rectangle getBounds() {
+      return bounds;
+    }
+  }
+
+  /*
+   * What is drawn over every position in view, and how dark it is where there is no light.
+   */
+  private record Lighting(Rectangle view, int[] pixels, BufferedImage image, int darkness) {
+    private boolean isChanged(Lighting now, int x, int y) {
+      return !view.contains(x, y)
+          || pixels[(y - view.y) * view.width + x - view.x]
+              != now.pixels[(y - now.view.y) * now.view.width + x - now.view.x];
     }
   }
 }
@@ -0,0 +1,213 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.ui;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import neon.maps.Region;
+import neon.maps.Zone;
+import neon.ui.graphics.Renderable;
+import neon.ui.graphics.ZComparator;
+import neon.util.GlyphAtlas;
+
+/**
+ * Draws the regions of a zone. The terrain is drawn in square chunks of {@link #CHUNK} by {@link
+ * #CHUNK} positions, every chunk is kept as an image until a region in it is added or removed or
+ * the zoom level changes. Redrawing the terrain then only takes a few image copies, whatever the
+ * number of regions. Like the {@link neon.util.TextureFactory}, the chunks that were used least
+ * recently are dropped when they take more than {@link #BUDGET} pixels, but the chunks that were
+ * drawn last time are always kept.
+ *
+ * <p>The renderer is a single {@link Renderable} below everything else, creatures and items are
+ * drawn on top of it as usual.
+ *
+ * @author priewe
+ */
+public class TerrainRenderer implements Renderable {
+  /** The width and height of a chunk, in positions. */
+  public static final int CHUNK = 16;
+
+  /** The number of pixels of chunks that are kept. */
+  public static final long BUDGET = 8 << 20;
+
+  private static final ZComparator comparator = new ZComparator();
+
+  private final LinkedHashMap<ChunkKey, BufferedImage> chunks =
+      new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ChunkKey, BufferedImage> eldest) {
+          // all chunks are as large at the same zoom level
+          return size() > visible && size() * getChunkPixels() > BUDGET;
+        }
+      };
+  private final HashMap<Long, Integer> changes = new HashMap<>(); // region changes seen per zone
+  private Zone zone;
+  private int size; // the size of a position in pixels
+  private int z = Short.MIN_VALUE;
+  private long rendered;
+  private int visible; // the number of chunks drawn last time
+
+  /**
+   * @param zone the zone to draw
+   */
+  public void setZone(Zone zone) {
+    this.zone = zone;
+  }
+
+  /**
+   * @return the number of pixels of one chunk at the current zoom level
+   */
+  public long getChunkPixels() {
+    return (long) CHUNK * size * CHUNK * size;
+  }
+
+  /**
+   * @return the number of chunks that are kept now
+   */
+  public int getChunkCount() {
+    return chunks.size();
+  }
+
+  /**
+   * @return the number of chunks that were drawn since this renderer was made
+   */
+  public long getRenderedChunks() {
+    return rendered;
+  }
+
+  @Override
+  public void paint(Graphics2D graphics, float zoom, boolean isSelected) {
+    if (zone == null) {
+      return;
+    }
+    if ((int) zoom != size) {
+      size = (int) zoom;
+      chunks.clear();
+    }
+    update(zone);
+
+    Rectangle clip = graphics.getClipBounds();
+    if (clip == null) {
+      clip = new Rectangle(0, 0, zone.getWidth() * size, zone.getHeight() * size);
+    }
+    int span = CHUNK * size;
+    long key = getKey(zone);
+    int minX = Math.floorDiv(clip.x, span);
+    int maxX = Math.floorDiv(clip.x + clip.width - 1, span);
+    int minY = Math.floorDiv(clip.y, span);
+    int maxY = Math.floorDiv(clip.y + clip.height - 1, span);
+    visible = (maxX - minX + 1) * (maxY - minY + 1);
+    for (int cx = minX; cx <= maxX; cx++) {
+      for (int cy = minY; cy <= maxY; cy++) {
+        BufferedImage chunk = chunks.computeIfAbsent(new ChunkKey(key, cx, cy), this::render);
+        graphics.drawImage(chunk, cx * span, cy * span, null);
+      }
+    }
+  }
+
+  /*
+   * Forgets the chunks in which regions were added or removed since the zone was last drawn.
+   */
+  private void update(Zone zone) {
+    long key = getKey(zone);
+    int current = zone.getRegionChanges();
+    Integer seen = changes.put(key, current);
+    if (seen == null || seen == current) {
+      return;
+    }
+    List<Rectangle> areas = zone.getChangedAreas(seen);
+    if (areas == null) {
+      chunks.keySet().removeIf(chunk -> chunk.zone() == key);
+      return;
+    }
+    for (Rectangle area : areas) {
+      // the chunks the area overlaps, in chunk coordinates
+      int minX = Math.floorDiv(area.x, CHUNK);
+      int minY = Math.floorDiv(area.y, CHUNK);
+      Rectangle cover =
+          new Rectangle(
+              minX,
+              minY,
+              Math.floorDiv(area.x + area.width - 1, CHUNK) - minX + 1,
+              Math.floorDiv(area.y + area.height - 1, CHUNK) - minY + 1);
+      chunks.keySet().removeIf(c -> c.zone() == key && cover.contains(c.x(), c.y()));
+    }
+  }
+
+  /*
+   * Draws a chunk. Only the top region on every position is drawn, with one glyph from the atlas.
+   */
+  private BufferedImage render(ChunkKey key) {
+    rendered++;
+    GlyphAtlas atlas = GlyphAtlas.getAtlas(size);
+    Rectangle area = new Rectangle(key.x() * CHUNK, key.y() * CHUNK, CHUNK, CHUNK);
+    List<Region> regions = new ArrayList<>(zone.getRegions(area));
+    regions.sort(comparator);
+    int[] glyphs = new int[CHUNK * CHUNK];
+    Arrays.fill(glyphs, -1);
+    for (Region region : regions) {
+      int glyph = atlas.getGlyph(region.getText(), region.getColor(), Font.PLAIN);
+      Rectangle part = area.intersection(region.getBounds());
+      for (int y = part.y; y < part.y + part.height; y++) {
+        int row = (y - area.y) * CHUNK - area.x;
+        Arrays.fill(glyphs, row + part.x, row + part.x + part.width, glyph);
+      }
+    }
+
+    int side = CHUNK * size;
+    BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    for (int i = 0; i < glyphs.length; i++) {
+      if (glyphs[i] >= 0) {
+        atlas.draw(g, glyphs[i], i % CHUNK * size, i / CHUNK * size);
+      }
+    }
+    g.dispose();
+    return image;
+  }
+
+  private static long getKey(Zone zone) {
+    return (long) zone.getMap() << 32 | zone.getIndex();
+  }
+
+  @Override
+  public int getZ() {
+    return z;
+  }
+
+  @Override
+  public void setZ(int z) {
+    this.z = z;
+  }
+
+  @Override
+  public Rectangle getBounds() {
+    return zone == null ? new Rectangle() : new Rectangle(zone.getWidth(), zone.getHeight());
+  }
+
+  private record ChunkKey(long zone, int x, int y) {}
+}
@@ -0,0 +1,154 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.ui;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import neon.entities.Creature;
+import neon.entities.Entity;
+import neon.entities.UIDStore;
+import neon.maps.Zone;
+import neon.ui.graphics.JVectorPane;
+import neon.ui.graphics.Renderable;
+import neon.util.LongHashMap;
+
+/**
+ * Keeps the creatures and items around the view of a zone in a {@link JVectorPane}. They are
+ * looked up in the zone when another zone is shown, or when the view leaves the area that was
+ * looked up the last time. In between, only the creatures and items that the zone reports as
+ * added, removed, moved or changed are brought up to date in the pane, the others are left alone.
+ *
+ * <p>Creatures can look different after they die or a spell starts or ends, without the zone
+ * knowing about it. The few creatures around the view are checked every update for that.
+ *
+ * @author priewe
+ */
+public class ZoneView {
+  /** The number of positions around the view that are looked up as well. */
+  public static final int MARGIN = 8;
+
+  private final JVectorPane pane;
+  private final UIDStore store;
+  private final LongHashMap<Renderable> entities = new LongHashMap<>(); // in the pane
+  private final LongHashMap<Renderable> creatures = new LongHashMap<>(); // a part of the entities
+  private final List<Renderable> others = new ArrayList<>(); // in the pane as well
+  private Zone zone;
+  private Rectangle window = new Rectangle(); // the positions that were looked up
+  private int changes; // the entity changes in the zone that were seen
+
+  /**
+   * @param pane the pane to draw in
+   * @param store the store with the creatures and items
+   */
+  public ZoneView(JVectorPane pane, UIDStore store) {
+    this.pane = pane;
+    this.store = store;
+  }
+
+  /**
+   * Brings the pane up to date with a zone.
+   *
+   * @param zone the zone that is shown
+   * @param view the positions in view
+   * @param others the renderables that are drawn along with the creatures and items, like the
+   *     terrain and the player
+   */
+  public synchronized void update(Zone zone, Rectangle view, Collection<Renderable> others) {
+    List<Zone.EntityChange> changed =
+        zone == this.zone && window.contains(view) ? zone.getChangedEntities(changes) : null;
+    if (changed == null) {
+      load(zone, view, others);
+      return;
+    }
+
+    changes += changed.size();
+    for (Zone.EntityChange change : changed) {
+      apply(change);
+    }
+    creatures.forEachValue(pane::updateRenderable);
+    for (Renderable renderable : this.others) {
+      if (!others.contains(renderable)) {
+        pane.removeRenderable(renderable);
+      }
+    }
+    this.others.clear();
+    this.others.addAll(others);
+    this.others.forEach(pane::updateRenderable);
+  }
+
+  /**
+   * @return the number of creatures and items in the pane
+   */
+  public synchronized int size() {
+    return entities.size();
+  }
+
+  /*
+   * Looks up the creatures and items around the view, and replaces everything in the pane with
+   * them and the other renderables.
+   */
+  private void load(Zone zone, Rectangle view, Collection<Renderable> others) {
+    this.zone = zone;
+    changes = zone.getEntityChanges(); // later changes are applied again, that does no harm
+    window = new Rectangle(view);
+    window.grow(MARGIN, MARGIN);
+    entities.clear();
+    creatures.clear();
+    zone.forEachEntity(window, uid -> show(uid, store.readEntity(uid)));
+
+    List<Renderable> renderables = new ArrayList<>(entities.size() + others.size());
+    entities.forEachValue(renderables::add);
+    renderables.addAll(others);
+    pane.setRenderables(renderables);
+    this.others.clear();
+    this.others.addAll(others);
+  }
+
+  /*
+   * Adds, moves or removes a single creature or item.
+   */
+  private void apply(Zone.EntityChange change) {
+    long uid = change.uid();
+    Renderable shown = entities.remove(uid);
+    creatures.remove(uid);
+    Rectangle bounds = change.bounds();
+    Entity entity = bounds != null && bounds.intersects(window) ? store.readEntity(uid) : null;
+    if (entity == null) { // removed, or out of view
+      if (shown != null) {
+        pane.removeRenderable(shown);
+      }
+      return;
+    }
+    Renderable renderable = entity.getRenderComponent();
+    if (shown != null && shown != renderable) {
+      pane.removeRenderable(shown);
+    }
+    show(uid, entity);
+    pane.updateRenderable(renderable);
+  }
+
+  private void show(long uid, Entity entity) {
+    entities.put(uid, entity.getRenderComponent());
+    if (entity instanceof Creature) {
+      creatures.put(uid, entity.getRenderComponent());
+    }
+  }
+}
@@ -28,6 +28,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import javax.swing.JComponent;
 import neon.ui.graphics.event.VectorSelectionEvent;
 import neon.ui.graphics.event.VectorSelectionListener;
@@ -35,11 +36,19 @@ import neon.ui.graphics.event.VectorSelectionListener;
 /**
  * On this <code>JComponent</code>, vector drawings can be made.
  *
+ * <p>Once the pane follows a camera (see {@link #updateCamera(Point)}), the drawing is kept in an
+ * image from one repaint to the next. Only what changed in between is painted again: the areas
+ * that {@link #setRenderables(Collection)}, {@link #updateRenderable(Renderable)} and {@link
+ * #removeRenderable(Renderable)} find, those marked with {@link #markDirty(Rectangle)}, and the
+ * edges that come into view when the camera moves. The part of the pane that has to be repainted
+ * on screen is given by {@link #getChangedArea()}.
+ *
  * @author mdriesen
  */
 @SuppressWarnings("serial")
 public class JVectorPane extends JComponent implements MouseListener {
   public static final int DEFAULT_ZOOM = 14; // default zoom level
+  private static final int MAX_DIRTY = 128; // more dirty areas and everything is painted again
 
   private final HashSet<Renderable> selection; // fast look-up
   private boolean editable = false;
@@ -47,15 +56,22 @@ public class JVectorPane extends JComponent implements MouseListener {
   private float zoom = DEFAULT_ZOOM;
   private BufferedImageOp filter;
   private int cx, cy; // camera
-  private final ArrayList<Renderable> renderables;
+  private final RenderList renderables;
   private SelectionFilter selectionFilter;
   private final RenderingHints hints;
   private BufferedImage image;
 
+  // what changed since the image was painted, when the pane follows a camera
+  private boolean camera;
+  private final ArrayList<Rectangle> dirty = new ArrayList<>(); // in model coordinates
+  private boolean everything = true;
+  private int ix, iy; // the camera when the image was painted
+  private float imageZoom;
+
   public JVectorPane() {
     comparator = new ZComparator();
     selection = new HashSet<Renderable>();
-    renderables = new ArrayList<Renderable>();
+    renderables = new RenderList();
     addMouseListener(this);
     HashMap<RenderingHints.Key, Object> keys = new HashMap<>();
     keys.put(
@@ -66,10 +82,110 @@ public class JVectorPane extends JComponent implements MouseListener {
     hints = new RenderingHints(keys);
   }
 
+  /**
+   * Sets the renderables to draw. Renderables that were drawn before keep their place in the
+   * drawing order, the areas where renderables appeared, disappeared, moved or changed their
+   * appearance are marked dirty.
+   *
+   * @param list the renderables to draw
+   */
   public void setRenderables(Collection<Renderable> list) {
     synchronized (renderables) {
-      renderables.clear();
-      renderables.addAll(list);
+      renderables.update(list, this::markDirty);
+    }
+  }
+
+  /**
+   * Adds a renderable, or brings it up to date if it is drawn already. The other renderables are
+   * left alone. The areas where it appeared, moved or changed its appearance are marked dirty.
+   *
+   * @param renderable the renderable to draw
+   */
+  public void updateRenderable(Renderable renderable) {
+    synchronized (renderables) {
+      renderables.update(renderable, this::markDirty);
+    }
+  }
+
+  /**
+   * Stops drawing a renderable, the area where it was is marked dirty.
+   *
+   * @param renderable the renderable to remove
+   */
+  public void removeRenderable(Renderable renderable) {
+    synchronized (renderables) {
+      renderables.remove(renderable, this::markDirty);
+    }
+  }
+
+  /**
+   * Marks an area to be painted again. When the pane does not follow a camera, it is painted
+   * completely every time anyway.
+   *
+   * @param area the area that changed, in model coordinates
+   */
+  public void markDirty(Rectangle area) {
+    synchronized (renderables) {
+      if (!everything && !area.isEmpty()) {
+        // one position more on every side, for creatures that are drawn larger than they are
+        Rectangle grown = new Rectangle(area);
+        grown.grow(1, 1);
+        merge(grown);
+      }
+    }
+  }
+
+  /** Marks the whole pane to be painted again. */
+  public void markDirty() {
+    synchronized (renderables) {
+      everything = true;
+      dirty.clear();
+    }
+  }
+
+  /*
+   * Adds a dirty area, areas that overlap are joined when that does not paint much more than
+   * painting both separately.
+   */
+  private void merge(Rectangle area) {
+    for (Iterator<Rectangle> i = dirty.iterator(); i.hasNext(); ) {
+      Rectangle other = i.next();
+      Rectangle union = other.union(area);
+      if ((long) union.width * union.height
+          <= (long) other.width * other.height + (long) area.width * area.height) {
+        i.remove();
+        merge(union);
+        return;
+      }
+    }
+    if (dirty.size() < MAX_DIRTY) {
+      dirty.add(area);
+    } else {
+      markDirty();
+    }
+  }
+
+  /**
+   * @return the part of this pane that looks different the next time it is painted, in pixels
+   */
+  public Rectangle getChangedArea() {
+    synchronized (renderables) {
+      Rectangle pane = new Rectangle(getWidth(), getHeight());
+      if (!camera
+          || everything
+          || cx != ix
+          || cy != iy
+          || zoom != imageZoom
+          || image == null
+          || image.getWidth() != pane.width
+          || image.getHeight() != pane.height) {
+        return pane;
+      }
+      Rectangle area = new Rectangle();
+      for (Rectangle model : dirty) {
+        area = area.isEmpty() ? toPixels(model) : area.union(toPixels(model));
+      }
+      return area.isEmpty() ? area : area.intersection(pane);
     }
   }
 
@@ -88,19 +204,26 @@ public class JVectorPane extends JComponent implements MouseListener {
     setPreferredSize(new Dimension(w, h));
 
     this.zoom = zoom;
+    markDirty();
     revalidate();
     repaint();
   }
 
   public void paintComponent(Graphics g) {
     synchronized (renderables) {
+      if (camera) {
+        paintChanges();
+        ((Graphics2D) g).drawImage(image, filter, 0, 0);
+        return;
+      }
+
       Rectangle view = g.getClipBounds();
-      // cx becomes 0 if pane is in jscrollpane, view.x becomes 0 if not
-      int x = (cx == 0 ? view.x : cx);
-      int y = (cy == 0 ? view.y : cy);
+      // view.x becomes 0 if the pane is not in a jscrollpane
+      int x = view.x;
+      int y = view.y;
 
       if (image == null || image.getWidth() != view.width || image.getHeight() != view.height) {
-        image = getGraphicsConfiguration().createCompatibleImage(view.width, view.height);
+        image = newImage(view.width, view.height);
       }
 
       Graphics2D buffer = image.createGraphics();
@@ -108,7 +231,6 @@ public class JVectorPane extends JComponent implements MouseListener {
       buffer.clearRect(0, 0, view.width, view.height);
       buffer.translate(-x, -y);
 
-      Collections.sort(renderables, comparator);
       for (Renderable r : renderables) {
         r.paint(buffer, zoom, selection.contains(r));
       }
@@ -117,13 +239,118 @@ public class JVectorPane extends JComponent implements MouseListener {
     }
   }
 
+  /*
+   * Brings the image up to date. What is still in view moves along with the camera, the edges
+   * that come into view and the dirty areas are painted again.
+   */
+  private void paintChanges() {
+    int width = Math.max(getWidth(), 1);
+    int height = Math.max(getHeight(), 1);
+    if (image == null || image.getWidth() != width || image.getHeight() != height) {
+      image = newImage(width, height);
+      everything = true;
+    }
+    int dx = cx - ix;
+    int dy = cy - iy;
+    if (zoom != imageZoom || Math.abs(dx) >= width || Math.abs(dy) >= height) {
+      everything = true;
+    }
+
+    Graphics2D buffer = image.createGraphics();
+    ArrayList<Rectangle> areas = new ArrayList<>();
+    if (everything) {
+      areas.add(new Rectangle(width, height));
+    } else {
+      if (dx != 0 || dy != 0) {
+        buffer.copyArea(0, 0, width, height, -dx, -dy);
+        if (dx != 0) {
+          areas.add(new Rectangle(dx > 0 ? width - dx : 0, 0, Math.abs(dx), height));
+        }
+        if (dy != 0) {
+          areas.add(new Rectangle(0, dy > 0 ? height - dy : 0, width, Math.abs(dy)));
+        }
+      }
+      for (Rectangle area : dirty) {
+        areas.add(toPixels(area));
+      }
+    }
+
+    buffer.addRenderingHints(hints);
+    Rectangle pane = new Rectangle(width, height);
+    for (Rectangle area : areas) {
+      paint(buffer, area.intersection(pane));
+    }
+    buffer.dispose();
+    dirty.clear();
+    everything = false;
+    ix = cx;
+    iy = cy;
+    imageZoom = zoom;
+  }
+
+  /*
+   * Paints the renderables that overlap an area of the image.
+   */
+  private void paint(Graphics2D buffer, Rectangle area) {
+    if (area.isEmpty()) {
+      return;
+    }
+    Graphics2D g = (Graphics2D) buffer.create();
+    g.clip(area);
+    g.clearRect(area.x, area.y, area.width, area.height);
+    g.translate(-cx, -cy);
+
+    // the positions in the area, with one more on every side
+    int x = (int) Math.floor((area.x + cx) / zoom);
+    int y = (int) Math.floor((area.y + cy) / zoom);
+    Rectangle model =
+        new Rectangle(
+            x - 1,
+            y - 1,
+            (int) Math.ceil((area.x + area.width + cx) / zoom) - x + 2,
+            (int) Math.ceil((area.y + area.height + cy) / zoom) - y + 2);
+    for (Renderable r : renderables) {
+      if (r.getBounds().intersects(model)) {
+        r.paint(g, zoom, selection.contains(r));
+      }
+    }
+    g.dispose();
+  }
+
+  /*
+   * Converts an area in model coordinates to pixels on this pane.
+   */
+  private Rectangle toPixels(Rectangle area) {
+    int x = (int) Math.floor(area.x * zoom);
+    int y = (int) Math.floor(area.y * zoom);
+    return new Rectangle(
+        x - cx,
+        y - cy,
+        (int) Math.ceil((area.x + area.width) * zoom) - x,
+        (int) Math.ceil((area.y + area.height) * zoom) - y);
+  }
+
+  /*
+   * Panes that are not shown yet (or never, in tests) have no graphics configuration.
+   */
+  private BufferedImage newImage(int width, int height) {
+    GraphicsConfiguration configuration = getGraphicsConfiguration();
+    if (configuration == null) {
+      return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+    return configuration.createCompatibleImage(width, height);
+  }
+
   public float getZoom() {
     return zoom;
   }
 
   public void updateCamera(Point camera) {
-    cx = (int) (camera.x * zoom - getWidth() / 2f);
-    cy = (int) (camera.y * zoom - getHeight() / 2f);
+    synchronized (renderables) {
+      this.camera = true;
+      cx = (int) (camera.x * zoom - getWidth() / 2f);
+      cy = (int) (camera.y * zoom - getHeight() / 2f);
+    }
     revalidate();
   }
 
@@ -183,6 +410,7 @@ public class JVectorPane extends JComponent implements MouseListener {
         }
       }
     }
+    markDirty();
     repaint();
   }
 
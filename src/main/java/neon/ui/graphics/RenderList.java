@@ -0,0 +1,217 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.ui.graphics;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Keeps renderables in the order they are painted: by z-order, and in the order they were added
+ * when the z-order is the same. The list stays sorted while renderables are added and removed, it
+ * never has to be sorted as a whole.
+ *
+ * <p>The list also remembers where every renderable was and how it looked when it was added or
+ * last brought up to date, so it can tell which areas have to be painted again. All renderables
+ * can be brought up to date at once with {@link #update(Collection, Consumer)}, or one by one with
+ * {@link #update(Renderable, Consumer)} when it is known which ones changed.
+ *
+ * @author priewe
+ */
+public class RenderList implements Iterable<Renderable> {
+  private static final Comparator<Entry> ORDER =
+      Comparator.<Entry>comparingInt(entry -> entry.z).thenComparingLong(entry -> entry.order);
+
+  private final TreeSet<Entry> entries = new TreeSet<>(ORDER);
+  private final IdentityHashMap<Renderable, Entry> index = new IdentityHashMap<>();
+  private long order;
+  private int generation;
+
+  /**
+   * Adds a renderable, if it was not in this list yet.
+   *
+   * @param renderable the renderable to add
+   * @return whether the renderable was added
+   */
+  public boolean add(Renderable renderable) {
+    if (index.containsKey(renderable)) {
+      return false;
+    }
+    Entry entry = new Entry(renderable, order++);
+    entry.generation = generation;
+    entries.add(entry);
+    index.put(renderable, entry);
+    return true;
+  }
+
+  /**
+   * @param renderable the renderable to remove
+   * @return whether the renderable was in this list
+   */
+  public boolean remove(Renderable renderable) {
+    Entry entry = index.remove(renderable);
+    return entry != null && entries.remove(entry);
+  }
+
+  /**
+   * Removes a renderable and passes the area where it was to the consumer.
+   *
+   * @param renderable the renderable to remove
+   * @param changed receives the area that changed, in model coordinates
+   * @return whether the renderable was in this list
+   */
+  public boolean remove(Renderable renderable, Consumer<Rectangle> changed) {
+    Entry entry = index.get(renderable);
+    if (entry == null) {
+      return false;
+    }
+    remove(renderable);
+    changed.accept(entry.bounds);
+    return true;
+  }
+
+  /**
+   * @param renderable a renderable
+   * @return whether the renderable is in this list
+   */
+  public boolean contains(Renderable renderable) {
+    return index.containsKey(renderable);
+  }
+
+  /**
+   * @return the number of renderables in this list
+   */
+  public int size() {
+    return index.size();
+  }
+
+  /** Removes all renderables. */
+  public void clear() {
+    entries.clear();
+    index.clear();
+  }
+
+  /**
+   * Makes this list hold the given renderables, and no others. Renderables that are already in the
+   * list keep their place, unless their z-order changed. Every area that looks different now is
+   * passed to the consumer: where renderables were added or removed, where they were and are now
+   * when they moved, and where they are when they changed their z-order or appearance.
+   *
+   * @param renderables the renderables that should be in this list
+   * @param changed receives the areas that changed, in model coordinates
+   */
+  public void update(Collection<? extends Renderable> renderables, Consumer<Rectangle> changed) {
+    generation++;
+    int seen = 0;
+    for (Renderable renderable : renderables) {
+      Entry entry = index.get(renderable);
+      if (entry == null || entry.generation != generation) {
+        update(renderable, changed);
+        seen++;
+      }
+    }
+
+    if (index.size() > seen) {
+      List<Entry> gone = new ArrayList<>();
+      for (Entry entry : entries) {
+        if (entry.generation != generation) {
+          gone.add(entry);
+        }
+      }
+      for (Entry entry : gone) {
+        remove(entry.renderable, changed);
+      }
+    }
+  }
+
+  /**
+   * Brings a single renderable up to date, or adds it if it was not in this list yet. The other
+   * renderables are left alone. The areas that look different now are passed to the consumer, the
+   * same way {@link #update(Collection, Consumer)} does.
+   *
+   * @param renderable the renderable that should be in this list
+   * @param changed receives the areas that changed, in model coordinates
+   */
+  public void update(Renderable renderable, Consumer<Rectangle> changed) {
+    Entry entry = index.get(renderable);
+    if (entry == null) {
+      add(renderable);
+      changed.accept(index.get(renderable).bounds);
+      return;
+    }
+    entry.generation = generation;
+    Rectangle bounds = renderable.getBounds();
+    if (!bounds.equals(entry.bounds)) {
+      changed.accept(entry.bounds);
+      entry.bounds = new Rectangle(bounds);
+      changed.accept(entry.bounds);
+    } else if (renderable.getAppearance() != entry.appearance) {
+      changed.accept(entry.bounds);
+    }
+    entry.appearance = renderable.getAppearance();
+    if (renderable.getZ() != entry.z) {
+      entries.remove(entry);
+      index.remove(renderable);
+      add(renderable);
+      changed.accept(entry.bounds);
+    }
+  }
+
+  @Override
+  public Iterator<Renderable> iterator() {
+    Iterator<Entry> iterator = entries.iterator();
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Renderable next() {
+        return iterator.next().renderable;
+      }
+    };
+  }
+
+  /*
+   * The place of a renderable in the list, with what it looked like the last time it was seen.
+   */
+  private static final class Entry {
+    private final Renderable renderable;
+    private final int z;
+    private final long order;
+    private Rectangle bounds;
+    private int appearance;
+    private int generation;
+
+    private Entry(Renderable renderable, long order) {
+      this.renderable = renderable;
+      this.order = order;
+      z = renderable.getZ();
+      bounds = new Rectangle(renderable.getBounds());
+      appearance = renderable.getAppearance();
+    }
+  }
+}
@@ -29,4 +29,14 @@ public interface Renderable {
   void paint(Graphics2D graphics, float zoom, boolean isSelected);
 
   Rectangle getBounds();
+
+  /**
+   * Returns a number that changes whenever this renderable looks different without moving, like a
+   * door that opens. Renderables that always look the same can keep the default.
+   *
+   * @return the state this renderable is drawn in
+   */
+  default int getAppearance() {
+    return 0;
+  }
 }
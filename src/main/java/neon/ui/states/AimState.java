@@ -147,6 +147,7 @@ public class AimState extends State implements KeyListener {
     if (target.distance(bounds.x, bounds.y) < 5) {
       Creature victim = context.getAtlas().getCurrentZone().getCreature(target);
       if (victim != null) {
+        victim = (Creature) context.getStore().getEntity(victim.getUID()); // to be hit
         Weapon ammo =
             (Weapon) context.getStore().getEntity(player.getInventoryComponent().get(Slot.AMMO));
         if (player.getInventoryComponent().hasEquiped(Slot.AMMO)
@@ -188,9 +189,11 @@ public class AimState extends State implements KeyListener {
 
     // shoot
     prBounds.setLocation(vBounds.x, vBounds.y);
-    context.getAtlas().getCurrentZone().addItem(projectile);
+    Zone zone = context.getAtlas().getCurrentZone();
+    zone.addItem(projectile);
     new Thread(
-            new Translation(projectile, plBounds.x, plBounds.y, vBounds.x, vBounds.y, 100, panel))
+            new Translation(
+                projectile, plBounds.x, plBounds.y, vBounds.x, vBounds.y, 100, panel, zone))
         .start();
   }
 
@@ -200,6 +203,7 @@ public class AimState extends State implements KeyListener {
       Creature creature = context.getAtlas().getCurrentZone().getCreature(target);
       if (creature != null) {
         if (creature.hasDialog()) {
+          creature = (Creature) context.getStore().getEntity(creature.getUID()); // to talk to
           // dialog module
           bus.publishAsync(new TransitionEvent("dialog", "speaker", creature));
         } else {
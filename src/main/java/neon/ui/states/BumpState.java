@@ -130,6 +130,7 @@ public class BumpState extends State implements KeyListener {
 
     if (motionHandler.move(player, cBounds.x, cBounds.y) == MotionHandler.OK) {
       cBounds.setLocation(pBounds.x, pBounds.y);
+      context.getAtlas().getCurrentZone().moveCreature(creature);
     }
   }
 
@@ -21,11 +21,13 @@ package neon.ui.states;
 import java.awt.Rectangle;
 import java.awt.event.*;
 import java.util.EventObject;
+import java.util.function.Consumer;
 import javax.swing.Popup;
 import neon.core.GameContext;
 import neon.entities.Creature;
 import neon.entities.Door;
 import neon.entities.Player;
+import neon.entities.components.Lock;
 import neon.resources.RItem;
 import neon.ui.GamePanel;
 import neon.ui.UserInterface;
@@ -86,18 +88,18 @@ public class DoorState extends State implements KeyListener {
       case KeyEvent.VK_1:
       case KeyEvent.VK_NUMPAD1:
         if (door.lock.isClosed()) {
-          door.lock.open();
+          changeLock(Lock::open);
           ui.showMessage("Door opened.", 1);
           panel.repaint();
         } else if (door.lock.isLocked()) {
           if (player.pickLock(door.lock)) {
-            door.lock.unlock();
+            changeLock(Lock::unlock);
             ui.showMessage("Lock picked.", 1);
           } else {
             ui.showMessage("The lock doesn't budge.", 1);
           }
         } else if (door.lock.isOpen()) {
-          door.lock.close();
+          changeLock(Lock::close);
           ui.showMessage("Door closed.", 1);
         }
         bus.publishAsync(new TransitionEvent("return"));
@@ -108,10 +110,10 @@ public class DoorState extends State implements KeyListener {
           ui.showMessage("This door has no lock.", 1);
         } else if (door.lock.getKey() != null && hasItem(player, door.lock.getKey())) {
           if (door.lock.isClosed() || door.lock.isOpen()) {
-            door.lock.lock();
+            changeLock(Lock::lock);
             ui.showMessage("Door locked.", 1);
           } else if (door.lock.isLocked()) {
-            door.lock.unlock();
+            changeLock(Lock::unlock);
             ui.showMessage("Door unlocked.", 1);
           }
         } else {
@@ -122,8 +124,11 @@ public class DoorState extends State implements KeyListener {
       case KeyEvent.VK_3:
       case KeyEvent.VK_NUMPAD3:
         if (door.lock.isLocked()) {
-          door.lock.open();
-          door.lock.setLockDC(0);
+          changeLock(
+              lock -> {
+                lock.open();
+                lock.setLockDC(0);
+              });
           ui.showMessage("Lock broken", 1);
           panel.repaint();
         }
@@ -136,9 +141,13 @@ public class DoorState extends State implements KeyListener {
     }
   }
 
+  private void changeLock(Consumer<Lock> change) {
+    context.getAtlas().getCurrentZone().changeLock(door.lock, change);
+  }
+
   private boolean hasItem(Creature creature, RItem item) {
     for (long uid : creature.getInventoryComponent()) {
-      if (context.getStore().getEntity(uid).getID().equals(item.id)) {
+      if (context.getStore().readEntity(uid).getID().equals(item.id)) {
         return true;
       }
     }
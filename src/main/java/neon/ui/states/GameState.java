@@ -32,9 +32,13 @@ import neon.entities.Player;
 import neon.entities.components.HealthComponent;
 import neon.entities.property.Attribute;
 import neon.resources.CClient;
+import neon.resources.RCreature;
+import neon.resources.RItem;
 import neon.resources.RScript;
 import neon.ui.*;
 import neon.ui.dialog.MapDialog;
+import neon.ui.graphics.JVectorPane;
+import neon.util.TextureFactory;
 import neon.util.fsm.*;
 import net.engio.mbassy.bus.MBassador;
 import net.engio.mbassy.listener.Handler;
@@ -74,6 +78,10 @@ public class GameState extends State implements KeyListener, CollisionListener {
     if (e.toString().equals("start")) {
       player = context.getPlayer();
       context.getPhysicsEngine().addListener(this);
+      // the textures of creatures and items are drawn now, not while the first turns are shown
+      int zoom = JVectorPane.DEFAULT_ZOOM;
+      TextureFactory.prewarm(context.getResources().getResources(RCreature.class), zoom);
+      TextureFactory.prewarm(context.getResources().getResources(RItem.class), zoom);
       // in case game starts, the events of the current clock tick must be executed now
       bus.publishAsync(new TurnEvent(context.getTimer().getTime(), true));
     }
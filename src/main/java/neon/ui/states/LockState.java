@@ -71,7 +71,7 @@ public class LockState extends State implements KeyListener {
       case KeyEvent.VK_1:
       case KeyEvent.VK_NUMPAD1:
         if (context.getPlayer().pickLock(lock)) {
-          lock.unlock();
+          context.getAtlas().getCurrentZone().changeLock(lock, Lock::unlock);
           ui.showMessage("Lock picked.", 1);
         } else {
           ui.showMessage("The lock doesn't budge.", 1);
@@ -81,8 +81,15 @@ public class LockState extends State implements KeyListener {
       case KeyEvent.VK_2:
       case KeyEvent.VK_NUMPAD2:
         if (lock.isLocked()) {
-          lock.open();
-          lock.setLockDC(0);
+          context
+              .getAtlas()
+              .getCurrentZone()
+              .changeLock(
+                  lock,
+                  broken -> {
+                    broken.open();
+                    broken.setLockDC(0);
+                  });
           ui.showMessage("Lock broken", 1);
           panel.repaint();
         }
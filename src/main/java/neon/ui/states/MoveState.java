@@ -81,9 +81,11 @@ public class MoveState extends State implements KeyListener {
     Creature other = context.getAtlas().getCurrentZone().getCreature(p);
     if (other != null && !other.hasCondition(Condition.DEAD)) {
       if (other.brain.isHostile()) {
+        other = (Creature) context.getStore().getEntity(other.getUID()); // to be hit
         bus.publishAsync(new CombatEvent(player, other));
         bus.publishAsync(new TurnEvent(context.getTimer().addTick())); // next turn
       } else {
+        other = (Creature) context.getStore().getEntity(other.getUID()); // bumping changes it
         bus.publishAsync(new TransitionEvent("bump", "creature", other));
       }
     } else { // no one in the way, so move
@@ -176,10 +178,10 @@ public class MoveState extends State implements KeyListener {
       if (player.isMounted()) {
         Creature mount = player.getMount();
         player.unmount();
-        context.getAtlas().getCurrentZone().addCreature(mount);
         Rectangle pBounds = player.getShapeComponent();
         Rectangle mBounds = mount.getShapeComponent();
         mBounds.setLocation(pBounds.x, pBounds.y);
+        context.getAtlas().getCurrentZone().addCreature(mount);
       }
     } else if (code == keys.magic) {
       if (player.getMagicComponent().getSpell() != null) {
@@ -0,0 +1,143 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps all glyphs of one size on a single image. A glyph is a character in a color and a style,
+ * drawn the same way as by the {@link TextureFactory}. Every glyph is drawn once, the first time it
+ * is asked for, and gets a number. Drawing a glyph afterwards only copies its part of the image.
+ *
+ * <p>There is one atlas for every size, so every zoom level has its own. Only the atlases of the
+ * {@link #CACHE_SIZE} sizes that were used last are kept, an atlas that was dropped is drawn again
+ * when its size is used again.
+ *
+ * @author priewe
+ */
+public class GlyphAtlas {
+  /** The number of atlases that are kept. */
+  public static final int CACHE_SIZE = 4;
+
+  private static final int COLUMNS = 16;
+  private static final LinkedHashMap<Integer, GlyphAtlas> atlases =
+      new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, GlyphAtlas> eldest) {
+          return size() > CACHE_SIZE;
+        }
+      };
+
+  private final int size;
+  private final LongIntMap glyphs = new LongIntMap();
+  private volatile BufferedImage sheet;
+  private int count;
+
+  private GlyphAtlas(int size) {
+    this.size = size;
+    sheet = TextureFactory.createImage(COLUMNS * size, 4 * size);
+  }
+
+  /**
+   * @param size the width and height of a glyph in pixels
+   * @return the atlas with glyphs of the given size
+   */
+  public static synchronized GlyphAtlas getAtlas(int size) {
+    return atlases.computeIfAbsent(Math.max(size, 1), GlyphAtlas::new);
+  }
+
+  /**
+   * @return the width and height of a glyph in pixels
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * @return the number of glyphs on this atlas
+   */
+  public synchronized int getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the number of a glyph, the glyph is added to the atlas if it was not there yet.
+   *
+   * @param text the character of the glyph (only one character)
+   * @param color the color of the glyph, white if {@code null}
+   * @param style the style of the glyph (bold, italic, ...)
+   * @return the number of the glyph
+   */
+  public synchronized int getGlyph(String text, Color color, int style) {
+    if (text.length() != 1) {
+      throw new IllegalArgumentException("String should be one character in length.");
+    }
+    // terrain without a color, or with a color that does not exist
+    color = color == null ? Color.white : color;
+    long key = (long) text.charAt(0) << 32 | (long) style << 24 | color.getRGB() & 0xFFFFFF;
+    int glyph = glyphs.getOrDefault(key, -1);
+    if (glyph < 0) {
+      glyph = count++;
+      add(glyph, text, color, style);
+      glyphs.put(key, glyph);
+    }
+    return glyph;
+  }
+
+  /**
+   * Draws a glyph.
+   *
+   * @param graphics the graphics to draw on
+   * @param glyph the number of the glyph
+   * @param x the x coordinate of the upper left corner, in pixels
+   * @param y the y coordinate of the upper left corner, in pixels
+   */
+  public void draw(Graphics2D graphics, int glyph, int x, int y) {
+    int sx = glyph % COLUMNS * size;
+    int sy = glyph / COLUMNS * size;
+    graphics.drawImage(sheet, x, y, x + size, y + size, sx, sy, sx + size, sy + size, null);
+  }
+
+  private void add(int glyph, String text, Color color, int style) {
+    int x = glyph % COLUMNS * size;
+    int y = glyph / COLUMNS * size;
+    if (y + size > sheet.getHeight()) {
+      // glyphs that are already on the sheet keep their place
+      BufferedImage grown = TextureFactory.createImage(sheet.getWidth(), sheet.getHeight() * 2);
+      Graphics2D g = grown.createGraphics();
+      g.drawImage(sheet, 0, 0, null);
+      g.dispose();
+      sheet = grown;
+    }
+
+    Graphics2D g = sheet.createGraphics();
+    g.setClip(x, y, size, size);
+    g.setColor(Color.black);
+    g.fillRect(x, y, size, size);
+    g.setFont(TextureFactory.getFont(size, style));
+    g.setColor(color);
+    // 0.25 and 0.85 to nicely center the letter in the middle of the glyph, as on a texture
+    g.drawString(text, x + (int) (size * 0.25), y + (int) (size * 0.85));
+    g.dispose();
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * A hash map with primitive {@code long} keys, so lookups do not have to box the key. Collisions
+ * are resolved with linear probing, removal shifts the following entries back instead of leaving
+ * tombstones. Null values are not allowed.
+ *
+ * @author priewe
+ * @param <V> the type of the values
+ */
+public class LongHashMap<V> {
+  private long[] keys;
+  private V[] values;
+  private int size;
+
+  public LongHashMap() {
+    this(16);
+  }
+
+  /**
+   * @param capacity the number of entries that fit without resizing
+   */
+  public LongHashMap(int capacity) {
+    int length = Integer.highestOneBit(Math.max(4, capacity * 2 - 1)) << 1;
+    allocate(length);
+  }
+
+  /**
+   * @param key a key
+   * @return the value for the given key, or {@code null} if there is none
+   */
+  public V get(long key) {
+    int mask = keys.length - 1;
+    for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return values[i];
+      }
+    }
+    return null;
+  }
+
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  /**
+   * @param key a key
+   * @param value the new value, not {@code null}
+   * @return the previous value for the given key, or {@code null} if there was none
+   */
+  public V put(long key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Null values are not allowed.");
+    }
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    for (; values[i] != null; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        V old = values[i];
+        values[i] = value;
+        return old;
+      }
+    }
+    keys[i] = key;
+    values[i] = value;
+    if (++size * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+    return null;
+  }
+
+  /**
+   * @param key a key
+   * @return the removed value, or {@code null} if the key was not in the map
+   */
+  public V remove(long key) {
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    for (; values[i] != null; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        V old = values[i];
+        shiftBack(i);
+        size--;
+        return old;
+      }
+    }
+    return null;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  /**
+   * Passes every value in this map to the given consumer. The map must not be modified meanwhile.
+   */
+  public void forEachValue(Consumer<? super V> consumer) {
+    for (V value : values) {
+      if (value != null) {
+        consumer.accept(value);
+      }
+    }
+  }
+
+  /**
+   * Passes every key in this map to the given consumer. The map must not be modified meanwhile.
+   */
+  public void forEachKey(LongConsumer consumer) {
+    for (int i = 0; i < keys.length; i++) {
+      if (values[i] != null) {
+        consumer.accept(keys[i]);
+      }
+    }
+  }
+
+  /** Closes the gap left by a removed entry, so probing sequences are not interrupted. */
+  private void shiftBack(int gap) {
+    int mask = keys.length - 1;
+    for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+      int home = hash(keys[i]) & mask;
+      // move the entry if its home slot does not lie in the cyclic range (gap, i]
+      if (gap <= i ? (home <= gap || home > i) : (home <= gap && home > i)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+    values[gap] = null;
+  }
+
+  private void resize(int length) {
+    long[] oldKeys = keys;
+    V[] oldValues = values;
+    allocate(length);
+    int mask = length - 1;
+    for (int n = 0; n < oldKeys.length; n++) {
+      if (oldValues[n] != null) {
+        int i = hash(oldKeys[n]) & mask;
+        while (values[i] != null) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[n];
+        values[i] = oldValues[n];
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void allocate(int length) {
+    keys = new long[length];
+    values = (V[]) new Object[length];
+  }
+
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
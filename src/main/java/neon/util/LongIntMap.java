@@ -0,0 +1,164 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.util;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * A hash map from {@code long} to {@code int}, without boxing either. Collisions are resolved with
+ * linear probing, removal shifts the following entries back like in {@link LongHashMap}. Nothing
+ * is allocated until the first entry is added, so an empty map costs only a few bytes.
+ *
+ * @author priewe
+ */
+public class LongIntMap implements Serializable {
+  @Serial private static final long serialVersionUID = 1L;
+
+  private long[] keys;
+  private int[] values;
+  private boolean[] used;
+  private int size;
+
+  /**
+   * @param key a key
+   * @param fallback the value to return if the key is not in the map
+   * @return the value for the given key, or the fallback
+   */
+  public int getOrDefault(long key, int fallback) {
+    int i = find(key);
+    return i < 0 ? fallback : values[i];
+  }
+
+  public boolean containsKey(long key) {
+    return find(key) >= 0;
+  }
+
+  /**
+   * @param key a key
+   * @param value the new value
+   */
+  public void put(long key, int value) {
+    if (keys == null) {
+      allocate(4);
+    }
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    for (; used[i]; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        values[i] = value;
+        return;
+      }
+    }
+    keys[i] = key;
+    values[i] = value;
+    used[i] = true;
+    if (++size * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+  }
+
+  /**
+   * Adds an amount to the value for a key, a missing key counts as 0.
+   *
+   * @param key a key
+   * @param amount the amount to add
+   * @return the new value
+   */
+  public int add(long key, int amount) {
+    int value = getOrDefault(key, 0) + amount;
+    put(key, value);
+    return value;
+  }
+
+  /**
+   * @param key a key
+   * @return whether the key was in the map
+   */
+  public boolean remove(long key) {
+    int gap = find(key);
+    if (gap < 0) {
+      return false;
+    }
+    int mask = keys.length - 1;
+    for (int i = (gap + 1) & mask; used[i]; i = (i + 1) & mask) {
+      int home = hash(keys[i]) & mask;
+      // move the entry if its home slot does not lie in the cyclic range (gap, i]
+      if (gap <= i ? (home <= gap || home > i) : (home <= gap && home > i)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+    used[gap] = false;
+    size--;
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  private int find(long key) {
+    if (keys == null) {
+      return -1;
+    }
+    int mask = keys.length - 1;
+    for (int i = hash(key) & mask; used[i]; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void resize(int length) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    boolean[] oldUsed = used;
+    allocate(length);
+    int mask = length - 1;
+    for (int n = 0; n < oldKeys.length; n++) {
+      if (oldUsed[n]) {
+        int i = hash(oldKeys[n]) & mask;
+        while (used[i]) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[n];
+        values[i] = oldValues[n];
+        used[i] = true;
+      }
+    }
+  }
+
+  private void allocate(int length) {
+    keys = new long[length];
+    values = new int[length];
+    used = new boolean[length];
+  }
+
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
@@ -19,10 +19,13 @@
 package neon.util;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import neon.resources.RCreature;
+import neon.resources.RData;
 
 /**
  * This class implements methods for procedural texture generation and buffering the generated
@@ -30,17 +33,23 @@ import java.util.*;
  * texture with the given font size. This allows a renderer to work with different zoom levels. This
  * texture is then buffered for fast retrieval at a later time.
  *
+ * <p>The buffer can be used from several threads at once. It holds at most {@link #getBudget()}
+ * pixels of textures, when it gets fuller the textures that were used least recently are dropped.
+ * Textures and images of the same character, color and size share a single buffered image.
+ *
  * @author mdriesen
  */
 public class TextureFactory {
-  private static final HashMap<Integer, HashMap<String, TexturePaint>> textures = new HashMap<>();
-  private static final HashMap<Integer, HashMap<String, Image>> images = new HashMap<>();
+  /** The number of pixels of textures that are buffered, unless another budget is set. */
+  public static final long DEFAULT_BUDGET = 4 << 20;
 
-  private static Font base = new Font("Lucida Sans Typewriter Regular", Font.PLAIN, 12);
+  private static final LinkedHashMap<Long, TexturePaint> textures =
+      new LinkedHashMap<>(256, 0.75f, true);
+  private static long budget = DEFAULT_BUDGET;
+  private static long pixels;
+  private static long hits, misses;
 
-  private static final GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-  private static final GraphicsDevice gs = ge.getDefaultScreenDevice();
-  private static final GraphicsConfiguration gc = gs.getDefaultConfiguration();
+  private static Font base = new Font("Lucida Sans Typewriter Regular", Font.PLAIN, 12);
 
   static { // try to load DejaVu font, fallback is Lucida
     try {
@@ -72,8 +81,8 @@ public class TextureFactory {
 
   /**
    * @param text the text of texture (only one character)
-   * @param size the size of the text on the texture
-   * @param color the color of the text on the texture
+   * @param size the size of the text on the texture (less than 65536)
+   * @param color the color of the text on the texture, white if it is {@code null}
    * @param style the style of the text on the texture (bold, italic, ...)
    * @return a texture with the given size
    */
@@ -83,19 +92,23 @@ public class TextureFactory {
     }
 
     size = Math.max(size, 1);
-    String type = text + color + style;
-    if (textures.containsKey(size)) {
-      if (textures.get(size).containsKey(type)) {
-        return textures.get(size).get(type);
+    // resources without a color, or with a color that does not exist
+    color = color == null ? Color.white : color;
+    long key = getKey(text.codePointAt(0), size, color, style);
+    synchronized (textures) {
+      TexturePaint texture = textures.get(key);
+      if (texture != null) {
+        hits++;
+        return texture;
       }
-    } else {
-      textures.put(size, new HashMap<String, TexturePaint>());
+      misses++;
     }
 
-    BufferedImage image = gc.createCompatibleImage(size, size);
+    // drawn without holding the lock, if another thread was faster its texture is used
+    BufferedImage image = createImage(size, size);
     Graphics2D g2i = image.createGraphics();
 
-    Font font = base.deriveFont(style, size * 6 / 7f);
+    Font font = getFont(size, style);
 
     g2i.setFont(font);
     g2i.setColor(Color.black);
@@ -103,12 +116,47 @@ public class TextureFactory {
     g2i.setColor(color);
     // 0.25 and 0.85 to nicely center the letter in the middle of the texture
     g2i.drawString(text, (int) (size * 0.25), (int) (size * 0.85));
+    g2i.dispose();
 
     TexturePaint texture = new TexturePaint(image, new Rectangle(size, size));
-    textures.get(size).put(type, texture);
+    synchronized (textures) {
+      TexturePaint other = textures.putIfAbsent(key, texture);
+      if (other != null) {
+        return other;
+      }
+      pixels += (long) size * size;
+      evict();
+    }
     return texture;
   }
 
+  /**
+   * @param size the size of a texture
+   * @param style the style of the text (bold, italic, ...)
+   * @return the font to draw text on a texture of the given size
+   */
+  public static Font getFont(int size, int style) {
+    return base.deriveFont(style, size * 6 / 7f);
+  }
+
+  /**
+   * Creates an image that can be drawn quickly on the screen, or a plain image when there is no
+   * screen.
+   *
+   * @param width the width of the image
+   * @param height the height of the image
+   * @return a new opaque image
+   */
+  public static BufferedImage createImage(int width, int height) {
+    if (GraphicsEnvironment.isHeadless()) {
+      return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+    return GraphicsEnvironment.getLocalGraphicsEnvironment()
+        .getDefaultScreenDevice()
+        .getDefaultConfiguration()
+        .createCompatibleImage(width, height);
+  }
+
   /**
    * @param text the text on the image (only one character)
    * @param size the size of the text on the image
@@ -116,33 +164,118 @@ public class TextureFactory {
    * @return an image with the given size
    */
   public static Image getImage(String text, int size, Color color) {
-    if (text.length() != 1) {
-      throw new IllegalArgumentException("String should be one character in length.");
-    }
+    return getTexture(text, size, color, Font.PLAIN).getImage();
+  }
 
-    size = Math.max(size, 1);
-    String type = text + color;
-    if (images.containsKey(size)) {
-      if (images.get(size).containsKey(type)) {
-        return images.get(size).get(type);
+  /**
+   * Draws the textures of a set of resources beforehand, so they don't have to be drawn while the
+   * map is shown. Creatures get the texture of the size they are drawn with.
+   *
+   * @param resources the resources, with the character and color they are drawn with
+   * @param size the size of a position on the map
+   */
+  public static void prewarm(Collection<? extends RData> resources, int size) {
+    for (RData resource : resources) {
+      if (resource.text == null || resource.text.length() != 1) {
+        continue;
       }
-    } else {
-      images.put(size, new HashMap<String, Image>());
+      int scaled = size;
+      if (resource instanceof RCreature creature) {
+        scaled =
+            switch (creature.size) {
+              case tiny -> size * 2 / 3;
+              case huge -> size * 3 / 2;
+              default -> size;
+            };
+      }
+      getTexture(resource.text, scaled, ColorFactory.getColor(resource.color), Font.PLAIN);
+    }
+  }
+
+  /**
+   * Sets the number of pixels of textures that are buffered. Textures are dropped right away if
+   * the buffer holds more.
+   *
+   * @param pixels the number of pixels
+   */
+  public static void setBudget(long pixels) {
+    synchronized (textures) {
+      budget = pixels;
+      evict();
     }
+  }
 
-    BufferedImage image = gc.createCompatibleImage(size, size);
-    Graphics2D g2i = image.createGraphics();
+  /**
+   * @return the number of pixels of textures that are buffered at most
+   */
+  public static long getBudget() {
+    synchronized (textures) {
+      return budget;
+    }
+  }
 
-    Font font = base.deriveFont(Font.PLAIN, size * 6 / 7f);
+  /**
+   * @return the number of pixels of the textures that are buffered now
+   */
+  public static long getPixels() {
+    synchronized (textures) {
+      return pixels;
+    }
+  }
 
-    g2i.setFont(font);
-    g2i.setColor(Color.black);
-    g2i.fillRect(0, 0, size, size);
-    g2i.setColor(color);
-    // 0.25 and 0.85 to nicely center the letter in the middle of the texture
-    g2i.drawString(text, (int) (size * 0.25), (int) (size * 0.85));
+  /**
+   * @return the number of textures that are buffered now
+   */
+  public static int size() {
+    synchronized (textures) {
+      return textures.size();
+    }
+  }
 
-    images.get(size).put(type, image);
-    return image;
+  /**
+   * @return how often a buffered texture could be used
+   */
+  public static long getHits() {
+    synchronized (textures) {
+      return hits;
+    }
+  }
+
+  /**
+   * @return how often a texture had to be drawn
+   */
+  public static long getMisses() {
+    synchronized (textures) {
+      return misses;
+    }
+  }
+
+  /** Resets the hit and miss counters. */
+  public static void resetCounters() {
+    synchronized (textures) {
+      hits = 0;
+      misses = 0;
+    }
+  }
+
+  /** Drops the least recently used textures until the buffer is within its budget again. */
+  private static void evict() {
+    Iterator<TexturePaint> eldest = textures.values().iterator();
+    while (pixels > budget && eldest.hasNext()) {
+      Rectangle2D anchor = eldest.next().getAnchorRect();
+      pixels -= (long) anchor.getWidth() * (long) anchor.getHeight();
+      eldest.remove();
+    }
+  }
+
+  /*
+   * The character, the size, the style and the color of a texture in one number: 16 bits of size,
+   * 2 of style and 21 of character, and the color in the lowest 24 bits.
+   */
+  private static long getKey(int codePoint, int size, Color color, int style) {
+    return (long) (size & 0xFFFF) << 48
+        | (long) (style & 3) << 45
+        | (long) codePoint << 24
+        | color.getRGB() & 0xFFFFFF;
   }
 }
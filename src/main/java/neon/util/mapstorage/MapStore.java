@@ -16,4 +16,17 @@ public interface MapStore {
   boolean isClosed();
 
   Collection<String> getMapNames();
+
+  /**
+   * Sets whether free space in the store file may be overwritten. While it is disabled, the file
+   * only grows, so it can be copied while the store is in use.
+   *
+   * @param reuse whether free space may be reused
+   */
+  void setReuseSpace(boolean reuse);
+
+  /**
+   * @return the file the store is kept in, or {@code null} if it is kept in memory
+   */
+  String getFileName();
 }
@@ -44,4 +44,14 @@ public class MapStoreMVStoreAdapter implements MapStore {
   public Collection<String> getMapNames() {
     return mvStore.getMapNames();
   }
+
+  @Override
+  public void setReuseSpace(boolean reuse) {
+    mvStore.setReuseSpace(reuse);
+  }
+
+  @Override
+  public String getFileName() {
+    return mvStore.getFileStore() != null ? mvStore.getFileStore().getFileName() : null;
+  }
 }
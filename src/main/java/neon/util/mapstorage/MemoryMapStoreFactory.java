@@ -44,4 +44,14 @@ public class MemoryMapStoreFactory implements MapStore {
   public Collection<String> getMapNames() {
     return mapNames;
   }
+
+  @Override
+  public void setReuseSpace(boolean reuse) {
+    // nothing to do
+  }
+
+  @Override
+  public String getFileName() {
+    return null;
+  }
 }
@@ -0,0 +1,285 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.util.spatial;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import neon.util.LongHashMap;
+
+/**
+ * A uniform hash grid for uids that sit on a single position and move around, like creatures.
+ * Positions are grouped in square cells, and only cells that hold something are kept in a hash
+ * map. Every uid remembers its position, so moving it only touches the old and the new cell, and a
+ * query only visits the cells that overlap its window. Uids are returned in the order they were
+ * added.
+ *
+ * @author priewe
+ */
+public class HashGridIndex implements SpatialIndex<Long> {
+  private static final int SHIFT = 3; // cells of 8 by 8 positions
+
+  private final LongHashMap<long[]> cells = new LongHashMap<>(); // cell -> count, uids
+  private final LongHashMap<Entry> entries = new LongHashMap<>(); // uid -> position
+  private Entry first, last;
+  private Rectangle bounds;
+
+  /**
+   * Adds a uid on the given position. If the uid was already in the index, it is moved instead.
+   *
+   * @param uid the uid to add
+   * @param x the x coordinate of the position
+   * @param y the y coordinate of the position
+   */
+  public synchronized void insert(long uid, int x, int y) {
+    if (move(uid, x, y)) {
+      return;
+    }
+    Entry entry = new Entry(uid, x, y);
+    entries.put(uid, entry);
+    if (last == null) {
+      first = entry;
+    } else {
+      last.next = entry;
+      entry.previous = last;
+    }
+    last = entry;
+    add(key(x >> SHIFT, y >> SHIFT), uid);
+    grow(x, y);
+  }
+
+  /** Adds a uid on the upper left corner of the given bounds. */
+  public void insert(Long uid, Rectangle bounds) {
+    insert(uid.longValue(), bounds.x, bounds.y);
+  }
+
+  /**
+   * Moves a uid to another position.
+   *
+   * @param uid the uid to move
+   * @param x the new x coordinate
+   * @param y the new y coordinate
+   * @return whether the uid was in this index
+   */
+  public synchronized boolean move(long uid, int x, int y) {
+    Entry entry = entries.get(uid);
+    if (entry == null) {
+      return false;
+    }
+    long from = key(entry.x >> SHIFT, entry.y >> SHIFT);
+    long to = key(x >> SHIFT, y >> SHIFT);
+    if (from != to) {
+      take(from, uid);
+      add(to, uid);
+    }
+    entry.x = x;
+    entry.y = y;
+    grow(x, y);
+    return true;
+  }
+
+  /**
+   * Removes a uid from this index.
+   *
+   * @param uid the uid to remove
+   */
+  public synchronized void remove(long uid) {
+    Entry entry = entries.remove(uid);
+    if (entry != null) {
+      take(key(entry.x >> SHIFT, entry.y >> SHIFT), uid);
+      if (entry.previous == null) {
+        first = entry.next;
+      } else {
+        entry.previous.next = entry.next;
+      }
+      if (entry.next == null) {
+        last = entry.previous;
+      } else {
+        entry.next.previous = entry.previous;
+      }
+    }
+  }
+
+  public void remove(Long uid) {
+    remove(uid.longValue());
+  }
+
+  /**
+   * @param uid a uid
+   * @return whether the uid is stored in this index
+   */
+  public synchronized boolean contains(long uid) {
+    return entries.containsKey(uid);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Passes every uid with a position in the given window to a consumer. Only the cells that overlap
+   * the window are visited.
+   *
+   * @param x the x coordinate of the window
+   * @param y the y coordinate of the window
+   * @param width the width of the window
+   * @param height the height of the window
+   * @param consumer the consumer
+   */
+  public synchronized void forEach(int x, int y, int width, int height, LongConsumer consumer) {
+    if (width <= 0 || height <= 0 || entries.isEmpty()) {
+      return;
+    }
+    int x1 = (int) Math.min((long) x + width, Integer.MAX_VALUE);
+    int y1 = (int) Math.min((long) y + height, Integer.MAX_VALUE);
+    int cx0 = x >> SHIFT, cy0 = y >> SHIFT, cx1 = (x1 - 1) >> SHIFT, cy1 = (y1 - 1) >> SHIFT;
+    if (((long) cx1 - cx0 + 1) * ((long) cy1 - cy0 + 1) > cells.size()) {
+      // the window is larger than the occupied part of the grid
+      for (Entry e = first; e != null; e = e.next) {
+        if (e.x >= x && e.x < x1 && e.y >= y && e.y < y1) {
+          consumer.accept(e.uid);
+        }
+      }
+      return;
+    }
+    for (int cy = cy0; cy <= cy1; cy++) {
+      for (int cx = cx0; cx <= cx1; cx++) {
+        long[] cell = cells.get(key(cx, cy));
+        if (cell != null) {
+          for (int i = 1; i <= cell[0]; i++) {
+            Entry e = entries.get(cell[i]);
+            if (e.x >= x && e.x < x1 && e.y >= y && e.y < y1) {
+              consumer.accept(e.uid);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Passes every uid on the given position to a consumer.
+   *
+   * @param x the x coordinate of the position
+   * @param y the y coordinate of the position
+   * @param consumer the consumer
+   */
+  public void forEach(int x, int y, LongConsumer consumer) {
+    forEach(x, y, 1, 1, consumer);
+  }
+
+  /**
+   * @param point a position
+   * @return a copy of the uids on the given position
+   */
+  public ArrayList<Long> getElements(Point point) {
+    ArrayList<Long> list = new ArrayList<Long>();
+    forEach(point.x, point.y, list::add);
+    return list;
+  }
+
+  public ArrayList<Long> getElements(Rectangle bounds) {
+    ArrayList<Long> list = new ArrayList<Long>();
+    forEach(bounds.x, bounds.y, bounds.width, bounds.height, list::add);
+    return list;
+  }
+
+  /**
+   * @return a copy of all uids in this index, in the order they were added
+   */
+  public synchronized ArrayList<Long> getElements() {
+    ArrayList<Long> list = new ArrayList<Long>(entries.size());
+    for (Entry e = first; e != null; e = e.next) {
+      list.add(e.uid);
+    }
+    return list;
+  }
+
+  public synchronized void clear() {
+    cells.clear();
+    entries.clear();
+    first = last = null;
+    bounds = null;
+  }
+
+  public synchronized int getWidth() {
+    return bounds != null ? bounds.width : 0;
+  }
+
+  public synchronized int getHeight() {
+    return bounds != null ? bounds.height : 0;
+  }
+
+  private void add(long key, long uid) {
+    long[] cell = cells.get(key);
+    if (cell == null) {
+      cells.put(key, new long[] {1, uid, 0, 0});
+    } else {
+      int count = (int) cell[0] + 1;
+      if (count == cell.length) {
+        cell = Arrays.copyOf(cell, cell.length * 2);
+        cells.put(key, cell);
+      }
+      cell[count] = uid;
+      cell[0] = count;
+    }
+  }
+
+  private void take(long key, long uid) {
+    long[] cell = cells.get(key);
+    int count = (int) cell[0];
+    for (int i = 1; i <= count; i++) {
+      if (cell[i] == uid) {
+        // keep the order within the cell, creatures on the same position are found first to last
+        System.arraycopy(cell, i + 1, cell, i, count - i);
+        break;
+      }
+    }
+    if (--cell[0] == 0) {
+      cells.remove(key);
+    }
+  }
+
+  /** Grows the bounds, so they keep covering every position that was ever stored. */
+  private void grow(int x, int y) {
+    if (bounds == null) {
+      bounds = new Rectangle(x, y, 1, 1);
+    } else {
+      bounds.add(new Rectangle(x, y, 1, 1));
+    }
+  }
+
+  private static long key(int x, int y) {
+    return (long) x << 32 | (y & 0xffffffffL);
+  }
+
+  private static class Entry {
+    private final long uid;
+    private int x, y;
+    private Entry previous, next;
+
+    private Entry(long uid, int x, int y) {
+      this.uid = uid;
+      this.x = x;
+      this.y = y;
+    }
+  }
+}
@@ -0,0 +1,328 @@
+/*
+ *	Neon, a roguelike engine.
+ *	Copyright (C) 2026 - PRiewe
+ *
+ *	This program is free software; you can redistribute it and/or modify
+ *	it under the terms of the GNU General Public License as published by
+ *	the Free Software Foundation; either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	This program is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU General Public License
+ *	along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package neon.util.spatial;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import neon.util.LongHashMap;
+
+/**
+ * A grid index for uids. Every cell holds a compact {@code long} list, so neither the uids nor the
+ * positions are boxed. Cells are grouped in square chunks that are only allocated when something is
+ * stored in them, which keeps the index small for huge, sparsely filled zones. A query only visits
+ * the cells in its window. A reverse map keeps the cells of every uid, so removal only touches
+ * those cells.
+ *
+ * @author priewe
+ */
+public class LongGridIndex implements SpatialIndex<Long> {
+  private static final int SHIFT = 5; // chunks of 32 by 32 cells
+  private static final int SIDE = 1 << SHIFT;
+  private static final int MASK = SIDE - 1;
+
+  private final LongHashMap<Chunk> chunks = new LongHashMap<>();
+  private final LongHashMap<long[]> cells = new LongHashMap<>(); // uid -> packed positions
+  private int size; // the number of uids in all cells
+
+  /**
+   * Adds a uid to every cell in the given rectangle.
+   *
+   * @param uid the uid to add
+   * @param bounds the cells to add the uid to
+   */
+  public synchronized void insert(long uid, Rectangle bounds) {
+    for (int x = bounds.x; x < bounds.x + bounds.width; x++) {
+      for (int y = bounds.y; y < bounds.y + bounds.height; y++) {
+        insert(uid, x, y);
+      }
+    }
+  }
+
+  public void insert(Long uid, Rectangle bounds) {
+    insert(uid.longValue(), bounds);
+  }
+
+  /**
+   * Adds a uid to a single cell.
+   *
+   * @param uid the uid to add
+   * @param x the x coordinate of the cell
+   * @param y the y coordinate of the cell
+   */
+  public synchronized void insert(long uid, int x, int y) {
+    long key = key(x >> SHIFT, y >> SHIFT);
+    Chunk chunk = chunks.get(key);
+    if (chunk == null) {
+      chunk = new Chunk(x >> SHIFT, y >> SHIFT);
+      chunks.put(key, chunk);
+    }
+    chunk.add(cell(x, y), uid);
+    size++;
+
+    long[] positions = cells.get(uid);
+    if (positions == null) {
+      cells.put(uid, new long[] {key(x, y)});
+    } else {
+      positions = Arrays.copyOf(positions, positions.length + 1);
+      positions[positions.length - 1] = key(x, y);
+      cells.put(uid, positions);
+    }
+  }
+
+  /**
+   * Removes a uid from all cells it was added to.
+   *
+   * @param uid the uid to remove
+   */
+  public synchronized void remove(long uid) {
+    long[] positions = cells.remove(uid);
+    if (positions != null) {
+      size -= positions.length;
+      for (long position : positions) {
+        int x = (int) (position >> 32);
+        int y = (int) position;
+        long key = key(x >> SHIFT, y >> SHIFT);
+        Chunk chunk = chunks.get(key);
+        if (chunk.remove(cell(x, y), uid)) {
+          chunks.remove(key);
+        }
+      }
+    }
+  }
+
+  public void remove(Long uid) {
+    remove(uid.longValue());
+  }
+
+  /**
+   * @param uid a uid
+   * @return whether the uid is stored in this index
+   */
+  public synchronized boolean contains(long uid) {
+    return cells.containsKey(uid);
+  }
+
+  /**
+   * Passes every uid in the given cell to a consumer, in the order they were added.
+   *
+   * @param x the x coordinate of the cell
+   * @param y the y coordinate of the cell
+   * @param consumer the consumer
+   */
+  public synchronized void forEach(int x, int y, LongConsumer consumer) {
+    Chunk chunk = chunks.get(key(x >> SHIFT, y >> SHIFT));
+    if (chunk != null) {
+      long[] bucket = chunk.buckets[cell(x, y)];
+      if (bucket != null) {
+        for (int i = 1; i <= bucket[0]; i++) {
+          consumer.accept(bucket[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Passes every uid in the given window to a consumer. A uid that was added to more than one cell
+   * is passed once for every cell in the window. Only the cells in the window are visited, or only
+   * the allocated chunks if there are fewer of those than chunks in the window.
+   *
+   * @param x the x coordinate of the window
+   * @param y the y coordinate of the window
+   * @param width the width of the window
+   * @param height the height of the window
+   * @param consumer the consumer
+   */
+  public synchronized void forEach(int x, int y, int width, int height, LongConsumer consumer) {
+    if (width <= 0 || height <= 0 || chunks.isEmpty()) {
+      return;
+    }
+    int x1 = (int) Math.min((long) x + width, Integer.MAX_VALUE);
+    int y1 = (int) Math.min((long) y + height, Integer.MAX_VALUE);
+    int cx0 = x >> SHIFT, cy0 = y >> SHIFT, cx1 = (x1 - 1) >> SHIFT, cy1 = (y1 - 1) >> SHIFT;
+    if (((long) cx1 - cx0 + 1) * ((long) cy1 - cy0 + 1) > chunks.size()) {
+      chunks.forEachValue(chunk -> chunk.forEach(x, y, x1, y1, consumer));
+    } else {
+      for (int cy = cy0; cy <= cy1; cy++) {
+        for (int cx = cx0; cx <= cx1; cx++) {
+          Chunk chunk = chunks.get(key(cx, cy));
+          if (chunk != null) {
+            chunk.forEach(x, y, x1, y1, consumer);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @param x the x coordinate of a cell
+   * @param y the y coordinate of a cell
+   * @return the number of uids in the given cell
+   */
+  public synchronized int count(int x, int y) {
+    Chunk chunk = chunks.get(key(x >> SHIFT, y >> SHIFT));
+    long[] bucket = chunk != null ? chunk.buckets[cell(x, y)] : null;
+    return bucket != null ? (int) bucket[0] : 0;
+  }
+
+  /**
+   * @return the number of uids in all cells, a uid that was added to more than one cell is counted
+   *     once for every cell
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * @param point a cell
+   * @return a copy of the uids in the given cell
+   */
+  public ArrayList<Long> getElements(Point point) {
+    ArrayList<Long> list = new ArrayList<Long>();
+    forEach(point.x, point.y, list::add);
+    return list;
+  }
+
+  public ArrayList<Long> getElements(Rectangle bounds) {
+    ArrayList<Long> list = new ArrayList<Long>();
+    forEach(bounds.x, bounds.y, bounds.width, bounds.height, list::add);
+    return list;
+  }
+
+  public synchronized ArrayList<Long> getElements() {
+    ArrayList<Long> list = new ArrayList<Long>();
+    chunks.forEachValue(chunk -> chunk.forEach(list::add));
+    return list;
+  }
+
+  public synchronized void clear() {
+    chunks.clear();
+    cells.clear();
+    size = 0;
+  }
+
+  public synchronized int getWidth() {
+    int[] w = {0};
+    cells.forEachValue(
+        positions -> {
+          for (long position : positions) {
+            w[0] = Math.max(w[0], (int) (position >> 32));
+          }
+        });
+    return w[0];
+  }
+
+  public synchronized int getHeight() {
+    int[] h = {0};
+    cells.forEachValue(
+        positions -> {
+          for (long position : positions) {
+            h[0] = Math.max(h[0], (int) position);
+          }
+        });
+    return h[0];
+  }
+
+  private static long key(int x, int y) {
+    return ((long) x << 32) | (y & 0xffffffffL);
+  }
+
+  private static int cell(int x, int y) {
+    return ((y & MASK) << SHIFT) | (x & MASK);
+  }
+
+  /**
+   * A square block of cells. The first element of every bucket is the number of uids in it.
+   */
+  private static class Chunk {
+    private final long[][] buckets = new long[SIDE * SIDE][];
+    private final int x;
+    private final int y;
+    private int used; // number of non-empty buckets
+
+    private Chunk(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    private void add(int cell, long uid) {
+      long[] bucket = buckets[cell];
+      if (bucket == null) {
+        bucket = new long[3];
+        buckets[cell] = bucket;
+        used++;
+      } else if (bucket[0] + 1 == bucket.length) {
+        bucket = Arrays.copyOf(bucket, bucket.length * 2);
+        buckets[cell] = bucket;
+      }
+      bucket[(int) ++bucket[0]] = uid;
+    }
+
+    /**
+     * @return whether this chunk is empty afterwards
+     */
+    private boolean remove(int cell, long uid) {
+      long[] bucket = buckets[cell];
+      int count = (int) bucket[0];
+      for (int i = 1; i <= count; i++) {
+        if (bucket[i] == uid) {
+          System.arraycopy(bucket, i + 1, bucket, i, count - i);
+          bucket[0] = --count;
+          break;
+        }
+      }
+      if (count == 0) {
+        buckets[cell] = null;
+        used--;
+      }
+      return used == 0;
+    }
+
+    /** Visits the cells of this chunk that lie in the given window. */
+    private void forEach(int x0, int y0, int x1, int y1, LongConsumer consumer) {
+      long left = (long) x << SHIFT;
+      long top = (long) y << SHIFT;
+      visit(
+          (int) Math.max(0, x0 - left),
+          (int) Math.max(0, y0 - top),
+          (int) Math.min(SIDE, x1 - left),
+          (int) Math.min(SIDE, y1 - top),
+          consumer);
+    }
+
+    private void forEach(LongConsumer consumer) {
+      visit(0, 0, SIDE, SIDE, consumer);
+    }
+
+    private void visit(int left, int top, int right, int bottom, LongConsumer consumer) {
+      for (int cy = top; cy < bottom; cy++) {
+        for (int cx = left; cx < right; cx++) {
+          long[] bucket = buckets[(cy << SHIFT) | cx];
+          if (bucket != null) {
+            for (int i = 1; i <= bucket[0]; i++) {
+              consumer.accept(bucket[i]);
+            }
+          }
+        }
+      }
+    }
+  }
+}
@@ -18,194 +18,419 @@
 
 package neon.util.spatial;
 
-import java.awt.*;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntConsumer;
 
-class RNode<E> {
-  private Rectangle box = new Rectangle(); // minimum bounding rectangle
-  private RNode<E>[] nodes;
-  private int[] entries;
-  private Rectangle[] boxes;
-  private final int max; // node size of the tree	(max number of elements in a node)
-  private final int min; // fill factor of the tree	(min number of elements in a node)
-  private int size; // total number of objects in this node and subnodes
-  private final RTree<E> tree;
-
-  protected RNode(int nodesize, int fillfactor, RTree<E> parent) {
-    tree = parent;
-    entries = new int[nodesize];
-    boxes = new Rectangle[nodesize];
-    max = nodesize;
-    min = fillfactor;
-    size = 0;
+/**
+ * A node of an {@code RTree}. Boxes are stored as half-open integer intervals {@code [minX, maxX) x
+ * [minY, maxY)} in flat arrays, so queries do not have to allocate {@code Rectangle}s. A leaf
+ * (level 0) holds object indices, a branch holds child nodes. Every array has room for one extra
+ * entry, so a node can temporarily overflow before it is split or its entries are reinserted.
+ *
+ * @author mdriesen
+ */
+class RNode {
+  private static final int CANDIDATES = 16; // entries considered for overlap enlargement
+  private static final long MAX_ENLARGEMENT = Long.MAX_VALUE >>> 16;
+
+  final int level; // 0 for leaves
+  RNode parent;
+  int size;
+  final int[] minX;
+  final int[] minY;
+  final int[] maxX;
+  final int[] maxY;
+  final int[] entries; // object indices, only used in leaves
+  final RNode[] children; // child nodes, only used in branches
+
+  RNode(int nodeSize, int level) {
+    this.level = level;
+    minX = new int[nodeSize + 1];
+    minY = new int[nodeSize + 1];
+    maxX = new int[nodeSize + 1];
+    maxY = new int[nodeSize + 1];
+    if (level == 0) {
+      entries = new int[nodeSize + 1];
+      children = null;
+    } else {
+      entries = null;
+      children = new RNode[nodeSize + 1];
+    }
   }
 
-  protected Rectangle getBox() {
-    return box;
+  boolean isLeaf() {
+    return level == 0;
   }
 
-  protected RNode<E>[] getNodes() {
-    return nodes;
+  /** Adds an object index to this leaf. */
+  void addEntry(int index, int x0, int y0, int x1, int y1) {
+    entries[size] = index;
+    setBox(size++, x0, y0, x1, y1);
   }
 
-  protected ArrayList<Integer> getIndices(Rectangle r) {
-    ArrayList<Integer> indices = new ArrayList<Integer>();
-    if (isLeaf()) {
-      for (int i = 0; i < size; i++) {
-        if (boxes[i] != null && boxes[i].intersects(r)) {
-          indices.add(entries[i]);
-        }
+  /** Adds a child node to this branch. */
+  void addChild(RNode child) {
+    child.parent = this;
+    children[size] = child;
+    setBox(size++, child.getMinX(), child.getMinY(), child.getMaxX(), child.getMaxY());
+  }
+
+  void setBox(int i, int x0, int y0, int x1, int y1) {
+    minX[i] = x0;
+    minY[i] = y0;
+    maxX[i] = x1;
+    maxY[i] = y1;
+  }
+
+  /** Removes the entry at the given position, keeping the remaining entries contiguous. */
+  void removeAt(int i) {
+    size--;
+    if (i < size) {
+      minX[i] = minX[size];
+      minY[i] = minY[size];
+      maxX[i] = maxX[size];
+      maxY[i] = maxY[size];
+      if (isLeaf()) {
+        entries[i] = entries[size];
+      } else {
+        children[i] = children[size];
       }
-    } else {
-      for (RNode<E> node : nodes) {
-        if (node.getBox() != null && node.getBox().intersects(r)) {
-          indices.addAll(node.getIndices(r));
-        }
+    }
+    if (!isLeaf()) {
+      children[size] = null;
+    }
+  }
+
+  int indexOf(RNode child) {
+    for (int i = 0; i < size; i++) {
+      if (children[i] == child) {
+        return i;
       }
     }
-    return indices;
+    return -1;
   }
 
-  protected ArrayList<Integer> getIndices(Point p) {
-    ArrayList<Integer> indices = new ArrayList<Integer>();
+  int indexOfEntry(int index) {
+    for (int i = 0; i < size; i++) {
+      if (entries[i] == index) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  int getMinX() {
+    int m = Integer.MAX_VALUE;
+    for (int i = 0; i < size; i++) {
+      m = Math.min(m, minX[i]);
+    }
+    return m;
+  }
+
+  int getMinY() {
+    int m = Integer.MAX_VALUE;
+    for (int i = 0; i < size; i++) {
+      m = Math.min(m, minY[i]);
+    }
+    return m;
+  }
+
+  int getMaxX() {
+    int m = Integer.MIN_VALUE;
+    for (int i = 0; i < size; i++) {
+      m = Math.max(m, maxX[i]);
+    }
+    return m;
+  }
+
+  int getMaxY() {
+    int m = Integer.MIN_VALUE;
+    for (int i = 0; i < size; i++) {
+      m = Math.max(m, maxY[i]);
+    }
+    return m;
+  }
+
+  /**
+   * Visits the index of every object whose box intersects the given window. The window must not be
+   * empty. Objects with an empty box never match, just like {@code Rectangle.intersects}.
+   */
+  void search(int x0, int y0, int x1, int y1, IntConsumer visitor) {
     if (isLeaf()) {
       for (int i = 0; i < size; i++) {
-        if (boxes[i] != null && boxes[i].contains(p)) {
-          indices.add(entries[i]);
+        if (minX[i] < x1
+            && x0 < maxX[i]
+            && minY[i] < y1
+            && y0 < maxY[i]
+            && minX[i] < maxX[i]
+            && minY[i] < maxY[i]) {
+          visitor.accept(entries[i]);
         }
       }
     } else {
-      for (RNode<E> node : nodes) {
-        if (node.getBox().contains(p)) {
-          indices.addAll(node.getIndices(p));
+      for (int i = 0; i < size; i++) {
+        if (minX[i] < x1 && x0 < maxX[i] && minY[i] < y1 && y0 < maxY[i]) {
+          children[i].search(x0, y0, x1, y1, visitor);
         }
       }
     }
-    return indices;
   }
 
-  protected boolean remove(Rectangle box, int index) {
-    boolean found = false;
-    if (isLeaf()) {
-      int pos = -1;
-      for (int i = 0; i < entries.length; i++) {
-        if (entries[i] == index) {
-          found = true;
-          pos = i;
-        }
-      }
-      if (found) {
-        for (int i = pos + 1; i < entries.length; i++) {
-          entries[i - 1] = entries[i];
-          entries[i] = 0;
-          boxes[i - 1] = boxes[i];
-          boxes[i] = null;
-        }
-        size--;
-        if (size > 0) {
-          this.box = new Rectangle(boxes[0]);
-          for (Rectangle rect : boxes) {
-            if (rect != null) {
-              this.box.add(rect);
-            }
+  /**
+   * Looks for the leaf that holds the given object index. Only subtrees whose box contains the box
+   * of the object are searched.
+   */
+  RNode findLeaf(int index, int x0, int y0, int x1, int y1) {
+    for (int i = 0; i < size; i++) {
+      if (minX[i] <= x0 && minY[i] <= y0 && maxX[i] >= x1 && maxY[i] >= y1) {
+        if (isLeaf()) {
+          if (entries[i] == index) {
+            return this;
           }
         } else {
-          this.box = null;
+          RNode leaf = children[i].findLeaf(index, x0, y0, x1, y1);
+          if (leaf != null) {
+            return leaf;
+          }
         }
       }
-    } else {
-      boolean empty = false;
-      for (RNode<E> node : nodes) {
-        if (node.getBox().contains(box) && node.remove(box, index)) {
-          found = true;
-          empty = (node.getBox() == null);
-        }
+    }
+    return null;
+  }
+
+  /**
+   * Chooses the entry that should receive a new box, following the R*-tree rules: when the
+   * children are leaves the entry with the least overlap enlargement is chosen, otherwise the one
+   * with the least area enlargement. Remaining ties go to the entry with the smallest area. To
+   * keep large nodes cheap, overlap is only computed for the {@code CANDIDATES} entries that need
+   * the least area enlargement.
+   */
+  int chooseSubtree(int x0, int y0, int x1, int y1) {
+    if (level != 1) {
+      return chooseSubtree(x0, y0, x1, y1, null, size);
+    }
+
+    // an entry that already covers the box adds no overlap, take the smallest one
+    int best = -1;
+    for (int i = 0; i < size; i++) {
+      if (minX[i] <= x0
+          && minY[i] <= y0
+          && maxX[i] >= x1
+          && maxY[i] >= y1
+          && (best < 0
+              || area(minX[i], minY[i], maxX[i], maxY[i])
+                  < area(minX[best], minY[best], maxX[best], maxY[best]))) {
+        best = i;
       }
-      if (empty) {
-        reOrder();
-      } else if (found) {
-        size--;
-        this.box = new Rectangle(nodes[0].getBox());
-        for (RNode<E> node : nodes) {
-          this.box.add(node.getBox());
+    }
+    if (best >= 0) {
+      return best;
+    } else if (size <= CANDIDATES) {
+      return chooseSubtree(x0, y0, x1, y1, null, size);
+    }
+
+    // the enlargement is capped, so it can share a long with the position of the entry
+    long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = (Math.min(enlargement(i, x0, y0, x1, y1), MAX_ENLARGEMENT) << 16) | i;
+    }
+    Arrays.sort(keys);
+    int[] candidates = new int[CANDIDATES];
+    for (int n = 0; n < CANDIDATES; n++) {
+      candidates[n] = (int) (keys[n] & 0xffff);
+    }
+    return chooseSubtree(x0, y0, x1, y1, candidates, CANDIDATES);
+  }
+
+  private int chooseSubtree(int x0, int y0, int x1, int y1, int[] candidates, int count) {
+    int best = 0;
+    long bestOverlap = Long.MAX_VALUE;
+    long bestEnlargement = Long.MAX_VALUE;
+    long bestArea = Long.MAX_VALUE;
+    for (int n = 0; n < count; n++) {
+      int i = candidates != null ? candidates[n] : n;
+      long area = area(minX[i], minY[i], maxX[i], maxY[i]);
+      long enlargement = enlargement(i, x0, y0, x1, y1);
+      long overlapEnlargement = 0;
+      if (level == 1) {
+        int ux0 = Math.min(minX[i], x0);
+        int uy0 = Math.min(minY[i], y0);
+        int ux1 = Math.max(maxX[i], x1);
+        int uy1 = Math.max(maxY[i], y1);
+        for (int j = 0; j < size; j++) {
+          if (j != i) {
+            overlapEnlargement +=
+                overlap(ux0, uy0, ux1, uy1, minX[j], minY[j], maxX[j], maxY[j])
+                    - overlap(
+                        minX[i], minY[i], maxX[i], maxY[i], minX[j], minY[j], maxX[j], maxY[j]);
+          }
         }
       }
+      if (overlapEnlargement < bestOverlap
+          || (overlapEnlargement == bestOverlap
+              && (enlargement < bestEnlargement
+                  || (enlargement == bestEnlargement && area < bestArea)))) {
+        best = i;
+        bestOverlap = overlapEnlargement;
+        bestEnlargement = enlargement;
+        bestArea = area;
+      }
     }
+    return best;
+  }
 
-    return found;
+  private long enlargement(int i, int x0, int y0, int x1, int y1) {
+    int ux0 = Math.min(minX[i], x0);
+    int uy0 = Math.min(minY[i], y0);
+    int ux1 = Math.max(maxX[i], x1);
+    int uy1 = Math.max(maxY[i], y1);
+    return area(ux0, uy0, ux1, uy1) - area(minX[i], minY[i], maxX[i], maxY[i]);
   }
 
-  private void reOrder() {
-    int[] indices = getIndices();
-    nodes = null;
-    entries = new int[max];
-    boxes = new Rectangle[max];
-    box = new Rectangle();
+  /**
+   * Splits this overflowing node with the R*-tree split algorithm. This node keeps the first
+   * group, the second group is moved to a new sibling node.
+   *
+   * @param fill the minimum number of entries in each group
+   * @return the new sibling
+   */
+  RNode split(int fill) {
+    Integer[] order = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+
+    // choose the split axis with the smallest total margin
+    Comparator<Integer> byMinX =
+        Comparator.<Integer>comparingInt(i -> minX[i]).thenComparingInt(i -> maxX[i]);
+    Comparator<Integer> byMaxX =
+        Comparator.<Integer>comparingInt(i -> maxX[i]).thenComparingInt(i -> minX[i]);
+    Comparator<Integer> byMinY =
+        Comparator.<Integer>comparingInt(i -> minY[i]).thenComparingInt(i -> maxY[i]);
+    Comparator<Integer> byMaxY =
+        Comparator.<Integer>comparingInt(i -> maxY[i]).thenComparingInt(i -> minY[i]);
+    long xMargin = margins(order, byMinX, fill) + margins(order, byMaxX, fill);
+    long yMargin = margins(order, byMinY, fill) + margins(order, byMaxY, fill);
+    Comparator<Integer> lower = xMargin <= yMargin ? byMinX : byMinY;
+    Comparator<Integer> upper = xMargin <= yMargin ? byMaxX : byMaxY;
+
+    // on that axis, choose the distribution with the least overlap, then the least area
+    Integer[] lowerOrder = order.clone();
+    Arrays.sort(lowerOrder, lower);
+    Integer[] upperOrder = order.clone();
+    Arrays.sort(upperOrder, upper);
+    long[] lowerScore = bestDistribution(lowerOrder, fill);
+    long[] upperScore = bestDistribution(upperOrder, fill);
+    Integer[] chosen = lowerOrder;
+    int k = (int) lowerScore[2];
+    if (upperScore[0] < lowerScore[0]
+        || (upperScore[0] == lowerScore[0] && upperScore[1] < lowerScore[1])) {
+      chosen = upperOrder;
+      k = (int) upperScore[2];
+    }
+
+    // redistribute the entries
+    int[] x0 = minX.clone(), y0 = minY.clone(), x1 = maxX.clone(), y1 = maxY.clone();
+    int[] oldEntries = isLeaf() ? entries.clone() : null;
+    RNode[] oldChildren = isLeaf() ? null : children.clone();
+    RNode sibling = new RNode(minX.length - 1, level);
+    int total = size;
     size = 0;
-    for (int i : indices) {
-      if (tree.getBox(i) != null) {
-        add(i, tree.getBox(i));
+    if (!isLeaf()) {
+      Arrays.fill(children, null);
+    }
+    for (int n = 0; n < total; n++) {
+      int i = chosen[n];
+      RNode target = n < k ? this : sibling;
+      if (isLeaf()) {
+        target.addEntry(oldEntries[i], x0[i], y0[i], x1[i], y1[i]);
+      } else {
+        target.addChild(oldChildren[i]);
       }
     }
+    return sibling;
   }
 
-  private int[] getIndices() {
-    if (nodes == null) {
-      return Arrays.copyOf(entries, size);
-    } else {
-      int[] indices = new int[0];
-      for (RNode<E> node : nodes) {
-        int[] nodeIndices = node.getIndices();
-        int[] temp = Arrays.copyOf(indices, indices.length + nodeIndices.length);
-        System.arraycopy(nodeIndices, 0, temp, indices.length, nodeIndices.length);
-        indices = temp;
-      }
-      return indices;
+  /** Sums the margins of all allowed distributions of the entries in the given order. */
+  private long margins(Integer[] order, Comparator<Integer> comparator, int fill) {
+    Integer[] sorted = order.clone();
+    Arrays.sort(sorted, comparator);
+    int[][] prefix = bounds(sorted, false);
+    int[][] suffix = bounds(sorted, true);
+    long sum = 0;
+    for (int k = fill; k <= size - fill; k++) {
+      sum += margin(prefix, k - 1) + margin(suffix, k);
     }
+    return sum;
   }
 
-  protected void add(int index, Rectangle box) {
-    //		Rectangle box = box2D.getBounds();
-    if (size < max) {
-      if (this.box == null || this.box.isEmpty()) {
-        this.box = new Rectangle(box);
+  /**
+   * @return the overlap, area and size of the first group of the best distribution
+   */
+  private long[] bestDistribution(Integer[] sorted, int fill) {
+    int[][] prefix = bounds(sorted, false);
+    int[][] suffix = bounds(sorted, true);
+    long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, fill};
+    for (int k = fill; k <= size - fill; k++) {
+      int a = k - 1;
+      long overlap =
+          overlap(
+              prefix[0][a],
+              prefix[1][a],
+              prefix[2][a],
+              prefix[3][a],
+              suffix[0][k],
+              suffix[1][k],
+              suffix[2][k],
+              suffix[3][k]);
+      long area =
+          area(prefix[0][a], prefix[1][a], prefix[2][a], prefix[3][a])
+              + area(suffix[0][k], suffix[1][k], suffix[2][k], suffix[3][k]);
+      if (overlap < best[0] || (overlap == best[0] && area < best[1])) {
+        best[0] = overlap;
+        best[1] = area;
+        best[2] = k;
       }
-      entries[size] = index;
-      boxes[size] = box;
-    } else if (size >= max) {
-      if (nodes == null) {
-        nodes = new RNode[max];
-        for (int i = 0; i < entries.length; i++) {
-          RNode<E> node = new RNode<E>(max, min, tree);
-          node.add(entries[i], boxes[i]);
-          nodes[i] = node;
-        }
-      }
-      RNode<E> smallestNode = nodes[0];
-      Rectangle smallestRect = box.union(smallestNode.getBox());
-      int smallestArea =
-          smallestRect.y * smallestRect.x - smallestNode.getBox().x * smallestNode.getBox().y;
-      for (RNode<E> node : nodes) {
-        Rectangle union = box.union(node.getBox());
-        if (union.x * union.y - node.getBox().x * node.getBox().y < smallestArea) {
-          smallestNode = node;
-          smallestArea = union.x * union.y;
-        } else if (union.x * union.y - node.getBox().x * node.getBox().y == smallestArea) {
-          if (node.getBox().x * node.getBox().y
-              < smallestNode.getBox().y * smallestNode.getBox().y) {
-            smallestNode = node;
-            smallestArea = union.x * union.y;
-          }
-        }
-      }
-      smallestNode.add(index, box);
     }
-    this.box.add(box);
-    size++;
+    return best;
+  }
+
+  /**
+   * Computes running bounding boxes over the entries in the given order, either from the front
+   * (position {@code i} covers entries {@code 0..i}) or from the back (position {@code i} covers
+   * entries {@code i..size-1}).
+   */
+  private int[][] bounds(Integer[] sorted, boolean reverse) {
+    int[][] b = new int[4][size];
+    int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE;
+    int x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE;
+    for (int n = 0; n < size; n++) {
+      int pos = reverse ? size - 1 - n : n;
+      int i = sorted[pos];
+      x0 = Math.min(x0, minX[i]);
+      y0 = Math.min(y0, minY[i]);
+      x1 = Math.max(x1, maxX[i]);
+      y1 = Math.max(y1, maxY[i]);
+      b[0][pos] = x0;
+      b[1][pos] = y0;
+      b[2][pos] = x1;
+      b[3][pos] = y1;
+    }
+    return b;
+  }
+
+  private static long margin(int[][] b, int i) {
+    return (long) b[2][i] - b[0][i] + (long) b[3][i] - b[1][i];
+  }
+
+  static long area(int x0, int y0, int x1, int y1) {
+    return ((long) x1 - x0) * ((long) y1 - y0);
   }
 
-  protected boolean isLeaf() {
-    return nodes == null;
+  static long overlap(int ax0, int ay0, int ax1, int ay1, int bx0, int by0, int bx1, int by1) {
+    long w = (long) Math.min(ax1, bx1) - Math.max(ax0, bx0);
+    long h = (long) Math.min(ay1, by1) - Math.max(ay0, by0);
+    return w > 0 && h > 0 ? w * h : 0;
   }
 }
@@ -18,29 +18,42 @@
 
 package neon.util.spatial;
 
+import com.google.common.collect.MapMaker;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import neon.maps.mvstore.IntegerDataType;
 import neon.util.mapstorage.MapStore;
 import org.h2.mvstore.type.DataType;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * This class represents a primitive R-tree for spatial indexing.
+ * This class represents an R*-tree for spatial indexing. Overflowing nodes first get part of
+ * their entries reinserted, and are split along the axis with the smallest margin if that does
+ * not help. A cached tree that is reopened is rebuilt with Sort-Tile-Recursive bulk loading.
+ *
+ * <p>Objects are moved and removed through a reverse index. A tree in memory finds them by
+ * equality. A cached tree hands out copies of the objects it read back, so it finds the copies it
+ * handed out by identity, for as long as they are in use.
  *
  * @author mdriesen
  */
 public class RTree<E> implements Iterable<E>, SpatialIndex<E> {
   private final Map<Integer, E> objects;
   private final Map<Integer, Rectangle2D> boxes;
-  private RNode<E> root;
+  private RNode root;
   private final int max;
   private final int min;
   private final AtomicInteger objectsMaxIndex = new AtomicInteger(0);
+  private Map<E, Integer> indices; // reverse index, built when it is first needed
+  private final ConcurrentMap<E, Integer> copies; // reverse index of a cached tree
+  private int reinserted; // bitmask of levels that already had a forced reinsert
 
   /**
    * Initializes a new R-tree with the given maximum node size and minimum fill factor.
@@ -55,14 +68,15 @@ public class RTree<E> implements Iterable<E>, SpatialIndex<E> {
 
     objects = new ConcurrentSkipListMap<Integer, E>();
     boxes = new HashMap<Integer, Rectangle2D>();
+    copies = null;
     min = fillFactor;
     max = nodeSize;
-    root = new RNode<E>(max, min, this);
+    root = new RNode(max, 0);
   }
 
   /**
    * Initializes a new cached R-tree with the given maximum node size and minimum fill factor. If
-   * the cache already contains items, they are inserted in the R-tree.
+   * the cache already contains items, the R-tree is bulk loaded with them.
    *
    * @param nodeSize the requested node size
    * @param fillFactor the requested fill factor
@@ -75,16 +89,14 @@ public class RTree<E> implements Iterable<E>, SpatialIndex<E> {
 
     min = fillFactor;
     max = nodeSize;
-    root = new RNode<E>(max, min, this);
 
     objects = db.openMap(name, IntegerDataType.INSTANCE, valueType);
     if (!objects.isEmpty()) {
       objectsMaxIndex.set(objects.keySet().stream().mapToInt(x -> x).max().orElse(0));
     }
     boxes = db.openMap(name + ":boxes");
-    for (int i : boxes.keySet()) {
-      root.add(i, boxes.get(i).getBounds());
-    }
+    copies = new MapMaker().weakKeys().makeMap();
+    root = bulkLoad();
   }
 
   /**
@@ -106,16 +118,9 @@ public class RTree<E> implements Iterable<E>, SpatialIndex<E> {
    * @return all objects with a bounding rectangle that contains the given point
    */
   public ArrayList<E> getElements(Point p) {
-    ArrayList<Integer> indices = new ArrayList<Integer>();
-    if (root.getBox().contains(p)) {
-      indices.addAll(root.getIndices(p));
-    }
-
-    ArrayList<E> nodes = new ArrayList<E>();
-    for (int i : indices) {
-      nodes.add(objects.get(i));
-    }
-    return nodes;
+    ArrayList<E> elements = new ArrayList<E>();
+    forEach(p, elements::add);
+    return elements;
   }
 
   /**
@@ -130,37 +135,87 @@ public class RTree<E> implements Iterable<E>, SpatialIndex<E> {
    * @return all objects with a bounding rectangle intersecting the given rectangle
    */
   public ArrayList<E> getElements(Rectangle r) {
-    ArrayList<Integer> indices = new ArrayList<Integer>();
-    if (root.getBox().intersects(r)) {
-      indices.addAll(root.getIndices(r));
-    }
+    ArrayList<E> elements = new ArrayList<E>();
+    forEach(r, elements::add);
+    return elements;
+  }
+
+  /**
+   * Passes all objects with a bounding rectangle intersecting the given rectangle to a visitor,
+   * without collecting them first.
+   *
+   * @param r a rectangle
+   * @param visitor the visitor
+   */
+  public void forEach(Rectangle r, Consumer<? super E> visitor) {
+    visit(r.x, r.y, r.width, r.height, i -> visitor.accept(get(i)));
+  }
 
-    ArrayList<E> nodes = new ArrayList<E>();
-    for (int i : indices) {
-      nodes.add(objects.get(i));
+  /**
+   * Passes all objects with a bounding rectangle that contains the given point to a visitor,
+   * without collecting them first.
+   *
+   * @param p a point
+   * @param visitor the visitor
+   */
+  public void forEach(Point p, Consumer<? super E> visitor) {
+    visit(p.x, p.y, 1, 1, i -> visitor.accept(get(i)));
+  }
+
+  /**
+   * Passes the index of every object with a bounding rectangle intersecting the given window to a
+   * visitor. The tree itself does not allocate anything during this query. Use {@link #get(int)}
+   * to retrieve the object belonging to an index.
+   *
+   * @param x the x coordinate of the window
+   * @param y the y coordinate of the window
+   * @param width the width of the window
+   * @param height the height of the window
+   * @param visitor the visitor
+   */
+  public void visit(int x, int y, int width, int height, IntConsumer visitor) {
+    if (width > 0 && height > 0) {
+      root.search(x, y, end(x, width), end(y, height), visitor);
     }
-    return nodes;
+  }
+
+  /**
+   * @param index the index of an object, as passed to a visitor
+   * @return the object with the given index
+   */
+  public E get(int index) {
+    return handOut(index, objects.get(index));
   }
 
   /**
    * @return the width of the bounding rectangle of the tree
    */
   public int getWidth() {
-    return root.getBox().width;
+    return root.size > 0 ? root.getMaxX() - root.getMinX() : 0;
   }
 
   /**
    * @return the height of the bounding rectangle of the tree
    */
   public int getHeight() {
-    return root.getBox().height;
+    return root.size > 0 ? root.getMaxY() - root.getMinY() : 0;
   }
 
   /**
    * @return all elements in this tree
    */
   public Collection<E> getElements() {
-    return objects.values();
+    return new AbstractCollection<>() {
+      @Override
+      public Iterator<E> iterator() {
+        return RTree.this.iterator();
+      }
+
+      @Override
+      public int size() {
+        return objects.size();
+      }
+    };
   }
 
   /**
@@ -173,23 +228,51 @@ public class RTree<E> implements Iterable<E>, SpatialIndex<E> {
     Rectangle2D box2D = new Rectangle2D.Double(box.x, box.y, box.width, box.height);
     int index = objectsMaxIndex.addAndGet(1);
     boxes.put(index, box2D);
-    root.add(index, box);
+    reinserted = 0;
+    insert(index, box.x, box.y, end(box.x, box.width), end(box.y, box.height));
+    if (copies != null) {
+      copies.put(object, index);
+    } else if (indices != null) {
+      indices.put(object, index);
+    }
     objects.put(index, object);
   }
 
   /**
-   * Moves an object in the tree.
+   * Moves an object in the tree. If the new bounding rectangle still fits in the leaf that holds
+   * the object, only the boxes on the path to the root are updated. Otherwise the object is
+   * reinserted in the tree, but it keeps its index.
    *
    * @param box the new bounding rectangle of the object
    * @param object the object to move
    */
   public void move(Rectangle box, E object) {
-    if (objects.containsValue(object)) {
-      remove(object);
-      insert(object, box);
-    } else {
+    Integer index = indexOf(object);
+    if (index == null) {
       throw new IllegalArgumentException("Tree does not contain requested object.");
     }
+
+    Rectangle old = boxes.get(index).getBounds();
+    int x0 = box.x, y0 = box.y, x1 = end(box.x, box.width), y1 = end(box.y, box.height);
+    boxes.put(index, new Rectangle2D.Double(box.x, box.y, box.width, box.height));
+    RNode leaf = root.findLeaf(index, old.x, old.y, end(old.x, old.width), end(old.y, old.height));
+    if (leaf == null) {
+      // the object was lost from the nodes, it is put back where it belongs now
+      reinserted = 0;
+      insert(index, x0, y0, x1, y1);
+    } else if (leaf.parent == null
+        || (leaf.getMinX() <= x0
+            && leaf.getMinY() <= y0
+            && leaf.getMaxX() >= x1
+            && leaf.getMaxY() >= y1)) {
+      leaf.setBox(leaf.indexOfEntry(index), x0, y0, x1, y1);
+      adjust(leaf);
+    } else {
+      delete(leaf, index);
+      reinserted = 0;
+      insert(index, x0, y0, x1, y1);
+    }
+    objects.put(index, object); // a cached tree keeps a copy, which must move along
   }
 
   /**
@@ -198,31 +281,332 @@ public class RTree<E> implements Iterable<E>, SpatialIndex<E> {
    * @param object the object to remove
    */
   public void remove(E object) {
-    if (objects.containsValue(object)) {
-      int index = 0;
-      for (int i : objects.keySet()) {
-        if (objects.get(i) == object) {
-          index = i;
-        }
-      }
+    Integer index = indexOf(object);
+    if (index != null) {
       objects.remove(index);
-      root.remove(boxes.get(index).getBounds(), index);
-      boxes.remove(index);
+      if (copies != null) {
+        copies.remove(object);
+      } else if (indices != null) {
+        indices.remove(object);
+      }
+      Rectangle box = boxes.remove(index).getBounds();
+      RNode leaf =
+          root.findLeaf(index, box.x, box.y, end(box.x, box.width), end(box.y, box.height));
+      if (leaf != null) {
+        delete(leaf, index);
+      }
     }
   }
 
   @NotNull
   public Iterator<E> iterator() {
-    return objects.values().iterator();
+    Iterator<Map.Entry<Integer, E>> entries = objects.entrySet().iterator();
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return entries.hasNext();
+      }
+
+      @Override
+      public E next() {
+        Map.Entry<Integer, E> entry = entries.next();
+        return handOut(entry.getKey(), entry.getValue());
+      }
+    };
   }
 
   public void clear() {
     objects.clear();
     boxes.clear();
-    root = null;
+    indices = null;
+    if (copies != null) {
+      copies.clear();
+    }
+    root = new RNode(max, 0);
+  }
+
+  /*
+   * A cached tree remembers every object it hands out, the copies it read back included. The keys
+   * are weak, so a copy is forgotten once nobody uses it anymore.
+   */
+  private E handOut(int index, E object) {
+    if (copies != null && object != null) {
+      copies.putIfAbsent(object, index);
+    }
+    return object;
+  }
+
+  /**
+   * Looks up the index of an object. A cached tree looks up the objects it handed out by identity,
+   * a tree in memory looks up objects by equality in a reverse index.
+   */
+  private Integer indexOf(E object) {
+    if (copies != null) {
+      Integer index = copies.get(object);
+      return index != null && objects.containsKey(index) ? index : null;
+    }
+
+    if (indices == null) {
+      indices = new HashMap<>();
+      for (Map.Entry<Integer, E> entry : objects.entrySet()) {
+        indices.put(entry.getValue(), entry.getKey());
+      }
+    }
+    return indices.get(object);
+  }
+
+  private int fill() {
+    return Math.max(1, min);
+  }
+
+  private static int end(int start, int length) {
+    return (int) Math.min((long) start + length, Integer.MAX_VALUE);
+  }
+
+  /** Inserts an object index in a leaf. */
+  private void insert(int index, int x0, int y0, int x1, int y1) {
+    RNode leaf = chooseNode(0, x0, y0, x1, y1);
+    leaf.addEntry(index, x0, y0, x1, y1);
+    adjust(leaf);
+    if (leaf.size > max) {
+      overflow(leaf);
+    }
+  }
+
+  /** Inserts a subtree one level above its own level. */
+  private void insert(RNode child) {
+    RNode node =
+        chooseNode(
+            child.level + 1, child.getMinX(), child.getMinY(), child.getMaxX(), child.getMaxY());
+    node.addChild(child);
+    adjust(node);
+    if (node.size > max) {
+      overflow(node);
+    }
+  }
+
+  private RNode chooseNode(int level, int x0, int y0, int x1, int y1) {
+    RNode node = root;
+    while (node.level > level) {
+      node = node.children[node.chooseSubtree(x0, y0, x1, y1)];
+    }
+    return node;
+  }
+
+  /** Updates the boxes of all ancestors of the given node. */
+  private void adjust(RNode node) {
+    while (node.parent != null) {
+      RNode parent = node.parent;
+      parent.setBox(
+          parent.indexOf(node), node.getMinX(), node.getMinY(), node.getMaxX(), node.getMaxY());
+      node = parent;
+    }
+  }
+
+  /**
+   * Handles an overflowing node. The first overflow on each level during an insertion results in
+   * a forced reinsert, later ones in a split.
+   */
+  private void overflow(RNode node) {
+    if (node != root && (reinserted & (1 << node.level)) == 0) {
+      reinserted |= 1 << node.level;
+      reinsert(node);
+    } else {
+      RNode sibling = node.split(fill());
+      if (node == root) {
+        root = new RNode(max, node.level + 1);
+        root.addChild(node);
+        root.addChild(sibling);
+      } else {
+        RNode parent = node.parent;
+        parent.setBox(
+            parent.indexOf(node), node.getMinX(), node.getMinY(), node.getMaxX(), node.getMaxY());
+        parent.addChild(sibling);
+        adjust(parent);
+        if (parent.size > max) {
+          overflow(parent);
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes the entries furthest from the center of an overflowing node and inserts them again,
+   * closest first.
+   */
+  private void reinsert(RNode node) {
+    long cx = (long) node.getMinX() + node.getMaxX();
+    long cy = (long) node.getMinY() + node.getMaxY();
+    long[] distance = new long[node.size];
+    Integer[] order = new Integer[node.size];
+    for (int i = 0; i < node.size; i++) {
+      long dx = (long) node.minX[i] + node.maxX[i] - cx;
+      long dy = (long) node.minY[i] + node.maxY[i] - cy;
+      distance[i] = dx * dx + dy * dy;
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingLong(i -> distance[i]));
+
+    int count = Math.min(Math.max(1, max * 3 / 10), node.size - fill());
+    int keep = node.size - count;
+    int[] x0 = node.minX.clone(), y0 = node.minY.clone();
+    int[] x1 = node.maxX.clone(), y1 = node.maxY.clone();
+    int[] entries = node.isLeaf() ? node.entries.clone() : null;
+    RNode[] children = node.isLeaf() ? null : node.children.clone();
+    int total = node.size;
+    node.size = 0;
+    for (int n = 0; n < keep; n++) {
+      int i = order[n];
+      if (node.isLeaf()) {
+        node.addEntry(entries[i], x0[i], y0[i], x1[i], y1[i]);
+      } else {
+        node.addChild(children[i]);
+      }
+    }
+    if (!node.isLeaf()) {
+      Arrays.fill(node.children, keep, node.children.length, null);
+    }
+    adjust(node);
+
+    for (int n = keep; n < total; n++) {
+      int i = order[n];
+      if (node.isLeaf()) {
+        insert(entries[i], x0[i], y0[i], x1[i], y1[i]);
+      } else {
+        insert(children[i]);
+      }
+    }
+  }
+
+  /** Removes an object index from a leaf and condenses the tree afterwards. */
+  private void delete(RNode leaf, int index) {
+    leaf.removeAt(leaf.indexOfEntry(index));
+
+    // eliminate underfull nodes and shrink the boxes on the path to the root
+    ArrayList<RNode> orphans = new ArrayList<>();
+    RNode node = leaf;
+    while (node != root) {
+      RNode parent = node.parent;
+      int i = parent.indexOf(node);
+      if (node.size < fill()) {
+        parent.removeAt(i);
+        node.parent = null;
+        orphans.add(node);
+      } else {
+        parent.setBox(i, node.getMinX(), node.getMinY(), node.getMaxX(), node.getMaxY());
+      }
+      node = parent;
+    }
+
+    if (!root.isLeaf() && root.size == 0) {
+      root = new RNode(max, 0);
+    }
+    for (RNode orphan : orphans) {
+      reinsertOrphan(orphan);
+    }
+    while (!root.isLeaf() && root.size == 1) {
+      root = root.children[0];
+      root.parent = null;
+    }
+  }
+
+  private void reinsertOrphan(RNode orphan) {
+    for (int i = 0; i < orphan.size; i++) {
+      reinserted = 0;
+      if (orphan.isLeaf()) {
+        insert(
+            orphan.entries[i], orphan.minX[i], orphan.minY[i], orphan.maxX[i], orphan.maxY[i]);
+      } else if (orphan.level <= root.level) {
+        insert(orphan.children[i]);
+      } else {
+        reinsertOrphan(orphan.children[i]);
+      }
+    }
   }
 
-  Rectangle getBox(int index) {
-    return boxes.get(index).getBounds();
+  /** Builds a tree from the persisted boxes with Sort-Tile-Recursive packing. */
+  private RNode bulkLoad() {
+    int n = boxes.size();
+    int[] indices = new int[n];
+    int[] x0 = new int[n], y0 = new int[n], x1 = new int[n], y1 = new int[n];
+    int count = 0;
+    for (Map.Entry<Integer, Rectangle2D> entry : boxes.entrySet()) {
+      if (count == n) {
+        break;
+      }
+      Rectangle box = entry.getValue().getBounds();
+      indices[count] = entry.getKey();
+      x0[count] = box.x;
+      y0[count] = box.y;
+      x1[count] = end(box.x, box.width);
+      y1[count] = end(box.y, box.height);
+      count++;
+    }
+    if (count == 0) {
+      return new RNode(max, 0);
+    }
+
+    // pack the leaves
+    int[] order = tile(count, x0, y0, x1, y1);
+    RNode[] level = new RNode[(count + max - 1) / max];
+    for (int i = 0; i < count; i++) {
+      int j = order[i];
+      if (i % max == 0) {
+        level[i / max] = new RNode(max, 0);
+      }
+      level[i / max].addEntry(indices[j], x0[j], y0[j], x1[j], y1[j]);
+    }
+
+    // pack the branches until a single root remains
+    int height = 1;
+    while (level.length > 1) {
+      int size = level.length;
+      for (int i = 0; i < size; i++) {
+        x0[i] = level[i].getMinX();
+        y0[i] = level[i].getMinY();
+        x1[i] = level[i].getMaxX();
+        y1[i] = level[i].getMaxY();
+      }
+      order = tile(size, x0, y0, x1, y1);
+      RNode[] parents = new RNode[(size + max - 1) / max];
+      for (int i = 0; i < size; i++) {
+        if (i % max == 0) {
+          parents[i / max] = new RNode(max, height);
+        }
+        parents[i / max].addChild(level[order[i]]);
+      }
+      level = parents;
+      height++;
+    }
+    return level[0];
+  }
+
+  /**
+   * Orders boxes for Sort-Tile-Recursive packing: the boxes are sorted on the x coordinate of
+   * their center and cut into vertical slices, and every slice is sorted on the y coordinate.
+   */
+  private int[] tile(int n, int[] x0, int[] y0, int[] x1, int[] y1) {
+    long[] keys = new long[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = ((x0[i] + (long) x1[i]) >> 1 << 32) | i;
+    }
+    Arrays.sort(keys);
+
+    int nodes = (n + max - 1) / max;
+    int slice = (int) Math.ceil(Math.sqrt(nodes)) * max;
+    for (int s = 0; s < n; s += slice) {
+      int e = Math.min(n, s + slice);
+      for (int i = s; i < e; i++) {
+        int j = (int) keys[i];
+        keys[i] = ((y0[j] + (long) y1[j]) >> 1 << 32) | j;
+      }
+      Arrays.sort(keys, s, e);
+    }
+
+    int[] order = new int[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = (int) keys[i];
+    }
+    return order;
   }
 }
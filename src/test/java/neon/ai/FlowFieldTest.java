@@ -0,0 +1,137 @@
+package neon.ai;
+
+import static neon.maps.GridFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import neon.maps.PassabilityGrid;
+import neon.maps.Region;
+import neon.test.PerformanceHarness;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link FlowField}.
+ *
+ * <p>Compares following the field with searching a path for every hunter separately.
+ */
+class FlowFieldTest {
+  @Test
+  void testDownhillReachesTarget() {
+    // a wall from top to bottom with a gap at y = 8
+    List<Region> regions = new ArrayList<>();
+    regions.add(new Region("floor", 0, 0, 10, 10, null, 0, FLOOR));
+    regions.add(new Region("wall", 5, 0, 1, 8, null, 1, WALL));
+    PassabilityGrid grid = PassabilityGrid.build(regions, List.of());
+    FlowField field = FlowField.toward(grid, new Point(8, 2), 20);
+
+    assertEquals(0, field.getDistance(8, 2));
+    assertEquals(FlowField.UNREACHABLE, field.getDistance(5, 3));
+    Point position = new Point(2, 2);
+    int steps = 0;
+    while (!position.equals(new Point(8, 2))) {
+      position = field.downhill(position);
+      assertNotNull(position);
+      assertNotEquals(PassabilityGrid.BLOCK, grid.getModifier(position.x, position.y));
+      steps++;
+    }
+    assertEquals(
+        PathFinder.findPath(grid, 0, 0, (x, y) -> 0, new Point(2, 2), new Point(8, 2), 1000)
+            .length,
+        steps,
+        "The field gives the shortest path");
+    assertNull(field.downhill(new Point(8, 2)), "The target does not move");
+  }
+
+  @Test
+  void testUphillRunsAway() {
+    List<Region> regions = List.of(new Region("floor", 0, 0, 20, 20, null, 0, FLOOR));
+    PassabilityGrid grid = PassabilityGrid.build(regions, List.of());
+    FlowField field = FlowField.toward(grid, new Point(10, 10), 5);
+
+    Point away = field.uphill(new Point(12, 10));
+    assertEquals(13, away.x);
+    assertNull(field.uphill(new Point(15, 10)), "The edge of the field is reached");
+    assertNull(field.uphill(new Point(0, 0)), "Outside the field");
+    assertEquals(new Point(15, 15), field.downhill(new Point(16, 16)));
+  }
+
+  @Test
+  void testFieldIsShared() {
+    List<Region> regions = List.of(new Region("floor", 0, 0, 20, 20, null, 0, FLOOR));
+    PassabilityGrid grid = PassabilityGrid.build(regions, List.of());
+
+    FlowField field = FlowField.toward(grid, new Point(10, 10), 5);
+    assertSame(field, FlowField.toward(grid, new Point(10, 10), 5));
+    assertNotSame(field, FlowField.toward(grid, new Point(11, 10), 5), "The target moved");
+    PassabilityGrid changed = PassabilityGrid.build(regions, List.of());
+    assertNotSame(
+        FlowField.toward(grid, new Point(11, 10), 5),
+        FlowField.toward(changed, new Point(11, 10), 5),
+        "The zone changed");
+  }
+
+  @Test
+  void testPerformance() {
+    int hunters = 200;
+    int range = 60;
+    PassabilityGrid grid = createRooms(500);
+    Point target = new Point(250, 250);
+    Random random = new Random(7);
+    List<Point> positions = new ArrayList<>();
+    while (positions.size() < hunters) {
+      int x = target.x - range / 2 + random.nextInt(range);
+      int y = target.y - range / 2 + random.nextInt(range);
+      if (grid.getModifier(x, y) != PassabilityGrid.BLOCK) {
+        positions.add(new Point(x, y));
+      }
+    }
+
+    int rounds = 20;
+    Runnable searches =
+        () -> {
+          for (Point p : positions) {
+            PathFinder.findPath(grid, 0, 0, (x, y) -> 0, p, target, PathFinder.DEFAULT_BUDGET);
+          }
+        };
+    int[] turn = new int[1];
+    Runnable fields =
+        () -> {
+          // the target moves every turn, so the field is computed again
+          Point moved = new Point(target.x + turn[0]++ % 2, target.y);
+          FlowField field = FlowField.toward(grid, moved, range);
+          for (Point p : positions) {
+            field.downhill(p);
+          }
+        };
+    for (int i = 0; i < 5; i++) {
+      searches.run();
+      fields.run();
+    }
+
+    long searchTime =
+        PerformanceHarness.measure(
+                () -> {
+                  for (int i = 0; i < rounds; i++) {
+                    searches.run();
+                  }
+                })
+            .getDurationNanos();
+    long fieldTime =
+        PerformanceHarness.measure(
+                () -> {
+                  for (int i = 0; i < rounds; i++) {
+                    fields.run();
+                  }
+                })
+            .getDurationNanos();
+    System.out.printf(
+        "[PERF] %d hunters per turn: A* each=%s, shared flow field=%s%n",
+        hunters,
+        PerformanceHarness.formatDuration(searchTime / rounds),
+        PerformanceHarness.formatDuration(fieldTime / rounds));
+    assertTrue(fieldTime < searchTime, "One shared field should beat a search per hunter");
+  }
+}
@@ -0,0 +1,223 @@
+package neon.ai;
+
+import static neon.maps.GridFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import neon.maps.PassabilityGrid;
+import neon.maps.Region;
+import neon.maps.Zone;
+import neon.test.PerformanceHarness;
+import neon.util.spatial.RTree;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link PathFinder} and the {@link PassabilityGrid} it searches.
+ *
+ * <p>The grids are built from plain regions, so no game context is needed.
+ */
+class PathFinderTest {
+  @Test
+  void testGridUsesHighestRegion() {
+    List<Region> regions = new ArrayList<>();
+    regions.add(new Region("floor", 0, 0, 10, 10, null, 0, FLOOR));
+    regions.add(new Region("water", 2, 2, 3, 3, null, 1, WATER));
+    regions.add(new Region("wall", 3, 3, 1, 1, null, 2, WALL));
+    PassabilityGrid grid = PassabilityGrid.build(regions, List.of(new Point(7, 7)));
+
+    assertEquals(PassabilityGrid.NONE, grid.getModifier(0, 0));
+    assertEquals(PassabilityGrid.SWIM, grid.getModifier(2, 2));
+    assertEquals(PassabilityGrid.BLOCK, grid.getModifier(3, 3));
+    assertEquals(PassabilityGrid.BLOCK, grid.getModifier(10, 3), "Outside the zone is blocked");
+    assertTrue(grid.hasDoor(7, 7));
+    assertFalse(grid.hasDoor(6, 7));
+  }
+
+  @Test
+  void testPathAroundWall() {
+    // a wall from top to bottom with a gap at y = 8
+    List<Region> regions = new ArrayList<>();
+    regions.add(new Region("floor", 0, 0, 10, 10, null, 0, FLOOR));
+    regions.add(new Region("wall", 5, 0, 1, 8, null, 1, WALL));
+    PassabilityGrid grid = PassabilityGrid.build(regions, List.of());
+
+    Point[] path = find(grid, new Point(2, 2), new Point(8, 2), PathFinder.DEFAULT_BUDGET);
+    assertEquals(new Point(8, 2), path[path.length - 1]);
+    assertTrue(List.of(path).contains(new Point(5, 8)), "The path goes through the gap");
+    assertEquals(12, path.length);
+    assertValidPath(grid, new Point(2, 2), path);
+  }
+
+  @Test
+  void testWaterAndDoorsCostMore() {
+    List<Region> regions = new ArrayList<>();
+    regions.add(new Region("floor", 0, 0, 9, 5, null, 0, FLOOR));
+    regions.add(new Region("water", 4, 0, 1, 3, null, 1, WATER));
+    regions.add(new Region("wall", 4, 3, 1, 1, null, 1, WALL));
+    PassabilityGrid grid = PassabilityGrid.build(regions, List.of(new Point(4, 4)));
+
+    // a good swimmer crosses the water, someone who can't swim takes the open door
+    Point[] swim =
+        PathFinder.findPath(grid, 0, 20, (x, y) -> 1, new Point(0, 2), new Point(8, 2), 1000);
+    assertEquals(8, swim.length);
+    Point[] walk =
+        PathFinder.findPath(grid, 20, 20, (x, y) -> 1, new Point(0, 2), new Point(8, 2), 1000);
+    assertTrue(List.of(walk).contains(new Point(4, 4)));
+    // behind a locked door, the water is the better choice again
+    Point[] locked =
+        PathFinder.findPath(grid, 20, 20, (x, y) -> 100, new Point(0, 2), new Point(8, 2), 1000);
+    assertFalse(List.of(locked).contains(new Point(4, 4)));
+  }
+
+  @Test
+  void testBudgetGivesBestEstimate() {
+    List<Region> regions = List.of(new Region("floor", 0, 0, 100, 100, null, 0, FLOOR));
+    PassabilityGrid grid = PassabilityGrid.build(regions, List.of());
+
+    Point[] path = find(grid, new Point(0, 0), new Point(99, 0), 10);
+    assertTrue(path.length > 0, "An interrupted search still makes progress");
+    assertEquals(path.length, path[path.length - 1].x);
+    assertValidPath(grid, new Point(0, 0), path);
+  }
+
+  @Test
+  void testNoWayOut() {
+    List<Region> regions = new ArrayList<>();
+    regions.add(new Region("wall", 0, 0, 3, 3, null, 0, WALL));
+    regions.add(new Region("floor", 1, 1, 1, 1, null, 1, FLOOR));
+    regions.add(new Region("floor", 5, 5, 1, 1, null, 1, FLOOR));
+    PassabilityGrid grid = PassabilityGrid.build(regions, List.of());
+
+    assertEquals(0, find(grid, new Point(1, 1), new Point(5, 5), 1000).length);
+    assertEquals(0, find(grid, new Point(1, 1), new Point(1, 1), 1000).length);
+  }
+
+  @Test
+  void testZoneUpdatesGridWhenRegionsChange() {
+    Zone zone = new Zone("zone", 0, 0, null, null, new RTree<>(100, 40));
+    zone.addRegion(new Region("floor", 0, 0, 100, 10, null, 0, FLOOR));
+    PassabilityGrid grid = zone.getPassability();
+    assertEquals(PassabilityGrid.NONE, grid.getModifier(4, 4));
+    assertEquals(PassabilityGrid.NONE, grid.getModifier(90, 4));
+    assertEquals(2, grid.getChunkCount());
+    int version = grid.getVersion();
+
+    zone.addRegion(new Region("wall", 4, 4, 1, 1, null, 1, WALL));
+    assertSame(grid, zone.getPassability());
+    assertNotEquals(version, grid.getVersion());
+    assertEquals(1, grid.getChunkCount(), "Only the changed chunk is cleared");
+    assertEquals(PassabilityGrid.BLOCK, grid.getModifier(4, 4));
+  }
+
+  @Test
+  void testGridLoadsAreaAtOnce() {
+    Zone zone = new Zone("zone", 0, 0, null, null, new RTree<>(100, 40));
+    zone.addRegion(new Region("floor", 0, 0, 100, 100, null, 0, FLOOR));
+    PassabilityGrid grid = zone.getPassability();
+    int version = grid.getVersion();
+    grid.load(new Rectangle(10, 10, 64, 64));
+    assertEquals(9, grid.getChunkCount());
+    assertEquals(version, grid.getVersion(), "Filling in chunks changes nothing");
+
+    grid.load(new Rectangle(0, 0, 32, 32));
+    assertEquals(9, grid.getChunkCount(), "Chunks that are filled in are kept");
+    assertEquals(PassabilityGrid.NONE, grid.getModifier(50, 50));
+    assertEquals(PassabilityGrid.BLOCK, grid.getModifier(150, 50));
+    assertEquals(10, grid.getChunkCount());
+  }
+
+  @Test
+  void testHugeZone() {
+    // as large as the world map, a grid for all of it would take more than a gigabyte
+    Zone zone = new Zone("world", 0, 0, null, null, new RTree<>(100, 40));
+    zone.addRegion(new Region("wall", 0, 0, 40800, 27400, null, 0, WALL));
+    zone.addRegion(new Region("floor", 19000, 13000, 12000, 10, null, 1, FLOOR));
+    zone.addRegion(new Region("wall", 20000, 13000, 1, 9, null, 2, WALL));
+
+    Point from = new Point(19990, 13005);
+    Point to = new Point(20010, 13005);
+    Point[] path = PathFinder.findPath(zone.getPassability(), 0, 0, (x, y) -> 0, from, to, 1000);
+    assertEquals(to, path[path.length - 1]);
+    assertValidPath(zone.getPassability(), from, path);
+
+    // far away, the search leaves the window around the origin
+    Point far = new Point(30000, 13005);
+    path = PathFinder.findPath(zone.getPassability(), 0, 0, (x, y) -> 0, from, far, 10_000);
+    assertTrue(path[path.length - 1].x > from.x + 512);
+    assertValidPath(zone.getPassability(), from, path);
+    assertTrue(zone.getPassability().getChunkCount() < 1000);
+  }
+
+  @Test
+  void testConcurrentSearches() throws Exception {
+    PassabilityGrid grid = createMaze(200);
+    Point[] expected = find(grid, new Point(1, 1), new Point(197, 197), 100_000);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Point[]>> results = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        results.add(
+            executor.submit(() -> find(grid, new Point(1, 1), new Point(197, 197), 100_000)));
+      }
+      for (Future<Point[]> result : results) {
+        assertArrayEquals(expected, result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testPerformance() {
+    PassabilityGrid grid = createMaze(500);
+    Point from = new Point(1, 1);
+    Point to = new Point(497, 497);
+    for (int i = 0; i < 5; i++) {
+      find(grid, from, to, 1_000_000);
+    }
+
+    int rounds = 20;
+    Point[][] path = new Point[1][];
+    long time =
+        PerformanceHarness.measure(
+                () -> {
+                  for (int i = 0; i < rounds; i++) {
+                    path[0] = find(grid, from, to, 1_000_000);
+                  }
+                })
+            .getDurationNanos();
+    System.out.printf(
+        "[PERF] A* through a 500x500 maze: %s per search, path length %d%n",
+        PerformanceHarness.formatDuration(time / rounds), path[0].length);
+    assertEquals(to, path[0][path[0].length - 1]);
+  }
+
+  private static Point[] find(PassabilityGrid grid, Point from, Point to, int budget) {
+    return PathFinder.findPath(grid, 0, 0, (x, y) -> 0, from, to, budget);
+  }
+
+  /** Walls every fourth column, with the gap alternating between the top and the bottom. */
+  private static PassabilityGrid createMaze(int size) {
+    List<Region> regions = new ArrayList<>();
+    regions.add(new Region("floor", 0, 0, size, size, null, 0, FLOOR));
+    for (int x = 4, i = 0; x < size - 4; x += 4, i++) {
+      regions.add(new Region("wall", x, i % 2 == 0 ? 0 : 2, 1, size - 2, null, 1, WALL));
+    }
+    return PassabilityGrid.build(regions, List.of());
+  }
+
+  private static void assertValidPath(PassabilityGrid grid, Point from, Point[] path) {
+    Point previous = from;
+    for (Point p : path) {
+      assertTrue(Math.abs(p.x - previous.x) <= 1 && Math.abs(p.y - previous.y) <= 1);
+      assertNotEquals(PassabilityGrid.BLOCK, grid.getModifier(p.x, p.y));
+      previous = p;
+    }
+  }
+}
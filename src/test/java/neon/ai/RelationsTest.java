@@ -0,0 +1,54 @@
+package neon.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import neon.entities.Creature;
+import neon.entities.components.FactionComponent;
+import neon.resources.RCreature;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link Relations}. */
+class RelationsTest {
+
+  @Test
+  void testSpeciesAreInterned() {
+    Creature rat = new Creature("rat", 1, new RCreature("relations-rat"));
+    Creature other = new Creature("rat", 2, new RCreature("relations-rat"));
+    Creature wolf = new Creature("wolf", 3, new RCreature("relations-wolf"));
+
+    assertEquals(rat.getSpeciesIndex(), other.getSpeciesIndex());
+    assertNotEquals(rat.getSpeciesIndex(), wolf.getSpeciesIndex());
+    assertEquals(
+        Relations.SAME_SPECIES,
+        Relations.getSpeciesRelation(rat.getSpeciesIndex(), other.getSpeciesIndex()));
+    assertEquals(0, Relations.getSpeciesRelation(rat.getSpeciesIndex(), wolf.getSpeciesIndex()));
+
+    Relations.setSpeciesRelation("relations-wolf", "relations-rat", 20);
+    assertEquals(20, Relations.getSpeciesRelation(wolf.getSpeciesIndex(), rat.getSpeciesIndex()));
+    assertEquals(0, Relations.getSpeciesRelation(rat.getSpeciesIndex(), wolf.getSpeciesIndex()));
+  }
+
+  @Test
+  void testFactions() {
+    FactionComponent guard = new FactionComponent(1);
+    guard.addFaction("relations-guards", 2);
+    guard.addFaction("relations-town", 0);
+    guard.addFaction("relations-town", 1);
+    assertEquals(2, guard.getFactionIndices().length);
+    assertTrue(guard.isMember("relations-guards"));
+
+    int guards = Relations.getFaction("relations-guards");
+    int thieves = Relations.getFaction("relations-thieves");
+    assertEquals(Relations.SAME_FACTION, Relations.getFactionRelation(guards, guards));
+    assertEquals(0, Relations.getFactionRelation(guards, thieves));
+    Relations.setFactionRelation("relations-guards", "relations-thieves", -30);
+    assertEquals(-30, Relations.getFactionRelation(guards, thieves));
+
+    // the matrix grows when new factions come along
+    for (int i = 0; i < 100; i++) {
+      int faction = Relations.getFaction("relations-" + i);
+      assertEquals(Relations.SAME_FACTION, Relations.getFactionRelation(faction, faction));
+    }
+    assertEquals(-30, Relations.getFactionRelation(guards, thieves));
+  }
+}
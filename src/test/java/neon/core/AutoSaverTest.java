@@ -0,0 +1,125 @@
+package neon.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import neon.core.event.TurnEvent;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link AutoSaver}.
+ *
+ * <p>The saver only records which snapshots it took and wrote, so the tests can check the turn
+ * interval, the replacement of queued snapshots and when space reuse is turned off.
+ */
+class AutoSaverTest {
+
+  @Test
+  void testSavesEveryIntervalTurns() {
+    RecordingSaver saver = new RecordingSaver();
+    ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    AutoSaver autoSaver = new AutoSaver(saver, 10, tasks::add);
+
+    for (int turn = 3; turn <= 30; turn++) {
+      autoSaver.tick(new TurnEvent(turn));
+      while (!tasks.isEmpty()) {
+        tasks.poll().run();
+      }
+    }
+
+    assertEquals(List.of(1L, 2L), saver.written, "Saves at turns 13 and 23");
+    assertEquals(2, autoSaver.getSaveCount());
+    assertEquals(200, autoSaver.getTotalBytesWritten());
+    assertEquals(100, autoSaver.getLastBytesWritten());
+  }
+
+  @Test
+  void testNewerSnapshotReplacesQueuedOne() {
+    RecordingSaver saver = new RecordingSaver();
+    ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    AutoSaver autoSaver = new AutoSaver(saver, 1, tasks::add);
+
+    autoSaver.save();
+    autoSaver.save();
+    autoSaver.save();
+    assertEquals(1, tasks.size(), "Only one write is queued");
+    assertEquals(List.of(false), saver.reuse);
+
+    tasks.poll().run();
+    assertEquals(List.of(3L), saver.written);
+    assertEquals(2, autoSaver.getReplacedCount());
+    assertEquals(List.of(false, true), saver.reuse);
+  }
+
+  @Test
+  void testOneSaveInFlight() throws Exception {
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    RecordingSaver saver =
+        new RecordingSaver() {
+          @Override
+          long write(Snapshot snapshot) {
+            if (snapshot.sequence() == 1) {
+              writing.countDown();
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+            return super.write(snapshot);
+          }
+        };
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AutoSaver autoSaver = new AutoSaver(saver, 1, executor);
+
+    autoSaver.save();
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+    // the game goes on while the first snapshot is written
+    autoSaver.save();
+    autoSaver.save();
+    assertEquals(List.of(), saver.written);
+    release.countDown();
+
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(List.of(1L, 3L), saver.written);
+    assertEquals(1, autoSaver.getReplacedCount());
+    assertEquals(List.of(false, true), saver.reuse, "Space reuse stays off between the saves");
+  }
+
+  private static class RecordingSaver extends GameSaver {
+    final List<Long> written = Collections.synchronizedList(new ArrayList<>());
+    final List<Boolean> reuse = Collections.synchronizedList(new ArrayList<>());
+    private long sequence;
+
+    RecordingSaver() {
+      super(null, null);
+    }
+
+    @Override
+    Snapshot snapshot() {
+      return new Snapshot(++sequence, new File("saves/test"), null, Map.of());
+    }
+
+    @Override
+    long write(Snapshot snapshot) {
+      written.add(snapshot.sequence());
+      return 100;
+    }
+
+    @Override
+    void setReuseSpace(boolean reuse) {
+      this.reuse.add(reuse);
+    }
+  }
+}
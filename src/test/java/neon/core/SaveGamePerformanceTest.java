@@ -0,0 +1,62 @@
+package neon.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import neon.systems.files.XMLTranslator;
+import neon.test.PerformanceHarness;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the save and load round trip of the binary save format with the old xml format, for a
+ * player with a large inventory and a full task queue.
+ */
+class SaveGamePerformanceTest {
+  private static final int ROUNDS = 50;
+
+  @Test
+  void testBinaryRoundTripIsFasterThanXML() {
+    SaveGame save = SaveGameTranslatorTest.createSave(2_000, 500);
+    SaveGameTranslator binary = new SaveGameTranslator();
+    XMLTranslator xml = new XMLTranslator();
+
+    // warm up both paths
+    for (int i = 0; i < 10; i++) {
+      binary.translate(new ByteArrayInputStream(binary.translate(save).toByteArray()));
+      SaveGame.fromDocument(
+          xml.translate(new ByteArrayInputStream(xml.translate(save.toDocument()).toByteArray())));
+    }
+
+    int binarySize = binary.translate(save).size();
+    int xmlSize = xml.translate(save.toDocument()).size();
+
+    long binaryTime =
+        PerformanceHarness.measure(
+                () -> {
+                  for (int i = 0; i < ROUNDS; i++) {
+                    byte[] bytes = binary.translate(save).toByteArray();
+                    binary.translate(new ByteArrayInputStream(bytes));
+                  }
+                })
+            .getDurationNanos();
+    long xmlTime =
+        PerformanceHarness.measure(
+                () -> {
+                  for (int i = 0; i < ROUNDS; i++) {
+                    byte[] bytes = xml.translate(save.toDocument()).toByteArray();
+                    SaveGame.fromDocument(xml.translate(new ByteArrayInputStream(bytes)));
+                  }
+                })
+            .getDurationNanos();
+
+    System.out.printf(
+        "[PERF] Save game round trip: binary=%s (%d bytes), xml=%s (%d bytes)%n",
+        PerformanceHarness.formatDuration(binaryTime / ROUNDS),
+        binarySize,
+        PerformanceHarness.formatDuration(xmlTime / ROUNDS),
+        xmlSize);
+
+    assertTrue(binarySize < xmlSize, "The binary format should be smaller");
+    assertTrue(binaryTime < xmlTime, "The binary format should be faster");
+  }
+}
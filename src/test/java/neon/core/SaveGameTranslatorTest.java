@@ -0,0 +1,160 @@
+package neon.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import neon.entities.Player;
+import neon.entities.property.Feat;
+import neon.entities.property.Gender;
+import neon.entities.property.Skill;
+import neon.magic.Effect;
+import neon.resources.RSpell.SpellType;
+import neon.systems.files.XMLTranslator;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link SaveGameTranslator} and the xml export of {@link SaveGame}. */
+class SaveGameTranslatorTest {
+
+  @Test
+  void testBinaryRoundTrip() {
+    SaveGame save = createSave(10, 3);
+    SaveGameTranslator translator = new SaveGameTranslator();
+    byte[] bytes = translator.translate(save).toByteArray();
+
+    assertSaveEquals(save, translator.translate(new ByteArrayInputStream(bytes)));
+  }
+
+  @Test
+  void testXMLRoundTrip() {
+    SaveGame save = createSave(10, 3);
+    XMLTranslator translator = new XMLTranslator();
+    byte[] bytes = translator.translate(save.toDocument()).toByteArray();
+
+    assertSaveEquals(
+        save, SaveGame.fromDocument(translator.translate(new ByteArrayInputStream(bytes))));
+  }
+
+  @Test
+  void testUnknownSectionsAreSkipped() throws IOException {
+    byte[] bytes = new SaveGameTranslator().translate(createSave(1, 1)).toByteArray();
+
+    // insert a section from a newer version right after the header
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    DataOutputStream data = new DataOutputStream(out);
+    data.write(bytes, 0, 6);
+    data.writeByte(99);
+    data.writeInt(3);
+    data.write(new byte[] {1, 2, 3});
+    data.write(bytes, 6, bytes.length - 6);
+
+    SaveGame save =
+        new SaveGameTranslator()
+            .deserialize(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+    assertEquals(1234, save.ticks());
+    assertEquals("Bilbo", save.player().name());
+  }
+
+  @Test
+  void testNewerVersionsAreRejected() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(SaveGameTranslator.MAGIC);
+    data.writeShort(SaveGameTranslator.VERSION + 1);
+    data.writeByte(SaveGameTranslator.END);
+    assertThrows(
+        IOException.class,
+        () ->
+            new SaveGameTranslator()
+                .deserialize(new DataInputStream(new ByteArrayInputStream(out.toByteArray()))));
+  }
+
+  @Test
+  void testOtherFilesAreRejected() {
+    byte[] bytes = "<save></save>".getBytes();
+    assertThrows(
+        IOException.class,
+        () ->
+            new SaveGameTranslator()
+                .deserialize(new DataInputStream(new ByteArrayInputStream(bytes))));
+    assertNull(new SaveGameTranslator().translate(new ByteArrayInputStream(bytes)));
+  }
+
+  static SaveGame createSave(int items, int events) {
+    EnumMap<Skill, Integer> skills = new EnumMap<>(Skill.class);
+    for (Skill skill : Skill.values()) {
+      skills.put(skill, skill.ordinal() * 3);
+    }
+    long[] uids = new long[items];
+    for (int i = 0; i < items; i++) {
+      uids[i] = Long.MIN_VALUE + i * 7;
+    }
+    SaveGame.PlayerData player =
+        new SaveGame.PlayerData(
+            "Bilbo",
+            "dwarf",
+            Gender.MALE,
+            Player.Specialisation.stealth,
+            "s_alraun",
+            -5,
+            2,
+            40,
+            17,
+            skills,
+            new int[] {10, 11, 12, 13, 14, 15},
+            250,
+            uids,
+            List.of("fireball", "heal"),
+            List.of(Feat.BREW_POTION, Feat.TWO_WEAPON_FIGHTING));
+
+    List<SaveGame.Quest> journal = new ArrayList<>();
+    List<SaveGame.Task> tasks = new ArrayList<>();
+    List<SaveGame.TimedTask> timers = new ArrayList<>();
+    for (int i = 0; i < events; i++) {
+      journal.add(new SaveGame.Quest("quest" + i, i * 10, "Find the ring <b>" + i + "</b>"));
+      tasks.add(new SaveGame.Task("event" + i, "print('" + i + "');"));
+      timers.add(new SaveGame.TimedTask(100 + i, 5, 200 + i, "tick(" + i + ");", null));
+      timers.add(
+          new SaveGame.TimedTask(
+              100 + i,
+              1,
+              110 + i,
+              null,
+              new SaveGame.SpellData(
+                  Effect.LEVITATE, 2.5f, null, SpellType.SPELL, i % 2 == 0 ? null : -9L, 42L)));
+    }
+    return new SaveGame(1234, -5L << 40, player, journal, tasks, timers);
+  }
+
+  static void assertSaveEquals(SaveGame expected, SaveGame actual) {
+    assertEquals(expected.ticks(), actual.ticks());
+    assertEquals(expected.seed(), actual.seed());
+    assertEquals(expected.journal(), actual.journal());
+    assertEquals(expected.tasks(), actual.tasks());
+    assertEquals(expected.timers(), actual.timers());
+
+    SaveGame.PlayerData player = expected.player();
+    SaveGame.PlayerData loaded = actual.player();
+    assertEquals(player.name(), loaded.name());
+    assertEquals(player.race(), loaded.race());
+    assertEquals(player.gender(), loaded.gender());
+    assertEquals(player.specialisation(), loaded.specialisation());
+    assertEquals(player.sign(), loaded.sign());
+    assertEquals(player.map(), loaded.map());
+    assertEquals(player.level(), loaded.level());
+    assertEquals(player.x(), loaded.x());
+    assertEquals(player.y(), loaded.y());
+    assertEquals(player.skills(), loaded.skills());
+    assertArrayEquals(player.stats(), loaded.stats());
+    assertEquals(player.money(), loaded.money());
+    assertArrayEquals(player.items(), loaded.items());
+    assertEquals(player.spells(), loaded.spells());
+    assertEquals(player.feats(), loaded.feats());
+  }
+}
@@ -0,0 +1,108 @@
+package neon.core.handlers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import neon.entities.Creature;
+import neon.maps.Zone;
+import neon.resources.RCreature;
+import neon.systems.timing.Scheduler;
+import neon.util.spatial.RTree;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link CoarseSimulation}. */
+class CoarseSimulationTest {
+  private final HashMap<Long, Creature> creatures = new HashMap<>();
+  private final Zone zone = new Zone("zone", 0, 0, null, null, new RTree<>(100, 40));
+  private final Scheduler scheduler = new Scheduler();
+
+  @Test
+  void testRingIsUpdatedWithinBudget() {
+    for (long uid = 1; uid <= 10; uid++) {
+      add(uid, 20 + (int) uid, 20);
+    }
+    CoarseSimulation simulation = new CoarseSimulation(40, 3, 100, creatures::get);
+    simulation.enter(zone, 1);
+
+    assertEquals(3, simulation.update(zone, new Point(20, 20), 1, scheduler));
+    assertEquals(3, simulation.update(zone, new Point(20, 20), 2, scheduler));
+    assertEquals(3, simulation.update(zone, new Point(20, 20), 3, scheduler));
+    assertEquals(1, simulation.update(zone, new Point(20, 20), 4, scheduler));
+    assertEquals(4, simulation.getLastTurn(10), "Updated in the fourth turn");
+    assertEquals(1, simulation.getLastTurn(1));
+
+    // the next round makes up for all the turns since the previous update
+    Creature first = creatures.get(1L);
+    first.getHealthComponent().heal(-100);
+    assertEquals(3, simulation.update(zone, new Point(20, 20), 5, scheduler));
+    assertEquals(-100 + 4 * 0.1f, first.getHealthComponent().getHealthMod(), 0.001);
+  }
+
+  @Test
+  void testOnlyCreaturesInTheRing() {
+    add(1, 5, 5); // near the player, acts every turn
+    add(2, 30, 5);
+    add(3, 90, 5); // too far away
+    scheduler.wake(1, 0);
+    CoarseSimulation simulation = new CoarseSimulation(40, 10, 100, creatures::get);
+    simulation.enter(zone, 1);
+
+    assertEquals(1, simulation.update(zone, new Point(5, 5), 3, scheduler));
+    assertEquals(3, simulation.getLastTurn(2));
+    assertEquals(0, simulation.getLastTurn(3), "Still where it was when the zone was entered");
+  }
+
+  @Test
+  void testCatchUpWhenZoneIsEntered() {
+    add(1, 100, 100);
+    add(2, 0, 0);
+    creatures.get(1L).getHealthComponent().heal(-100);
+    creatures.get(2L).getHealthComponent().heal(-100);
+    CoarseSimulation simulation = new CoarseSimulation(40, 10, 50, creatures::get);
+    simulation.enter(zone, 1);
+    simulation.leave(zone, 10);
+    simulation.enter(zone, 31);
+
+    // turns 11 to 30 are made up for, 31 is simulated as usual
+    assertEquals(-100 + 20 * 0.1f, creatures.get(1L).getHealthComponent().getHealthMod(), 0.001);
+    assertEquals(30, simulation.getLastTurn(1));
+
+    simulation.leave(zone, 31);
+    simulation.enter(zone, 1000);
+    assertEquals(-98 + 50 * 0.1f, creatures.get(2L).getHealthComponent().getHealthMod(), 0.001);
+  }
+
+  @Test
+  void testOnlyWoundedCreaturesAreChanged() {
+    add(1, 20, 20);
+    add(2, 21, 20);
+    creatures.get(2L).getHealthComponent().heal(-10);
+    List<Long> changed = new ArrayList<>();
+    CoarseSimulation simulation =
+        new CoarseSimulation(
+            40,
+            10,
+            100,
+            creatures::get,
+            uid -> {
+              changed.add(uid);
+              return creatures.get(uid);
+            });
+    simulation.enter(zone, 1);
+
+    assertEquals(2, simulation.update(zone, new Point(20, 20), 3, scheduler));
+    assertEquals(List.of(2L), changed, "A rested creature is only read");
+  }
+
+  private void add(long uid, int x, int y) {
+    RCreature species = new RCreature("rat");
+    species.con = 10;
+    Creature creature = new Creature("rat", uid, species);
+    creature.getShapeComponent().setLocation(x, y);
+    creatures.put(uid, creature);
+    zone.addCreature(creature);
+  }
+}
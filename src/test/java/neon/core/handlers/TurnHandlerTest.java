@@ -0,0 +1,138 @@
+package neon.core.handlers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import neon.ai.AIFactory;
+import neon.core.DefaultUIEngineContext;
+import neon.core.event.TurnEvent;
+import neon.entities.Creature;
+import neon.entities.Player;
+import neon.entities.components.DerivedStats;
+import neon.maps.GridFixtures;
+import neon.maps.Region;
+import neon.maps.World;
+import neon.maps.Zone;
+import neon.resources.RCreature;
+import neon.resources.ResourceManager;
+import neon.systems.timing.Scheduler;
+import neon.test.MapDbTestHelper;
+import neon.test.TestEngineContext;
+import neon.util.mapstorage.MapStore;
+import net.engio.mbassy.bus.MBassador;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the action delays and encumbrance of {@link TurnHandler}, and for whole turns. */
+class TurnHandlerTest {
+  private static final long SEED = 20131027L;
+  private static final int TURNS = 12;
+
+  @Test
+  void testFasterCreaturesActMoreOften() {
+    assertEquals(Scheduler.TURN, TurnHandler.getDelay(10, 10), "As fast as the player");
+    assertEquals(Scheduler.TURN / 2, TurnHandler.getDelay(20, 10), "Twice as fast");
+    assertEquals(Scheduler.TURN * 2, TurnHandler.getDelay(5, 10), "Half as fast");
+    assertEquals(400, TurnHandler.getDelay(25, 10));
+  }
+
+  @Test
+  void testDelayWithoutSpeed() {
+    assertEquals(Scheduler.TURN, TurnHandler.getDelay(0, 10));
+    assertEquals(Scheduler.TURN, TurnHandler.getDelay(10, 0));
+    assertEquals(1, TurnHandler.getDelay(Integer.MAX_VALUE, 1), "Never zero");
+  }
+
+  @Test
+  void testEncumbrance() {
+    assertEquals(DerivedStats.UNBURDENED, TurnHandler.getEncumbrance(30, 10));
+    assertEquals(1, TurnHandler.getEncumbrance(31, 10));
+    assertEquals(2, TurnHandler.getEncumbrance(61, 10));
+    assertEquals(DerivedStats.OVERLOADED, TurnHandler.getEncumbrance(91, 10));
+  }
+
+  @Test
+  void testParallelDecisionsMatchSerialTurns() throws Exception {
+    assertEquals(run(SEED, false, TURNS), run(SEED, true, TURNS));
+  }
+
+  @Test
+  void testSameSeedGivesSameCreatures() throws Exception {
+    List<String> creatures = run(SEED, true, TURNS);
+    assertNotEquals(run(SEED, true, 0), creatures, "The creatures did something");
+    assertEquals(creatures, run(SEED, true, TURNS));
+  }
+
+  /*
+   * Lets a group of wandering and fleeing creatures around the player act for a number of turns,
+   * in a new game with the given seed. Returns where every creature ended up and its health.
+   */
+  private static List<String> run(long seed, boolean parallel, int turns) throws Exception {
+    MapStore db = MapDbTestHelper.createInMemoryDB();
+    try {
+      TestEngineContext.initialize(db);
+      TestEngineContext.loadTestResourceViaConfig("src/test/resources/neon.ini.sampleMod1.xml");
+      DefaultUIEngineContext context = TestEngineContext.getTestUiEngineContext();
+      context.setBus(new MBassador<>());
+      context.getTimer().setSeed(seed);
+      ResourceManager resources = TestEngineContext.getTestResources();
+      resources.addResource(GridFixtures.FLOOR, "terrain");
+      resources.addResource(GridFixtures.WALL, "terrain");
+      resources.addResource(GridFixtures.WATER, "terrain");
+
+      TestEngineContext.getTestAtlas()
+          .setCurrentMap(new World("turns", 1, TestEngineContext.getTestZoneFactory()));
+      Zone zone = context.getAtlas().getCurrentZone();
+      zone.addRegion(new Region("floor", 0, 0, 40, 40, null, 0, GridFixtures.FLOOR));
+      zone.addRegion(new Region("wall", 24, 10, 1, 8, null, 1, GridFixtures.WALL));
+      zone.addRegion(new Region("water", 10, 24, 6, 6, null, 1, GridFixtures.WATER));
+
+      Player player = context.getPlayer();
+      player.species.speed = 10;
+      player.getShapeComponent().setLocation(20, 20);
+      RCreature[] species = {
+        getSpecies("wanderer", 0, 0, 10, resources), getSpecies("coward", 100, 101, 15, resources)
+      };
+      AIFactory aiFactory = new AIFactory(context);
+      List<Long> uids = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        RCreature kind = species[i % 2];
+        Creature creature = new Creature(kind.id, context.getStore().createNewEntityUID(), kind);
+        creature.brain = aiFactory.getAI(creature);
+        creature.getShapeComponent().setLocation(14 + i % 4 * 4, 14 + i / 4 * 4);
+        context.getStore().addEntity(creature);
+        zone.addCreature(creature);
+        uids.add(creature.getUID());
+      }
+
+      TurnHandler handler = new TurnHandler(context, Rectangle::new, parallel);
+      for (int i = 0; i < turns; i++) {
+        handler.tick(new TurnEvent(context.getTimer().addTick()));
+      }
+      List<String> creatures = new ArrayList<>();
+      for (long uid : uids) {
+        Creature creature = (Creature) context.getStore().readEntity(uid);
+        Point position = creature.getShapeComponent().getLocation();
+        int health = creature.getHealthComponent().getHealth();
+        creatures.add(position.x + "," + position.y + " " + health);
+      }
+      return creatures;
+    } finally {
+      TestEngineContext.reset();
+      MapDbTestHelper.cleanup(db);
+    }
+  }
+
+  private static RCreature getSpecies(
+      String id, int aggression, int confidence, int speed, ResourceManager resources) {
+    RCreature species = new RCreature(id);
+    species.aiType = RCreature.AIType.wander;
+    species.aiAggr = aggression;
+    species.aiConf = confidence;
+    species.speed = speed;
+    resources.addResource(species);
+    return species;
+  }
+}
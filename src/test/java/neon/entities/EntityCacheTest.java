@@ -0,0 +1,147 @@
+package neon.entities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import neon.resources.RItem;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link EntityCache}.
+ *
+ * <p>The backing map counts its writes, so the tests can check which entities are written back on
+ * eviction and on flush.
+ */
+class EntityCacheTest {
+
+  @Test
+  void testGetReturnsOneInstancePerUid() {
+    CountingMap store = new CountingMap();
+    store.put(1L, item(1));
+    EntityCache cache = new EntityCache(store, 10);
+
+    Entity first = cache.get(1);
+    assertSame(first, cache.get(1));
+    assertNull(cache.get(2));
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  void testPutIsWrittenOnFlush() {
+    CountingMap store = new CountingMap();
+    EntityCache cache = new EntityCache(store, 10);
+
+    Item item = item(5);
+    cache.put(item);
+    assertTrue(cache.contains(5));
+    assertFalse(store.containsKey(5L), "Entities are only written on flush or eviction");
+
+    assertEquals(1, cache.flush());
+    assertSame(item, store.get(5L));
+    assertEquals(0, cache.flush(), "Clean entities are not written again");
+
+    cache.get(5);
+    assertEquals(0, cache.flush(), "Entities that were only read are not written");
+    cache.get(5, true);
+    assertEquals(1, cache.flush(), "Entities that were handed out to be changed are written");
+  }
+
+  @Test
+  void testWriteStoresBatchAsClean() {
+    CountingMap store = new CountingMap();
+    EntityCache cache = new EntityCache(store, 10);
+
+    cache.write(item(1), item(2), item(3));
+    assertEquals(3, store.writes, "A batch is written right away");
+    assertEquals(3, cache.size());
+    assertEquals(0, cache.flush(), "A written batch is not written again");
+
+    Entity first = cache.get(1, true);
+    assertSame(first, store.get(1L));
+    assertEquals(1, cache.flush());
+  }
+
+  @Test
+  void testEvictionWritesDirtyEntitiesOnly() {
+    CountingMap store = new CountingMap();
+    EntityCache cache = new EntityCache(store, 2);
+    cache.put(item(1));
+    cache.put(item(2));
+    cache.flush();
+    store.writes = 0;
+
+    cache.put(item(3)); // evicts the clean entity 1
+    assertEquals(0, store.writes);
+    cache.get(2);
+    cache.put(item(4)); // evicts entity 3, which was never written
+    assertEquals(1, store.writes);
+    assertTrue(store.containsKey(3L));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  void testEvictedEntitiesInUseKeepTheirIdentity() {
+    CountingMap store = new CountingMap();
+    EntityCache cache = new EntityCache(store, 1);
+    Item held = item(1);
+    cache.put(held);
+    cache.put(item(2));
+
+    // the store hands out a new copy, but the evicted instance is still in use
+    store.put(1L, item(1));
+    assertSame(held, cache.get(1));
+  }
+
+  @Test
+  void testEvictedEntitiesInUseAreFlushed() {
+    CountingMap store = new CountingMap();
+    EntityCache cache = new EntityCache(store, 1);
+    cache.put(item(1));
+    Entity changed = cache.get(1, true);
+    cache.write(item(2)); // evicts entity 1, which is still held and may still change
+    Entity read = cache.get(2);
+    cache.write(item(3)); // evicts entity 2, which was only read
+    store.clear();
+
+    assertEquals(1, cache.flush());
+    assertSame(changed, store.get(1L));
+    assertFalse(store.containsKey(2L));
+    assertEquals(1, cache.flush(), "It may have changed again");
+    assertNotNull(read);
+  }
+
+  @Test
+  void testRemove() {
+    CountingMap store = new CountingMap();
+    EntityCache cache = new EntityCache(store, 10);
+    cache.put(item(1));
+    cache.flush();
+
+    cache.remove(1);
+    assertFalse(cache.contains(1));
+    assertNull(cache.get(1));
+    assertFalse(store.containsKey(1L));
+  }
+
+  private static Item item(long uid) {
+    return new Item(uid, new RItem("test-item", RItem.Type.item));
+  }
+
+  @SuppressWarnings("serial")
+  private static class CountingMap extends HashMap<Long, Entity> {
+    private int writes;
+
+    @Override
+    public Entity put(Long key, Entity value) {
+      writes++;
+      return super.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends Long, ? extends Entity> m) {
+      m.forEach(this::put);
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package neon.entities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link UIDAllocator}. */
+class UIDAllocatorTest {
+
+  @Test
+  void testUidsAreSequential() {
+    UIDAllocator allocator = new UIDAllocator(Long.MIN_VALUE, -1, 16, null, "entity");
+    for (long i = 0; i < 100; i++) {
+      assertEquals(Long.MIN_VALUE + i, allocator.next());
+    }
+  }
+
+  @Test
+  void testReloadedAllocatorContinuesAfterReservedBlock() {
+    Map<String, Long> metadata = new HashMap<>();
+    UIDAllocator first = new UIDAllocator(-1000, -1, 10, metadata, "entity");
+    for (int i = 0; i < 15; i++) {
+      first.next();
+    }
+    assertEquals(-980L, metadata.get("entity"), "Two blocks should be reserved");
+
+    // a reloaded game skips the rest of the last block
+    UIDAllocator second = new UIDAllocator(-1000, -1, 10, metadata, "entity");
+    assertEquals(-980, second.next());
+  }
+
+  @Test
+  void testRangeRunsOut() {
+    UIDAllocator allocator = new UIDAllocator(-3, -1, 2, null, "map");
+    assertEquals(-3, allocator.next());
+    assertEquals(-2, allocator.next());
+    assertEquals(-1, allocator.next());
+    assertThrows(IllegalStateException.class, allocator::next);
+  }
+
+  @Test
+  void testConcurrentUidsAreUnique() throws Exception {
+    Map<String, Long> metadata = new ConcurrentHashMap<>();
+    UIDAllocator allocator = new UIDAllocator(Long.MIN_VALUE, -1, 64, metadata, "entity");
+    Set<Long> uids = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                for (int i = 0; i < 10_000; i++) {
+                  assertTrue(uids.add(allocator.next()));
+                }
+              }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(40_000, uids.size());
+    long max = uids.stream().mapToLong(Long::longValue).max().getAsLong();
+    assertTrue(max < metadata.get("entity"), "Every uid should lie in a reserved block");
+  }
+}
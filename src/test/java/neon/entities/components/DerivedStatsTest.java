@@ -0,0 +1,74 @@
+package neon.entities.components;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import neon.entities.Creature;
+import neon.entities.property.Skill;
+import neon.entities.property.Slot;
+import neon.magic.Effect;
+import neon.magic.Spell;
+import neon.resources.RCreature;
+import neon.resources.RSpell.SpellType;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link DerivedStats} and the modification count of {@link Creature}. */
+class DerivedStatsTest {
+
+  @Test
+  void testCachedUntilCreatureChanges() {
+    Creature creature = new Creature("rat", 5, new RCreature("rat"));
+    DerivedStats derived = creature.getDerivedComponent();
+    assertSame(derived, creature.getDerivedComponent());
+    assertFalse(derived.hasWeight(creature.getModCount()), "Nothing cached yet");
+
+    derived.setWeight(creature.getModCount(), 12);
+    derived.setSpeed(creature.getModCount(), 8, DerivedStats.UNBURDENED);
+    assertTrue(derived.hasWeight(creature.getModCount()));
+    assertTrue(derived.hasSpeed(creature.getModCount()));
+    assertEquals(12, derived.getWeight());
+    assertEquals(8, derived.getSpeed());
+
+    creature.getInventoryComponent().addItem(42);
+    assertFalse(derived.hasWeight(creature.getModCount()), "Picked up an item");
+  }
+
+  @Test
+  void testEveryChangeInvalidates() {
+    Creature creature = new Creature("rat", 5, new RCreature("rat"));
+    Spell burden = new Spell(creature, null, Effect.BURDEN, 10, null, SpellType.SPELL);
+    Runnable[] changes = {
+      () -> creature.getInventoryComponent().addItem(1),
+      () -> creature.getInventoryComponent().put(Slot.WEAPON, 1),
+      () -> creature.getInventoryComponent().remove(Slot.WEAPON),
+      () -> creature.getInventoryComponent().removeItem(1),
+      () -> creature.addActiveSpell(burden),
+      () -> creature.removeActiveSpell(burden),
+      () -> creature.setSkill(Skill.SWIMMING, 20),
+      () -> creature.getStatsComponent().addStr(2),
+      () -> creature.getStatsComponent().addSpeed(-3)
+    };
+    DerivedStats derived = creature.getDerivedComponent();
+    for (Runnable change : changes) {
+      derived.setWeight(creature.getModCount(), 1);
+      change.run();
+      assertFalse(derived.hasWeight(creature.getModCount()));
+    }
+    assertEquals(new RCreature("rat").speed - 3, creature.getStatsComponent().getSpd());
+  }
+
+  @Test
+  void testHitsAndMisses() {
+    DerivedStats derived = new DerivedStats(1);
+    long hits = DerivedStats.getHits();
+    long misses = DerivedStats.getMisses();
+    derived.setWeight(3, 10);
+    derived.hasWeight(3);
+    derived.hasWeight(3);
+    derived.hasWeight(4);
+    derived.invalidate();
+    derived.hasWeight(3);
+    // other tests may run at the same time
+    assertTrue(DerivedStats.getHits() - hits >= 2);
+    assertTrue(DerivedStats.getMisses() - misses >= 2);
+  }
+}
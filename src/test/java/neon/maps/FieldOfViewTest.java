@@ -0,0 +1,156 @@
+package neon.maps;
+
+import static neon.maps.GridFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import neon.entities.Container;
+import neon.entities.Door;
+import neon.entities.MemoryUIDStore;
+import neon.entities.UIDStore;
+import neon.entities.components.Lock;
+import neon.resources.RItem;
+import neon.test.PerformanceHarness;
+import neon.util.spatial.RTree;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link FieldOfView}. */
+class FieldOfViewTest {
+  @Test
+  void testOpenRoom() {
+    PassabilityGrid grid =
+        PassabilityGrid.build(
+            List.of(new Region("floor", 0, 0, 40, 40, null, 0, FLOOR)), List.of());
+    FieldOfView.View view = FieldOfView.build(grid, List.of()).getView(20, 20, 8);
+
+    int expected = 0;
+    for (int dx = -8; dx <= 8; dx++) {
+      for (int dy = -8; dy <= 8; dy++) {
+        boolean inside = dx * dx + dy * dy < 64;
+        assertEquals(inside, view.contains(20 + dx, 20 + dy), dx + "," + dy);
+        expected += inside ? 1 : 0;
+      }
+    }
+    assertEquals(expected, view.count());
+  }
+
+  @Test
+  void testWallsAndDoorsCastShadows() {
+    // a wall from top to bottom with a door at y = 10
+    List<Region> regions = new ArrayList<>();
+    regions.add(new Region("floor", 0, 0, 20, 20, null, 0, FLOOR));
+    regions.add(new Region("wall", 10, 0, 1, 10, null, 1, WALL));
+    regions.add(new Region("wall", 10, 11, 1, 9, null, 1, WALL));
+    PassabilityGrid grid = PassabilityGrid.build(regions, List.of(new Point(10, 10)));
+
+    FieldOfView closed = FieldOfView.build(grid, List.of(new Point(10, 10)));
+    assertTrue(closed.sees(new Point(5, 10), new Point(9, 10), 16));
+    assertTrue(closed.sees(new Point(5, 10), new Point(10, 10), 16), "The door itself");
+    assertFalse(closed.sees(new Point(5, 10), new Point(12, 10), 16));
+    assertFalse(closed.sees(new Point(5, 5), new Point(15, 5), 16), "Behind the wall");
+
+    FieldOfView open = FieldOfView.build(grid, List.of());
+    assertTrue(open.sees(new Point(5, 10), new Point(15, 10), 16));
+    assertTrue(open.sees(new Point(5, 10), new Point(14, 11), 16), "Through the doorway");
+    assertFalse(open.sees(new Point(5, 5), new Point(15, 5), 16));
+    assertFalse(open.sees(new Point(5, 10), new Point(19, 3), 16), "Too steep");
+  }
+
+  @Test
+  void testViewsAreCached() {
+    PassabilityGrid grid =
+        PassabilityGrid.build(
+            List.of(new Region("floor", 0, 0, 40, 40, null, 0, FLOOR)), List.of());
+    FieldOfView fov = FieldOfView.build(grid, List.of());
+    FieldOfView.View view = fov.getView(10, 10, 8);
+    assertSame(view, fov.getView(10, 10, 8));
+    assertNotSame(view, fov.getView(10, 10, 9));
+    assertNotSame(view, fov.getView(11, 10, 8));
+  }
+
+  @Test
+  void testZoneRebuildsWhenDoorsChange() {
+    UIDStore store = new MemoryUIDStore();
+    Zone zone = new Zone("zone", 0, 0, store, null, new RTree<>(100, 40));
+    zone.addRegion(new Region("floor", 0, 0, 10, 10, null, 0, FLOOR));
+    Door door = new Door(1, new RItem.Door("door", RItem.Type.door));
+    door.getShapeComponent().setLocation(2, 2);
+    door.lock.open();
+    store.addEntity(door);
+    zone.addItem(door);
+    FieldOfView fov = zone.getFieldOfView();
+    assertSame(fov, zone.getFieldOfView());
+    assertFalse(fov.isOpaque(2, 2));
+
+    int changes = zone.getEntityChanges();
+    zone.changeLock(door.lock, Lock::close);
+    assertNotSame(fov, zone.getFieldOfView(), "The door was closed");
+    assertEquals(changes + 1, zone.getEntityChanges(), "The door is drawn again");
+    fov = zone.getFieldOfView();
+    assertTrue(fov.isOpaque(2, 2));
+    zone.changeLock(door.lock, Lock::close);
+    assertSame(fov, zone.getFieldOfView(), "The door was closed already");
+
+    Container chest = new Container(2, new RItem("chest", RItem.Type.container));
+    store.addEntity(chest);
+    zone.changeLock(chest.lock, Lock::close);
+    assertTrue(chest.lock.isClosed());
+    assertSame(fov, zone.getFieldOfView(), "Containers don't block the view");
+
+    zone.addRegion(new Region("wall", 4, 4, 1, 1, null, 1, WALL));
+    assertTrue(zone.getFieldOfView().isOpaque(4, 4));
+  }
+
+  @Test
+  void testPerformance() {
+    int creatures = 200;
+    int turns = 50;
+    PassabilityGrid grid = createRooms(500);
+    FieldOfView fov = FieldOfView.build(grid, List.of());
+    Random random = new Random(11);
+    List<Point> positions = new ArrayList<>();
+    while (positions.size() < creatures) {
+      int x = random.nextInt(500);
+      int y = random.nextInt(500);
+      if (grid.getModifier(x, y) != PassabilityGrid.BLOCK) {
+        positions.add(new Point(x, y));
+      }
+    }
+    Point player = new Point(250, 250);
+
+    // every creature moves every turn, so nothing comes from the cache
+    int[] seen = new int[1];
+    Runnable moving =
+        () -> {
+          for (int turn = 0; turn < turns; turn++) {
+            for (Point p : positions) {
+              if (fov.getView(p.x + turn % 10, p.y, 16).contains(player.x, player.y)) {
+                seen[0]++;
+              }
+            }
+          }
+        };
+    Runnable standing =
+        () -> {
+          for (int turn = 0; turn < turns; turn++) {
+            for (Point p : positions) {
+              fov.sees(p, player, 16);
+            }
+          }
+        };
+    moving.run();
+    standing.run();
+
+    long movingTime = PerformanceHarness.measure(moving).getDurationNanos();
+    long standingTime = PerformanceHarness.measure(standing).getDurationNanos();
+    System.out.printf(
+        "[PERF] %d creatures on 500x500, radius 16: %s per turn, %s per turn from the cache%n",
+        creatures,
+        PerformanceHarness.formatDuration(movingTime / turns),
+        PerformanceHarness.formatDuration(standingTime / turns));
+    assertTrue(standingTime < movingTime, "Creatures that don't move don't look again");
+  }
+}
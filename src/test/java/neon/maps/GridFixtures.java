@@ -0,0 +1,42 @@
+package neon.maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import neon.resources.RTerrain;
+
+/**
+ * Terrain and layouts for tests of the passability grid and what is computed from it.
+ *
+ * <p>The grids are built from plain regions, so no game context is needed.
+ */
+public final class GridFixtures {
+  public static final RTerrain FLOOR = terrain("floor", Region.Modifier.NONE);
+  public static final RTerrain WALL = terrain("wall", Region.Modifier.BLOCK);
+  public static final RTerrain WATER = terrain("water", Region.Modifier.SWIM);
+
+  private GridFixtures() {}
+
+  /**
+   * @return a terrain type with the given movement modifier
+   */
+  public static RTerrain terrain(String id, Region.Modifier modifier) {
+    RTerrain terrain = new RTerrain(id);
+    terrain.modifier = modifier;
+    return terrain;
+  }
+
+  /** Rooms of 10 by 10 with an opening in the middle of every wall. */
+  public static PassabilityGrid createRooms(int size) {
+    List<Region> regions = new ArrayList<>();
+    regions.add(new Region("floor", 0, 0, size, size, null, 0, FLOOR));
+    for (int i = 0; i < size; i += 10) {
+      for (int j = 0; j < size; j += 10) {
+        regions.add(new Region("wall", i, j, 4, 1, null, 1, WALL));
+        regions.add(new Region("wall", i + 6, j, 4, 1, null, 1, WALL));
+        regions.add(new Region("wall", i, j, 1, 4, null, 1, WALL));
+        regions.add(new Region("wall", i, j + 6, 1, 4, null, 1, WALL));
+      }
+    }
+    return PassabilityGrid.build(regions, List.of());
+  }
+}
@@ -0,0 +1,163 @@
+package neon.maps;
+
+import static neon.maps.GridFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import neon.test.PerformanceHarness;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link LightMap}. */
+class LightMapTest {
+  @Test
+  void testLightFallsOff() {
+    LightMap map = new LightMap();
+    map.update(createRoom(40));
+    map.add(20, 20, Color.red);
+
+    assertEquals(LightMap.FULL, map.getLight(20, 20));
+    assertTrue(map.getLight(21, 20) > map.getLight(23, 20));
+    assertTrue(map.getLight(23, 20) > map.getLight(24, 20));
+    assertTrue(map.getLight(24, 20) > 0);
+    assertEquals(0, map.getLight(25, 20), "Beyond the radius");
+    assertEquals(0xFF0000, map.getColor(22, 21));
+    assertEquals(0xFFFFFF, map.getColor(0, 0), "No light, no color");
+  }
+
+  @Test
+  void testColorsMix() {
+    LightMap map = new LightMap();
+    map.update(createRoom(40));
+    map.add(18, 20, Color.red);
+    map.add(22, 20, Color.blue);
+    assertEquals(0x7F007F, map.getColor(20, 20));
+    assertEquals(LightMap.FULL, map.getLight(20, 20), "Light adds up, but not beyond full");
+  }
+
+  @Test
+  void testWallsCastShadows() {
+    LightMap map = new LightMap();
+    map.add(20, 20, Color.white);
+    assertEquals(0, map.getLight(20, 20), "Not lit before there is a field of view");
+
+    FieldOfView open = createRoom(40);
+    map.update(open);
+    assertTrue(map.getLight(23, 20) > 0);
+
+    List<Region> regions = new ArrayList<>();
+    regions.add(new Region("floor", 0, 0, 40, 40, null, 0, FLOOR));
+    regions.add(new Region("wall", 22, 0, 1, 40, null, 1, WALL));
+    map.update(FieldOfView.build(PassabilityGrid.build(regions, List.of()), List.of()));
+    assertTrue(map.getLight(21, 20) > 0);
+    assertTrue(map.getLight(22, 20) > 0, "The wall itself");
+    assertEquals(0, map.getLight(23, 20), "Behind the wall");
+
+    map.update(open);
+    assertTrue(map.getLight(23, 20) > 0);
+  }
+
+  @Test
+  void testSameAsFromScratch() {
+    FieldOfView fov = createRoom(64);
+    Random random = new Random(5);
+    LightMap changing = new LightMap();
+    changing.update(fov);
+    List<Point> lights = new ArrayList<>();
+    Color[] colors = {Color.red, Color.yellow, Color.orange};
+    List<Color> lightColors = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      if (lights.isEmpty() || random.nextInt(3) > 0) {
+        Point p = new Point(random.nextInt(64), random.nextInt(64));
+        Color color = colors[random.nextInt(colors.length)];
+        changing.add(p.x, p.y, color);
+        lights.add(p);
+        lightColors.add(color);
+      } else {
+        int index = random.nextInt(lights.size());
+        Point p = lights.remove(index);
+        changing.remove(p.x, p.y, lightColors.remove(index));
+      }
+    }
+
+    LightMap scratch = new LightMap();
+    for (int i = 0; i < lights.size(); i++) {
+      scratch.add(lights.get(i).x, lights.get(i).y, lightColors.get(i));
+    }
+    scratch.update(fov);
+    assertEquals(lights.size(), changing.size());
+
+    Rectangle area = new Rectangle(-8, -8, 80, 80);
+    int[] expectedLight = new int[80 * 80];
+    int[] expectedColors = new int[80 * 80];
+    int[] light = new int[80 * 80];
+    int[] colorsRead = new int[80 * 80];
+    scratch.read(area, expectedLight, expectedColors);
+    changing.read(area, light, colorsRead);
+    assertArrayEquals(expectedLight, light);
+    assertArrayEquals(expectedColors, colorsRead);
+    assertEquals(changing.getLight(30, 31), light[(31 + 8) * 80 + 30 + 8]);
+  }
+
+  @Test
+  void testPerformance() {
+    int torches = 60;
+    int frames = 200;
+    FieldOfView fov = createRoom(200);
+    Random random = new Random(3);
+    List<Point> lights = new ArrayList<>();
+    LightMap map = new LightMap();
+    map.update(fov);
+    for (int i = 0; i < torches; i++) {
+      Point p = new Point(60 + random.nextInt(80), 75 + random.nextInt(50));
+      lights.add(p);
+      map.add(p.x, p.y, Color.orange);
+    }
+    Rectangle view = new Rectangle(60, 75, 80, 50);
+
+    // every frame, the light of every torch is worked out again
+    int[] light = new int[view.width * view.height];
+    int[] colors = new int[view.width * view.height];
+    Runnable everyFrame =
+        () -> {
+          for (int frame = 0; frame < frames; frame++) {
+            LightMap lit = new LightMap();
+            for (Point p : lights) {
+              lit.add(p.x, p.y, Color.orange);
+            }
+            lit.update(fov);
+            lit.read(view, light, colors);
+          }
+        };
+    Runnable fromMap =
+        () -> {
+          for (int frame = 0; frame < frames; frame++) {
+            map.read(view, light, colors);
+          }
+        };
+    everyFrame.run();
+    fromMap.run();
+
+    long everyFrameTime = PerformanceHarness.measure(everyFrame).getDurationNanos();
+    long mapTime = PerformanceHarness.measure(fromMap).getDurationNanos();
+    System.out.printf(
+        "[PERF] %d lights in a %dx%d view: %s per frame casting every light, "
+            + "%s from the light map%n",
+        torches,
+        view.width,
+        view.height,
+        PerformanceHarness.formatDuration(everyFrameTime / frames),
+        PerformanceHarness.formatDuration(mapTime / frames));
+    assertTrue(mapTime < everyFrameTime, "Reading the light map is faster than casting lights");
+    assertEquals(map.getLight(view.x, view.y), light[0]);
+  }
+
+  private static FieldOfView createRoom(int size) {
+    List<Region> regions = List.of(new Region("floor", 0, 0, size, size, null, 0, FLOOR));
+    return FieldOfView.build(PassabilityGrid.build(regions, List.of()), List.of());
+  }
+}
@@ -0,0 +1,139 @@
+package neon.systems.files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.h2.mvstore.MVStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link IncrementalCopier}.
+ *
+ * <p>A store with a map per zone stands in for the atlas in the temp directory. After changing a
+ * single zone, a save should only write a small part of the store again.
+ */
+class IncrementalCopierTest {
+  private static final int ZONES = 40;
+  private static final int CREATURES = 1000;
+
+  private Path root;
+  private Path temp;
+  private Path save;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    root = Files.createTempDirectory("neon_copy_");
+    temp = Files.createDirectories(root.resolve("temp"));
+    save = Files.createDirectories(root.resolve("save"));
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(root)) {
+      files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  @Test
+  void testOnlyChangedZoneIsWritten() throws IOException {
+    Random random = new Random(3);
+    Path file = temp.resolve("atlas");
+    MVStore store = new MVStore.Builder().fileName(file.toString()).autoCommitDisabled().open();
+    for (int zone = 0; zone < ZONES; zone++) {
+      fill(store.openMap("zone-" + zone), random);
+    }
+    store.commit();
+
+    IncrementalCopier copier = new IncrementalCopier();
+    long first = copier.copy(temp, save);
+    long size = Files.size(file);
+    assertEquals(size, first, "The first save writes everything");
+
+    fill(store.openMap("zone-7"), random);
+    store.commit();
+    long second = copier.copy(temp, save);
+    long total = Files.size(file);
+
+    System.out.printf(
+        "[PERF] Incremental save after changing 1 of %d zones: %d of %d bytes written (%.1f%%)%n",
+        ZONES, second, total, 100.0 * second / total);
+    assertTrue(second > 0);
+    assertTrue(second < total / 5, "Only the changed zone should be written again");
+    assertEquals(0, copier.copy(temp, save), "Nothing changed since the last save");
+
+    // closing writes the store once more, the saved copy must match it
+    store.close();
+    copier.copy(temp, save);
+    assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(save.resolve("atlas")));
+    MVStore saved = new MVStore.Builder().fileName(save.resolve("atlas").toString()).open();
+    assertEquals(CREATURES, saved.<Integer, String>openMap("zone-7").size());
+    saved.close();
+  }
+
+  @Test
+  void testExistingTargetIsCompared() throws IOException {
+    byte[] data = new byte[IncrementalCopier.BLOCK_SIZE * 10 + 100];
+    new Random(5).nextBytes(data);
+    Files.write(temp.resolve("uidstore"), data);
+    Files.createDirectories(temp.resolve("maps"));
+    Files.write(temp.resolve("maps").resolve("zone.xml"), new byte[] {1, 2, 3});
+    new IncrementalCopier().copy(temp, save);
+
+    // a new copier, like after loading a game, does not know what was saved
+    data[IncrementalCopier.BLOCK_SIZE * 3 + 7]++;
+    Files.write(temp.resolve("uidstore"), data);
+    IncrementalCopier copier = new IncrementalCopier();
+    assertEquals(IncrementalCopier.BLOCK_SIZE, copier.copy(temp, save));
+    assertArrayEquals(data, Files.readAllBytes(save.resolve("uidstore")));
+
+    // files that shrink are truncated
+    byte[] shorter = new byte[100];
+    Files.write(temp.resolve("uidstore"), shorter);
+    copier.copy(temp, save);
+    assertArrayEquals(shorter, Files.readAllBytes(save.resolve("uidstore")));
+    assertArrayEquals(
+        new byte[] {1, 2, 3}, Files.readAllBytes(save.resolve("maps").resolve("zone.xml")));
+  }
+
+  @Test
+  void testImageIsCopiedAsItWas() throws IOException {
+    Path file = temp.resolve("uidstore");
+    MVStore store = new MVStore.Builder().fileName(file.toString()).open();
+    store.setReuseSpace(false);
+    Map<Integer, String> zone = store.openMap("zone");
+    fill(zone, new Random(7));
+    zone.put(-1, "snapshot");
+    store.commit();
+    IncrementalCopier.Image image =
+        IncrementalCopier.Image.of(file.toAbsolutePath().normalize(), 2 * 4096);
+
+    // the game goes on committing while the snapshot waits to be written
+    for (int i = 0; i < 5; i++) {
+      fill(zone, new Random(i));
+      zone.put(-1, "later " + i);
+      store.commit();
+    }
+    assertTrue(Files.size(file) > image.size());
+    new IncrementalCopier().copy(temp, save, Map.of(file.toAbsolutePath().normalize(), image));
+    store.close();
+
+    assertEquals(image.size(), Files.size(save.resolve("uidstore")));
+    MVStore saved = new MVStore.Builder().fileName(save.resolve("uidstore").toString()).open();
+    assertEquals("snapshot", saved.<Integer, String>openMap("zone").get(-1));
+    saved.close();
+  }
+
+  private static void fill(Map<Integer, String> zone, Random random) {
+    for (int i = 0; i < CREATURES; i++) {
+      zone.put(i, Long.toHexString(random.nextLong()).repeat(12));
+    }
+  }
+}
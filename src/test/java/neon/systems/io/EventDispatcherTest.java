@@ -0,0 +1,204 @@
+package neon.systems.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.EventObject;
+import java.util.List;
+import neon.core.event.MessageEvent;
+import neon.core.event.TurnEvent;
+import neon.core.event.UpdateEvent;
+import neon.test.PerformanceHarness;
+import net.engio.mbassy.bus.IMessagePublication;
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.bus.config.BusConfiguration;
+import net.engio.mbassy.bus.config.Feature;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Listener;
+import net.engio.mbassy.listener.References;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link EventDispatcher} and {@link DispatchingBus}. */
+class EventDispatcherTest {
+  @Test
+  void testPublish() {
+    EventDispatcher dispatcher = new EventDispatcher();
+    Recorder recorder = new Recorder();
+    dispatcher.subscribe(recorder);
+    dispatcher.subscribe(recorder);
+
+    assertEquals(2, dispatcher.publish(new TurnEvent(3)));
+    assertEquals(1, dispatcher.publish(new UpdateEvent(this)));
+    // the order of the handlers within a listener is not defined
+    assertEquals(List.of("any turn 3", "any update", "turn 3"), sorted(recorder.received));
+  }
+
+  @Test
+  void testOverriddenHandler() {
+    EventDispatcher dispatcher = new EventDispatcher();
+    Overrider overrider = new Overrider();
+    dispatcher.subscribe(overrider);
+
+    dispatcher.publish(new TurnEvent(1));
+    assertEquals(List.of("any turn 1", "overridden turn 1"), sorted(overrider.received));
+  }
+
+  @Test
+  void testUnsubscribe() {
+    EventDispatcher dispatcher = new EventDispatcher();
+    Recorder recorder = new Recorder();
+    dispatcher.subscribe(recorder);
+    dispatcher.publish(new TurnEvent(1));
+
+    assertTrue(dispatcher.unsubscribe(recorder));
+    assertFalse(dispatcher.unsubscribe(recorder));
+    assertEquals(0, dispatcher.publish(new TurnEvent(2)));
+    assertEquals(2, recorder.received.size());
+  }
+
+  @Test
+  void testFailingHandler() {
+    EventDispatcher dispatcher = new EventDispatcher();
+    Recorder recorder = new Recorder();
+    dispatcher.subscribe(new Failer());
+    dispatcher.subscribe(recorder);
+
+    assertEquals(3, dispatcher.publish(new TurnEvent(1)));
+    assertEquals(2, recorder.received.size());
+  }
+
+  @Test
+  void testDirectAndMBassador() throws InterruptedException {
+    DispatchingBus bus = createBus(List.of(TurnEvent.class));
+    Recorder recorder = new Recorder();
+    bus.subscribe(recorder);
+
+    assertTrue(bus.isDirect(TurnEvent.class));
+    assertFalse(bus.isDirect(MessageEvent.class));
+    bus.publish(new TurnEvent(1));
+    bus.publish(new MessageEvent(this, "hello", 1));
+    assertEquals(3, recorder.received.size());
+
+    IMessagePublication publication = bus.publishAsync(new TurnEvent(2));
+    while (!publication.isFinished()) {
+      Thread.sleep(1);
+    }
+    assertFalse(publication.isDeadMessage());
+    assertEquals(5, recorder.received.size());
+    bus.shutdown();
+  }
+
+  @Test
+  void testEcho() {
+    List<Class<? extends EventObject>> direct = List.of(TurnEvent.class);
+    LocalPort client = new LocalPort("client", direct);
+    LocalPort server = new LocalPort("server", direct);
+    client.connect(server);
+    server.connect(client);
+    Recorder recorder = new Recorder();
+    client.getBus().subscribe(recorder);
+
+    // the event travels to the client and is not sent back
+    server.getBus().publish(new TurnEvent(1));
+    server.getBus().publish(new TurnEvent(2));
+    List<String> expected = List.of("any turn 1", "any turn 2", "turn 1", "turn 2");
+    assertEquals(expected, sorted(recorder.received));
+    client.getBus().shutdown();
+    server.getBus().shutdown();
+  }
+
+  @Test
+  void testPerformance() {
+    int listeners = 8;
+    int events = 200_000;
+    MBassador<EventObject> mbassador =
+        new MBassador<>(
+            new BusConfiguration()
+                .addFeature(Feature.SyncPubSub.Default())
+                .addFeature(Feature.AsynchronousHandlerInvocation.Default())
+                .addFeature(Feature.AsynchronousMessageDispatch.Default()));
+    DispatchingBus direct = createBus(List.of(TurnEvent.class));
+    for (int i = 0; i < listeners; i++) {
+      Counter counter = new Counter();
+      mbassador.subscribe(counter);
+      direct.subscribe(counter);
+    }
+    TurnEvent event = new TurnEvent(1);
+    Runnable viaMBassador =
+        () -> {
+          for (int i = 0; i < events; i++) {
+            mbassador.publish(event);
+          }
+        };
+    Runnable viaDispatcher =
+        () -> {
+          for (int i = 0; i < events; i++) {
+            direct.publish(event);
+          }
+        };
+    viaMBassador.run();
+    viaDispatcher.run();
+
+    long mbassadorTime = PerformanceHarness.measure(viaMBassador).getDurationNanos();
+    long dispatcherTime = PerformanceHarness.measure(viaDispatcher).getDurationNanos();
+    System.out.printf(
+        "[PERF] %d listeners: %,d events/s through MBassador, %,d events/s dispatched directly%n",
+        listeners,
+        events * 1_000_000_000L / Math.max(1, mbassadorTime),
+        events * 1_000_000_000L / Math.max(1, dispatcherTime));
+    assertTrue(dispatcherTime < mbassadorTime, "Direct dispatch is faster than MBassador");
+    mbassador.shutdown();
+    direct.shutdown();
+  }
+
+  private static List<String> sorted(List<String> list) {
+    return list.stream().sorted().toList();
+  }
+
+  private static DispatchingBus createBus(List<Class<? extends EventObject>> direct) {
+    return new DispatchingBus(
+        new BusConfiguration()
+            .addFeature(Feature.SyncPubSub.Default())
+            .addFeature(Feature.AsynchronousHandlerInvocation.Default())
+            .addFeature(Feature.AsynchronousMessageDispatch.Default()),
+        direct);
+  }
+
+  @Listener(references = References.Strong)
+  static class Recorder {
+    final List<String> received = new ArrayList<>();
+
+    @Handler
+    public void turn(TurnEvent event) {
+      received.add(event.toString());
+    }
+
+    @Handler
+    public void any(EventObject event) {
+      received.add("any " + (event instanceof UpdateEvent ? "update" : event.toString()));
+    }
+  }
+
+  static class Overrider extends Recorder {
+    @Override
+    public void turn(TurnEvent event) {
+      received.add("overridden " + event);
+    }
+  }
+
+  static class Failer {
+    @Handler
+    public void fail(TurnEvent event) {
+      throw new IllegalStateException("failed on purpose");
+    }
+  }
+
+  static class Counter {
+    int count;
+
+    @Handler
+    public void count(TurnEvent event) {
+      count++;
+    }
+  }
+}
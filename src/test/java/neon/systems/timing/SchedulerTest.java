@@ -0,0 +1,107 @@
+package neon.systems.timing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import neon.test.PerformanceHarness;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link Scheduler}. */
+class SchedulerTest {
+
+  @Test
+  void testDueCreaturesInOrder() {
+    Scheduler scheduler = new Scheduler();
+    scheduler.wake(3, 500);
+    scheduler.wake(1, 500);
+    scheduler.wake(2, 100);
+    scheduler.wake(4, 1500);
+
+    assertArrayEquals(new long[] {2, 1, 3}, scheduler.poll(Scheduler.TURN));
+    assertEquals(4, scheduler.size(), "Polled creatures stay awake until they are put to sleep");
+    assertArrayEquals(new long[0], scheduler.poll(Scheduler.TURN));
+  }
+
+  @Test
+  void testFastCreatureActsTwice() {
+    Scheduler scheduler = new Scheduler();
+    scheduler.wake(1, 0);
+    scheduler.wake(2, 0);
+
+    int fast = 0;
+    int slow = 0;
+    for (int turn = 1; turn <= 10; turn++) {
+      long[] due;
+      while ((due = scheduler.poll((long) turn * Scheduler.TURN)).length > 0) {
+        for (long uid : due) {
+          if (uid == 1) {
+            fast++;
+            scheduler.reschedule(uid, Scheduler.TURN / 2);
+          } else {
+            slow++;
+            scheduler.reschedule(uid, Scheduler.TURN * 2);
+          }
+        }
+      }
+    }
+    assertEquals(20, fast);
+    assertEquals(5, slow);
+  }
+
+  @Test
+  void testSleepingCreaturesAreSkipped() {
+    Scheduler scheduler = new Scheduler();
+    scheduler.wake(1, 100);
+    scheduler.wake(2, 200);
+    assertFalse(scheduler.wake(1, 50), "Already awake");
+
+    scheduler.sleep(1);
+    assertFalse(scheduler.isAwake(1));
+    assertArrayEquals(new long[] {2}, scheduler.poll(Scheduler.TURN));
+
+    // woken again, the old entry must not come back
+    scheduler.wake(1, 1200);
+    assertArrayEquals(new long[0], scheduler.poll(1100));
+    assertArrayEquals(new long[] {1}, scheduler.poll(2000));
+
+    scheduler.clear();
+    assertEquals(0, scheduler.size());
+    assertArrayEquals(new long[0], scheduler.poll(Long.MAX_VALUE));
+  }
+
+  @Test
+  void testCostDependsOnActiveCreatures() {
+    // a crowded town where only a few creatures are near the player
+    int population = 100_000;
+    int active = 100;
+    int turns = 1000;
+    Scheduler scheduler = new Scheduler();
+    for (long uid = 0; uid < population; uid++) {
+      scheduler.wake(uid, uid % Scheduler.TURN);
+      if (uid >= active) {
+        scheduler.sleep(uid); // wandered off
+      }
+    }
+
+    int[] actions = new int[1];
+    long time =
+        PerformanceHarness.measure(
+                () -> {
+                  for (int turn = 1; turn <= turns; turn++) {
+                    long[] due;
+                    while ((due = scheduler.poll((long) turn * Scheduler.TURN)).length > 0) {
+                      for (long uid : due) {
+                        actions[0]++;
+                        scheduler.reschedule(uid, Scheduler.TURN);
+                      }
+                    }
+                  }
+                })
+            .getDurationNanos();
+
+    System.out.printf(
+        "[PERF] %d of %d creatures awake: %s per turn%n",
+        active, population, PerformanceHarness.formatDuration(time / turns));
+    assertEquals(active * turns, actions[0], "Sleeping creatures don't act");
+    assertEquals(active, scheduler.size());
+  }
+}
@@ -0,0 +1,147 @@
+package neon.systems.timing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import neon.test.PerformanceHarness;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link TimingWheel}. */
+class TimingWheelTest {
+
+  @Test
+  void testDueEntriesInOrder() {
+    TimingWheel<String> wheel = new TimingWheel<>(0);
+    wheel.add(70, "c");
+    wheel.add(5, "a");
+    wheel.add(70, "d");
+    wheel.add(5000, "e");
+    wheel.add(6, "b");
+
+    List<String> fired = new ArrayList<>();
+    assertEquals(4, wheel.advance(100, (value, tick) -> fired.add(value)));
+    assertEquals(List.of("a", "b", "c", "d"), fired);
+    assertEquals(1, wheel.size());
+    assertEquals(100, wheel.getTime());
+  }
+
+  @Test
+  void testBatchAdvanceEqualsSteps() {
+    Random random = new Random(5);
+    TimingWheel<Integer> batch = new TimingWheel<>(0);
+    TimingWheel<Integer> steps = new TimingWheel<>(0);
+    List<Integer> ticks = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      // some entries lie beyond the highest level of the wheel
+      int tick = i % 100 == 0 ? 17_000_000 + random.nextInt(100_000) : random.nextInt(300_000);
+      ticks.add(tick);
+      batch.add(tick, tick);
+      steps.add(tick, tick);
+    }
+    ticks.sort(null);
+
+    List<Integer> fromBatch = new ArrayList<>();
+    List<Integer> fromSteps = new ArrayList<>();
+    batch.advance(20_000_000, (value, tick) -> fromBatch.add(tick));
+    for (int time = 0; time < 20_000_000; time += 1 + random.nextInt(5000)) {
+      steps.advance(time, (value, tick) -> fromSteps.add(tick));
+    }
+    steps.advance(20_000_000, (value, tick) -> fromSteps.add(tick));
+
+    assertEquals(ticks, fromBatch);
+    assertEquals(ticks, fromSteps);
+    assertEquals(0, batch.size());
+  }
+
+  @Test
+  void testRepeatWhileAdvancing() {
+    TimingWheel<String> wheel = new TimingWheel<>(0);
+    wheel.add(1, "repeat");
+    List<Integer> fired = new ArrayList<>();
+    wheel.advance(
+        10,
+        (value, tick) -> {
+          fired.add(tick);
+          if (tick + 3 <= 10) {
+            wheel.add(tick + 3, value);
+          }
+        });
+    assertEquals(List.of(1, 4, 7, 10), fired);
+  }
+
+  @Test
+  void testPastEntries() {
+    TimingWheel<String> wheel = new TimingWheel<>(50);
+    wheel.add(40, "late");
+    wheel.add(50, "now");
+
+    List<String> fired = new ArrayList<>();
+    wheel.advance(50, (value, tick) -> fired.add(value + " " + tick));
+    assertEquals(List.of("late 40", "now 50"), fired);
+  }
+
+  @Test
+  void testRewind() {
+    TimingWheel<String> wheel = new TimingWheel<>(1000);
+    wheel.add(1100, "a");
+    wheel.add(5000, "b");
+
+    assertEquals(0, wheel.advance(200, (value, tick) -> fail("nothing is due")));
+    assertEquals(200, wheel.getTime());
+    List<String> saved = new ArrayList<>();
+    wheel.forEach((value, tick) -> saved.add(value + " " + tick));
+    assertEquals(List.of("a 1100", "b 5000"), saved);
+
+    List<String> fired = new ArrayList<>();
+    wheel.advance(1100, (value, tick) -> fired.add(value));
+    assertEquals(List.of("a"), fired);
+  }
+
+  @Test
+  void testPerformance() {
+    int entries = 100_000;
+    int turns = 1_000_000;
+    Random random = new Random(3);
+    int[] ticks = new int[entries];
+    for (int i = 0; i < entries; i++) {
+      ticks[i] = random.nextInt(turns);
+    }
+    int[] fired = new int[1];
+
+    Runnable everyTick =
+        () -> {
+          TimingWheel<Integer> wheel = new TimingWheel<>(0);
+          for (int tick : ticks) {
+            wheel.add(tick, tick);
+          }
+          for (int time = 1; time <= turns; time++) {
+            wheel.advance(time, (value, tick) -> fired[0]++);
+          }
+        };
+    Runnable rest =
+        () -> {
+          TimingWheel<Integer> wheel = new TimingWheel<>(0);
+          for (int tick : ticks) {
+            wheel.add(tick, tick);
+          }
+          for (int time = 1000; time <= turns; time += 1000) {
+            wheel.advance(time, (value, tick) -> fired[0]++);
+          }
+        };
+    everyTick.run();
+    rest.run();
+    fired[0] = 0;
+
+    long everyTickTime = PerformanceHarness.measure(everyTick).getDurationNanos();
+    long restTime = PerformanceHarness.measure(rest).getDurationNanos();
+    System.out.printf(
+        "[PERF] %d timers over %d turns: %s turn by turn, %s resting 1000 turns at a time%n",
+        entries,
+        turns,
+        PerformanceHarness.formatDuration(everyTickTime),
+        PerformanceHarness.formatDuration(restTime));
+    assertEquals(2 * entries, fired[0]);
+  }
+}
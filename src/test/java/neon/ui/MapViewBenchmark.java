@@ -0,0 +1,371 @@
+package neon.ui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.management.ThreadMXBean;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import neon.core.UIStorage;
+import neon.entities.Creature;
+import neon.entities.Item;
+import neon.entities.MemoryUIDStore;
+import neon.entities.Player;
+import neon.entities.UIDStore;
+import neon.maps.MapUtils;
+import neon.maps.Region;
+import neon.maps.Zone;
+import neon.maps.generators.DungeonTileGenerator;
+import neon.maps.generators.WildernessTerrainGenerator;
+import neon.maps.services.ResourceProvider;
+import neon.resources.RCreature;
+import neon.resources.RItem;
+import neon.resources.RRegionTheme;
+import neon.resources.RTerrain;
+import neon.resources.RZoneTheme;
+import neon.resources.ResourceManager;
+import neon.systems.files.FileSystem;
+import neon.test.PerformanceHarness;
+import neon.ui.graphics.JVectorPane;
+import neon.ui.graphics.Renderable;
+import neon.util.Dice;
+import neon.util.spatial.RTree;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Benchmarks for drawing the map view without a screen. Zones are generated from a seed, filled
+ * with creatures and items, and drawn frame after frame the way the {@link GamePanel} draws them:
+ * a {@link ZoneView} brings the creatures and items that changed up to date in a {@link
+ * JVectorPane}, and the pane is painted into an image.
+ *
+ * <p>Every benchmark prints the frames per second, the memory allocated while drawing, and how the
+ * time is shared between looking up what changed in the zone, keeping the render list of the pane
+ * in drawing order and painting. The benchmarks only run with the
+ * {@code benchmark} profile, which takes the size of the zone, the density of entities, the zoom
+ * level, the number of frames and the seed from system properties:
+ *
+ * <pre>
+ * mvn test -Pbenchmark -Dneon.benchmark.size=200 -Dneon.benchmark.density=10
+ * </pre>
+ */
+@Tag("benchmark")
+class MapViewBenchmark {
+  private static final int WIDTH = 1024;
+  private static final int HEIGHT = 640;
+  private static final int SIZE = Integer.getInteger("neon.benchmark.size", 100);
+  private static final int DENSITY = Integer.getInteger("neon.benchmark.density", 5); // percent
+  private static final int ZOOM = Integer.getInteger("neon.benchmark.zoom", 14);
+  private static final int FRAMES = Integer.getInteger("neon.benchmark.frames", 60);
+  private static final long SEED = Long.getLong("neon.benchmark.seed", 1);
+  private static final String[] COLORS = {"gray", "white", "green", "blue", "olive", "brown"};
+
+  @Test
+  void testDungeonStillCamera() {
+    Fixture dungeon = createDungeon();
+    render("dungeon", dungeon, false);
+  }
+
+  @Test
+  void testDungeonFollowingCamera() {
+    Fixture dungeon = createDungeon();
+    render("dungeon", dungeon, true);
+  }
+
+  @Test
+  void testWildernessFollowingCamera() {
+    Fixture wilderness = createWilderness();
+    render("wilderness", wilderness, true);
+  }
+
+  /*
+   * Draws the fixture twice: once to warm up, once to measure. A quarter of the creatures takes a
+   * step every frame, and the camera either stays in the middle of the zone or walks along with
+   * the player.
+   */
+  private static void render(String name, Fixture fixture, boolean following) {
+    TimedPane pane = new TimedPane();
+    pane.setSize(WIDTH, HEIGHT);
+    pane.setZoom(ZOOM);
+    TerrainRenderer terrain = new TerrainRenderer();
+    terrain.setZone(fixture.zone());
+    ZoneView view = new ZoneView(pane, fixture.store());
+    BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    Random random = new Random(SEED);
+
+    Timings warmup = new Timings();
+    Timings timings = new Timings();
+    for (Timings current : List.of(warmup, timings)) {
+      long allocated = getAllocatedBytes();
+      for (int frame = 0; frame < FRAMES; frame++) {
+        walk(fixture, frame, random);
+        pane.updateCamera(getCamera(frame, following));
+
+        long start = System.nanoTime();
+        pane.ordering = 0;
+        view.update(fixture.zone(), pane.getVisibleRectangle(), List.of(terrain));
+        long updated = System.nanoTime();
+        Graphics2D g = screen.createGraphics();
+        g.setClip(0, 0, WIDTH, HEIGHT);
+        pane.paintComponent(g);
+        g.dispose();
+        long painted = System.nanoTime();
+
+        current.lookup += updated - start - pane.ordering;
+        current.ordering += pane.ordering;
+        current.paint += painted - updated;
+      }
+      current.allocated = getAllocatedBytes() - allocated;
+    }
+
+    long total = timings.lookup + timings.ordering + timings.paint;
+    double seconds = total / 1e9;
+    System.out.printf(
+        "[PERF] %s %dx%d, %d creatures and %d items, zoom %d, %s camera: %.0f fps, "
+            + "%s per frame, %.1f MB/s allocated; looking up %d%%, ordering %d%%, "
+            + "painting %d%%%n",
+        name,
+        SIZE,
+        SIZE,
+        fixture.creatures().size(),
+        fixture.items(),
+        ZOOM,
+        following ? "following" : "still",
+        FRAMES / seconds,
+        PerformanceHarness.formatDuration(total / FRAMES),
+        timings.allocated / seconds / 1e6,
+        100 * timings.lookup / total,
+        100 * timings.ordering / total,
+        100 * timings.paint / total);
+    assertTrue(hasPixels(screen), "The zone was drawn");
+  }
+
+  private static void walk(Fixture fixture, int frame, Random random) {
+    List<Creature> creatures = fixture.creatures();
+    for (int i = frame % 4; i < creatures.size(); i += 4) {
+      Creature creature = creatures.get(i);
+      Rectangle bounds = creature.getShapeComponent();
+      int x = Math.clamp(bounds.x + random.nextInt(3) - 1, 0, SIZE - 1);
+      int y = Math.clamp(bounds.y + random.nextInt(3) - 1, 0, SIZE - 1);
+      creature.getShapeComponent().setLocation(x, y);
+      fixture.zone().moveCreature(creature);
+    }
+  }
+
+  /*
+   * The player walks back and forth through the middle of the zone.
+   */
+  private static Point getCamera(int frame, boolean following) {
+    int step = following ? frame % (SIZE / 2) : 0;
+    int x = frame / (SIZE / 2) % 2 == 0 ? SIZE / 4 + step : 3 * SIZE / 4 - step;
+    return following ? new Point(x, SIZE / 2) : new Point(SIZE / 2, SIZE / 2);
+  }
+
+  private static long getAllocatedBytes() {
+    return ((ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+  }
+
+  private static boolean hasPixels(BufferedImage image) {
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        if ((image.getRGB(x, y) & 0xFFFFFF) != 0) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /** A dungeon of rooms and corridors, walls everywhere else, like the dungeon generator. */
+  private static Fixture createDungeon() {
+    RZoneTheme theme = new RZoneTheme("benchmark");
+    theme.type = "bsp";
+    theme.min = SIZE;
+    theme.max = SIZE;
+    theme.floor = "floor,stone";
+    theme.walls = "wall";
+    theme.doors = "door";
+    DungeonTileGenerator.DungeonLayout layout =
+        new DungeonTileGenerator(theme, MapUtils.withSeed(SEED), Dice.withSeed(SEED))
+            .generateTiles();
+
+    String[][] terrain = layout.terrain();
+    Builder builder = new Builder("dungeon", terrain.length, terrain[0].length, "wall");
+    for (int x = 0; x < terrain.length; x++) {
+      for (int y = 0; y < terrain[0].length; y++) {
+        if (terrain[x][y] != null) {
+          builder.addTerrain(x, y, terrain[x][y].split(";")[0]);
+        }
+      }
+    }
+    return builder.populate();
+  }
+
+  /** Open country with patches of rough terrain, like the wilderness generator. */
+  private static Fixture createWilderness() {
+    RRegionTheme theme = new RRegionTheme("benchmark");
+    theme.type = RRegionTheme.Type.TERRACE;
+    theme.floor = "rock";
+    String[][] terrain = new String[SIZE + 2][SIZE + 2];
+    new WildernessTerrainGenerator(MapUtils.withSeed(SEED), Dice.withSeed(SEED), new Storage())
+        .generateTerrain(SIZE, SIZE, theme, "grass", terrain);
+
+    Builder builder = new Builder("wilderness", SIZE, SIZE, "grass");
+    for (int y = 0; y < SIZE; y++) {
+      for (int x = 0; x < SIZE; x++) {
+        if (terrain[y + 1][x + 1] != null) {
+          builder.addTerrain(x, y, terrain[y + 1][x + 1]);
+        }
+      }
+    }
+    return builder.populate();
+  }
+
+  private record Fixture(Zone zone, UIDStore store, List<Creature> creatures, int items) {}
+
+  /*
+   * Builds a zone from generated terrain, and puts creatures and items on the positions that are
+   * not covered by the base terrain.
+   */
+  private static final class Builder {
+    private final HashMap<String, RTerrain> terrains = new HashMap<>();
+    private final List<Point> open = new ArrayList<>();
+    private final UIDStore store = new MemoryUIDStore();
+    private final Zone zone;
+    private final boolean dungeon;
+
+    private Builder(String name, int width, int height, String base) {
+      zone = new Zone(name, 0, 0, store, null, new RTree<>(100, 40));
+      zone.addRegion(new Region(base, 0, 0, width, height, null, 0, getTerrain(base)));
+      dungeon = name.equals("dungeon");
+      if (!dungeon) {
+        for (int x = 0; x < width; x++) {
+          for (int y = 0; y < height; y++) {
+            open.add(new Point(x, y));
+          }
+        }
+      }
+    }
+
+    private void addTerrain(int x, int y, String id) {
+      zone.addRegion(new Region(id, x, y, 1, 1, null, 1, getTerrain(id)));
+      if (dungeon) {
+        open.add(new Point(x, y));
+      }
+    }
+
+    private Fixture populate() {
+      Random random = new Random(SEED);
+      RCreature species = new RCreature("benchmark");
+      species.text = "r";
+      species.color = "red";
+      RItem resource = new RItem("benchmark", RItem.Type.item);
+      resource.text = "!";
+      resource.color = "yellow";
+
+      List<Creature> creatures = new ArrayList<>();
+      int items = 0;
+      long uid = 1;
+      for (int i = 0; i < open.size() * DENSITY / 100; i++) {
+        Point p = open.get(random.nextInt(open.size()));
+        if (i % 2 == 0) {
+          Creature creature = new Creature("benchmark", uid++, species);
+          creature.getShapeComponent().setLocation(p);
+          store.addEntity(creature);
+          zone.addCreature(creature);
+          creatures.add(creature);
+        } else {
+          Item item = new Item(uid++, resource);
+          item.getShapeComponent().setLocation(p);
+          store.addEntity(item);
+          zone.addItem(item);
+          items++;
+        }
+      }
+      return new Fixture(zone, store, creatures, items);
+    }
+
+    private RTerrain getTerrain(String id) {
+      return terrains.computeIfAbsent(
+          id,
+          key -> {
+            RTerrain terrain = new RTerrain(key);
+            terrain.text = key.equals("wall") ? "#" : key.equals("grass") ? "\"" : ".";
+            terrain.color = COLORS[terrains.size() % COLORS.length];
+            return terrain;
+          });
+    }
+  }
+
+  /** The wilderness generator only needs resources for vegetation, which is not generated here. */
+  private static final class Storage implements UIStorage {
+    @Override
+    public Player getPlayer() {
+      return null;
+    }
+
+    @Override
+    public ResourceProvider getResources() {
+      return null;
+    }
+
+    @Override
+    public ResourceManager getResourceManageer() {
+      return null;
+    }
+
+    @Override
+    public UIDStore getStore() {
+      return null;
+    }
+
+    @Override
+    public FileSystem getFileSystem() {
+      return null;
+    }
+  }
+
+  /*
+   * A pane that keeps track of the time spent keeping its render list in drawing order. The rest of
+   * an update is spent looking up the creatures and items in the zone and the store.
+   */
+  @SuppressWarnings("serial")
+  private static final class TimedPane extends JVectorPane {
+    private long ordering;
+
+    @Override
+    public void setRenderables(Collection<Renderable> list) {
+      long start = System.nanoTime();
+      super.setRenderables(list);
+      ordering += System.nanoTime() - start;
+    }
+
+    @Override
+    public void updateRenderable(Renderable renderable) {
+      long start = System.nanoTime();
+      super.updateRenderable(renderable);
+      ordering += System.nanoTime() - start;
+    }
+
+    @Override
+    public void removeRenderable(Renderable renderable) {
+      long start = System.nanoTime();
+      super.removeRenderable(renderable);
+      ordering += System.nanoTime() - start;
+    }
+  }
+
+  private static final class Timings {
+    private long lookup;
+    private long ordering;
+    private long paint;
+    private long allocated;
+  }
+}
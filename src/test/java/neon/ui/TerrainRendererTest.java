@@ -0,0 +1,188 @@
+package neon.ui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.function.Consumer;
+import neon.maps.Region;
+import neon.maps.Zone;
+import neon.resources.RTerrain;
+import neon.test.PerformanceHarness;
+import neon.util.spatial.RTree;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link TerrainRenderer}, drawing into images without a screen. */
+class TerrainRendererTest {
+  private static final int ZOOM = 14;
+
+  @Test
+  void testSameAsRegions() {
+    Zone zone = createZone(64, 3);
+    Rectangle view = new Rectangle(5, 7, 40, 30);
+    TerrainRenderer terrain = new TerrainRenderer();
+    terrain.setZone(zone);
+
+    BufferedImage expected = draw(view, g -> paintRegions(zone, view, g));
+    BufferedImage actual = draw(view, g -> terrain.paint(g, ZOOM, false));
+    assertPixelsEqual(expected, actual);
+  }
+
+  @Test
+  void testChunksAreKept() {
+    Zone zone = createZone(64, 5);
+    Rectangle view = new Rectangle(0, 0, 64, 64);
+    TerrainRenderer terrain = new TerrainRenderer();
+    terrain.setZone(zone);
+
+    draw(view, g -> terrain.paint(g, ZOOM, false));
+    assertEquals(16, terrain.getRenderedChunks());
+    draw(view, g -> terrain.paint(g, ZOOM, false));
+    assertEquals(16, terrain.getRenderedChunks(), "Nothing changed");
+
+    // a region within one chunk, only that chunk is drawn again
+    Region lava = new Region("lava", 20, 20, 3, 3, null, 10, terrain("lava", "~", "red"));
+    zone.addRegion(lava);
+    BufferedImage image = draw(view, g -> terrain.paint(g, ZOOM, false));
+    assertEquals(17, terrain.getRenderedChunks());
+    assertPixelsEqual(draw(view, g -> paintRegions(zone, view, g)), image);
+
+    // on the edge of four chunks
+    zone.removeRegion(lava);
+    zone.addRegion(new Region("lava", 31, 31, 2, 2, null, 10, terrain("lava", "~", "red")));
+    image = draw(view, g -> terrain.paint(g, ZOOM, false));
+    assertEquals(21, terrain.getRenderedChunks());
+    assertPixelsEqual(draw(view, g -> paintRegions(zone, view, g)), image);
+
+    draw(view, g -> terrain.paint(g, ZOOM + 2, false));
+    assertEquals(37, terrain.getRenderedChunks(), "Another zoom level draws everything again");
+  }
+
+  @Test
+  void testChunksWithinBudget() {
+    Zone zone = createZone(512, 7);
+    TerrainRenderer terrain = new TerrainRenderer();
+    terrain.setZone(zone);
+
+    long side = (long) TerrainRenderer.CHUNK * ZOOM;
+    long limit = TerrainRenderer.BUDGET / (side * side);
+    for (int x = 0; x < 512; x += 32) {
+      for (int y = 0; y < 512; y += 32) {
+        Rectangle view = new Rectangle(x, y, 32, 32);
+        draw(view, g -> terrain.paint(g, ZOOM, false));
+        assertTrue(terrain.getChunkCount() <= limit);
+      }
+    }
+    assertEquals(1024, terrain.getRenderedChunks());
+    assertTrue(terrain.getChunkCount() * terrain.getChunkPixels() <= TerrainRenderer.BUDGET);
+  }
+
+  @Test
+  void testPerformance() {
+    Zone zone = createZone(400, 7);
+    TerrainRenderer terrain = new TerrainRenderer();
+    terrain.setZone(zone);
+    int frames = 50;
+    Rectangle view = new Rectangle(100, 100, 80, 50);
+    BufferedImage image =
+        new BufferedImage(view.width * ZOOM, view.height * ZOOM, BufferedImage.TYPE_INT_RGB);
+
+    // the view moves one position every frame, like it follows the player
+    Runnable regions =
+        () -> {
+          for (int frame = 0; frame < frames; frame++) {
+            Rectangle moved = new Rectangle(view);
+            moved.translate(frame % 10, 0);
+            paintInto(image, moved, g -> paintRegions(zone, moved, g));
+          }
+        };
+    Runnable chunks =
+        () -> {
+          for (int frame = 0; frame < frames; frame++) {
+            Rectangle moved = new Rectangle(view);
+            moved.translate(frame % 10, 0);
+            paintInto(image, moved, g -> terrain.paint(g, ZOOM, false));
+          }
+        };
+    regions.run();
+    chunks.run();
+
+    long regionTime = PerformanceHarness.measure(regions).getDurationNanos();
+    long chunkTime = PerformanceHarness.measure(chunks).getDurationNanos();
+    System.out.printf(
+        "[PERF] %dx%d view at zoom %d: %s per frame for all regions, %s from cached chunks%n",
+        view.width,
+        view.height,
+        ZOOM,
+        PerformanceHarness.formatDuration(regionTime / frames),
+        PerformanceHarness.formatDuration(chunkTime / frames));
+    assertTrue(chunkTime < regionTime, "Cached chunks are faster than painting every region");
+  }
+
+  /** Paints the regions in view the way they were painted before, one texture fill each. */
+  private static void paintRegions(Zone zone, Rectangle view, Graphics2D g) {
+    zone.getRegions(view).stream()
+        .sorted((a, b) -> a.getZ() - b.getZ())
+        .forEach(region -> region.paint(g, ZOOM, false));
+  }
+
+  private static BufferedImage draw(Rectangle view, Consumer<Graphics2D> paint) {
+    BufferedImage image =
+        new BufferedImage(view.width * ZOOM, view.height * ZOOM, BufferedImage.TYPE_INT_RGB);
+    paintInto(image, view, paint);
+    return image;
+  }
+
+  private static void paintInto(BufferedImage image, Rectangle view, Consumer<Graphics2D> paint) {
+    Graphics2D g = image.createGraphics();
+    g.clearRect(0, 0, image.getWidth(), image.getHeight());
+    g.translate(-view.x * ZOOM, -view.y * ZOOM);
+    g.clipRect(view.x * ZOOM, view.y * ZOOM, view.width * ZOOM, view.height * ZOOM);
+    paint.accept(g);
+    g.dispose();
+  }
+
+  private static void assertPixelsEqual(BufferedImage expected, BufferedImage actual) {
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+          fail("Pixel " + x + "," + y + " differs");
+        }
+      }
+    }
+  }
+
+  /** A zone of floor with random walls, water and grass on top. */
+  private static Zone createZone(int size, long seed) {
+    Zone zone = new Zone("zone", 0, 0, null, null, new RTree<>(100, 40));
+    zone.addRegion(new Region("floor", 0, 0, size, size, null, 0, terrain("floor", ".", "gray")));
+    Random random = new Random(seed);
+    RTerrain[] terrains = {
+      terrain("wall", "#", "white"), terrain("water", "~", "blue"), terrain("grass", "\"", "green")
+    };
+    for (int i = 0; i < size * size / 20; i++) {
+      int w = 1 + random.nextInt(6);
+      int h = 1 + random.nextInt(6);
+      zone.addRegion(
+          new Region(
+              "r" + i,
+              random.nextInt(size - w),
+              random.nextInt(size - h),
+              w,
+              h,
+              null,
+              1 + i,
+              terrains[random.nextInt(terrains.length)]));
+    }
+    return zone;
+  }
+
+  private static RTerrain terrain(String id, String text, String color) {
+    RTerrain terrain = new RTerrain(id);
+    terrain.text = text;
+    terrain.color = color;
+    return terrain;
+  }
+}
@@ -0,0 +1,101 @@
+package neon.ui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Rectangle;
+import java.util.List;
+import neon.entities.Creature;
+import neon.entities.Entity;
+import neon.entities.Item;
+import neon.entities.MemoryUIDStore;
+import neon.maps.Zone;
+import neon.resources.RCreature;
+import neon.resources.RItem;
+import neon.ui.graphics.JVectorPane;
+import neon.util.spatial.RTree;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link ZoneView}. */
+class ZoneViewTest {
+  private static final RCreature SPECIES = new RCreature("zone-view-rat");
+  private static final RItem RESOURCE = new RItem("zone-view-coin", RItem.Type.item);
+
+  @Test
+  void testOnlyChangesAreApplied() {
+    CountingStore store = new CountingStore();
+    Zone zone = new Zone("view", 0, 0, store, null, new RTree<>(100, 40));
+    Creature rat = creature(store, zone, 1, 5, 5);
+    Item coin = item(store, zone, 2, 6, 6);
+    item(store, zone, 3, 90, 90);
+    ZoneView view = new ZoneView(new JVectorPane(), store);
+    Rectangle window = new Rectangle(0, 0, 20, 20);
+
+    view.update(zone, window, List.of());
+    assertEquals(2, view.size(), "The coin far away is not looked up");
+    assertEquals(2, store.reads);
+
+    store.reads = 0;
+    view.update(zone, window, List.of());
+    assertEquals(0, store.reads, "Nothing changed");
+
+    rat.getShapeComponent().setLocation(7, 5);
+    zone.moveCreature(rat);
+    item(store, zone, 4, 10, 12);
+    item(store, zone, 5, 60, 60);
+    zone.removeItem(coin);
+    view.update(zone, window, List.of());
+    assertEquals(2, view.size());
+    assertEquals(2, store.reads, "Only the rat and the new coin in view are read");
+
+    rat.getShapeComponent().setLocation(40, 5);
+    zone.moveCreature(rat);
+    view.update(zone, window, List.of());
+    assertEquals(1, view.size(), "The rat walked out of view");
+  }
+
+  @Test
+  void testViewMoves() {
+    CountingStore store = new CountingStore();
+    Zone zone = new Zone("view", 0, 0, store, null, new RTree<>(100, 40));
+    item(store, zone, 1, 5, 5);
+    item(store, zone, 2, 20 + ZoneView.MARGIN + 2, 5);
+    ZoneView view = new ZoneView(new JVectorPane(), store);
+
+    view.update(zone, new Rectangle(0, 0, 20, 20), List.of());
+    assertEquals(1, view.size());
+    view.update(zone, new Rectangle(1, 0, 20, 20), List.of());
+    assertEquals(1, view.size(), "Still within the margin");
+    view.update(zone, new Rectangle(ZoneView.MARGIN + 1, 0, 20, 20), List.of());
+    assertEquals(2, view.size(), "Looked up again");
+
+    Zone other = new Zone("other", 0, 1, store, null, new RTree<>(100, 40));
+    view.update(other, new Rectangle(ZoneView.MARGIN + 1, 0, 20, 20), List.of());
+    assertEquals(0, view.size());
+  }
+
+  private static Creature creature(MemoryUIDStore store, Zone zone, long uid, int x, int y) {
+    Creature creature = new Creature("zone-view-rat", uid, SPECIES);
+    creature.getShapeComponent().setLocation(x, y);
+    store.addEntity(creature);
+    zone.addCreature(creature);
+    return creature;
+  }
+
+  private static Item item(MemoryUIDStore store, Zone zone, long uid, int x, int y) {
+    Item item = new Item(uid, RESOURCE);
+    item.getShapeComponent().setLocation(x, y);
+    store.addEntity(item);
+    zone.addItem(item);
+    return item;
+  }
+
+  private static final class CountingStore extends MemoryUIDStore {
+    private int reads;
+
+    @Override
+    public Entity readEntity(long uid) {
+      reads++;
+      return super.readEntity(uid);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package neon.ui.graphics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import neon.test.PerformanceHarness;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link JVectorPane}, painting into images without a screen. */
+class JVectorPaneTest {
+  private static final int WIDTH = 40 * JVectorPane.DEFAULT_ZOOM;
+  private static final int HEIGHT = 30 * JVectorPane.DEFAULT_ZOOM;
+  private static final String[] TEXTS = {"g", "k", "r", "@", "!", "+"};
+  private static final Color[] COLORS = {Color.green, Color.red, Color.yellow, Color.cyan};
+
+  @Test
+  void testSameAsFullRepaint() {
+    Random random = new Random(11);
+    List<Renderable> renderables = createScene(random, 300);
+    Point camera = new Point(50, 50);
+    JVectorPane pane = createPane();
+
+    for (int frame = 0; frame < 40; frame++) {
+      // creatures walk around, now and then one leaves and another arrives
+      for (int i = 0; i < 5; i++) {
+        DefaultRenderable walker = (DefaultRenderable) renderables.get(1 + random.nextInt(300));
+        walker.setX(walker.getX() + random.nextInt(3) - 1);
+        walker.setY(walker.getY() + random.nextInt(3) - 1);
+      }
+      if (frame % 4 == 0) {
+        renderables.remove(1 + random.nextInt(renderables.size() - 1));
+        renderables.add(createRenderable(random));
+      }
+      if (frame % 3 == 0) {
+        camera.translate(random.nextInt(3) - 1, random.nextInt(3) - 1);
+      }
+      if (frame == 20) {
+        camera.translate(45, 0);
+      }
+
+      pane.updateCamera(camera);
+      pane.setRenderables(renderables);
+      BufferedImage actual = paint(pane);
+      JVectorPane fresh = createPane();
+      fresh.updateCamera(camera);
+      fresh.setRenderables(renderables);
+      assertPixelsEqual(paint(fresh), actual, frame);
+    }
+  }
+
+  @Test
+  void testChangedArea() {
+    Random random = new Random(7);
+    List<Renderable> renderables = createScene(random, 50);
+    DefaultRenderable walker = new DefaultRenderable(52, 48, 5, 1, 1, "@", Color.white);
+    renderables.add(walker);
+    JVectorPane pane = createPane();
+    pane.updateCamera(new Point(50, 50));
+    pane.setRenderables(renderables);
+    assertEquals(new Rectangle(WIDTH, HEIGHT), pane.getChangedArea(), "Nothing painted yet");
+    paint(pane);
+
+    pane.setRenderables(renderables);
+    assertTrue(pane.getChangedArea().isEmpty(), "Nothing changed");
+
+    walker.setX(53);
+    pane.setRenderables(renderables);
+    Rectangle area = pane.getChangedArea();
+    int zoom = JVectorPane.DEFAULT_ZOOM;
+    Rectangle walked = new Rectangle(WIDTH / 2 + 2 * zoom, HEIGHT / 2 - 2 * zoom, 2 * zoom, zoom);
+    assertTrue(area.contains(walked), area + " contains " + walked);
+    assertTrue(area.width * area.height <= 16 * zoom * zoom, "Only around the walker");
+    paint(pane);
+
+    pane.updateCamera(new Point(51, 50));
+    assertEquals(new Rectangle(WIDTH, HEIGHT), pane.getChangedArea(), "Everything scrolls");
+  }
+
+  @Test
+  void testPerformance() {
+    Random random = new Random(3);
+    List<Renderable> renderables = createScene(random, 2000);
+    DefaultRenderable walker = (DefaultRenderable) renderables.get(1);
+    Point camera = new Point(50, 50);
+    JVectorPane pane = createPane();
+    pane.updateCamera(camera);
+    BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    int frames = 200;
+
+    // one creature walks back and forth while the rest of the screen stays the same
+    Runnable full =
+        () -> {
+          for (int frame = 0; frame < frames; frame++) {
+            walker.setX(45 + frame % 10);
+            pane.setRenderables(renderables);
+            pane.markDirty();
+            paintInto(pane, screen);
+          }
+        };
+    Runnable dirty =
+        () -> {
+          for (int frame = 0; frame < frames; frame++) {
+            walker.setX(45 + frame % 10);
+            pane.setRenderables(renderables);
+            paintInto(pane, screen);
+          }
+        };
+    full.run();
+    dirty.run();
+
+    long fullTime = PerformanceHarness.measure(full).getDurationNanos();
+    long dirtyTime = PerformanceHarness.measure(dirty).getDurationNanos();
+    System.out.printf(
+        "[PERF] %d renderables, %dx%d pixels: %s per frame painting everything, "
+            + "%s painting dirty areas%n",
+        renderables.size(),
+        WIDTH,
+        HEIGHT,
+        PerformanceHarness.formatDuration(fullTime / frames),
+        PerformanceHarness.formatDuration(dirtyTime / frames));
+    assertTrue(dirtyTime < fullTime, "Painting dirty areas is faster than painting everything");
+  }
+
+  private static JVectorPane createPane() {
+    JVectorPane pane = new JVectorPane();
+    pane.setSize(WIDTH, HEIGHT);
+    return pane;
+  }
+
+  /** A floor with renderables scattered over it, at different z-orders. */
+  private static List<Renderable> createScene(Random random, int count) {
+    List<Renderable> renderables = new ArrayList<>();
+    renderables.add(new DefaultRenderable(0, 0, 0, 100, 100, ".", Color.gray));
+    for (int i = 0; i < count; i++) {
+      renderables.add(createRenderable(random));
+    }
+    return renderables;
+  }
+
+  private static DefaultRenderable createRenderable(Random random) {
+    return new DefaultRenderable(
+        random.nextInt(100),
+        random.nextInt(100),
+        1 + random.nextInt(3),
+        1,
+        1,
+        TEXTS[random.nextInt(TEXTS.length)],
+        COLORS[random.nextInt(COLORS.length)]);
+  }
+
+  private static BufferedImage paint(JVectorPane pane) {
+    BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    paintInto(pane, image);
+    return image;
+  }
+
+  private static void paintInto(JVectorPane pane, BufferedImage image) {
+    Graphics2D g = image.createGraphics();
+    g.setClip(0, 0, WIDTH, HEIGHT);
+    pane.paintComponent(g);
+    g.dispose();
+  }
+
+  private static void assertPixelsEqual(BufferedImage expected, BufferedImage actual, int frame) {
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+          fail("Frame " + frame + ": pixel " + x + "," + y + " differs");
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package neon.ui.graphics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link RenderList}. */
+class RenderListTest {
+
+  @Test
+  void testOrder() {
+    RenderList list = new RenderList();
+    DefaultRenderable a = renderable(0, 0, 5);
+    DefaultRenderable b = renderable(1, 0, 1);
+    DefaultRenderable c = renderable(2, 0, 5);
+    DefaultRenderable d = renderable(3, 0, 3);
+    list.add(a);
+    list.add(b);
+    list.add(c);
+    list.add(d);
+    assertFalse(list.add(a));
+    assertEquals(List.of(b, d, a, c), toList(list));
+
+    assertTrue(list.remove(d));
+    assertFalse(list.contains(d));
+    assertEquals(List.of(b, a, c), toList(list));
+    assertEquals(3, list.size());
+  }
+
+  @Test
+  void testUpdate() {
+    RenderList list = new RenderList();
+    DefaultRenderable still = renderable(0, 0, 1);
+    DefaultRenderable moving = renderable(5, 5, 1);
+    DefaultRenderable leaving = renderable(9, 9, 1);
+    List<Rectangle> changed = new ArrayList<>();
+    list.update(List.of(still, moving, leaving), changed::add);
+    assertEquals(3, changed.size(), "Everything is new");
+
+    changed.clear();
+    list.update(List.of(still, moving, leaving), changed::add);
+    assertEquals(List.of(), changed, "Nothing changed");
+
+    moving.setX(6);
+    DefaultRenderable coming = renderable(2, 3, 1);
+    list.update(List.of(coming, still, moving, still), changed::add);
+    assertEquals(
+        List.of(
+            new Rectangle(2, 3, 1, 1),
+            new Rectangle(5, 5, 1, 1),
+            new Rectangle(6, 5, 1, 1),
+            new Rectangle(9, 9, 1, 1)),
+        changed);
+    assertEquals(List.of(still, moving, coming), toList(list));
+
+    // a new z-order moves a renderable in the list
+    changed.clear();
+    still.setZ(2);
+    list.update(List.of(coming, still, moving), changed::add);
+    assertEquals(List.of(new Rectangle(0, 0, 1, 1)), changed);
+    assertEquals(List.of(moving, coming, still), toList(list));
+  }
+
+  @Test
+  void testUpdateOne() {
+    RenderList list = new RenderList();
+    DefaultRenderable still = renderable(0, 0, 1);
+    DefaultRenderable moving = renderable(5, 5, 1);
+    List<Rectangle> changed = new ArrayList<>();
+    list.update(List.of(still, moving), changed::add);
+
+    changed.clear();
+    moving.setY(6);
+    list.update(moving, changed::add);
+    assertEquals(List.of(new Rectangle(5, 5, 1, 1), new Rectangle(5, 6, 1, 1)), changed);
+    assertEquals(List.of(still, moving), toList(list), "The others stay");
+
+    changed.clear();
+    DefaultRenderable coming = renderable(3, 3, 0);
+    list.update(coming, changed::add);
+    assertTrue(list.remove(still, changed::add));
+    assertFalse(list.remove(still, changed::add));
+    assertEquals(List.of(new Rectangle(3, 3, 1, 1), new Rectangle(0, 0, 1, 1)), changed);
+    assertEquals(List.of(coming, moving), toList(list));
+  }
+
+  @Test
+  void testAppearance() {
+    RenderList list = new RenderList();
+    int[] state = {0};
+    DefaultRenderable door =
+        new DefaultRenderable(4, 4, 1, 1, 1, "+", Color.white) {
+          @Override
+          public int getAppearance() {
+            return state[0];
+          }
+        };
+    list.add(door);
+    List<Rectangle> changed = new ArrayList<>();
+    list.update(List.of(door), changed::add);
+    assertEquals(List.of(), changed);
+    state[0] = 1;
+    list.update(List.of(door), changed::add);
+    assertEquals(List.of(new Rectangle(4, 4, 1, 1)), changed);
+  }
+
+  private static DefaultRenderable renderable(int x, int y, int z) {
+    return new DefaultRenderable(x, y, z, 1, 1, "x", Color.white);
+  }
+
+  private static List<Renderable> toList(RenderList list) {
+    List<Renderable> renderables = new ArrayList<>();
+    list.forEach(renderables::add);
+    return renderables;
+  }
+}
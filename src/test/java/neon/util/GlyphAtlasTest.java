@@ -0,0 +1,71 @@
+package neon.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link GlyphAtlas}. */
+class GlyphAtlasTest {
+
+  @Test
+  void testSameGlyphSameNumber() {
+    GlyphAtlas atlas = GlyphAtlas.getAtlas(11);
+    int wall = atlas.getGlyph("#", Color.white, Font.PLAIN);
+    assertEquals(wall, atlas.getGlyph("#", new Color(255, 255, 255), Font.PLAIN));
+    assertNotEquals(wall, atlas.getGlyph("#", Color.red, Font.PLAIN));
+    assertNotEquals(wall, atlas.getGlyph("#", Color.white, Font.BOLD));
+    assertSame(atlas, GlyphAtlas.getAtlas(11));
+  }
+
+  @Test
+  void testWithoutColor() {
+    GlyphAtlas atlas = GlyphAtlas.getAtlas(12);
+    int white = atlas.getGlyph("~", Color.white, Font.PLAIN);
+    assertEquals(white, atlas.getGlyph("~", null, Font.PLAIN));
+    assertEquals(white, atlas.getGlyph("~", ColorFactory.getColor("no such color"), Font.PLAIN));
+  }
+
+  @Test
+  void testGlyphsKeepTheirPlace() {
+    GlyphAtlas atlas = GlyphAtlas.getAtlas(13);
+    int first = atlas.getGlyph("@", Color.yellow, Font.PLAIN);
+    BufferedImage before = draw(atlas, first);
+
+    // enough glyphs to make the sheet grow
+    for (char c = 'a'; c <= 'z'; c++) {
+      for (Color color : new Color[] {Color.red, Color.green, Color.blue}) {
+        atlas.getGlyph(String.valueOf(c), color, Font.PLAIN);
+      }
+    }
+    assertTrue(atlas.getCount() > 64);
+    BufferedImage after = draw(atlas, first);
+    BufferedImage texture = (BufferedImage) TextureFactory.getImage("@", 13, Color.yellow);
+    for (int x = 0; x < 13; x++) {
+      for (int y = 0; y < 13; y++) {
+        assertEquals(before.getRGB(x, y), after.getRGB(x, y));
+        assertEquals(texture.getRGB(x, y), after.getRGB(x, y), "Drawn like a texture");
+      }
+    }
+  }
+
+  @Test
+  void testOnlyRecentSizesAreKept() {
+    GlyphAtlas atlas = GlyphAtlas.getAtlas(101);
+    for (int size = 102; size <= 101 + GlyphAtlas.CACHE_SIZE; size++) {
+      GlyphAtlas.getAtlas(size);
+    }
+    assertNotSame(atlas, GlyphAtlas.getAtlas(101), "Dropped after the other sizes were used");
+  }
+
+  private static BufferedImage draw(GlyphAtlas atlas, int glyph) {
+    BufferedImage image = new BufferedImage(13, 13, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = image.createGraphics();
+    atlas.draw(g, glyph, 0, 0);
+    g.dispose();
+    return image;
+  }
+}
@@ -0,0 +1,52 @@
+package neon.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link LongIntMap}. */
+class LongIntMapTest {
+
+  @Test
+  void testPutAndAdd() {
+    LongIntMap map = new LongIntMap();
+    assertTrue(map.isEmpty());
+    assertEquals(-1, map.getOrDefault(5, -1));
+
+    map.put(5, 10);
+    map.put(-5, 20);
+    assertEquals(10, map.getOrDefault(5, 0));
+    assertEquals(20, map.getOrDefault(-5, 0));
+    assertEquals(15, map.add(5, 5));
+    assertEquals(-3, map.add(7, -3), "A missing key counts as 0");
+    assertEquals(3, map.size());
+
+    assertTrue(map.remove(5));
+    assertFalse(map.remove(5));
+    assertFalse(map.containsKey(5));
+    assertEquals(2, map.size());
+  }
+
+  @Test
+  void testSameAsHashMap() {
+    LongIntMap map = new LongIntMap();
+    HashMap<Long, Integer> expected = new HashMap<>();
+    Random random = new Random(3);
+    for (int i = 0; i < 20_000; i++) {
+      long key = random.nextInt(500) - 250L;
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key) != null, map.remove(key));
+      } else {
+        int value = random.nextInt();
+        expected.put(key, value);
+        map.put(key, value);
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    for (long key = -250; key < 250; key++) {
+      assertEquals(expected.getOrDefault(key, 0), map.getOrDefault(key, 0), "key " + key);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package neon.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.TexturePaint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import neon.resources.RCreature;
+import neon.resources.RData;
+import neon.resources.RTerrain;
+import neon.test.PerformanceHarness;
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link TextureFactory}. */
+class TextureFactoryTest {
+
+  @Test
+  void testSameTextureForSameGlyph() {
+    TexturePaint wall = TextureFactory.getTexture("#", 17, Color.white, Font.PLAIN);
+    assertSame(wall, TextureFactory.getTexture("#", 17, new Color(255, 255, 255)));
+    assertSame(wall, TextureFactory.getTexture("#", 17, "white"));
+    assertSame(wall.getImage(), TextureFactory.getImage("#", 17, Color.white));
+    assertNotSame(wall, TextureFactory.getTexture("#", 17, Color.red));
+    assertNotSame(wall, TextureFactory.getTexture("#", 17, Color.white, Font.BOLD));
+    assertNotSame(wall, TextureFactory.getTexture("#", 18, Color.white));
+    assertNotSame(wall, TextureFactory.getTexture("+", 17, Color.white));
+    assertThrows(IllegalArgumentException.class, () -> TextureFactory.getTexture("##", 17, "red"));
+  }
+
+  @Test
+  void testBudget() {
+    long budget = TextureFactory.getBudget();
+    try {
+      TextureFactory.setBudget(10 * 20 * 20);
+      TexturePaint used = TextureFactory.getTexture("@", 20, Color.yellow);
+      TexturePaint unused = TextureFactory.getTexture("@", 20, Color.orange);
+      for (char c = 'a'; c <= 'z'; c++) {
+        assertSame(used, TextureFactory.getTexture("@", 20, Color.yellow), "Used most recently");
+        TextureFactory.getTexture(String.valueOf(c), 20, Color.green);
+        assertTrue(TextureFactory.getPixels() <= 10 * 20 * 20);
+      }
+      assertEquals(10, TextureFactory.size());
+      assertSame(used, TextureFactory.getTexture("@", 20, Color.yellow));
+      assertNotSame(unused, TextureFactory.getTexture("@", 20, Color.orange), "Drawn again");
+    } finally {
+      TextureFactory.setBudget(budget);
+    }
+  }
+
+  @Test
+  void testPrewarm() {
+    RTerrain water = new RTerrain("prewarm-water");
+    water.text = "~";
+    water.color = "blue";
+    RCreature rat = new RCreature("prewarm-rat");
+    rat.text = "r";
+    rat.color = "brown";
+    rat.size = RCreature.Size.tiny;
+    RCreature dragon = new RCreature("prewarm-dragon");
+    dragon.text = "D";
+    dragon.color = "red";
+    dragon.size = RCreature.Size.huge;
+
+    TextureFactory.resetCounters();
+    TextureFactory.prewarm(List.<RData>of(water, rat, dragon), 15);
+    assertEquals(3, TextureFactory.getMisses());
+    TextureFactory.getTexture("~", 15, "blue");
+    TextureFactory.getImage("r", 10, ColorFactory.getColor("brown"));
+    TextureFactory.getImage("D", 22, ColorFactory.getColor("red"));
+    assertEquals(3, TextureFactory.getHits(), "Drawn in the sizes they are used in");
+    assertEquals(3, TextureFactory.getMisses());
+  }
+
+  @Test
+  void testWithoutColor() {
+    TexturePaint white = TextureFactory.getTexture("?", 19, Color.white);
+    assertSame(white, TextureFactory.getTexture("?", 19, "no such color"));
+    assertSame(white, TextureFactory.getTexture("?", 19, (String) null));
+
+    RCreature ghost = new RCreature("prewarm-ghost");
+    ghost.text = "G";
+    ghost.color = null;
+    TextureFactory.prewarm(List.of(ghost), 19);
+    TextureFactory.resetCounters();
+    TextureFactory.getTexture("G", 19, Color.white);
+    assertEquals(1, TextureFactory.getHits(), "Drawn in white");
+  }
+
+  @Test
+  void testConcurrentUse() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    ConcurrentHashMap<String, TexturePaint> seen = new ConcurrentHashMap<>();
+    List<Future<?>> tasks = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      tasks.add(
+          executor.submit(
+              () -> {
+                for (int i = 0; i < 500; i++) {
+                  String text = String.valueOf((char) ('A' + i % 26));
+                  TexturePaint texture = TextureFactory.getTexture(text, 23, Color.cyan);
+                  assertSame(seen.computeIfAbsent(text, key -> texture), texture);
+                }
+              }));
+    }
+    for (Future<?> task : tasks) {
+      task.get();
+    }
+    executor.shutdown();
+    assertEquals(26, seen.size());
+  }
+
+  @Test
+  void testPerformance() {
+    // the way textures were looked up before, with a string for every lookup
+    HashMap<Integer, HashMap<String, TexturePaint>> strings = new HashMap<>();
+    String[] texts = {".", "#", "~", "\"", "+", "@", "r", "g"};
+    Color[] colors = {Color.gray, Color.white, Color.blue, Color.green};
+    int lookups = 200_000;
+    Runnable before =
+        () -> {
+          for (int i = 0; i < lookups; i++) {
+            String text = texts[i % texts.length];
+            Color color = colors[i % colors.length];
+            String type = text + color + Font.PLAIN;
+            strings
+                .computeIfAbsent(14, size -> new HashMap<>())
+                .computeIfAbsent(type, key -> TextureFactory.getTexture(text, 14, color));
+          }
+        };
+    Runnable after =
+        () -> {
+          for (int i = 0; i < lookups; i++) {
+            TextureFactory.getTexture(texts[i % texts.length], 14, colors[i % colors.length]);
+          }
+        };
+    before.run();
+    after.run();
+
+    long beforeTime = PerformanceHarness.measure(before).getDurationNanos();
+    long afterTime = PerformanceHarness.measure(after).getDurationNanos();
+    System.out.printf(
+        "[PERF] %d texture lookups: %s with string keys, %s with packed keys%n",
+        lookups,
+        PerformanceHarness.formatDuration(beforeTime),
+        PerformanceHarness.formatDuration(afterTime));
+    assertTrue(afterTime < beforeTime, "Packed keys are faster than building strings");
+  }
+}
@@ -0,0 +1,103 @@
+package neon.util.spatial;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link HashGridIndex}.
+ *
+ * <p>Window queries are compared with a brute force scan over the stored positions, while uids
+ * keep moving between cells.
+ */
+class HashGridIndexTest {
+
+  @Test
+  void testInsertMoveAndRemove() {
+    HashGridIndex index = new HashGridIndex();
+    index.insert(1L, 5, 5);
+    index.insert(2L, 5, 5);
+    index.insert(3L, 40, 40);
+
+    assertEquals(List.of(1L, 2L), index.getElements(new Point(5, 5)));
+    assertTrue(index.move(1L, 41, 40));
+    assertEquals(List.of(2L), index.getElements(new Point(5, 5)));
+    assertEquals(List.of(1L), index.getElements(new Point(41, 40)));
+    assertFalse(index.move(9L, 0, 0), "Unknown uids are not added by a move");
+
+    index.remove(2L);
+    assertFalse(index.contains(2L));
+    assertTrue(index.getElements(new Point(5, 5)).isEmpty());
+    assertEquals(2, index.size());
+  }
+
+  @Test
+  void testGetElementsKeepsInsertionOrder() {
+    HashGridIndex index = new HashGridIndex();
+    index.insert(5L, new Rectangle(100, 0, 1, 1));
+    index.insert(3L, new Rectangle(0, 0, 1, 1));
+    index.insert(4L, new Rectangle(-50, 20, 1, 1));
+    index.move(5L, 3, 3);
+    index.remove(3L);
+    index.insert(3L, 7, 7);
+
+    assertEquals(List.of(5L, 4L, 3L), index.getElements());
+  }
+
+  @Test
+  void testWindowQueriesMatchBruteForce() {
+    HashGridIndex index = new HashGridIndex();
+    Map<Long, Point> positions = new HashMap<>();
+    Random random = new Random(11);
+    for (long uid = 0; uid < 2000; uid++) {
+      Point p = new Point(random.nextInt(300) - 50, random.nextInt(300) - 50);
+      index.insert(uid, p.x, p.y);
+      positions.put(uid, p);
+    }
+
+    for (int round = 0; round < 200; round++) {
+      // let a part of the uids wander around
+      for (int i = 0; i < 100; i++) {
+        long uid = random.nextInt(2000);
+        Point p = positions.get(uid);
+        p.translate(random.nextInt(3) - 1, random.nextInt(3) - 1);
+        index.move(uid, p.x, p.y);
+      }
+
+      Rectangle window =
+          new Rectangle(
+              random.nextInt(400) - 100,
+              random.nextInt(400) - 100,
+              random.nextInt(round < 190 ? 40 : 400),
+              random.nextInt(round < 190 ? 40 : 400));
+      Set<Long> expected = new HashSet<>();
+      positions.forEach(
+          (uid, p) -> {
+            if (window.contains(p)) {
+              expected.add(uid);
+            }
+          });
+      List<Long> found = index.getElements(window);
+      assertEquals(expected.size(), found.size(), "window " + window);
+      assertEquals(expected, new HashSet<>(found), "window " + window);
+    }
+  }
+
+  @Test
+  void testEmptyWindowsMatchNothing() {
+    HashGridIndex index = new HashGridIndex();
+    index.insert(1L, 0, 0);
+
+    assertTrue(index.getElements(new Rectangle(0, 0, 0, 1)).isEmpty());
+    assertTrue(index.getElements(new Rectangle(0, 0, 1, 0)).isEmpty());
+    assertEquals(List.of(1L), index.getElements(new Rectangle(0, 0, 1, 1)));
+  }
+}
@@ -0,0 +1,113 @@
+package neon.util.spatial;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link LongGridIndex}.
+ *
+ * <p>Window queries are compared with a brute force scan over the inserted positions, including
+ * windows that cross chunk borders, negative coordinates and windows larger than the whole index.
+ */
+class LongGridIndexTest {
+
+  @Test
+  void testPointQueriesKeepInsertionOrder() {
+    LongGridIndex index = new LongGridIndex();
+    index.insert(3L, new Rectangle(5, 5, 1, 1));
+    index.insert(1L, new Rectangle(5, 5, 1, 1));
+    index.insert(2L, new Rectangle(5, 5, 1, 1));
+    index.insert(4L, new Rectangle(6, 5, 1, 1));
+
+    assertEquals(List.of(3L, 1L, 2L), index.getElements(new Point(5, 5)));
+    assertEquals(3, index.count(5, 5));
+    assertEquals(0, index.count(7, 7));
+
+    index.remove(1L);
+    assertEquals(List.of(3L, 2L), index.getElements(new Point(5, 5)));
+    assertFalse(index.contains(1L));
+    assertTrue(index.contains(4L));
+  }
+
+  @Test
+  void testMultiCellInsertAndRemove() {
+    LongGridIndex index = new LongGridIndex();
+    index.insert(7L, new Rectangle(30, 30, 4, 4));
+
+    assertEquals(16, index.getElements(new Rectangle(0, 0, 100, 100)).size());
+    assertEquals(4, index.getElements(new Rectangle(32, 32, 10, 10)).size());
+    assertEquals(16, index.size());
+
+    index.remove(7L);
+    assertEquals(0, index.size());
+    assertTrue(index.getElements().isEmpty());
+    assertTrue(index.getElements(new Rectangle(0, 0, 100, 100)).isEmpty());
+  }
+
+  @Test
+  void testWindowQueriesMatchBruteForce() {
+    LongGridIndex index = new LongGridIndex();
+    Map<Long, Point> positions = new HashMap<>();
+    Random random = new Random(5);
+    for (long uid = 0; uid < 5000; uid++) {
+      Point p = new Point(random.nextInt(400) - 100, random.nextInt(400) - 100);
+      index.insert(uid, p.x, p.y);
+      positions.put(uid, p);
+    }
+    for (long uid = 0; uid < 5000; uid += 3) {
+      index.remove(uid);
+      positions.remove(uid);
+    }
+
+    for (int q = 0; q < 200; q++) {
+      Rectangle window =
+          new Rectangle(
+              random.nextInt(500) - 150,
+              random.nextInt(500) - 150,
+              random.nextInt(80),
+              random.nextInt(80));
+      assertWindow(index, positions, window);
+    }
+    assertWindow(index, positions, new Rectangle(-100_000, -100_000, 200_000, 200_000));
+    assertEquals(positions.size(), index.getElements().size());
+    assertEquals(positions.size(), index.size());
+  }
+
+  @Test
+  void testWidthAndHeight() {
+    LongGridIndex index = new LongGridIndex();
+    assertEquals(0, index.getWidth());
+
+    index.insert(1L, new Rectangle(12, 40, 1, 1));
+    index.insert(2L, new Rectangle(80, 3, 1, 1));
+    assertEquals(80, index.getWidth());
+    assertEquals(40, index.getHeight());
+
+    index.clear();
+    assertEquals(0, index.getHeight());
+    assertFalse(index.contains(1L));
+  }
+
+  private static void assertWindow(
+      LongGridIndex index, Map<Long, Point> positions, Rectangle window) {
+    List<Long> expected = new ArrayList<>();
+    positions.forEach(
+        (uid, p) -> {
+          if (window.contains(p)) {
+            expected.add(uid);
+          }
+        });
+    List<Long> found = index.getElements(window);
+    expected.sort(Long::compare);
+    found.sort(Long::compare);
+    assertEquals(expected, found, "window " + window);
+  }
+}
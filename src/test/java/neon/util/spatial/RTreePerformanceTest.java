@@ -0,0 +1,185 @@
+package neon.util.spatial;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import neon.test.MapDbTestHelper;
+import neon.test.PerformanceHarness;
+import neon.util.mapstorage.MapStore;
+import org.h2.mvstore.type.StringDataType;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Performance tests for removing and moving objects in an {@link RTree}.
+ *
+ * <p>Both operations find the object through the reverse index, so their cost per call should stay
+ * flat when the tree grows from 1k to 100k regions, also when the tree is cached in a map store.
+ * The timings only run with the {@code benchmark} profile, a loaded machine makes them unreliable.
+ */
+class RTreePerformanceTest {
+  private static final int OPERATIONS = 500;
+
+  @Test
+  @Tag("benchmark")
+  void testRemoveCostStaysFlat() throws Exception {
+    // warm up the JIT, so the smallest tree is not measured cold
+    measureRemove(10_000);
+
+    long small = measureRemove(1_000);
+    long medium = measureRemove(10_000);
+    long large = measureRemove(100_000);
+
+    System.out.printf(
+        "[PERF] RTree remove per object: 1k=%s, 10k=%s, 100k=%s%n",
+        PerformanceHarness.formatDuration(small),
+        PerformanceHarness.formatDuration(medium),
+        PerformanceHarness.formatDuration(large));
+
+    // a linear scan would be 100 times slower at 100k
+    assertTrue(large < Math.max(small, 1_000) * 20, "Remove should not scale with tree size");
+  }
+
+  @Test
+  @Tag("benchmark")
+  void testMoveCostStaysFlat() throws Exception {
+    measureMove(10_000);
+
+    long small = measureMove(1_000);
+    long medium = measureMove(10_000);
+    long large = measureMove(100_000);
+
+    System.out.printf(
+        "[PERF] RTree move per object: 1k=%s, 10k=%s, 100k=%s%n",
+        PerformanceHarness.formatDuration(small),
+        PerformanceHarness.formatDuration(medium),
+        PerformanceHarness.formatDuration(large));
+
+    assertTrue(large < Math.max(small, 1_000) * 20, "Move should not scale with tree size");
+  }
+
+  @Test
+  @Tag("benchmark")
+  void testCachedMoveCostStaysFlat() throws Exception {
+    measureCachedMove(10_000);
+
+    long small = measureCachedMove(1_000);
+    long medium = measureCachedMove(10_000);
+    long large = measureCachedMove(100_000);
+
+    System.out.printf(
+        "[PERF] Cached RTree move per object: 1k=%s, 10k=%s, 100k=%s%n",
+        PerformanceHarness.formatDuration(small),
+        PerformanceHarness.formatDuration(medium),
+        PerformanceHarness.formatDuration(large));
+
+    assertTrue(large < Math.max(small, 1_000) * 20, "Move should not scale with tree size");
+  }
+
+  @Test
+  void testMoveKeepsQueriesCorrect() {
+    RTree<Object> tree = new RTree<>(100, 40);
+    List<Object> objects = fill(tree, 5_000);
+
+    Object object = objects.get(1234);
+    tree.move(new Rectangle(5000, 5000, 2, 2), object);
+    assertEquals(List.of(object), tree.getElements(new Rectangle(5000, 5000, 1, 1)));
+
+    tree.move(new Rectangle(5001, 5000, 2, 2), object);
+    assertEquals(List.of(object), tree.getElements(new Rectangle(5002, 5000, 1, 1)));
+    assertTrue(tree.getElements(new Rectangle(5000, 5000, 1, 1)).isEmpty());
+    assertEquals(5_000, tree.size());
+
+    assertThrows(
+        IllegalArgumentException.class, () -> tree.move(new Rectangle(0, 0, 1, 1), new Object()));
+  }
+
+  /**
+   * @return the average time to remove one object from a tree of the given size, in nanoseconds
+   */
+  private static long measureRemove(int size) {
+    RTree<Object> tree = new RTree<>(100, 40);
+    List<Object> objects = fill(tree, size);
+    // the reverse index is built by the first lookup, keep that out of the measurement
+    tree.remove(objects.get(size - 1));
+    PerformanceHarness.MeasuredResult<Void> result =
+        PerformanceHarness.measure(
+            () -> {
+              for (int i = 0; i < OPERATIONS; i++) {
+                tree.remove(objects.get(i * (size / OPERATIONS)));
+              }
+            });
+    assertEquals(size - OPERATIONS - 1, tree.size());
+    return result.getDurationNanos() / OPERATIONS;
+  }
+
+  /**
+   * @return the average time to move one object in a tree of the given size, in nanoseconds
+   */
+  private static long measureMove(int size) {
+    RTree<Object> tree = new RTree<>(100, 40);
+    List<Object> objects = fill(tree, size);
+    Random random = new Random(size);
+    int side = (int) Math.sqrt(size) * 10;
+    tree.move(new Rectangle(0, 0, 10, 10), objects.get(0));
+    PerformanceHarness.MeasuredResult<Void> result =
+        PerformanceHarness.measure(
+            () -> {
+              for (int i = 0; i < OPERATIONS; i++) {
+                Rectangle box = new Rectangle(random.nextInt(side), random.nextInt(side), 5, 5);
+                tree.move(box, objects.get(i * (size / OPERATIONS)));
+              }
+            });
+    assertEquals(size, tree.size());
+    return result.getDurationNanos() / OPERATIONS;
+  }
+
+  /**
+   * @return the average time to move one object in a cached tree of the given size, in
+   *     nanoseconds
+   */
+  private static long measureCachedMove(int size) throws IOException {
+    MapStore db = MapDbTestHelper.createTempFileDb();
+    try {
+      RTree<String> tree = new RTree<>(100, 40, db, "regions", StringDataType.INSTANCE);
+      List<String> objects = new ArrayList<>(size);
+      int columns = (int) Math.sqrt(size);
+      for (int i = 0; i < size; i++) {
+        String object = "region-" + i;
+        tree.insert(object, new Rectangle((i % columns) * 10, (i / columns) * 10, 10, 10));
+        objects.add(object);
+      }
+      Random random = new Random(size);
+      int side = columns * 10;
+      tree.move(new Rectangle(0, 0, 10, 10), objects.get(0));
+      PerformanceHarness.MeasuredResult<Void> result =
+          PerformanceHarness.measure(
+              () -> {
+                for (int i = 0; i < OPERATIONS; i++) {
+                  Rectangle box = new Rectangle(random.nextInt(side), random.nextInt(side), 5, 5);
+                  tree.move(box, objects.get(i * (size / OPERATIONS)));
+                }
+              });
+      assertEquals(size, tree.size());
+      return result.getDurationNanos() / OPERATIONS;
+    } finally {
+      MapDbTestHelper.cleanup(db);
+    }
+  }
+
+  /** Fills a tree with regions laid out like the tiles of a zone. */
+  private static List<Object> fill(RTree<Object> tree, int size) {
+    List<Object> objects = new ArrayList<>(size);
+    int columns = (int) Math.sqrt(size);
+    for (int i = 0; i < size; i++) {
+      Object object = new Object();
+      tree.insert(object, new Rectangle((i % columns) * 10, (i / columns) * 10, 10, 10));
+      objects.add(object);
+    }
+    return objects;
+  }
+}
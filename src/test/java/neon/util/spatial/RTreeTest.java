@@ -0,0 +1,234 @@
+package neon.util.spatial;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import neon.test.MapDbTestHelper;
+import neon.util.mapstorage.MapStore;
+import org.h2.mvstore.type.StringDataType;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the R*-tree node logic behind {@link RTree}.
+ *
+ * <p>Query results are compared with a brute force scan over the same boxes, after inserts that
+ * force splits and reinserts, after removals that condense the tree, and after bulk loading.
+ */
+class RTreeTest {
+
+  @Test
+  void testQueriesMatchBruteForceAfterSplits() {
+    RTree<String> tree = new RTree<>(10, 4);
+    Map<String, Rectangle> boxes = fill(tree, 2000, new Random(42));
+
+    assertEquals(2000, tree.size());
+    assertQueriesMatch(tree, boxes, new Random(7));
+  }
+
+  @Test
+  void testQueriesMatchBruteForceAfterRemovals() {
+    RTree<String> tree = new RTree<>(10, 4);
+    Map<String, Rectangle> boxes = fill(tree, 2000, new Random(42));
+
+    List<String> keys = new ArrayList<>(boxes.keySet());
+    for (int i = 0; i < keys.size(); i += 2) {
+      tree.remove(keys.get(i));
+      boxes.remove(keys.get(i));
+    }
+
+    assertEquals(1000, tree.size());
+    assertQueriesMatch(tree, boxes, new Random(8));
+  }
+
+  @Test
+  void testRemoveAllLeavesEmptyTree() {
+    RTree<String> tree = new RTree<>(10, 4);
+    Map<String, Rectangle> boxes = fill(tree, 500, new Random(1));
+
+    for (String key : boxes.keySet()) {
+      tree.remove(key);
+    }
+
+    assertEquals(0, tree.size());
+    assertEquals(0, tree.getWidth());
+    assertTrue(tree.getElements(new Rectangle(-100, -100, 2000, 2000)).isEmpty());
+
+    tree.insert("again", new Rectangle(3, 4, 5, 6));
+    assertEquals(List.of("again"), tree.getElements(new Point(4, 5)));
+  }
+
+  @Test
+  void testBulkLoadedTreeMatchesBruteForce() throws IOException {
+    MapStore db = MapDbTestHelper.createTempFileDb();
+    try {
+      RTree<String> tree = new RTree<>(10, 4, db, "bulk", StringDataType.INSTANCE);
+      Map<String, Rectangle> boxes = fill(tree, 3000, new Random(3));
+      db.commit();
+
+      RTree<String> reopened = new RTree<>(10, 4, db, "bulk", StringDataType.INSTANCE);
+      assertEquals(3000, reopened.size());
+      assertEquals(tree.getWidth(), reopened.getWidth());
+      assertEquals(tree.getHeight(), reopened.getHeight());
+      assertQueriesMatch(reopened, boxes, new Random(9));
+
+      // the bulk loaded tree keeps working with the dynamic algorithms
+      List<String> stored = new ArrayList<>(reopened.getElements());
+      for (int i = 0; i < 1500; i++) {
+        reopened.remove(stored.get(i));
+        boxes.remove(stored.get(i));
+      }
+      boxes.putAll(fill(reopened, 500, new Random(4)));
+      assertQueriesMatch(reopened, boxes, new Random(10));
+    } finally {
+      MapDbTestHelper.cleanup(db);
+    }
+  }
+
+  @Test
+  void testVisitPassesIndices() {
+    RTree<String> tree = new RTree<>(10, 4);
+    tree.insert("a", new Rectangle(0, 0, 10, 10));
+    tree.insert("b", new Rectangle(5, 5, 10, 10));
+    tree.insert("c", new Rectangle(50, 50, 10, 10));
+
+    Set<String> found = new HashSet<>();
+    tree.visit(6, 6, 1, 1, i -> found.add(tree.get(i)));
+    assertEquals(Set.of("a", "b"), found);
+
+    found.clear();
+    tree.visit(6, 6, 0, 0, i -> found.add(tree.get(i)));
+    assertTrue(found.isEmpty(), "Empty windows should not match anything");
+  }
+
+  @Test
+  void testEmptyBoxesAreNeverFound() {
+    RTree<String> tree = new RTree<>(10, 4);
+    tree.insert("empty", new Rectangle(5, 5, 0, 0));
+    tree.insert("full", new Rectangle(0, 0, 10, 10));
+
+    assertEquals(List.of("full"), tree.getElements(new Rectangle(0, 0, 10, 10)));
+  }
+
+  @Test
+  void testEqualObjectsAreFound() {
+    RTree<Long> tree = new RTree<>(10, 4);
+    for (long uid = 1000; uid < 1100; uid++) {
+      tree.insert(uid, new Rectangle((int) uid, 0, 1, 1));
+    }
+
+    // boxed again, not the instance that was inserted
+    tree.move(new Rectangle(5, 5, 1, 1), Long.valueOf(1050));
+    assertEquals(List.of(1050L), tree.getElements(new Point(5, 5)));
+    tree.remove(Long.valueOf(1050));
+    assertEquals(99, tree.size());
+    assertTrue(tree.getElements(new Point(5, 5)).isEmpty());
+  }
+
+  @Test
+  void testObjectsWithoutEqualityAreFound() {
+    RTree<Object> tree = new RTree<>(10, 4);
+    List<Object> objects = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      objects.add(new Object());
+      tree.insert(objects.get(i), new Rectangle(i, i, 1, 1));
+    }
+
+    tree.move(new Rectangle(200, 200, 1, 1), objects.get(40));
+    assertTrue(tree.getElements(new Point(40, 40)).isEmpty());
+    assertSame(objects.get(40), tree.getElements(new Point(200, 200)).get(0));
+    tree.remove(objects.get(40));
+    assertEquals(99, tree.size());
+
+    tree.remove(new Object());
+    assertEquals(99, tree.size(), "Not in the tree");
+  }
+
+  @Test
+  void testObjectsOfCachedTreesAreFound() throws IOException {
+    MapStore db = MapDbTestHelper.createTempFileDb();
+    try {
+      RTree<String> tree = new RTree<>(10, 4, db, "cached", StringDataType.INSTANCE);
+      for (int i = 0; i < 100; i++) {
+        tree.insert("region-" + i, new Rectangle(i, i, 1, 1));
+      }
+      db.commit();
+
+      // a reopened tree only hands out objects it read back
+      RTree<String> reopened = new RTree<>(10, 4, db, "cached", StringDataType.INSTANCE);
+      String found = reopened.getElements(new Point(40, 40)).get(0);
+      reopened.move(new Rectangle(200, 200, 1, 1), found);
+      assertTrue(reopened.getElements(new Point(40, 40)).isEmpty());
+      assertEquals(List.of("region-40"), reopened.getElements(new Point(200, 200)));
+
+      String other = null;
+      for (String region : reopened) {
+        if (region.equals("region-50")) {
+          other = region;
+        }
+      }
+      reopened.remove(other);
+      assertEquals(99, reopened.size());
+      assertTrue(reopened.getElements(new Point(50, 50)).isEmpty());
+
+      reopened.remove(new String("region-60"));
+      assertEquals(99, reopened.size(), "Only objects handed out by the tree are found");
+    } finally {
+      MapDbTestHelper.cleanup(db);
+    }
+  }
+
+  private static Map<String, Rectangle> fill(RTree<String> tree, int count, Random random) {
+    Map<String, Rectangle> boxes = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      String name = "item-" + random.nextLong();
+      Rectangle box =
+          new Rectangle(
+              random.nextInt(1000),
+              random.nextInt(1000),
+              1 + random.nextInt(20),
+              1 + random.nextInt(20));
+      tree.insert(name, box);
+      boxes.put(name, box);
+    }
+    return boxes;
+  }
+
+  private static void assertQueriesMatch(
+      RTree<String> tree, Map<String, Rectangle> boxes, Random random) {
+    for (int q = 0; q < 200; q++) {
+      Rectangle window =
+          new Rectangle(
+              random.nextInt(1100) - 50,
+              random.nextInt(1100) - 50,
+              random.nextInt(100),
+              random.nextInt(100));
+      Set<String> expected = new HashSet<>();
+      boxes.forEach(
+          (name, box) -> {
+            if (box.intersects(window)) {
+              expected.add(name);
+            }
+          });
+      assertEquals(expected, new HashSet<>(tree.getElements(window)), "window " + window);
+
+      Point point = new Point(random.nextInt(1000), random.nextInt(1000));
+      expected.clear();
+      boxes.forEach(
+          (name, box) -> {
+            if (box.contains(point)) {
+              expected.add(name);
+            }
+          });
+      assertEquals(expected, new HashSet<>(tree.getElements(point)), "point " + point);
+    }
+  }
+}